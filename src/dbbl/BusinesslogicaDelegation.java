@@ -5,7 +5,12 @@
  */
 package dbbl;
 
+import guimodule.AdaptiveLeitnerCard;
+
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * The {@code BusinesslogicaDelegation} interface defines the delegation
@@ -133,6 +138,72 @@ public interface BusinesslogicaDelegation {
      */
     RepoQuizeeQuestions getQuestion(String topic, int index);
 
+    /**
+     * Retrieves all questions of a topic in a single call.
+     *
+     * <p>Replaces the pattern of fetching the titles and then calling
+     * {@link #getQuestion(String, int)} per index. The default implementation
+     * still does exactly that; implementations should override it with a
+     * single pass over their storage.
+     *
+     * @param topic the title of the topic (must not be {@code null})
+     * @return the questions in topic order; never {@code null}. The list and
+     *         its elements must be treated as read-only.
+     */
+    default List<RepoQuizeeQuestions> getQuestions(String topic) {
+        List<String> titles = getQuestionTitles(topic);
+        List<RepoQuizeeQuestions> questions = new ArrayList<>(titles.size());
+        for (int i = 0; i < titles.size(); i++) {
+            RepoQuizeeQuestions q = getQuestion(topic, i);
+            if (q != null) questions.add(q);
+        }
+        return questions;
+    }
+
+    /**
+     * Retrieves one page of a topic's questions.
+     *
+     * @param topic  the title of the topic (must not be {@code null})
+     * @param offset index of the first question (0-based)
+     * @param limit  maximum number of questions to return
+     * @return at most {@code limit} questions starting at {@code offset};
+     *         empty if the offset lies beyond the end of the topic
+     */
+    default List<RepoQuizeeQuestions> getQuestions(String topic, int offset, int limit) {
+        List<RepoQuizeeQuestions> all = getQuestions(topic);
+        int from = Math.min(Math.max(0, offset), all.size());
+        int to = (int) Math.min(all.size(), (long) from + Math.max(0, limit));
+        return all.subList(from, to);
+    }
+
+    /**
+     * Streams the questions of all topics, topic by topic.
+     *
+     * <p>The stream is lazy: a topic's questions are fetched when the stream
+     * reaches that topic, so short-circuiting operations (e.g.
+     * {@code findFirst}) do not load every topic.
+     *
+     * @return a sequential stream over all questions; never {@code null}
+     */
+    default Stream<RepoQuizeeQuestions> streamAllQuestions() {
+        return getAllTopics().stream().flatMap(topic -> getQuestions(topic).stream());
+    }
+
+    /**
+     * Retrieves a question by its persistent id.
+     *
+     * <p>Unlike the index, the id ({@link RepoQuizeeQuestions#getId()}) stays
+     * stable across deletions of other questions and renames. The default
+     * implementation scans all topics.
+     *
+     * @param id the persistent question id
+     * @return the question, or {@code null} if no question has this id
+     */
+    default RepoQuizeeQuestions getQuestionById(long id) {
+        if (id <= 0) return null;
+        return streamAllQuestions().filter(q -> q.getId() == id).findFirst().orElse(null);
+    }
+
     /**
      * Persists a new question within a given topic.
      *
@@ -180,6 +251,26 @@ public interface BusinesslogicaDelegation {
      */
     void deleteQuestion(String topic, int index);
 
+    /**
+     * Deletes a question identified by its persistent id.
+     *
+     * <p>Preferred over {@link #deleteQuestion(String, int)} when the caller
+     * holds a question object, since the index may have shifted in between.
+     * The default implementation resolves the current index and delegates.
+     *
+     * @param topic the title of the topic containing the question
+     * @param id    the persistent question id
+     */
+    default void deleteQuestionById(String topic, long id) {
+        List<RepoQuizeeQuestions> questions = getQuestions(topic);
+        for (int i = 0; i < questions.size(); i++) {
+            if (questions.get(i).getId() == id) {
+                deleteQuestion(topic, i);
+                return;
+            }
+        }
+    }
+
     // ---------------------------------------------------------------------
     // PERSISTENCE LIFECYCLE
     // ---------------------------------------------------------------------
@@ -193,4 +284,13 @@ public interface BusinesslogicaDelegation {
      * with external storage.
      */
     default void saveAll() {}
+
+    /**
+     * Hands the Leitner cards touched in a finished quiz session to the
+     * persistence layer, which writes them in one batch if its backend stores
+     * cards itself (the SQL backend). No-op by default.
+     *
+     * @param cards copies of the touched cards
+     */
+    default void syncLeitnerCards(Collection<AdaptiveLeitnerCard> cards) {}
 }
\ No newline at end of file
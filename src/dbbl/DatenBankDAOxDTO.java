@@ -2,7 +2,6 @@ package dbbl;
 
 import java.sql.Connection;
 import java.sql.Date;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -10,10 +9,20 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.Locale;
 
 import javax.swing.JOptionPane;
 
+import dbbl.storage.StringInterner;
 import guimodule.AdaptiveLeitnerCard;
 
 /**
@@ -24,14 +33,15 @@ import guimodule.AdaptiveLeitnerCard;
  * <p>This class handles:
  * <ul>
  *   <li>Themes (CRUD operations)</li>
- *   <li>Questions & Answers (CRUD with batch insert)</li>
+ *   <li>Questions & Answers (CRUD with batch insert, streaming bulk load)</li>
  *   <li>Adaptive Leitner Cards (CRUD and performance metrics)</li>
  *   <li>Session registration and management</li>
  * </ul>
  * 
  * <p><b>Connection Handling:</b>
  * <ul>
- *   <li>Uses try-with-resources to ensure connections are always closed</li>
+ *   <li>Connections are borrowed from a {@link JdbcConnectionPool}; closing
+ *       them (try-with-resources) returns them to the pool</li>
  *   <li>Write operations disable AutoCommit and explicitly commit/rollback</li>
  *   <li>Read operations keep AutoCommit true and close immediately</li>
  * </ul>
@@ -53,38 +63,98 @@ import guimodule.AdaptiveLeitnerCard;
  * @author D.Georgiou
  * @version 1.0
  */
-public class DatenBankDAOxDTO {
+public class DatenBankDAOxDTO implements AutoCloseable {
 
     // ------------------- DATABASE CONNECTION FIELDS -------------------
 
-    /** JDBC URL for connecting to the MariaDB database */
-    private final String url = "jdbc:mariadb://localhost:3306/dgquizdata";
+    /** Default JDBC URL for connecting to the MariaDB database */
+    public static final String DEFAULT_URL = "jdbc:mariadb://localhost:3306/dgquizdata";
 
-    /** Database username */
-    private final String user = "root";
+    /** Default database username */
+    public static final String DEFAULT_USER = "root";
 
-    /** Database password (empty) */
-    private final String password = "";
+    /** Pool all DAO methods borrow their connections from */
+    private final JdbcConnectionPool pool;
+
+    /**
+     * Creates a DAO for the local MariaDB database with the default credentials
+     * (user {@value #DEFAULT_USER}, empty password).
+     */
+    public DatenBankDAOxDTO() {
+        this(DEFAULT_URL, DEFAULT_USER, "");
+    }
+
+    /**
+     * Creates a DAO for the given database, e.g. an embedded
+     * {@code jdbc:h2:mem:quiz;MODE=MariaDB} database in tests.
+     *
+     * @param url JDBC URL
+     * @param user database username
+     * @param password database password
+     */
+    public DatenBankDAOxDTO(String url, String user, String password) {
+        this(JdbcConnectionPool.forUrl(url, user, password));
+    }
+
+    /**
+     * Creates a DAO on an existing pool.
+     *
+     * @param pool connection pool, closed by {@link #close()}
+     */
+    public DatenBankDAOxDTO(JdbcConnectionPool pool) {
+        this.pool = pool;
+    }
 
     // ------------------- CONNECTION HANDLING -------------------
 
     /**
-     * Creates a new database connection using configured credentials.
+     * Borrows a connection from the pool; closing it returns it.
      *
      * @return a valid {@link Connection} object
-     * @throws SQLException if the connection cannot be established
+     * @throws SQLException if the connection cannot be established or the pool is exhausted
      */
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(url, user, password);
+        return pool.borrow();
     }
 
     /**
-     * Displays an error message to the user in a dialog box.
+     * Pool counters (wait time, active and idle connections).
+     *
+     * @return current pool metrics
+     */
+    public JdbcConnectionPool.Metrics poolMetrics() {
+        return pool.metrics();
+    }
+
+    /**
+     * Closes the idle pooled connections.
+     */
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /** Receives error messages; shows a dialog unless replaced. */
+    private volatile Consumer<String> errorHandler =
+            message -> JOptionPane.showMessageDialog(null, message, "Database Error", JOptionPane.ERROR_MESSAGE);
+
+    /**
+     * Replaces the error dialog, e.g. to report errors of background writes
+     * through a persistence error callback instead.
+     *
+     * @param errorHandler receives the error messages
+     */
+    public void setErrorHandler(Consumer<String> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Reports an error message (by default in a dialog box).
      *
      * @param message the message to display
      */
     private void handleError(String message) {
-        JOptionPane.showMessageDialog(null, message, "Database Error", JOptionPane.ERROR_MESSAGE);
+        errorHandler.accept(message);
     }
 
     // ------------------- THEMES -------------------
@@ -131,6 +201,27 @@ public class DatenBankDAOxDTO {
         return themes;
     }
 
+    /**
+     * Loads all themes with their descriptions, in creation order.
+     *
+     * @return descriptions by theme title ({@code ""} for none)
+     */
+    public Map<String, String> loadThemeDescriptions() {
+        Map<String, String> themes = new LinkedHashMap<>();
+        String sql = "SELECT title, description FROM themes ORDER BY id";
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                String description = rs.getString("description");
+                themes.put(StringInterner.intern(rs.getString("title")), description != null ? description : "");
+            }
+        } catch (SQLException e) {
+            handleError("loadThemeDescriptions failed: " + e.getMessage());
+        }
+        return themes;
+    }
+
     /**
      * Deletes a theme by its title.
      *
@@ -141,8 +232,10 @@ public class DatenBankDAOxDTO {
         String sql = "DELETE FROM themes WHERE title=?";
         try (Connection conn = getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
+            int themeId = getThemeIdByName(title, conn);
             ps.setString(1, title);
             ps.executeUpdate();
+            ids.removeTheme(title, themeId);
             return true;
         } catch (SQLException e) {
             handleError("deleteTheme failed: " + e.getMessage());
@@ -166,9 +259,20 @@ public class DatenBankDAOxDTO {
      */
     public boolean saveQuestion(int themeId, String title, String text, String explanation,
                                 List<String> answers, List<Boolean> correctFlags) {
+        try {
+            return retryIfIdsCached(() -> storeQuestion(themeId, title, text, explanation, answers, correctFlags));
+        } catch (SQLException e) {
+            handleError("saveQuestion failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean storeQuestion(int themeId, String title, String text, String explanation,
+                                  List<String> answers, List<Boolean> correctFlags) throws SQLException {
         String questionSql = "INSERT INTO questions(theme_id, title, text, explanation) VALUES(?,?,?,?) ON DUPLICATE KEY UPDATE text=?, explanation=?";
         String answerSql = "INSERT INTO answers(question_id, answer_text, is_correct) VALUES(?,?,?)";
 
+        List<Runnable> afterCommit = new ArrayList<>();
         try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);
 
@@ -184,7 +288,7 @@ public class DatenBankDAOxDTO {
 
                 try (ResultSet rs = ps.getGeneratedKeys()) {
                     if (rs.next()) questionId = rs.getInt(1);
-                    else questionId = getQuestionIdByThemeAndTitle(conn, themeId, title);
+                    else questionId = getQuestionIdByThemeAndTitle(conn, themeId, title, afterCommit);
                 }
             }
 
@@ -199,15 +303,14 @@ public class DatenBankDAOxDTO {
             }
 
             conn.commit();
+            afterCommit.forEach(Runnable::run);
             return true;
-        } catch (SQLException e) {
-            handleError("saveQuestion failed: " + e.getMessage());
-            return false;
         }
     }
 
     /**
-     * Retrieves the ID of a question by theme and title.
+     * Retrieves the ID of a question by theme and title, from the ID cache or
+     * the database.
      *
      * @param conn active database connection
      * @param themeId theme ID
@@ -216,86 +319,601 @@ public class DatenBankDAOxDTO {
      * @throws SQLException if a database error occurs
      */
     private int getQuestionIdByThemeAndTitle(Connection conn, int themeId, String title) throws SQLException {
+        return getQuestionIdByThemeAndTitle(conn, themeId, title, null);
+    }
+
+    /**
+     * Like {@link #getQuestionIdByThemeAndTitle(Connection, int, String)}, but
+     * inside a transaction that may still roll back: a looked-up ID is added
+     * to {@code afterCommit} instead of the ID cache, unless that is {@code null}.
+     */
+    private int getQuestionIdByThemeAndTitle(Connection conn, int themeId, String title,
+                                             List<Runnable> afterCommit) throws SQLException {
+        ensureWarm(conn);
+        Integer cached = ids.questionId(themeId, title);
+        if (cached != null) return cached;
         String sql = "SELECT id FROM questions WHERE theme_id=? AND title=?";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, themeId);
             ps.setString(2, title);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getInt("id");
+                if (rs.next()) {
+                    int id = rs.getInt("id");
+                    cacheAfterCommit(afterCommit, () -> ids.putQuestion(themeId, title, id));
+                    return id;
+                }
             }
         }
         return -1;
     }
 
-    // ------------------- LEITNER CARDS -------------------
+    /** Rows fetched per round trip by {@link #loadAllQuestions(Consumer)}. */
+    public static final int QUESTION_FETCH_SIZE = 1_000;
 
     /**
-     * Saves or updates an Adaptive Leitner Card.
-     * If the card exists, it updates; otherwise, it inserts a new record.
+     * Streams all questions with their answers to {@code sink}, grouped by
+     * theme, with one joined query.
+     * <p>
+     * The result set is forward-only and read-only with a fetch size of
+     * {@value #QUESTION_FETCH_SIZE}, so the driver streams rows instead of
+     * buffering the whole result. Rows are ordered by question and answer ID;
+     * a question is handed over as soon as its last answer row has been read,
+     * so only one question is held at a time regardless of the bank size.
+     * Theme names are shared between the questions of a theme (see
+     * {@link StringInterner}). Database IDs become the questions' IDs.
      *
-     * @param card the Leitner card
-     * @return {@code true} if successful, {@code false} otherwise
+     * @param sink receives each question in theme, question and answer order
+     * @return number of questions delivered, or -1 if the query failed
      */
-    public boolean saveLeitnerCard(AdaptiveLeitnerCard card) {
-        String checkSql = "SELECT id FROM leitner_cards WHERE question_id=?";
-        String insertSql = "INSERT INTO leitner_cards(question_id, box, consecutive_correct, consecutive_wrong, total_attempts, total_correct, average_response_time, next_review, difficulty, last_reviewed) VALUES(?,?,?,?,?,?,?,?,?,?)";
-        String updateSql = "UPDATE leitner_cards SET box=?, consecutive_correct=?, consecutive_wrong=?, total_attempts=?, total_correct=?, average_response_time=?, next_review=?, difficulty=?, last_reviewed=? WHERE question_id=?";
+    public long loadAllQuestions(Consumer<RepoQuizeeQuestions> sink) {
+        String sql = "SELECT t.title AS theme_title, q.id AS question_id, q.title, q.text, q.explanation, "
+                   + "a.answer_text, a.is_correct "
+                   + "FROM questions q "
+                   + "JOIN themes t ON q.theme_id = t.id "
+                   + "LEFT JOIN answers a ON a.question_id = q.id "
+                   + "ORDER BY q.theme_id, q.id, a.id";
+        long count = 0;
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(QUESTION_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                String theme = null;
+                int currentId = -1;
+                String title = null, text = null, explanation = null;
+                List<String> answers = new ArrayList<>();
+                List<Boolean> correct = new ArrayList<>();
+                while (rs.next()) {
+                    int questionId = rs.getInt("question_id");
+                    if (questionId != currentId) {
+                        if (currentId != -1) {
+                            sink.accept(toQuestion(currentId, theme, title, text, explanation, answers, correct));
+                            count++;
+                            answers.clear();
+                            correct.clear();
+                        }
+                        currentId = questionId;
+                        String rowTheme = rs.getString("theme_title");
+                        if (!rowTheme.equals(theme)) theme = StringInterner.intern(rowTheme);
+                        title = rs.getString("title");
+                        text = rs.getString("text");
+                        explanation = rs.getString("explanation");
+                    }
+                    String answer = rs.getString("answer_text");
+                    if (answer != null) {
+                        answers.add(answer);
+                        correct.add(rs.getBoolean("is_correct"));
+                    }
+                }
+                if (currentId != -1) {
+                    sink.accept(toQuestion(currentId, theme, title, text, explanation, answers, correct));
+                    count++;
+                }
+            }
+            return count;
+        } catch (SQLException e) {
+            handleError("loadAllQuestions failed: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private static RepoQuizeeQuestions toQuestion(int id, String theme, String title, String text, String explanation,
+                                                  List<String> answers, List<Boolean> correct) {
+        return new RepoQuizeeQuestions(QuestionValue.of(title, text, answers, correct, explanation)
+                .withTheme(theme).withId(id));
+    }
+
+    // ------------------- ID CACHE -------------------
+
+    /**
+     * Theme and question IDs by title, shared by all lookups of this DAO.
+     * Warmed once by {@link #warmIdCache()}, entries for a deleted theme are
+     * dropped by {@link #deleteTheme(String)}, and all entries when a statement
+     * that used them fails ({@link #retryIfIdsCached}).
+     */
+    private final IdCache ids = new IdCache(IdCache.DEFAULT_THEMES, IdCache.DEFAULT_QUESTIONS);
+
+    /** Whether the ID cache has been warmed by the bulk query. */
+    private volatile boolean warmed;
 
+    /**
+     * Loads all theme and question IDs with one query into the ID cache.
+     * Runs automatically before the first ID lookup; call it at startup to
+     * take the query off the first save.
+     *
+     * @return number of cached IDs, or -1 if the query failed
+     */
+    public int warmIdCache() {
+        try (Connection conn = getConnection()) {
+            return warm(conn);
+        } catch (SQLException e) {
+            handleError("warmIdCache failed: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Hit/miss counters and sizes of the ID cache.
+     *
+     * @return the DAO's ID cache
+     */
+    public IdCache idCache() {
+        return ids;
+    }
+
+    private void ensureWarm(Connection conn) throws SQLException {
+        if (!warmed) warm(conn);
+    }
+
+    /** Drops all cached IDs; the next lookup warms the cache again. */
+    private synchronized void invalidateIds() {
+        ids.clear();
+        warmed = false;
+    }
+
+    /** Database work that may look up IDs in the ID cache. */
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Runs {@code work}; if it fails after the ID cache answered a lookup,
+     * the cache is dropped and {@code work} runs once more. A cached ID may
+     * belong to a row another client deleted or re-created, which shows as a
+     * failed statement such as a foreign key violation. The failed attempt's
+     * transaction is rolled back when its connection returns to the pool.
+     */
+    private <T> T retryIfIdsCached(SqlWork<T> work) throws SQLException {
+        long hits = ids.hits();
+        try {
+            return work.run();
+        } catch (SQLException e) {
+            if (ids.hits() == hits) throw e;
+            invalidateIds();
+            try {
+                return work.run();
+            } catch (SQLException retry) {
+                retry.addSuppressed(e);
+                throw retry;
+            }
+        }
+    }
+
+    /** All theme IDs with the IDs of their questions, one row per question (or theme without any). */
+    private static final String ALL_IDS_SQL =
+            "SELECT t.id AS theme_id, t.title AS theme_title, q.id AS question_id, q.title AS question_title "
+            + "FROM themes t LEFT JOIN questions q ON q.theme_id = t.id";
+
+    private synchronized int warm(Connection conn) throws SQLException {
+        int count = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(ALL_IDS_SQL)) {
+            int lastTheme = -1;
+            while (rs.next()) {
+                int themeId = rs.getInt("theme_id");
+                if (themeId != lastTheme) {
+                    ids.putTheme(rs.getString("theme_title"), themeId);
+                    lastTheme = themeId;
+                    count++;
+                }
+                int questionId = rs.getInt("question_id");
+                if (!rs.wasNull()) {
+                    ids.putQuestion(themeId, rs.getString("question_title"), questionId);
+                    count++;
+                }
+            }
+        }
+        warmed = true;
+        return count;
+    }
+
+    /**
+     * Saves a question of {@code theme} and replaces its answers in one
+     * transaction. A question with {@code id} is updated in place, even if
+     * renamed; otherwise (or if no such row exists) the question with the same
+     * title in the theme is updated, or a new one inserted. A missing theme is
+     * created with an empty description. IDs touched by the transaction enter
+     * the ID cache only once it has committed; if it fails after using cached
+     * IDs, it is retried once on a fresh cache (see {@link #retryIfIdsCached}).
+     *
+     * @param theme theme title
+     * @param id database ID of the question, or 0 for lookup by title
+     * @param title the question title
+     * @param text the question text
+     * @param explanation optional explanation
+     * @param answers list of answer texts
+     * @param correctFlags parallel list of booleans indicating correct answers
+     * @return the database ID of the stored question, or -1 on failure
+     */
+    public long saveQuestion(String theme, long id, String title, String text, String explanation,
+                             List<String> answers, List<Boolean> correctFlags) {
+        try {
+            return retryIfIdsCached(() -> storeQuestion(theme, id, title, text, explanation, answers, correctFlags));
+        } catch (SQLException e) {
+            handleError("saveQuestion failed: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private long storeQuestion(String theme, long id, String title, String text, String explanation,
+                               List<String> answers, List<Boolean> correctFlags) throws SQLException {
+        String updateSql = "UPDATE questions SET theme_id=?, title=?, text=?, explanation=? WHERE id=?";
+        String upsertSql = "INSERT INTO questions(theme_id, title, text, explanation) VALUES(?,?,?,?) ON DUPLICATE KEY UPDATE text=VALUES(text), explanation=VALUES(explanation)";
+        String clearSql = "DELETE FROM answers WHERE question_id=?";
+        String answerSql = "INSERT INTO answers(question_id, answer_text, is_correct) VALUES(?,?,?)";
+
+        List<Runnable> afterCommit = new ArrayList<>();
         try (Connection conn = getConnection()) {
             conn.setAutoCommit(false);
+            int themeId = getThemeIdByName(theme, conn, afterCommit);
+            if (themeId == -1) {
+                try (PreparedStatement ps = conn.prepareStatement("INSERT INTO themes(title, description) VALUES(?, '')")) {
+                    ps.setString(1, theme);
+                    ps.executeUpdate();
+                }
+                themeId = getThemeIdByName(theme, conn, afterCommit);
+            }
 
-            int themeId = getThemeIdByName(card.getTheme(), conn);
-            int questionId = getQuestionIdByThemeAndTitle(conn, themeId, card.getQuestionTitle());
+            int questionId = -1;
+            if (id > 0) {
+                try (PreparedStatement ps = conn.prepareStatement(updateSql)) {
+                    ps.setInt(1, themeId);
+                    ps.setString(2, title);
+                    ps.setString(3, text);
+                    ps.setString(4, explanation);
+                    ps.setInt(5, (int) id);
+                    if (ps.executeUpdate() > 0) {
+                        questionId = (int) id;
+                        int renamedId = questionId, newThemeId = themeId;
+                        afterCommit.add(() -> {
+                            ids.removeQuestion(renamedId); // may have been renamed
+                            ids.putQuestion(newThemeId, title, renamedId);
+                        });
+                    }
+                }
+            }
             if (questionId == -1) {
-                handleError("Question not found for Leitner card: " + card.getQuestionId());
-                return false;
+                try (PreparedStatement ps = conn.prepareStatement(upsertSql)) {
+                    ps.setInt(1, themeId);
+                    ps.setString(2, title);
+                    ps.setString(3, text);
+                    ps.setString(4, explanation);
+                    ps.executeUpdate();
+                }
+                questionId = getQuestionIdByThemeAndTitle(conn, themeId, title, afterCommit);
             }
 
-            try (PreparedStatement psCheck = conn.prepareStatement(checkSql)) {
-                psCheck.setInt(1, questionId);
-                try (ResultSet rs = psCheck.executeQuery()) {
-                    if (rs.next()) {
-                        try (PreparedStatement psUpdate = conn.prepareStatement(updateSql)) {
-                            psUpdate.setInt(1, card.getBox());
-                            psUpdate.setInt(2, card.getConsecutiveCorrect());
-                            psUpdate.setInt(3, card.getConsecutiveWrong());
-                            psUpdate.setInt(4, card.getTotalAttempts());
-                            psUpdate.setInt(5, card.getTotalCorrect());
-                            psUpdate.setDouble(6, card.getAverageResponseTime());
-                            psUpdate.setDate(7, Date.valueOf(card.getNextReviewDate()));
-                            psUpdate.setString(8, card.getDifficulty().name());
-                            psUpdate.setTimestamp(9, card.getLastReviewed() != null ? Timestamp.valueOf(card.getLastReviewed()) : null);
-                            psUpdate.setInt(10, questionId);
-                            psUpdate.executeUpdate();
+            try (PreparedStatement ps = conn.prepareStatement(clearSql)) {
+                ps.setInt(1, questionId);
+                ps.executeUpdate();
+            }
+            try (PreparedStatement psAnswer = conn.prepareStatement(answerSql)) {
+                int n = Math.min(answers.size(), correctFlags.size());
+                for (int i = 0; i < n; i++) {
+                    psAnswer.setInt(1, questionId);
+                    psAnswer.setString(2, answers.get(i));
+                    psAnswer.setBoolean(3, correctFlags.get(i));
+                    psAnswer.addBatch();
+                }
+                if (n > 0) psAnswer.executeBatch();
+            }
+
+            conn.commit();
+            afterCommit.forEach(Runnable::run);
+            return questionId;
+        }
+    }
+
+    /**
+     * Deletes a question with its answers and Leitner card (cascade), by
+     * {@code id} or, if it is 0, by theme and title. A cached ID that
+     * matches no row is looked up again on a fresh ID cache.
+     *
+     * @return {@code true} if successful (also if nothing matched)
+     */
+    public boolean deleteQuestion(String theme, String title, long id) {
+        try {
+            return retryIfIdsCached(() -> removeQuestion(theme, title, id));
+        } catch (SQLException e) {
+            handleError("deleteQuestion failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean removeQuestion(String theme, String title, long id) throws SQLException {
+        try (Connection conn = getConnection()) {
+            int questionId = (int) id;
+            boolean lookedUp = questionId <= 0;
+            if (lookedUp) {
+                int themeId = getThemeIdByName(theme, conn);
+                questionId = themeId == -1 ? -1 : getQuestionIdByThemeAndTitle(conn, themeId, title);
+                if (questionId == -1) return true;
+            }
+            int deleted;
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM questions WHERE id=?")) {
+                ps.setInt(1, questionId);
+                deleted = ps.executeUpdate();
+            }
+            ids.removeQuestion(questionId);
+            if (lookedUp && deleted == 0) {
+                throw new SQLException("No question with ID " + questionId + " for " + theme + ":" + title);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Replaces all themes and questions by {@code questionsByTheme} in one
+     * transaction, e.g. to restore a backup. Questions are matched by theme
+     * and title: a question present before and after keeps its row, ID and
+     * Leitner card, and only its text, explanation and answers are replaced.
+     * Themes and questions missing from the new content are deleted with
+     * their answers and Leitner cards (cascade).
+     *
+     * @param descriptions theme descriptions; a theme without questions stays empty
+     * @param questionsByTheme questions by theme title
+     * @return {@code true} if committed; on failure the database is unchanged
+     */
+    public boolean replaceAllQuestions(Map<String, String> descriptions,
+                                       Map<String, List<RepoQuizeeQuestions>> questionsByTheme) {
+        String themeSql = "INSERT INTO themes(title, description) VALUES(?, ?) ON DUPLICATE KEY UPDATE description=?";
+        String upsertSql = "INSERT INTO questions(theme_id, title, text, explanation) VALUES(?,?,?,?) ON DUPLICATE KEY UPDATE text=VALUES(text), explanation=VALUES(explanation)";
+        String clearSql = "DELETE FROM answers WHERE question_id=?";
+        String answerSql = "INSERT INTO answers(question_id, answer_text, is_correct) VALUES(?,?,?)";
+
+        Set<String> themes = new LinkedHashSet<>(descriptions.keySet());
+        themes.addAll(questionsByTheme.keySet());
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            // current rows as seen by the transaction; the ID cache may be stale
+            Map<String, Integer> themeIds = new HashMap<>();
+            Map<Integer, Map<String, Integer>> questionIds = new HashMap<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(ALL_IDS_SQL)) {
+                while (rs.next()) {
+                    int themeId = rs.getInt("theme_id");
+                    themeIds.put(rs.getString("theme_title"), themeId);
+                    int questionId = rs.getInt("question_id");
+                    if (!rs.wasNull()) {
+                        questionIds.computeIfAbsent(themeId, k -> new HashMap<>()).put(rs.getString("question_title"), questionId);
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM themes WHERE title=?")) {
+                for (String theme : themeIds.keySet()) {
+                    if (themes.contains(theme)) continue;
+                    ps.setString(1, theme);
+                    ps.executeUpdate();
+                }
+            }
+            try (PreparedStatement psTheme = conn.prepareStatement(themeSql);
+                 PreparedStatement psQuestion = conn.prepareStatement(upsertSql);
+                 PreparedStatement psClear = conn.prepareStatement(clearSql);
+                 PreparedStatement psAnswer = conn.prepareStatement(answerSql);
+                 PreparedStatement psDelete = conn.prepareStatement("DELETE FROM questions WHERE id=?")) {
+                for (String theme : themes) {
+                    String description = descriptions.getOrDefault(theme, "");
+                    psTheme.setString(1, theme);
+                    psTheme.setString(2, description);
+                    psTheme.setString(3, description);
+                    psTheme.executeUpdate();
+                    Integer themeId = themeIds.get(theme);
+                    if (themeId == null) themeId = selectId(conn, "SELECT id FROM themes WHERE title=?", theme);
+                    Map<String, Integer> obsolete = questionIds.getOrDefault(themeId, new HashMap<>());
+                    for (RepoQuizeeQuestions q : questionsByTheme.getOrDefault(theme, Collections.emptyList())) {
+                        QuestionValue v = q.value();
+                        psQuestion.setInt(1, themeId);
+                        psQuestion.setString(2, v.title());
+                        psQuestion.setString(3, v.text());
+                        psQuestion.setString(4, v.explanation());
+                        psQuestion.executeUpdate();
+                        Integer questionId = obsolete.remove(v.title());
+                        if (questionId == null) {
+                            questionId = selectId(conn, "SELECT id FROM questions WHERE theme_id=? AND title=?", themeId, v.title());
                         }
-                    } else {
-                        try (PreparedStatement psInsert = conn.prepareStatement(insertSql)) {
-                            psInsert.setInt(1, questionId);
-                            psInsert.setInt(2, card.getBox());
-                            psInsert.setInt(3, card.getConsecutiveCorrect());
-                            psInsert.setInt(4, card.getConsecutiveWrong());
-                            psInsert.setInt(5, card.getTotalAttempts());
-                            psInsert.setInt(6, card.getTotalCorrect());
-                            psInsert.setDouble(7, card.getAverageResponseTime());
-                            psInsert.setDate(8, Date.valueOf(card.getNextReviewDate()));
-                            psInsert.setString(9, card.getDifficulty().name());
-                            psInsert.setTimestamp(10, card.getLastReviewed() != null ? Timestamp.valueOf(card.getLastReviewed()) : null);
-                            psInsert.executeUpdate();
+                        psClear.setInt(1, questionId);
+                        psClear.executeUpdate();
+                        int n = Math.min(v.answers().size(), v.correctFlags().size());
+                        for (int i = 0; i < n; i++) {
+                            psAnswer.setInt(1, questionId);
+                            psAnswer.setString(2, v.answers().get(i));
+                            psAnswer.setBoolean(3, v.correctFlags().get(i));
+                            psAnswer.addBatch();
                         }
+                        if (n > 0) psAnswer.executeBatch();
+                    }
+                    for (int questionId : obsolete.values()) {
+                        psDelete.setInt(1, questionId);
+                        psDelete.executeUpdate();
                     }
                 }
             }
-
             conn.commit();
-            return true;
         } catch (SQLException e) {
-            handleError("saveLeitnerCard failed: " + e.getMessage());
+            handleError("replaceAllQuestions failed: " + e.getMessage());
             return false;
         }
+        // rows were deleted and created: rebuild the ID cache on the next lookup
+        invalidateIds();
+        return true;
+    }
+
+    /** Single ID selected by {@code sql}; fails if there is none. */
+    private static int selectId(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                if (params[i] instanceof Integer) ps.setInt(i + 1, (Integer) params[i]);
+                else ps.setString(i + 1, (String) params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new SQLException("No row for " + sql);
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    // ------------------- LEITNER CARDS -------------------
+
+    /** Upsert of one card; relies on {@code UNIQUE(question_id)} of {@code leitner_cards}. */
+    private static final String UPSERT_CARD_SQL =
+            "INSERT INTO leitner_cards(question_id, box, consecutive_correct, consecutive_wrong, total_attempts, total_correct, average_response_time, next_review, difficulty, last_reviewed) VALUES(?,?,?,?,?,?,?,?,?,?) "
+            + "ON DUPLICATE KEY UPDATE box=VALUES(box), consecutive_correct=VALUES(consecutive_correct), consecutive_wrong=VALUES(consecutive_wrong), "
+            + "total_attempts=VALUES(total_attempts), total_correct=VALUES(total_correct), average_response_time=VALUES(average_response_time), "
+            + "next_review=VALUES(next_review), difficulty=VALUES(difficulty), last_reviewed=VALUES(last_reviewed)";
+
+    /** Number of upserts sent per JDBC batch. */
+    public static final int CARD_BATCH_SIZE = 500;
+
+    /**
+     * Outcome of {@link #saveLeitnerCards(Collection)}.
+     */
+    public static final class CardSyncReport {
+        /** Whether the transaction was committed. */
+        public boolean committed;
+        /** Number of cards written. */
+        public int saved;
+        /** Card IDs whose question does not exist in the database (skipped). */
+        public final List<String> missing = new ArrayList<>();
+        /** Duration of each executed JDBC batch in nanoseconds. */
+        public final List<Long> batchNanos = new ArrayList<>();
+
+        @Override
+        public String toString() {
+            long total = 0;
+            for (long n : batchNanos) total += n;
+            return String.format(Locale.ROOT, "%s %d cards in %d batches (%.1f ms), %d missing",
+                    committed ? "saved" : "failed", saved, batchNanos.size(), total / 1_000_000.0, missing.size());
+        }
+    }
+
+    /**
+     * Saves or updates an Adaptive Leitner Card with a single upsert.
+     *
+     * @param card the Leitner card
+     * @return {@code true} if successful, {@code false} otherwise
+     */
+    public boolean saveLeitnerCard(AdaptiveLeitnerCard card) {
+        CardSyncReport report = saveLeitnerCards(List.of(card));
+        if (!report.missing.isEmpty()) {
+            handleError("Question not found for Leitner card: " + card.getQuestionId());
+            return false;
+        }
+        return report.committed;
+    }
+
+    /**
+     * Saves or updates many Leitner cards, e.g. the cards touched in a quiz
+     * session, in one transaction.
+     * <p>
+     * Question IDs are resolved from the DAO's ID cache (unknown ones are
+     * looked up once and cached); the cards are then sent as JDBC batches of
+     * {@value #CARD_BATCH_SIZE} {@code INSERT ... ON DUPLICATE KEY UPDATE}
+     * statements. With a batching driver (MariaDB Connector/J bulk mode) a
+     * session's cards are one round trip. Cards whose question is not in the
+     * database are skipped and reported. A transaction that fails after using
+     * cached IDs is retried once on a fresh ID cache.
+     *
+     * @param cards cards to write
+     * @return saved/missing counts and per-batch timings
+     */
+    public CardSyncReport saveLeitnerCards(Collection<AdaptiveLeitnerCard> cards) {
+        if (cards.isEmpty()) {
+            CardSyncReport report = new CardSyncReport();
+            report.committed = true;
+            return report;
+        }
+        try {
+            return retryIfIdsCached(() -> storeLeitnerCards(cards));
+        } catch (SQLException e) {
+            handleError("saveLeitnerCards failed: " + e.getMessage());
+            return new CardSyncReport();
+        }
+    }
+
+    private CardSyncReport storeLeitnerCards(Collection<AdaptiveLeitnerCard> cards) throws SQLException {
+        CardSyncReport report = new CardSyncReport();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(UPSERT_CARD_SQL)) {
+                int pending = 0;
+                for (AdaptiveLeitnerCard card : cards) {
+                    int questionId = resolveQuestionId(conn, card.getTheme(), card.getQuestionTitle());
+                    if (questionId == -1) {
+                        report.missing.add(card.getQuestionId());
+                        continue;
+                    }
+                    bindCard(ps, questionId, card);
+                    ps.addBatch();
+                    if (++pending == CARD_BATCH_SIZE) {
+                        executeTimed(ps, report);
+                        report.saved += pending;
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    executeTimed(ps, report);
+                    report.saved += pending;
+                }
+            }
+            conn.commit();
+            report.committed = true;
+        }
+        return report;
+    }
+
+    private static void executeTimed(PreparedStatement ps, CardSyncReport report) throws SQLException {
+        long start = System.nanoTime();
+        ps.executeBatch();
+        report.batchNanos.add(System.nanoTime() - start);
+    }
+
+    private static void bindCard(PreparedStatement ps, int questionId, AdaptiveLeitnerCard card) throws SQLException {
+        ps.setInt(1, questionId);
+        ps.setInt(2, card.getBox());
+        ps.setInt(3, card.getConsecutiveCorrect());
+        ps.setInt(4, card.getConsecutiveWrong());
+        ps.setInt(5, card.getTotalAttempts());
+        ps.setInt(6, card.getTotalCorrect());
+        ps.setDouble(7, card.getAverageResponseTime());
+        ps.setDate(8, Date.valueOf(card.getNextReviewDate()));
+        ps.setString(9, card.getDifficulty().name());
+        ps.setTimestamp(10, card.getLastReviewed() != null ? Timestamp.valueOf(card.getLastReviewed()) : null);
     }
 
     /**
-     * Helper method to retrieve a theme ID by its title.
+     * Database ID of the question {@code title} in {@code theme}, from the
+     * ID cache or looked up on {@code conn}.
+     *
+     * @return question ID, or -1 if not found
+     */
+    private int resolveQuestionId(Connection conn, String theme, String title) throws SQLException {
+        int themeId = getThemeIdByName(theme, conn);
+        return themeId == -1 ? -1 : getQuestionIdByThemeAndTitle(conn, themeId, title);
+    }
+
+    /**
+     * Helper method to retrieve a theme ID by its title, from the ID cache or
+     * the database.
      *
      * @param themeName theme title
      * @param conn active connection
@@ -303,16 +921,42 @@ public class DatenBankDAOxDTO {
      * @throws SQLException database error
      */
     private int getThemeIdByName(String themeName, Connection conn) throws SQLException {
+        return getThemeIdByName(themeName, conn, null);
+    }
+
+    /**
+     * Like {@link #getThemeIdByName(String, Connection)}, but a looked-up ID
+     * is added to {@code afterCommit} instead of the ID cache, unless that is
+     * {@code null}.
+     */
+    private int getThemeIdByName(String themeName, Connection conn, List<Runnable> afterCommit) throws SQLException {
+        ensureWarm(conn);
+        Integer cached = ids.themeId(themeName);
+        if (cached != null) return cached;
         String sql = "SELECT id FROM themes WHERE title=?";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, themeName);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) return rs.getInt("id");
+                if (rs.next()) {
+                    int id = rs.getInt("id");
+                    cacheAfterCommit(afterCommit, () -> ids.putTheme(themeName, id));
+                    return id;
+                }
             }
         }
         return -1;
     }
 
+    /**
+     * Applies {@code update} to the ID cache now, or after the commit if
+     * {@code afterCommit} is given: a rolled-back transaction must not leave
+     * IDs of rows that were never committed in the cache.
+     */
+    private static void cacheAfterCommit(List<Runnable> afterCommit, Runnable update) {
+        if (afterCommit != null) afterCommit.add(update);
+        else update.run();
+    }
+
     /**
      * Loads all Leitner cards including their theme and question titles.
      *
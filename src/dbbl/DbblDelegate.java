@@ -1,9 +1,14 @@
 package dbbl;
 
+import guimodule.AppConfigService;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * The {@code DbblDelegate} class is a final, package-level facade delegate for the {@code dbbl} package.
@@ -71,18 +76,86 @@ public final class DbblDelegate {
 
     // ------------------- FACTORY METHOD -------------------
 
+    /** Configuration key selecting the persistence backend: {@code file} (default) or {@code sql}. */
+    public static final String BACKEND_KEY = "persistence.backend";
+
+    /** Configuration key of the JDBC URL of the {@code sql} backend. */
+    public static final String JDBC_URL_KEY = "persistence.jdbc.url";
+
+    /** Configuration key of the database user of the {@code sql} backend. */
+    public static final String JDBC_USER_KEY = "persistence.jdbc.user";
+
+    /** Configuration key of the database password of the {@code sql} backend. */
+    public static final String JDBC_PASSWORD_KEY = "persistence.jdbc.password";
+
+    /** Configuration key of the number of buffered journal records that forces a group commit (file backend). */
+    public static final String GROUP_COMMIT_BATCH_KEY = "persistence.groupCommit.batch";
+
+    /** Configuration key of the maximum delay in milliseconds of a group commit (file backend). */
+    public static final String GROUP_COMMIT_INTERVAL_KEY = "persistence.groupCommit.intervalMs";
+
     /**
      * Creates the default {@code DbblDelegate} instance with a preconfigured persistence
      * and business controller stack.
      * 
      * <p>This factory method ensures that clients get a fully initialized delegate
      * without needing to know about {@link ModularPersistenceService} or
-     * {@link ModularBusinessController}.
+     * {@link ModularBusinessController}. The backend is chosen by
+     * {@value #BACKEND_KEY} in the {@link AppConfigService#current() application
+     * configuration}: the file store by default, or the SQL database for {@code sql}.
+     * The file store takes its group commit policy from {@value #GROUP_COMMIT_BATCH_KEY}
+     * and {@value #GROUP_COMMIT_INTERVAL_KEY}.
      *
      * @return a new instance of {@code DbblDelegate} with default stack
      */
     public static DbblDelegate createDefault() {
+        AppConfigService config = AppConfigService.current();
+        if ("sql".equalsIgnoreCase(config.getString(BACKEND_KEY, "file"))) {
+            return createSql(config.getString(JDBC_URL_KEY, DatenBankDAOxDTO.DEFAULT_URL),
+                    config.getString(JDBC_USER_KEY, DatenBankDAOxDTO.DEFAULT_USER),
+                    config.getString(JDBC_PASSWORD_KEY, ""));
+        }
         ModularPersistenceService p = new ModularPersistenceService();
+        configureGroupCommit(p, config);
+        ModularBusinessController b = new ModularBusinessController(p);
+        return new DbblDelegate(p, b);
+    }
+
+    /** Applies the configured group commit policy, falling back to the service defaults. */
+    private static void configureGroupCommit(ModularPersistenceService p, AppConfigService config) {
+        p.configureGroupCommit(
+                (int) config.getLong(GROUP_COMMIT_BATCH_KEY, ModularPersistenceService.DEFAULT_GROUP_COMMIT_BATCH),
+                config.getLong(GROUP_COMMIT_INTERVAL_KEY, ModularPersistenceService.DEFAULT_GROUP_COMMIT_INTERVAL_MS));
+    }
+
+    /**
+     * Creates a {@code DbblDelegate} on the SQL schema (see {@code DatabankStruc}).
+     * All delegates for the same URL and user share one in-memory read model
+     * and one write-behind queue; see {@link JdbcPersistenceService}.
+     *
+     * @param url JDBC URL, e.g. {@code jdbc:mariadb://localhost:3306/dgquizdata}
+     * @param user database user
+     * @param password database password
+     * @return a new instance of {@code DbblDelegate} with SQL persistence
+     * @throws IllegalArgumentException if the database is already open for
+     *         {@code user} with a different password
+     */
+    public static DbblDelegate createSql(String url, String user, String password) {
+        JdbcPersistenceService p = JdbcPersistenceService.shared(url, user, password);
+        ModularBusinessController b = new ModularBusinessController(p);
+        return new DbblDelegate(p, b);
+    }
+
+    /**
+     * Creates a {@code DbblDelegate} whose question snapshot is memory-mapped.
+     * Only the theme directory is read at startup; the questions of a theme are
+     * decoded when the theme is first accessed. Intended for large question banks.
+     *
+     * @return a new instance of {@code DbblDelegate} with mapped persistence
+     */
+    public static DbblDelegate createMapped() {
+        ModularPersistenceService p = new ModularPersistenceService(true);
+        configureGroupCommit(p, AppConfigService.current());
         ModularBusinessController b = new ModularBusinessController(p);
         return new DbblDelegate(p, b);
     }
@@ -155,6 +228,33 @@ public final class DbblDelegate {
         return persistence.deleteQuestion();
     }
 
+    /**
+     * Function to load a question by its persistent id.
+     *
+     * @return a {@link LongFunction} mapping the id to {@link PersistenceDelegate.QuestionData} or {@code null}
+     */
+    public LongFunction<PersistenceDelegate.QuestionData> questionById() {
+        return persistence.loadQuestionById();
+    }
+
+    /**
+     * Predicate checking whether a theme already contains a question title.
+     *
+     * @return a {@link BiPredicate} accepting (theme, title)
+     */
+    public BiPredicate<String, String> questionExists() {
+        return persistence.containsQuestion();
+    }
+
+    /**
+     * Creates a streaming importer for CSV or JSON lines question banks.
+     *
+     * @return a {@link QuestionBankImporter} writing through this delegate's persistence
+     */
+    public QuestionBankImporter questionImporter() {
+        return new QuestionBankImporter(persistence);
+    }
+
     // ------------------- BUSINESS SHORTCUTS (GUI-ORIENTED) -------------------
 
     /**
@@ -184,6 +284,42 @@ public final class DbblDelegate {
         return (t, i) -> business.getQuestion(t, i);
     }
 
+    /**
+     * Function to get all questions of a topic in one call.
+     *
+     * @return a {@link Function} mapping topic name to its read-only list of questions
+     */
+    public Function<String, List<RepoQuizeeQuestions>> uiQuestions() {
+        return t -> business.getQuestions(t);
+    }
+
+    /**
+     * Function to get one page of a topic's questions.
+     *
+     * @return a {@link QuestionPage} mapping (topic, offset, limit) to a list of questions
+     */
+    public QuestionPage uiQuestionsPage() {
+        return (t, offset, limit) -> business.getQuestions(t, offset, limit);
+    }
+
+    /**
+     * Supplier of a lazy stream over the questions of all topics.
+     *
+     * @return a {@link Supplier} creating a new {@link Stream} per call
+     */
+    public Supplier<Stream<RepoQuizeeQuestions>> uiAllQuestions() {
+        return business::streamAllQuestions;
+    }
+
+    /**
+     * Function to get a question object by its persistent id.
+     *
+     * @return a {@link LongFunction} mapping the id to {@link RepoQuizeeQuestions} or {@code null}
+     */
+    public LongFunction<RepoQuizeeQuestions> uiQuestionById() {
+        return business::getQuestionById;
+    }
+
     /**
      * Shortcut to save a simple question (without explanation).
      *
@@ -205,6 +341,36 @@ public final class DbblDelegate {
         return persistence.persistAll();
     }
 
+    /**
+     * Supplier queuing a full save on the background persistence executor.
+     *
+     * @return a {@link Supplier} whose future completes once the data is on disk
+     */
+    public Supplier<CompletableFuture<Void>> persistAllAsync() {
+        return persistence.persistAllAsync();
+    }
+
+    /**
+     * Runnable acting as a durability barrier: returns once all buffered
+     * (group-committed) mutations are on disk.
+     *
+     * @return a {@link Runnable} that blocks until pending writes are durable
+     */
+    public Runnable flush() {
+        return persistence.flush();
+    }
+
+    /**
+     * Number of journal writes of the file backend so far; each group commit
+     * writes its buffered records at once. Always 0 for the SQL backend.
+     *
+     * @return journal writes since the persistence service was created
+     */
+    public long journalWrites() {
+        return persistence instanceof ModularPersistenceService
+                ? ((ModularPersistenceService) persistence).journalWrites() : 0;
+    }
+
     // ------------------- FUNCTIONAL TYPES -------------------
 
     /**
@@ -215,6 +381,14 @@ public final class DbblDelegate {
         boolean save(String topic, String title, String text, List<String> answers, List<Boolean> correct);
     }
 
+    /**
+     * Functional interface to fetch a page of questions of a topic.
+     */
+    @FunctionalInterface
+    public interface QuestionPage {
+        List<RepoQuizeeQuestions> apply(String topic, int offset, int limit);
+    }
+
     // ------------------- RAW DELEGATE ACCESS -------------------
 
     /**
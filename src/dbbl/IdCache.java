@@ -0,0 +1,150 @@
+package dbbl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of database IDs used by {@link DatenBankDAOxDTO}: theme IDs
+ * by theme title and question IDs by (theme ID, question title).
+ * <p>
+ * Both maps are LRU-ordered and evict their least recently used entry when
+ * full. Only found IDs are cached; a miss is looked up by the caller and
+ * stored with {@link #putTheme}/{@link #putQuestion}. Deleting a theme
+ * removes the theme and, since the schema cascades, all of its questions.
+ * <p>
+ * Thread-safe; all operations lock the cache briefly.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class IdCache {
+
+    /** Default capacity for theme IDs. */
+    public static final int DEFAULT_THEMES = 4_096;
+
+    /** Default capacity for question IDs. */
+    public static final int DEFAULT_QUESTIONS = 100_000;
+
+    private final LruMap<String, Integer> themes;
+    private final LruMap<QuestionKey, Integer> questions;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public IdCache(int maxThemes, int maxQuestions) {
+        this.themes = new LruMap<>(maxThemes);
+        this.questions = new LruMap<>(maxQuestions);
+    }
+
+    // ------------------- LOOKUP -------------------
+
+    /** Cached theme ID, or {@code null} (counted as miss). */
+    public synchronized Integer themeId(String title) {
+        return count(themes.get(title));
+    }
+
+    /** Cached question ID, or {@code null} (counted as miss). */
+    public synchronized Integer questionId(int themeId, String title) {
+        return count(questions.get(new QuestionKey(themeId, title)));
+    }
+
+    private Integer count(Integer id) {
+        (id != null ? hits : misses).incrementAndGet();
+        return id;
+    }
+
+    public synchronized void putTheme(String title, int id) {
+        themes.put(title, id);
+    }
+
+    public synchronized void putQuestion(int themeId, String title, int id) {
+        questions.put(new QuestionKey(themeId, title), id);
+    }
+
+    // ------------------- INVALIDATION -------------------
+
+    /**
+     * Drops a deleted theme and its questions (removed by
+     * {@code ON DELETE CASCADE}).
+     *
+     * @param title theme title
+     * @param themeId its database ID, or -1 if it did not exist
+     */
+    public synchronized void removeTheme(String title, int themeId) {
+        themes.remove(title);
+        if (themeId == -1) return;
+        questions.keySet().removeIf(k -> k.themeId == themeId);
+    }
+
+    /** Drops the entry of a deleted or renamed question. */
+    public synchronized void removeQuestion(int questionId) {
+        questions.values().removeIf(id -> id == questionId);
+    }
+
+    /** Drops everything (e.g. after external schema changes). */
+    public synchronized void clear() {
+        themes.clear();
+        questions.clear();
+    }
+
+    // ------------------- STATISTICS -------------------
+
+    public long hits() { return hits.get(); }
+
+    public long misses() { return misses.get(); }
+
+    public long evictions() { return evictions.get(); }
+
+    public synchronized int themeCount() { return themes.size(); }
+
+    public synchronized int questionCount() { return questions.size(); }
+
+    @Override
+    public String toString() {
+        return "IdCache[themes=" + themeCount() + ", questions=" + questionCount()
+                + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() + "]";
+    }
+
+    // ------------------- INTERNALS -------------------
+
+    private static final class QuestionKey {
+        final int themeId;
+        final String title;
+
+        QuestionKey(int themeId, String title) {
+            this.themeId = themeId;
+            this.title = title;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof QuestionKey)) return false;
+            QuestionKey k = (QuestionKey) o;
+            return themeId == k.themeId && title.equals(k.title);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * themeId + title.hashCode();
+        }
+    }
+
+    private final class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        LruMap(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() <= capacity) return false;
+            evictions.incrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package dbbl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small, dependency-free JDBC connection pool for {@link DatenBankDAOxDTO}.
+ * <p>
+ * Connections are opened lazily up to {@code maxSize} and reused; a borrowed
+ * connection is a proxy whose {@link Connection#close()} returns the physical
+ * connection to the pool instead of closing it, so DAO code keeps its
+ * try-with-resources blocks unchanged.
+ * <ul>
+ *   <li><b>Max size:</b> a fair semaphore bounds open connections; callers
+ *       wait up to {@code maxWaitMs} and then get an {@link SQLException}.</li>
+ *   <li><b>Validation:</b> a connection idle for longer than
+ *       {@code validateAfterMs} is checked with {@link Connection#isValid(int)}
+ *       before it is handed out; broken connections are discarded.</li>
+ *   <li><b>Reset on return:</b> an open transaction is rolled back and
+ *       auto-commit is switched back on, so a failed write never leaks into
+ *       the next borrower.</li>
+ *   <li><b>Idle eviction:</b> connections idle for longer than
+ *       {@code idleTimeoutMs} are closed on the next borrow/return or by
+ *       {@link #evictIdle()}.</li>
+ * </ul>
+ * Idle connections are reused most-recently-used first, so rarely needed
+ * surplus connections age out. {@link #metrics()} reports wait time, active
+ * and idle counts.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class JdbcConnectionPool implements AutoCloseable {
+
+    /** Opens a physical connection. */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /** Point-in-time pool counters. */
+    public static final class Metrics {
+        public final int active;
+        public final int idle;
+        public final int maxSize;
+        public final long created;
+        public final long borrowed;
+        public final long timeouts;
+        public final long evicted;
+        public final long validationFailures;
+        public final long totalWaitNanos;
+        public final long maxWaitNanos;
+
+        Metrics(int active, int idle, int maxSize, long created, long borrowed, long timeouts,
+                long evicted, long validationFailures, long totalWaitNanos, long maxWaitNanos) {
+            this.active = active;
+            this.idle = idle;
+            this.maxSize = maxSize;
+            this.created = created;
+            this.borrowed = borrowed;
+            this.timeouts = timeouts;
+            this.evicted = evicted;
+            this.validationFailures = validationFailures;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        /** Average time a borrow waited for a free slot, in milliseconds. */
+        public double averageWaitMs() {
+            return borrowed == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / borrowed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.ROOT,
+                    "active=%d idle=%d max=%d created=%d borrowed=%d timeouts=%d evicted=%d invalid=%d avgWait=%.2fms maxWait=%.2fms",
+                    active, idle, maxSize, created, borrowed, timeouts, evicted, validationFailures,
+                    averageWaitMs(), maxWaitNanos / 1_000_000.0);
+        }
+    }
+
+    /** Default upper bound of open connections per application instance. */
+    public static final int DEFAULT_MAX_SIZE = 8;
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long maxWaitMs;
+    private final long validateAfterNanos;
+    private final long idleTimeoutNanos;
+    private final Semaphore permits;
+
+    /** Idle connections, most recently returned first. Guarded by {@code this}. */
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private static final class IdleConnection {
+        final Connection connection;
+        final long since;
+
+        IdleConnection(Connection connection, long since) {
+            this.connection = connection;
+            this.since = since;
+        }
+    }
+
+    /**
+     * @param factory opens physical connections
+     * @param maxSize maximum number of open connections (borrowed + idle)
+     * @param maxWaitMs how long {@link #borrow()} waits for a free slot
+     * @param validateAfterMs idle time after which a connection is validated before reuse
+     * @param idleTimeoutMs idle time after which a connection is closed
+     */
+    public JdbcConnectionPool(ConnectionFactory factory, int maxSize, long maxWaitMs,
+                              long validateAfterMs, long idleTimeoutMs) {
+        if (maxSize < 1) throw new IllegalArgumentException("maxSize must be >= 1");
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.maxWaitMs = maxWaitMs;
+        this.validateAfterNanos = TimeUnit.MILLISECONDS.toNanos(validateAfterMs);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Pool over {@link DriverManager} with default limits: {@value #DEFAULT_MAX_SIZE}
+     * connections, 10 s wait, validation after 30 s idle, eviction after 5 min idle.
+     */
+    public static JdbcConnectionPool forUrl(String url, String user, String password) {
+        return new JdbcConnectionPool(() -> DriverManager.getConnection(url, user, password),
+                DEFAULT_MAX_SIZE, 10_000, 30_000, 300_000);
+    }
+
+    // ------------------- BORROW / RETURN -------------------
+
+    /**
+     * Borrows a connection. Closing the returned connection hands it back.
+     *
+     * @return pooled connection in auto-commit mode
+     * @throws SQLException if the pool is closed or exhausted, or a new
+     *         connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Connection pool exhausted (" + maxSize + " in use, waited " + maxWaitMs + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        borrowed.incrementAndGet();
+        try {
+            return wrap(acquirePhysical());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection acquirePhysical() throws SQLException {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (this) {
+                if (closed) throw new SQLException("Connection pool closed");
+                evictExpired(System.nanoTime());
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                Connection c = factory.open();
+                created.incrementAndGet();
+                return c;
+            }
+            if (System.nanoTime() - candidate.since < validateAfterNanos || isValid(candidate.connection)) {
+                return candidate.connection;
+            }
+            validationFailures.incrementAndGet();
+            closeQuietly(candidate.connection);
+        }
+    }
+
+    private void release(Connection physical) {
+        boolean reusable;
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            reusable = !physical.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        synchronized (this) {
+            if (reusable && !closed) {
+                long now = System.nanoTime();
+                idle.addFirst(new IdleConnection(physical, now));
+                evictExpired(now);
+                physical = null;
+            }
+        }
+        if (physical != null) closeQuietly(physical);
+        permits.release();
+    }
+
+    // ------------------- MAINTENANCE -------------------
+
+    /** Closes connections that have been idle for longer than the idle timeout. */
+    public void evictIdle() {
+        synchronized (this) {
+            evictExpired(System.nanoTime());
+        }
+    }
+
+    /** Oldest idle connections sit at the tail. Caller holds the lock. */
+    private void evictExpired(long now) {
+        Iterator<IdleConnection> it = idle.descendingIterator();
+        while (it.hasNext()) {
+            IdleConnection c = it.next();
+            if (now - c.since < idleTimeoutNanos) break;
+            it.remove();
+            evicted.incrementAndGet();
+            closeQuietly(c.connection);
+        }
+    }
+
+    /** Current counters. */
+    public Metrics metrics() {
+        int idleCount;
+        synchronized (this) {
+            idleCount = idle.size();
+        }
+        return new Metrics(maxSize - permits.availablePermits(), idleCount, maxSize,
+                created.get(), borrowed.get(), timeouts.get(), evicted.get(),
+                validationFailures.get(), totalWaitNanos.get(), maxWaitNanos.get());
+    }
+
+    /**
+     * Closes all idle connections and rejects further borrows. Borrowed
+     * connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            for (IdleConnection c : idle) closeQuietly(c.connection);
+            idle.clear();
+        }
+    }
+
+    // ------------------- HELPERS -------------------
+
+    private static boolean isValid(Connection c) {
+        try {
+            return c.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+            // connection is discarded anyway
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new PooledHandler(physical));
+    }
+
+    /** Routes calls to the physical connection until the proxy is closed. */
+    private final class PooledHandler implements InvocationHandler {
+        private Connection physical;
+
+        PooledHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (physical != null) {
+                        Connection c = physical;
+                        physical = null;
+                        release(c);
+                    }
+                    return null;
+                case "isClosed":
+                    return physical == null || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    if (physical == null) throw new SQLException("Connection already returned to the pool");
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,724 @@
+package dbbl;
+
+import dbbl.storage.PersistenceExecutor;
+import dbbl.storage.QuizStoreCodec;
+import guimodule.AdaptiveLeitnerCard;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * {@code JdbcPersistenceService} implements {@link PersistenceDelegate} on the
+ * SQL schema (see {@code DatabankStruc}) through {@link DatenBankDAOxDTO}.
+ * <p>
+ * <b>Read model:</b> all themes and questions are loaded once with the DAO's
+ * streaming bulk loader and kept in memory; reads never touch the database.
+ * <p>
+ * <b>Write-behind:</b> mutations are applied to the read model immediately
+ * and queued as pending writes keyed by their target (a theme, a question by
+ * database id, or a not yet stored question by theme and title). A later
+ * write to the same target replaces the queued one, so repeated edits of a
+ * question reach the database once. The queue is drained on the shared
+ * {@link PersistenceExecutor} shortly after the first pending write, when it
+ * grows beyond {@value #DRAIN_AFTER_WRITES} entries, or on {@link #flush()} /
+ * {@link #persistAll()}. Deleting a theme discards its queued question writes
+ * (the schema cascades). Failed writes are reported via {@link #onError()} and
+ * retried by a drain {@value #RETRY_DELAY_MS} ms later, up to
+ * {@value #MAX_ATTEMPTS} attempts. A write that is given up is reported, and
+ * the read model is then reloaded from the database by the next drain that
+ * leaves no write queued, so it does not keep showing the lost change.
+ * <p>
+ * New questions get their database id once their write has been drained;
+ * until then their id is 0. Bulk saves ({@link #saveQuestions()}) are queued
+ * without scheduling a drain and become durable with the next
+ * {@link #persistAll()}.
+ * <p>
+ * Leitner cards touched in a quiz session arrive via
+ * {@link #syncLeitnerCards(Collection)} and are upserted with one
+ * {@link DatenBankDAOxDTO#saveLeitnerCards(Collection)} call, after the queued
+ * question writes they refer to.
+ * <p>
+ * Backups are binary question snapshots under {@value #BACKUP_DIR}; restoring
+ * one replaces all themes and questions in the database in one transaction
+ * ({@link DatenBankDAOxDTO#replaceAllQuestions}) and discards queued writes.
+ * Questions that keep their theme and title keep their Leitner cards; cards
+ * of questions the backup does not contain are deleted with them.
+ *
+ * @author D.
+ * @version 1.0
+ */
+class JdbcPersistenceService implements PersistenceDelegate {
+
+    /** Directory of the question snapshots written by {@link #createBackup()}. */
+    static final String BACKUP_DIR = "quiz_backups_sql";
+
+    /** Delay in milliseconds between the first pending write and the drain. */
+    private static final long DRAIN_DELAY_MS = 250;
+
+    /** Number of pending writes that triggers an immediate drain. */
+    private static final int DRAIN_AFTER_WRITES = 256;
+
+    /** Attempts per pending write before it is dropped. */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /** Delay in milliseconds before failed writes are retried. */
+    private static final long RETRY_DELAY_MS = 1_000;
+
+    /** One service (read model and queue) per database URL and user. */
+    private static final Map<String, Shared> SHARED = new ConcurrentHashMap<>();
+
+    /** Numbers the executor keys, so services on the same account never share a queue. */
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    /** A shared service with a digest of the password it was opened with. */
+    private static final class Shared {
+        final JdbcPersistenceService service;
+        final byte[] passwordDigest;
+
+        Shared(JdbcPersistenceService service, byte[] passwordDigest) {
+            this.service = service;
+            this.passwordDigest = passwordDigest;
+        }
+    }
+
+    private static final ScheduledExecutorService DRAIN_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "quiz-write-behind");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private final DatenBankDAOxDTO dao;
+    private final String storeKey;
+
+    /** Whether the read model was ever loaded from the database. */
+    private volatile boolean loaded;
+
+    // ------------------- READ MODEL (guarded by model) -------------------
+
+    private final Object model = new Object();
+    private final Map<String, String> themeDescriptions = new LinkedHashMap<>();
+    private final Map<String, List<RepoQuizeeQuestions>> questionsByTheme = new HashMap<>();
+    private final Map<Long, RepoQuizeeQuestions> questionsById = new HashMap<>();
+
+    // ------------------- WRITE-BEHIND QUEUE (guarded by pending) -------------------
+
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledDrain;
+
+    /** Set when a write was dropped; the read model no longer matches the database. */
+    private boolean reloadNeeded;
+
+    /** Leitner cards waiting to be synced, by card id (guarded by itself). */
+    private final Map<String, AdaptiveLeitnerCard> pendingCards = new LinkedHashMap<>();
+
+    private final List<Consumer<DataChangeEvent>> dataChangeListeners = new CopyOnWriteArrayList<>();
+
+    // ------------------- LAMBDA IMPLEMENTATIONS -------------------
+    private Function<ThemeData, Boolean> saveThemeImpl;
+    private Function<String, ThemeData> loadThemeImpl;
+    private Function<String, Boolean> deleteThemeImpl;
+    private Supplier<List<String>> getAllThemesImpl;
+    private Function<QuestionData, Boolean> saveQuestionImpl;
+    private Function<List<QuestionData>, Integer> saveQuestionsImpl;
+    private Function<String, List<QuestionData>> loadQuestionsByThemeImpl;
+    private LongFunction<QuestionData> loadQuestionByIdImpl;
+    private BiPredicate<String, String> containsQuestionImpl;
+    private Function<QuestionDeleteRequest, Boolean> deleteQuestionImpl;
+    private Runnable persistAllImpl;
+    private Supplier<CompletableFuture<Void>> persistAllAsyncImpl;
+    private Runnable flushImpl;
+    private Runnable loadAllImpl;
+    private Function<String, Boolean> createBackupImpl;
+    private Function<String, Boolean> restoreBackupImpl;
+    private Consumer<DataChangeEvent> onDataChangedImpl;
+    private Consumer<PersistenceError> onErrorImpl;
+
+    /**
+     * Creates the service on {@code dao} and loads the read model.
+     *
+     * @param dao data access object; its errors are reported via {@link #onError()}
+     * @param storeKey key of the drains on the shared persistence executor
+     */
+    JdbcPersistenceService(DatenBankDAOxDTO dao, String storeKey) {
+        this.dao = dao;
+        this.storeKey = storeKey;
+        initializeLambdas();
+        dao.setErrorHandler(message -> onErrorImpl.accept(new PersistenceError("JDBC", message, null)));
+        loadAllImpl.run();
+    }
+
+    /**
+     * Service for the database at {@code url} as {@code user}, shared by all
+     * delegates of the process so they see one read model and one write queue.
+     * A service whose initial load failed is returned unshared, so the next
+     * call connects and loads again.
+     *
+     * @throws IllegalArgumentException if the service is already open for
+     *         {@code url} and {@code user} with a different password
+     */
+    static JdbcPersistenceService shared(String url, String user, String password) {
+        String account = (user != null ? user : "") + '@' + url;
+        byte[] digest = digest(password);
+        Shared shared = SHARED.get(account);
+        if (shared == null) {
+            // load outside the map: a slow database must not block other accounts
+            JdbcPersistenceService service = new JdbcPersistenceService(new DatenBankDAOxDTO(url, user, password),
+                    "jdbc:" + account + '#' + INSTANCES.incrementAndGet());
+            if (!service.loaded) return service; // reported by the DAO
+            shared = SHARED.putIfAbsent(account, new Shared(service, digest));
+            if (shared == null) return service;
+            service.dao.close(); // another caller shared its service first
+        }
+        if (!MessageDigest.isEqual(shared.passwordDigest, digest)) {
+            throw new IllegalArgumentException("Database " + url + " is already open for user " + user
+                    + " with a different password");
+        }
+        return shared.service;
+    }
+
+    private static byte[] digest(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-256")
+                    .digest((password != null ? password : "").getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every Java platform provides SHA-256
+        }
+    }
+
+    /**
+     * Initializes all lambda implementations.
+     */
+    private void initializeLambdas() {
+
+        // === THEME OPERATIONS ===
+        saveThemeImpl = themeData -> {
+            synchronized (model) {
+                themeDescriptions.put(themeData.title, themeData.description != null ? themeData.description : "");
+                questionsByTheme.computeIfAbsent(themeData.title, k -> new ArrayList<>());
+            }
+            enqueueTheme(themeData.title, false, themeData.description != null ? themeData.description : "");
+            notifyDataChange("THEME_SAVED", themeData.title);
+            return true;
+        };
+
+        loadThemeImpl = title -> {
+            synchronized (model) {
+                return new ThemeData(title, themeDescriptions.getOrDefault(title, ""));
+            }
+        };
+
+        deleteThemeImpl = title -> {
+            synchronized (model) {
+                themeDescriptions.remove(title);
+                List<RepoQuizeeQuestions> removed = questionsByTheme.remove(title);
+                if (removed != null) removed.forEach(q -> questionsById.remove(q.getId()));
+            }
+            enqueueTheme(title, true, null);
+            notifyDataChange("THEME_DELETED", title);
+            return true;
+        };
+
+        getAllThemesImpl = () -> {
+            synchronized (model) {
+                List<String> themes = new ArrayList<>(themeDescriptions.keySet());
+                for (String theme : questionsByTheme.keySet()) {
+                    if (!themeDescriptions.containsKey(theme)) themes.add(theme);
+                }
+                return themes;
+            }
+        };
+
+        // === QUESTION OPERATIONS ===
+        saveQuestionImpl = questionData -> {
+            try {
+                RepoQuizeeQuestions stored = applySaveQuestion(questionData);
+                enqueueQuestion(stored.value(), true);
+                notifyDataChange("QUESTION_SAVED", questionData.theme + ":" + questionData.title);
+                return true;
+            } catch (RuntimeException e) {
+                handleError(e);
+                return false;
+            }
+        };
+
+        saveQuestionsImpl = batch -> {
+            int saved = 0;
+            for (QuestionData q : batch) {
+                try {
+                    enqueueQuestion(applySaveQuestion(q).value(), false);
+                    saved++;
+                } catch (RuntimeException e) {
+                    handleError(e);
+                }
+            }
+            notifyDataChange("QUESTIONS_SAVED", String.valueOf(saved));
+            return saved;
+        };
+
+        loadQuestionsByThemeImpl = theme -> {
+            List<QuestionData> result = new ArrayList<>();
+            synchronized (model) {
+                List<RepoQuizeeQuestions> questions = questionsByTheme.get(theme);
+                if (questions != null) questions.forEach(q -> result.add(toQuestionData(q)));
+            }
+            return result;
+        };
+
+        loadQuestionByIdImpl = id -> {
+            synchronized (model) {
+                RepoQuizeeQuestions q = questionsById.get(id);
+                return q != null ? toQuestionData(q) : null;
+            }
+        };
+
+        containsQuestionImpl = (theme, title) -> {
+            synchronized (model) {
+                return indexOfTitle(questionsByTheme.get(theme), title) >= 0;
+            }
+        };
+
+        deleteQuestionImpl = request -> {
+            RepoQuizeeQuestions removed;
+            synchronized (model) {
+                List<RepoQuizeeQuestions> questions = questionsByTheme.get(request.theme);
+                if (questions == null) return false;
+                int index = request.questionId > 0
+                        ? questions.indexOf(questionsById.get(request.questionId))
+                        : request.questionIndex;
+                if (index < 0 || index >= questions.size()) return false;
+                removed = questions.remove(index);
+                if (removed.getId() > 0) questionsById.remove(removed.getId());
+            }
+            QuestionValue v = removed.value();
+            put(new PendingWrite(keyOf(v), v.theme(), () -> dao.deleteQuestion(v.theme(), v.title(), v.id())), true);
+            notifyDataChange("QUESTION_DELETED", request.theme + ":" + removed.getTitel());
+            return true;
+        };
+
+        // === PERSISTENCE OPERATIONS ===
+        persistAllAsyncImpl = () -> {
+            cancelScheduledDrain();
+            return PersistenceExecutor.shared().submit(storeKey, this::drain);
+        };
+
+        persistAllImpl = () -> {
+            try {
+                persistAllAsyncImpl.get().join();
+            } catch (CompletionException e) {
+                handleError(e.getCause() != null ? e.getCause() : e);
+            }
+        };
+
+        flushImpl = persistAllImpl;
+
+        loadAllImpl = () -> {
+            persistAllImpl.run();
+            reloadModel();
+        };
+
+        createBackupImpl = backupName -> {
+            String id = backupIdOf(backupName);
+            try {
+                persistAllImpl.run();
+                Files.createDirectories(Paths.get(BACKUP_DIR));
+                Map<String, List<RepoQuizeeQuestions>> byTheme = new LinkedHashMap<>();
+                Map<String, String> descriptions;
+                synchronized (model) {
+                    questionsByTheme.forEach((theme, questions) -> byTheme.put(theme, new ArrayList<>(questions)));
+                    descriptions = new LinkedHashMap<>(themeDescriptions);
+                }
+                QuizStoreCodec.writeQuestions(backupFile(id), byTheme, descriptions);
+                notifyDataChange("BACKUP_CREATED", id);
+                return true;
+            } catch (IOException e) {
+                handleError(e);
+                return false;
+            }
+        };
+
+        restoreBackupImpl = backupId -> {
+            try {
+                QuizStoreCodec.QuestionSnapshot snap = QuizStoreCodec.readQuestions(backupFile(backupIdOf(backupId)));
+                // queued writes are superseded by the restored content
+                cancelScheduledDrain();
+                synchronized (pending) { pending.clear(); }
+                boolean replaced = PersistenceExecutor.shared()
+                        .barrier(() -> dao.replaceAllQuestions(snap.themeDescriptions, snap.questionsByTheme))
+                        .join();
+                if (!replaced) return false; // reported by the DAO; the database is unchanged
+                loadAllImpl.run(); // picks up the new ids
+                notifyDataChange("BACKUP_RESTORED", backupId);
+                return true;
+            } catch (IOException e) {
+                handleError(e);
+                return false;
+            } catch (CompletionException e) {
+                handleError(e.getCause() != null ? e.getCause() : e);
+                return false;
+            }
+        };
+
+        // === EVENT HANDLING ===
+        onDataChangedImpl = event -> {};
+        onErrorImpl = error -> System.err.println("Persistence error (" + error.operation + "): " + error.message);
+    }
+
+    // ------------------- INTERFACE IMPLEMENTATIONS -------------------
+    @Override public Function<ThemeData, Boolean> saveTheme() { return saveThemeImpl; }
+    @Override public Function<String, ThemeData> loadTheme() { return loadThemeImpl; }
+    @Override public Function<String, Boolean> deleteTheme() { return deleteThemeImpl; }
+    @Override public Supplier<List<String>> getAllThemes() { return getAllThemesImpl; }
+    @Override public Function<QuestionData, Boolean> saveQuestion() { return saveQuestionImpl; }
+    @Override public Function<List<QuestionData>, Integer> saveQuestions() { return saveQuestionsImpl; }
+    @Override public Function<String, List<QuestionData>> loadQuestionsByTheme() { return loadQuestionsByThemeImpl; }
+    @Override public LongFunction<QuestionData> loadQuestionById() { return loadQuestionByIdImpl; }
+    @Override public BiPredicate<String, String> containsQuestion() { return containsQuestionImpl; }
+    @Override public Function<QuestionDeleteRequest, Boolean> deleteQuestion() { return deleteQuestionImpl; }
+    @Override public Runnable persistAll() { return persistAllImpl; }
+    @Override public Supplier<CompletableFuture<Void>> persistAllAsync() { return persistAllAsyncImpl; }
+    @Override public Runnable flush() { return flushImpl; }
+    @Override public Runnable loadAll() { return loadAllImpl; }
+    @Override public Function<String, Boolean> createBackup() { return createBackupImpl; }
+    @Override public Function<String, Boolean> restoreBackup() { return restoreBackupImpl; }
+    @Override public Consumer<DataChangeEvent> onDataChanged() { return onDataChangedImpl; }
+    @Override public Consumer<PersistenceError> onError() { return onErrorImpl; }
+    @Override public void addDataChangeListener(Consumer<DataChangeEvent> listener) { dataChangeListeners.add(listener); }
+
+    @Override
+    public CompletableFuture<Void> syncLeitnerCards(Collection<AdaptiveLeitnerCard> cards) {
+        if (cards.isEmpty()) return CompletableFuture.completedFuture(null);
+        synchronized (pendingCards) {
+            cards.forEach(card -> pendingCards.put(card.getQuestionId(), card));
+        }
+        return PersistenceExecutor.shared().submit(storeKey + ":leitner", this::drainCards);
+    }
+
+    /** Number of writes waiting for the next drain. */
+    int pendingWrites() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    // ------------------- READ MODEL -------------------
+
+    /**
+     * Applies a question upsert to the read model with the rules of the file
+     * backend: a question of the theme with the data's id is replaced in place,
+     * even if renamed; otherwise one with the same title keeps its id; otherwise
+     * the question is appended (id 0 until stored).
+     */
+    private RepoQuizeeQuestions applySaveQuestion(QuestionData data) {
+        QuestionValue value = QuestionValue.of(data.title, data.questionText, data.answers,
+                data.correctFlags, data.explanation).withTheme(data.theme);
+        synchronized (model) {
+            themeDescriptions.putIfAbsent(data.theme, "");
+            List<RepoQuizeeQuestions> questions = questionsByTheme.computeIfAbsent(data.theme, k -> new ArrayList<>());
+            int position = data.id > 0 ? questions.indexOf(questionsById.get(data.id)) : -1;
+            if (position < 0) position = indexOfTitle(questions, data.title);
+            RepoQuizeeQuestions stored;
+            if (position >= 0) {
+                stored = new RepoQuizeeQuestions(value.withId(questions.get(position).getId()));
+                questions.set(position, stored);
+            } else {
+                stored = new RepoQuizeeQuestions(value);
+                questions.add(stored);
+            }
+            if (stored.getId() > 0) questionsById.put(stored.getId(), stored);
+            return stored;
+        }
+    }
+
+    /**
+     * Gives a question stored for the first time its database id. The row is
+     * replaced, so listeners are told once the model lock is released.
+     */
+    private void assignId(String theme, String title, long id) {
+        synchronized (model) {
+            List<RepoQuizeeQuestions> questions = questionsByTheme.get(theme);
+            int position = indexOfTitle(questions, title);
+            if (position < 0 || questions.get(position).getId() != 0) return;
+            RepoQuizeeQuestions stored = new RepoQuizeeQuestions(questions.get(position).value().withId(id));
+            questions.set(position, stored);
+            questionsById.put(id, stored);
+        }
+        notifyDataChange("QUESTION_SAVED", theme + ":" + title);
+    }
+
+    /**
+     * Replaces the read model by the content of the database.
+     *
+     * @return {@code false} if the questions could not be read (reported by
+     *         the DAO); the current model is kept then
+     */
+    private boolean reloadModel() {
+        Map<String, String> descriptions = dao.loadThemeDescriptions();
+        Map<String, List<RepoQuizeeQuestions>> byTheme = new HashMap<>();
+        Map<Long, RepoQuizeeQuestions> byId = new HashMap<>();
+        long count = dao.loadAllQuestions(q -> {
+            byTheme.computeIfAbsent(q.getThema(), k -> new ArrayList<>()).add(q);
+            byId.put(q.getId(), q);
+        });
+        if (count < 0) return false;
+        loaded = true;
+        synchronized (model) {
+            themeDescriptions.clear();
+            themeDescriptions.putAll(descriptions);
+            questionsByTheme.clear();
+            for (String theme : descriptions.keySet()) questionsByTheme.put(theme, new ArrayList<>());
+            questionsByTheme.putAll(byTheme);
+            questionsById.clear();
+            questionsById.putAll(byId);
+        }
+        notifyDataChange("DATA_LOADED", storeKey);
+        return true;
+    }
+
+    private static int indexOfTitle(List<RepoQuizeeQuestions> questions, String title) {
+        if (questions == null) return -1;
+        for (int i = 0; i < questions.size(); i++) {
+            if (questions.get(i).getTitel().equals(title)) return i;
+        }
+        return -1;
+    }
+
+    private static QuestionData toQuestionData(RepoQuizeeQuestions q) {
+        QuestionValue v = q.value();
+        return new QuestionData(v.id(), v.theme(), v.title(), v.text(), v.explanation(),
+                v.answers(), v.correctFlags());
+    }
+
+    // ------------------- WRITE-BEHIND -------------------
+
+    /** One queued database write. */
+    private static final class PendingWrite {
+        final String key;
+        final String theme;
+        final Supplier<Boolean> write;
+        int attempts;
+
+        PendingWrite(String key, String theme, Supplier<Boolean> write) {
+            this.key = key;
+            this.theme = theme;
+            this.write = write;
+        }
+    }
+
+    /** Target of a question write: its database id, or theme and title while it has none. */
+    private static String keyOf(QuestionValue v) {
+        return v.id() > 0 ? "Q#" + v.id() : "Q:" + v.theme() + '\0' + v.title();
+    }
+
+    private void enqueueQuestion(QuestionValue v, boolean scheduleDrain) {
+        put(new PendingWrite(keyOf(v), v.theme(), () -> {
+            long id = dao.saveQuestion(v.theme(), v.id(), v.title(), v.text(), v.explanation(),
+                    v.answers(), v.correctFlags());
+            if (id > 0 && v.id() == 0) assignId(v.theme(), v.title(), id);
+            return id > 0;
+        }), scheduleDrain);
+    }
+
+    /**
+     * Queues a theme write. A deletion discards the theme's queued question
+     * writes; a save following a queued deletion keeps the deletion and its
+     * position, so the theme is recreated empty before newer question writes.
+     */
+    private void enqueueTheme(String title, boolean delete, String description) {
+        String key = "T:" + title;
+        synchronized (pending) {
+            PendingWrite queued = pending.get(key);
+            boolean deleteFirst = delete || (queued != null && queued.theme == null);
+            if (delete) {
+                pending.values().removeIf(w -> title.equals(w.theme) || w.key.equals(key));
+            }
+            Supplier<Boolean> write;
+            if (description == null) {
+                write = () -> dao.deleteTheme(title);
+            } else if (deleteFirst) {
+                write = () -> dao.deleteTheme(title) && dao.saveTheme(title, description);
+            } else {
+                write = () -> dao.saveTheme(title, description);
+            }
+            // theme == null marks a write that starts with a deletion
+            PendingWrite w = new PendingWrite(key, deleteFirst ? null : title, write);
+            if (queued != null && !delete) pending.replace(key, w); else pending.put(key, w);
+        }
+        scheduleDrain();
+    }
+
+    /** Queues {@code write}, replacing (and moving behind) a queued write to the same target. */
+    private void put(PendingWrite write, boolean scheduleDrain) {
+        synchronized (pending) {
+            pending.remove(write.key);
+            pending.put(write.key, write);
+        }
+        if (scheduleDrain) scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        boolean drainNow;
+        synchronized (pending) {
+            drainNow = pending.size() >= DRAIN_AFTER_WRITES;
+            if (!drainNow && scheduledDrain == null) {
+                scheduledDrain = DRAIN_SCHEDULER.schedule(this::drainScheduled, DRAIN_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        // submit outside the lock: the executor may block when its queue is full
+        if (drainNow) persistAllAsyncImpl.get();
+    }
+
+    /** Schedules a drain of the writes a failed drain re-queued. */
+    private void scheduleRetry() {
+        synchronized (pending) {
+            if (scheduledDrain == null) {
+                scheduledDrain = DRAIN_SCHEDULER.schedule(this::drainScheduled, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /** Drain started by the scheduler; nobody waits for it, so its failure is reported here. */
+    private void drainScheduled() {
+        synchronized (pending) { scheduledDrain = null; }
+        PersistenceExecutor.shared().submit(storeKey, this::drain).whenComplete((ignored, e) -> {
+            if (e != null) handleError(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        });
+    }
+
+    private void cancelScheduledDrain() {
+        synchronized (pending) {
+            if (scheduledDrain != null) {
+                scheduledDrain.cancel(false);
+                scheduledDrain = null;
+            }
+        }
+    }
+
+    /**
+     * Writes all queued writes in queue order. Failed writes are re-queued
+     * for a retry unless a newer write to the same target arrived meanwhile;
+     * after {@value #MAX_ATTEMPTS} attempts they are dropped and reported.
+     * Once nothing is queued anymore, a read model that lost writes is
+     * reloaded.
+     *
+     * @throws IOException if any write failed
+     */
+    private void drain() throws IOException {
+        List<PendingWrite> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        int failed = 0;
+        List<String> dropped = new ArrayList<>();
+        for (PendingWrite w : batch) {
+            boolean ok;
+            try {
+                ok = w.write.get();
+            } catch (RuntimeException e) {
+                onErrorImpl.accept(new PersistenceError("JDBC", "Database write " + describe(w) + " failed: " + e, e));
+                ok = false;
+            }
+            if (ok) continue;
+            failed++;
+            if (++w.attempts < MAX_ATTEMPTS) {
+                synchronized (pending) { pending.putIfAbsent(w.key, w); }
+            } else {
+                dropped.add(describe(w));
+            }
+        }
+        boolean reload;
+        synchronized (pending) {
+            if (!dropped.isEmpty()) reloadNeeded = true;
+            reload = reloadNeeded && pending.isEmpty();
+        }
+        if (!dropped.isEmpty()) {
+            onErrorImpl.accept(new PersistenceError("JDBC", "Database writes dropped after " + MAX_ATTEMPTS
+                    + " attempts, the data is reloaded from the database: " + dropped, null));
+        }
+        if (reload && reloadModel()) {
+            synchronized (pending) { reloadNeeded = false; }
+        }
+        if (failed > dropped.size()) scheduleRetry();
+        if (failed > 0) throw new IOException(failed + " of " + batch.size() + " database writes failed");
+    }
+
+    /** Readable target of a queued write. */
+    private static String describe(PendingWrite w) {
+        return w.key.replace('\0', ':');
+    }
+
+    /**
+     * Writes all queued Leitner cards in one batch. Drains the question queue
+     * first so the cards find their questions. Cards of a failed batch are
+     * re-queued for the next sync unless a newer copy arrived meanwhile.
+     *
+     * @throws IOException if the batch was not committed
+     */
+    private void drainCards() throws IOException {
+        List<AdaptiveLeitnerCard> batch;
+        synchronized (pendingCards) {
+            batch = new ArrayList<>(pendingCards.values());
+            pendingCards.clear();
+        }
+        if (batch.isEmpty()) return;
+        persistAllImpl.run();
+        DatenBankDAOxDTO.CardSyncReport report = dao.saveLeitnerCards(batch);
+        if (!report.committed) {
+            synchronized (pendingCards) {
+                batch.forEach(card -> pendingCards.putIfAbsent(card.getQuestionId(), card));
+            }
+            throw new IOException("Leitner cards not saved: " + report);
+        }
+        if (!report.missing.isEmpty()) {
+            onErrorImpl.accept(new PersistenceError("JDBC",
+                    "Leitner cards without question skipped: " + report.missing, null));
+        }
+    }
+
+    // ------------------- UTILITY METHODS -------------------
+
+    /** File-name safe backup id. */
+    private static String backupIdOf(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static Path backupFile(String id) {
+        return Paths.get(BACKUP_DIR, id + ".dat");
+    }
+
+    private void handleError(Throwable e) {
+        onErrorImpl.accept(new PersistenceError("PERSISTENCE", e.getMessage(), e));
+    }
+
+    private void notifyDataChange(String type, String target) {
+        DataChangeEvent event = new DataChangeEvent(type, target);
+        onDataChangedImpl.accept(event);
+        dataChangeListeners.forEach(l -> l.accept(event));
+    }
+}
@@ -0,0 +1,163 @@
+package dbbl;
+
+import java.util.Arrays;
+
+/**
+ * {@code LongIndex} is a small open-addressing hash map from primitive
+ * {@code long} keys to objects, used to look up questions (and data joined to
+ * them) by their persistent question id.
+ * <p>
+ * Keys are stored in a plain {@code long[]} with linear probing, so lookups
+ * neither box the key nor build string keys. Key {@code 0} is reserved for
+ * empty slots ("no id assigned") and cannot be stored.
+ * <p>
+ * Not thread-safe; callers synchronize externally.
+ *
+ * @param <V> value type
+ * @author D.
+ * @version 1.0
+ */
+public final class LongIndex<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    /** Creates an empty index. */
+    public LongIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an index sized for the expected number of entries.
+     *
+     * @param expected expected number of entries
+     */
+    public LongIndex(int expected) {
+        allocate(capacityFor(expected));
+    }
+
+    // ------------------- LOOKUP -------------------
+
+    /**
+     * Returns the value stored for {@code key}.
+     *
+     * @return value or {@code null} if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) return null;
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return (V) values[i];
+            if (k == 0) return null;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    // ------------------- MUTATION -------------------
+
+    /**
+     * Stores {@code value} for {@code key}; a {@code null} value removes the key.
+     *
+     * @return previous value or {@code null}
+     * @throws IllegalArgumentException if {@code key} is 0
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0) throw new IllegalArgumentException("Key 0 is reserved");
+        if (value == null) return remove(key);
+        int i = slot(key);
+        for (; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) rehash(keys.length * 2);
+        return null;
+    }
+
+    /**
+     * Removes {@code key}. Following entries of the probe chain are shifted
+     * back, so no tombstones are left behind.
+     *
+     * @return removed value or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) return null;
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == 0) return null;
+            i = (i + 1) & mask;
+        }
+        V removed = (V) values[i];
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            // move j into the gap unless its home slot lies cyclically in (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /** Removes all entries. */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    // ------------------- INTERNALS -------------------
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expected) {
+        int cap = MIN_CAPACITY;
+        while (cap < expected * 2 && cap < (1 << 30)) cap <<= 1;
+        return cap;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int j = slot(oldKeys[i]);
+            while (keys[j] != 0) j = (j + 1) & mask;
+            keys[j] = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+}
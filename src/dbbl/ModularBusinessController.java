@@ -1,8 +1,17 @@
 package dbbl;
 
+import guimodule.AdaptiveLeitnerCard;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * {@code ModularBusinessController} is a modular, functional business controller
@@ -31,6 +40,13 @@ import java.util.stream.Collectors;
  *   <li>Leitner cards via persistence delegate</li>
  * </ul>
  * <p>Also provides event handling hooks for GUI updates and error reporting.
+ *
+ * <p>Question reads go through a per-theme, array-backed view cache: the first
+ * access to a theme converts its questions once, later {@link #getQuestion}
+ * calls are a bounds check and an array load. Views are versioned and dropped
+ * on every {@link PersistenceDelegate.DataChangeEvent} of their theme and on
+ * writes through this controller. Returned questions are shared instances and
+ * must be treated as read-only.
  * 
  * <p>Author: D. Georgiou
  * @version 1.0
@@ -45,6 +61,44 @@ class ModularBusinessController implements BusinesslogicaDelegation {
      */
     private final PersistenceDelegate persistence;
 
+    // ------------------- THEME VIEW CACHE -------------------
+
+    /**
+     * Immutable, array-backed view of one theme's questions.
+     * Built for the theme version and global epoch current when loading started.
+     */
+    private static final class ThemeView {
+        final long epoch;
+        final long version;
+        final RepoQuizeeQuestions[] questions;
+        final List<String> titles;
+        /** Questions by persistent id; never modified after construction. */
+        final LongIndex<RepoQuizeeQuestions> byId;
+
+        ThemeView(long epoch, long version, RepoQuizeeQuestions[] questions) {
+            this.epoch = epoch;
+            this.version = version;
+            this.questions = questions;
+            String[] t = new String[questions.length];
+            LongIndex<RepoQuizeeQuestions> ids = new LongIndex<>(questions.length);
+            for (int i = 0; i < t.length; i++) {
+                t[i] = questions[i].getTitel();
+                if (questions[i].getId() > 0) ids.put(questions[i].getId(), questions[i]);
+            }
+            this.titles = Collections.unmodifiableList(Arrays.asList(t));
+            this.byId = ids;
+        }
+    }
+
+    /** Cached views by theme; absent = not built or invalidated. */
+    private final Map<String, ThemeView> themeViews = new ConcurrentHashMap<>();
+
+    /** Per-theme version, bumped on every change of the theme. */
+    private final Map<String, Long> themeVersions = new ConcurrentHashMap<>();
+
+    /** Global epoch, bumped when all views become invalid (reload, unknown events). */
+    private final AtomicLong viewEpoch = new AtomicLong();
+
     // ------------------- LAMBDA-BASED BUSINESS OPERATIONS -------------------
 
     private final Function<String, List<String>> getTopicsOperation;
@@ -53,8 +107,12 @@ class ModularBusinessController implements BusinesslogicaDelegation {
     private final Function<String, String> getThemeDescriptionOperation;
     private final Function<String, List<String>> getQuestionTitlesOperation;
     private final BiFunction<String, Integer, RepoQuizeeQuestions> getQuestionOperation;
+    private final Function<String, List<RepoQuizeeQuestions>> getQuestionsOperation;
+    private final Supplier<Stream<RepoQuizeeQuestions>> streamAllQuestionsOperation;
     private final Function<QuestionSaveRequest, Boolean> saveQuestionOperation;
     private final BiFunction<String, Integer, Boolean> deleteQuestionOperation;
+    private final LongFunction<RepoQuizeeQuestions> getQuestionByIdOperation;
+    private final BiFunction<String, Long, Boolean> deleteQuestionByIdOperation;
     private final Runnable saveAllOperation;
 
     // ------------------- EVENT HANDLERS -------------------
@@ -92,8 +150,12 @@ class ModularBusinessController implements BusinesslogicaDelegation {
         this.getThemeDescriptionOperation = this::executeGetThemeDescription;
         this.getQuestionTitlesOperation = this::executeGetQuestionTitles;
         this.getQuestionOperation = this::executeGetQuestion;
+        this.getQuestionsOperation = this::executeGetQuestions;
+        this.streamAllQuestionsOperation = this::executeStreamAllQuestions;
         this.saveQuestionOperation = this::executeSaveQuestion;
         this.deleteQuestionOperation = this::executeDeleteQuestion;
+        this.getQuestionByIdOperation = this::executeGetQuestionById;
+        this.deleteQuestionByIdOperation = this::executeDeleteQuestionById;
         this.saveAllOperation = this::executeSaveAll;
 
         // Setup event handling hooks
@@ -142,6 +204,7 @@ class ModularBusinessController implements BusinesslogicaDelegation {
                 description != null ? description.trim() : ""
             );
             Boolean result = persistence.saveTheme().apply(themeData);
+            invalidateTheme(themeData.title);
             if (result) onThemeChanged.accept(title);
             return result;
         } catch (Exception e) {
@@ -160,6 +223,7 @@ class ModularBusinessController implements BusinesslogicaDelegation {
         try {
             if (title == null || title.trim().isEmpty()) return false;
             Boolean result = persistence.deleteTheme().apply(title);
+            invalidateTheme(title);
             if (result) onThemeChanged.accept(title);
             return result;
         } catch (Exception e) {
@@ -194,8 +258,7 @@ class ModularBusinessController implements BusinesslogicaDelegation {
     private List<String> executeGetQuestionTitles(String theme) {
         try {
             if (theme == null) return List.of();
-            List<PersistenceDelegate.QuestionData> questions = persistence.loadQuestionsByTheme().apply(theme);
-            return questions.stream().map(q -> q.title).collect(Collectors.toList());
+            return themeView(theme).titles;
         } catch (Exception e) {
             onError.accept("Failed to get question titles: " + e.getMessage());
             return List.of();
@@ -203,36 +266,128 @@ class ModularBusinessController implements BusinesslogicaDelegation {
     }
 
     /**
-     * Retrieves a specific question by theme and index and maps it to {@link RepoQuizeeQuestions}.
+     * Retrieves a specific question by theme and index from the theme view.
      *
      * @param theme theme name
      * @param index question index
-     * @return question object or null if not found
+     * @return shared question object or null if not found
      */
     private RepoQuizeeQuestions executeGetQuestion(String theme, Integer index) {
         try {
             if (theme == null || index == null || index < 0) return null;
-            List<PersistenceDelegate.QuestionData> questions = persistence.loadQuestionsByTheme().apply(theme);
-            if (index >= questions.size()) return null;
-            PersistenceDelegate.QuestionData questionData = questions.get(index);
-            boolean[] correctArray = new boolean[questionData.correctFlags.size()];
-            for (int i = 0; i < questionData.correctFlags.size(); i++) {
-                correctArray[i] = questionData.correctFlags.get(i);
-            }
-            RepoQuizeeQuestions question = new RepoQuizeeQuestions(
-                questionData.title,
-                questionData.questionText,
-                questionData.answers.toArray(new String[0]),
-                correctArray
-            );
-            question.setThema(questionData.theme);
-            return question;
+            RepoQuizeeQuestions[] questions = themeView(theme).questions;
+            return index < questions.length ? questions[index] : null;
         } catch (Exception e) {
             onError.accept("Failed to get question: " + e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Retrieves all questions of a theme as a read-only list backed by the theme view.
+     *
+     * @param theme theme name
+     * @return questions in theme order; empty on error
+     */
+    private List<RepoQuizeeQuestions> executeGetQuestions(String theme) {
+        try {
+            if (theme == null) return List.of();
+            return Collections.unmodifiableList(Arrays.asList(themeView(theme).questions));
+        } catch (Exception e) {
+            onError.accept("Failed to get questions: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Retrieves a question by persistent id. The persistence id index resolves
+     * the theme; the instance itself comes from that theme's view.
+     *
+     * @param id persistent question id
+     * @return shared question object or null if not found
+     */
+    private RepoQuizeeQuestions executeGetQuestionById(long id) {
+        try {
+            if (id <= 0) return null;
+            PersistenceDelegate.QuestionData data = persistence.loadQuestionById().apply(id);
+            if (data == null) return null;
+            RepoQuizeeQuestions q = themeView(data.theme).byId.get(id);
+            return q != null ? q : toQuestion(data);
+        } catch (Exception e) {
+            onError.accept("Failed to get question: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Streams all questions theme by theme; each theme is loaded (one pass over
+     * persistence) when the stream reaches it.
+     *
+     * @return lazy stream over all questions
+     */
+    private Stream<RepoQuizeeQuestions> executeStreamAllQuestions() {
+        return executeGetTopics(null).stream()
+                .flatMap(theme -> executeGetQuestions(theme).stream());
+    }
+
+    /**
+     * Returns the cached view of a theme, building it from the persistence
+     * layer if absent. A view built while the theme changed is returned to the
+     * caller but not cached.
+     */
+    private ThemeView themeView(String theme) {
+        ThemeView view = themeViews.get(theme);
+        if (view != null) return view;
+
+        long epoch = viewEpoch.get();
+        long version = themeVersions.getOrDefault(theme, 0L);
+        List<PersistenceDelegate.QuestionData> data = persistence.loadQuestionsByTheme().apply(theme);
+        RepoQuizeeQuestions[] questions = new RepoQuizeeQuestions[data.size()];
+        for (int i = 0; i < questions.length; i++) questions[i] = toQuestion(data.get(i));
+        ThemeView built = new ThemeView(epoch, version, questions);
+
+        // install only if no invalidation happened since loading started
+        themeViews.compute(theme, (k, cur) ->
+                viewEpoch.get() == built.epoch && themeVersions.getOrDefault(k, 0L) == built.version ? built : cur);
+        return built;
+    }
+
+    private static RepoQuizeeQuestions toQuestion(PersistenceDelegate.QuestionData questionData) {
+        return new RepoQuizeeQuestions(QuestionValue.of(questionData));
+    }
+
+    /** Drops the view of one theme. */
+    private void invalidateTheme(String theme) {
+        if (theme == null) return;
+        themeVersions.merge(theme, 1L, Long::sum);
+        themeViews.remove(theme);
+    }
+
+    /** Drops all views. */
+    private void invalidateAllThemes() {
+        viewEpoch.incrementAndGet();
+        themeViews.clear();
+    }
+
+    /**
+     * Maps persistence change events to view invalidations. Question events
+     * carry "theme:title"; every prefix before a ':' is treated as a candidate
+     * theme so titles or themes containing ':' stay correct.
+     */
+    private void onPersistenceChange(PersistenceDelegate.DataChangeEvent event) {
+        String type = event.type != null ? event.type : "";
+        String target = event.target;
+        if (target != null && type.startsWith("THEME_")) {
+            invalidateTheme(target);
+        } else if (target != null && type.startsWith("QUESTION_")) {
+            for (int i = target.indexOf(':'); i >= 0; i = target.indexOf(':', i + 1)) {
+                invalidateTheme(target.substring(0, i));
+            }
+        } else {
+            invalidateAllThemes();
+        }
+    }
+
     /**
      * Saves a question via persistence delegate and triggers question-changed event.
      *
@@ -254,6 +409,7 @@ class ModularBusinessController implements BusinesslogicaDelegation {
                 request.correct
             );
             Boolean result = persistence.saveQuestion().apply(questionData);
+            invalidateTheme(request.theme);
             if (result) onQuestionChanged.accept(request.theme + ":" + request.title);
             return result;
         } catch (Exception e) {
@@ -274,6 +430,7 @@ class ModularBusinessController implements BusinesslogicaDelegation {
             if (theme == null || index == null || index < 0) return false;
             PersistenceDelegate.QuestionDeleteRequest request = new PersistenceDelegate.QuestionDeleteRequest(theme, index);
             Boolean result = persistence.deleteQuestion().apply(request);
+            invalidateTheme(theme);
             if (result) onQuestionChanged.accept(theme + ":deleted");
             return result;
         } catch (Exception e) {
@@ -283,10 +440,37 @@ class ModularBusinessController implements BusinesslogicaDelegation {
     }
 
     /**
-     * Persists all data via persistence delegate.
+     * Deletes a question by theme and persistent id and triggers question-changed event.
+     *
+     * @param theme theme name
+     * @param id persistent question id
+     * @return success status
+     */
+    private Boolean executeDeleteQuestionById(String theme, Long id) {
+        try {
+            if (theme == null || id == null || id <= 0) return false;
+            Boolean result = persistence.deleteQuestion().apply(
+                    PersistenceDelegate.QuestionDeleteRequest.byId(theme, id));
+            invalidateTheme(theme);
+            if (result) onQuestionChanged.accept(theme + ":deleted");
+            return result;
+        } catch (Exception e) {
+            onError.accept("Failed to delete question: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Persists all data via persistence delegate in the background; the caller
+     * (usually the EDT) does not wait for the disk. Failures are reported to
+     * the error handler when the write completes.
      */
     private void executeSaveAll() {
-        try { persistence.persistAll().run(); }
+        try {
+            persistence.persistAllAsync().get().whenComplete((ignored, e) -> {
+                if (e != null) onError.accept("Failed to save all data: " + e.getMessage());
+            });
+        }
         catch (Exception e) { onError.accept("Failed to save all data: " + e.getMessage()); }
     }
 
@@ -298,9 +482,20 @@ class ModularBusinessController implements BusinesslogicaDelegation {
     @Override public String getThemeDescription(String title) { return getThemeDescriptionOperation.apply(title); }
     @Override public List<String> getQuestionTitles(String topic) { return getQuestionTitlesOperation.apply(topic); }
     @Override public RepoQuizeeQuestions getQuestion(String topic, int index) { return getQuestionOperation.apply(topic, index); }
+    @Override public List<RepoQuizeeQuestions> getQuestions(String topic) { return getQuestionsOperation.apply(topic); }
+    @Override public Stream<RepoQuizeeQuestions> streamAllQuestions() { return streamAllQuestionsOperation.get(); }
     @Override public void deleteQuestion(String topic, int index) { deleteQuestionOperation.apply(topic, index); }
+    @Override public RepoQuizeeQuestions getQuestionById(long id) { return getQuestionByIdOperation.apply(id); }
+    @Override public void deleteQuestionById(String topic, long id) { deleteQuestionByIdOperation.apply(topic, id); }
     @Override public void saveAll() { saveAllOperation.run(); }
 
+    @Override
+    public void syncLeitnerCards(Collection<AdaptiveLeitnerCard> cards) {
+        persistence.syncLeitnerCards(cards).whenComplete((ignored, e) -> {
+            if (e != null) onError.accept("Failed to save Leitner cards: " + e.getMessage());
+        });
+    }
+
     @Override
     public void saveQuestion(String topic, String title, String text, List<String> answers, List<Boolean> correct) {
         saveQuestion(topic, title, text, "", answers, correct);
@@ -315,7 +510,8 @@ class ModularBusinessController implements BusinesslogicaDelegation {
     // ------------------- EVENT HANDLER REGISTRATION -------------------
 
     private void setupEventHandlers() {
-        // In a full implementation, events from persistence could be registered here
+        // Changes made directly on the persistence layer (merges, other delegates) invalidate views
+        persistence.addDataChangeListener(this::onPersistenceChange);
         System.out.println("Event handlers setup completed");
     }
 
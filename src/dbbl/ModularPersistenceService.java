@@ -1,10 +1,25 @@
 package dbbl;
 
+import dbbl.storage.BackupRepository;
+import dbbl.storage.BackupService;
+import dbbl.storage.GenerationFiles;
+import dbbl.storage.MappedQuestionStore;
+import dbbl.storage.PersistenceExecutor;
+import dbbl.storage.QuizStoreCodec;
+import dbbl.storage.ShardedQuestionStore;
+import dbbl.storage.StoreFormat;
+
 import java.io.*;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.*;
 
 /**
@@ -17,15 +32,59 @@ import java.util.function.*;
  * <ul>
  *   <li>Thread-safe operations using {@link ConcurrentHashMap}</li>
  *   <li>Event-driven notifications for data changes and errors</li>
- *   <li>Serialization support for all data structures</li>
- *   <li>Backup creation and snapshot management</li>
+ *   <li>Compact binary snapshot format (see {@link QuizStoreCodec})</li>
+ *   <li>Append-only journal for mutations with periodic snapshot compaction</li>
+ *   <li>Incremental, deduplicated point-in-time backups and atomic restores (see {@link BackupService})</li>
  * </ul>
  * 
  * Architecture:
  * <pre>
- * ModularBusinessController → ModularPersistenceService → Serialized data storage
+ * ModularBusinessController → ModularPersistenceService → Journal + sharded binary snapshot
  * </pre>
  * <p>
+ * Write path: every mutation appends a small record to {@value #JOURNAL_FILE}
+ * instead of rewriting the whole snapshot. Once the journal grows beyond
+ * {@value #COMPACT_AFTER_RECORDS} records (or on an explicit {@link #persistAll()})
+ * it is compacted into the snapshot and truncated. {@link #loadAll()}
+ * loads the snapshot and replays the journal tail on top of it.
+ * <p>
+ * Sharding: the snapshot is a manifest ({@value #DATA_FILE}) plus one shard
+ * file per theme (see {@link ShardedQuestionStore}). Question mutations mark
+ * their theme dirty; a compaction rewrites only the shards of dirty (and new)
+ * themes, then the manifest. All shards are read in parallel at startup. A
+ * single-file snapshot written before sharding is split into shards once.
+ * <p>
+ * Group commit: journal records are buffered in memory and written with a
+ * single append + force once {@value #DEFAULT_GROUP_COMMIT_BATCH} records are
+ * pending or {@value #DEFAULT_GROUP_COMMIT_INTERVAL_MS} ms have passed, whichever
+ * comes first; {@link DbblDelegate#createDefault()} applies the configured
+ * values instead. Callers that need durability (merges, tests, shutdown) use
+ * the {@link #flush()} barrier.
+ * <p>
+ * Background compaction: {@link #persistAllAsync()} queues the compaction on
+ * the shared {@link PersistenceExecutor}, so a save triggered from the UI
+ * returns at once. Repeated requests collapse into one snapshot write.
+ * <p>
+ * Mapped mode ({@link #ModularPersistenceService(boolean)}): only the manifest
+ * is read at startup. A theme's shard is memory-mapped through
+ * {@link MappedQuestionStore} and decoded into the heap the first time the
+ * theme is read or modified; untouched themes are never dirty, so their
+ * shards are not rewritten.
+ * <p>
+ * Question ids: every stored question carries a persistent 64-bit id
+ * ({@link RepoQuizeeQuestions#getId()}) handed out from a sequence that is
+ * saved with the snapshot. A {@link LongIndex} maps ids to the live question
+ * objects and serves {@link #loadQuestionById()}, deletes by id and updates
+ * of renamed questions. Snapshots written before ids existed are assigned ids
+ * once on load and rewritten.
+ * <p>
+ * Concurrency: each theme lives in a {@link ThemeBucket}, which is its own
+ * lock stripe. A mutation and its journal record are applied under the lock
+ * of the affected theme only, so writers of different themes do not contend
+ * and journal order matches apply order per theme. Readers (loading a theme,
+ * writing a snapshot) work on the bucket's published immutable copy and
+ * never block.
+ * <p>
  * All operations are exposed via functional interfaces such as {@link Function},
  * {@link Supplier}, {@link Consumer}, and {@link Runnable}, enabling easy
  * testing, lambda-based usage, and reactive behavior.
@@ -37,30 +96,170 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
     
     private static final long serialVersionUID = 1L;
     private static final String DATA_FILE = "quiz_questions.dat";
+    private static final String JOURNAL_FILE = "quiz_questions.journal";
+
+    /** Number of backups kept by the repository; older ones are pruned. */
+    private static final int BACKUP_RETENTION = 10;
+
+    /** Number of journal records after which the journal is compacted into a snapshot. */
+    private static final int COMPACT_AFTER_RECORDS = 1000;
+
+    /** Journal size in bytes after which the journal is compacted into a snapshot. */
+    private static final long COMPACT_AFTER_BYTES = 4L * 1024 * 1024;
+
+    /** Default number of buffered journal records that triggers a group commit. */
+    static final int DEFAULT_GROUP_COMMIT_BATCH = 256;
+
+    /** Default maximum delay in milliseconds before buffered records are committed. */
+    static final long DEFAULT_GROUP_COMMIT_INTERVAL_MS = 200;
+
+    /**
+     * Shared daemon scheduler running delayed group commits for all instances.
+     */
+    private static final ScheduledExecutorService GROUP_COMMIT_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "quiz-group-commit");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * Live instances whose buffered records are flushed on JVM shutdown.
+     */
+    private static final Set<ModularPersistenceService> LIVE_INSTANCES =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            List<ModularPersistenceService> live;
+            synchronized (LIVE_INSTANCES) { live = new ArrayList<>(LIVE_INSTANCES); }
+            live.forEach(s -> s.flushImpl.run());
+        }, "quiz-group-commit-shutdown"));
+    }
 
     // ------------------- CORE DATA STRUCTURES -------------------
 
     /**
-     * Stores all questions grouped by theme.
+     * Stores all questions grouped by theme, each theme with its title index.
      * Thread-safe concurrent map for multi-threaded access.
      */
-    private final Map<String, List<RepoQuizeeQuestions>> questionsByTheme = new ConcurrentHashMap<>();
+    private final Map<String, ThemeBucket> questionsByTheme = new ConcurrentHashMap<>();
 
     /**
      * Stores theme descriptions for each theme.
      */
     private final Map<String, String> themeDescriptions = new ConcurrentHashMap<>();
 
+    /**
+     * Themes listed in the manifest whose shards are not decoded yet.
+     * Always empty outside mapped mode.
+     */
+    private final transient Set<String> unloadedThemes = ConcurrentHashMap.newKeySet();
+
+    /** Manifest and per-theme shard files of the snapshot. */
+    private final transient ShardedQuestionStore shards;
+
+    /** Shard number of every theme written to (or loaded from) a shard. */
+    private final transient Map<String, Integer> shardByTheme = new ConcurrentHashMap<>();
+
+    /** Themes whose questions changed since their shard was last written. */
+    private final transient Set<String> dirtyThemes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Themes whose shard could not be read at load, with shard number and
+     * description. They are not served, but stay in every manifest written
+     * until they are recreated, so their shard files are never orphaned.
+     * Guarded by {@link #commitLock}.
+     */
+    private transient ShardedQuestionStore.Manifest unreadableShards = new ShardedQuestionStore.Manifest();
+
+    /** Point-in-time backups of all store files of the working directory. */
+    private final transient BackupService backups;
+
+    /**
+     * Holds this service during backups and restores of any {@link BackupService};
+     * registered weakly, so it lives exactly as long as the service.
+     */
+    private final transient BackupService.StoreGuard backupGuard = new BackupService.StoreGuard() {
+        @Override
+        public void hold(BackupService.Section section) throws IOException {
+            synchronized (commitLock) {
+                flushPendingLocked();
+                journal.close(); // the journal file may be replaced
+                section.run();
+            }
+        }
+
+        @Override
+        public void restored() {
+            // called under commitLock (inside hold): mutations until the reload
+            // belong to the replaced state and are not written
+            reloadPending = true;
+            pendingEntries.clear();
+            cancelScheduledFlush();
+        }
+
+        @Override
+        public void reload() {
+            // outside commitLock: the load takes bucket locks before commitLock, like every writer
+            loadAllImpl.run();
+        }
+    };
+
+    /**
+     * Set between a restore of the store files and the reload of this
+     * service; nothing is journaled or compacted meanwhile. Guarded by
+     * {@link #commitLock}.
+     */
+    private transient boolean reloadPending;
+
+    /** Next unused shard number; guarded by {@link #commitLock}. */
+    private transient int nextShard = 1;
+
+    /** Whether shards are memory-mapped and decoded per theme on first access. */
+    private final transient boolean mapped;
+
+    /**
+     * Live questions by persistent id; covers every decoded theme.
+     * Guarded by its own monitor, together with {@link #nextQuestionId}.
+     */
+    private final transient LongIndex<RepoQuizeeQuestions> questionsById = new LongIndex<>();
+
+    /** Next id handed out to a new question. */
+    private transient long nextQuestionId = 1;
+
+    /** Set when a loaded question had no id yet; the snapshot is then rewritten. */
+    private transient boolean idsAssigned;
+
     /**
      * Timestamp indicating when the service instance was created.
      */
     private final LocalDateTime createdAt;
 
+    /**
+     * Append-only journal receiving every mutation between two snapshots.
+     */
+    private transient QuestionJournal journal;
+
+    // ------------------- GROUP COMMIT STATE (TRANSIENT) -------------------
+
+    /** Guards the pending batch, the scheduled flush and snapshot compaction. */
+    private transient Object commitLock;
+
+    /** Journal records applied in memory but not yet written to the journal. */
+    private transient List<QuestionJournal.Entry> pendingEntries;
+
+    /** Delayed flush of the current batch, or {@code null} if none is scheduled. */
+    private transient ScheduledFuture<?> scheduledFlush;
+
+    private transient int groupCommitBatch;
+    private transient long groupCommitIntervalMs;
+
     // ------------------- SERIALIZATION SNAPSHOT -------------------
 
     /**
-     * Snapshot of the data for persistence purposes.
-     * Serialized to disk and used for loading and backup.
+     * Legacy Java-serialized snapshot. Only read once to import files written
+     * before the binary format; new snapshots use {@link QuizStoreCodec}.
      */
     private static class Snapshot implements Serializable {
         private static final long serialVersionUID = 1L;
@@ -80,14 +279,23 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
     private transient Function<String, Boolean> deleteThemeImpl;
     private transient Supplier<List<String>> getAllThemesImpl;
     private transient Function<QuestionData, Boolean> saveQuestionImpl;
+    private transient Function<List<QuestionData>, Integer> saveQuestionsImpl;
     private transient Function<String, List<QuestionData>> loadQuestionsByThemeImpl;
+    private transient LongFunction<QuestionData> loadQuestionByIdImpl;
+    private transient BiPredicate<String, String> containsQuestionImpl;
     private transient Function<QuestionDeleteRequest, Boolean> deleteQuestionImpl;
     private transient Runnable persistAllImpl;
+    private transient Supplier<CompletableFuture<Void>> persistAllAsyncImpl;
+    private transient Runnable flushImpl;
     private transient Runnable loadAllImpl;
     private transient Function<String, Boolean> createBackupImpl;
+    private transient Function<String, Boolean> restoreBackupImpl;
     private transient Consumer<DataChangeEvent> onDataChangedImpl;
     private transient Consumer<PersistenceError> onErrorImpl;
 
+    /** Listeners registered via {@link #addDataChangeListener(Consumer)}. */
+    private final transient List<Consumer<DataChangeEvent>> dataChangeListeners = new CopyOnWriteArrayList<>();
+
     // ------------------- CONSTRUCTOR -------------------
 
     /**
@@ -95,9 +303,46 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
      * Initializes all lambda-based operations and loads existing data.
      */
     public ModularPersistenceService() {
+        this(false);
+    }
+
+    /**
+     * Creates a persistence service, optionally in mapped mode.
+     *
+     * @param mapped {@code true} to memory-map theme shards and decode them lazily
+     */
+    ModularPersistenceService(boolean mapped) {
+        this.mapped = mapped;
         this.createdAt = LocalDateTime.now();
+        this.shards = new ShardedQuestionStore(new File(DATA_FILE).toPath());
+        this.journal = new QuestionJournal(new File(JOURNAL_FILE));
+        this.backups = BackupService.forWorkingDirectory();
+        this.commitLock = new Object();
+        this.pendingEntries = new ArrayList<>();
+        this.groupCommitBatch = DEFAULT_GROUP_COMMIT_BATCH;
+        this.groupCommitIntervalMs = DEFAULT_GROUP_COMMIT_INTERVAL_MS;
         initializeLambdas();
         loadAllImpl.run(); // Load persisted data
+        LIVE_INSTANCES.add(this);
+        BackupService.register(backupGuard);
+    }
+
+    /**
+     * Configures the group commit policy.
+     *
+     * @param maxBatch number of buffered records that forces an immediate commit (1 = commit every mutation)
+     * @param maxDelayMs maximum time a record stays buffered before it is committed
+     */
+    void configureGroupCommit(int maxBatch, long maxDelayMs) {
+        synchronized (commitLock) {
+            this.groupCommitBatch = Math.max(1, maxBatch);
+            this.groupCommitIntervalMs = Math.max(0, maxDelayMs);
+        }
+    }
+
+    /** Number of journal writes (one per group commit) since this service was created. */
+    long journalWrites() {
+        return journal.writes();
     }
 
     // ------------------- LAMBDA INITIALIZATION -------------------
@@ -112,9 +357,7 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
         // === THEME OPERATIONS ===
         saveThemeImpl = themeData -> {
             try {
-                questionsByTheme.computeIfAbsent(themeData.title, k -> new ArrayList<>());
-                themeDescriptions.put(themeData.title, themeData.description);
-                persistAllImpl.run();
+                applySaveTheme(themeData.title, themeData.description, true);
                 notifyDataChange("THEME_SAVED", themeData.title);
                 return true;
             } catch (Exception e) {
@@ -127,9 +370,7 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
 
         deleteThemeImpl = title -> {
             try {
-                questionsByTheme.remove(title);
-                themeDescriptions.remove(title);
-                persistAllImpl.run();
+                applyDeleteTheme(title, true);
                 notifyDataChange("THEME_DELETED", title);
                 return true;
             } catch (Exception e) {
@@ -138,39 +379,17 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
             }
         };
 
-        getAllThemesImpl = () -> new ArrayList<>(questionsByTheme.keySet());
+        getAllThemesImpl = () -> {
+            // unloaded first: a theme being decoded is put into questionsByTheme before it leaves unloadedThemes
+            Set<String> themes = new LinkedHashSet<>(unloadedThemes);
+            themes.addAll(questionsByTheme.keySet());
+            return new ArrayList<>(themes);
+        };
 
         // === QUESTION OPERATIONS ===
         saveQuestionImpl = questionData -> {
             try {
-                List<RepoQuizeeQuestions> questions = questionsByTheme.computeIfAbsent(
-                        questionData.theme, k -> new ArrayList<>());
-                
-                boolean[] correctArray = new boolean[questionData.correctFlags.size()];
-                for (int i = 0; i < questionData.correctFlags.size(); i++) {
-                    correctArray[i] = questionData.correctFlags.get(i);
-                }
-
-                RepoQuizeeQuestions question = new RepoQuizeeQuestions(
-                        questionData.title,
-                        questionData.questionText,
-                        questionData.answers.toArray(new String[0]),
-                        correctArray,
-                        questionData.explanation
-                );
-                question.setThema(questionData.theme);
-
-                boolean updated = false;
-                for (int i = 0; i < questions.size(); i++) {
-                    if (questions.get(i).getTitel().equals(questionData.title)) {
-                        questions.set(i, question);
-                        updated = true;
-                        break;
-                    }
-                }
-                if (!updated) questions.add(question);
-
-                persistAllImpl.run();
+                applySaveQuestion(questionData, true);
                 notifyDataChange("QUESTION_SAVED", questionData.theme + ":" + questionData.title);
                 return true;
             } catch (Exception e) {
@@ -179,30 +398,78 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
             }
         };
 
+        saveQuestionsImpl = batch -> {
+            // one bucket edit (and one published copy) per theme instead of one per question
+            Map<String, List<QuestionData>> byTheme = new LinkedHashMap<>();
+            for (QuestionData q : batch) byTheme.computeIfAbsent(q.theme, k -> new ArrayList<>()).add(q);
+            int saved = 0;
+            for (Map.Entry<String, List<QuestionData>> e : byTheme.entrySet()) {
+                try {
+                    saved += applySaveQuestions(e.getKey(), e.getValue());
+                } catch (Exception ex) {
+                    handleError(ex);
+                }
+            }
+            notifyDataChange("QUESTIONS_SAVED", String.valueOf(saved));
+            return saved;
+        };
+
         loadQuestionsByThemeImpl = theme -> {
-            List<RepoQuizeeQuestions> questions = questionsByTheme.getOrDefault(theme, new ArrayList<>());
-            return questions.stream()
-                    .map(q -> new QuestionData(
-                            q.getThema(),
-                            q.getTitel(),
-                            q.getFrageText(),
-                            q.getErklaerung() != null ? q.getErklaerung() : "",
-                            q.getAntworten(),
-                            q.getKorrekt()
-                    ))
+            ThemeBucket questions;
+            try {
+                questions = themeQuestions(theme);
+            } catch (UncheckedIOException e) {
+                handleError(e.getCause());
+                questions = null;
+            }
+            if (questions == null) return new ArrayList<>();
+            return questions.snapshot().stream()
+                    .map(ModularPersistenceService::toQuestionData)
                     .collect(Collectors.toList());
         };
 
-        deleteQuestionImpl = request -> {
+        loadQuestionByIdImpl = id -> {
             try {
-                List<RepoQuizeeQuestions> questions = questionsByTheme.get(request.theme);
-                if (questions != null && request.questionIndex >= 0 && request.questionIndex < questions.size()) {
-                    RepoQuizeeQuestions removed = questions.remove(request.questionIndex);
-                    persistAllImpl.run();
-                    notifyDataChange("QUESTION_DELETED", request.theme + ":" + removed.getTitel());
-                    return true;
-                }
+                RepoQuizeeQuestions q = questionById(id);
+                return q != null ? toQuestionData(q) : null;
+            } catch (UncheckedIOException e) {
+                handleError(e.getCause());
+                return null;
+            }
+        };
+
+        containsQuestionImpl = (theme, title) -> {
+            try {
+                ThemeBucket questions = themeQuestions(theme);
+                return questions != null && questions.containsTitle(title);
+            } catch (UncheckedIOException e) {
+                handleError(e.getCause());
                 return false;
+            }
+        };
+
+        deleteQuestionImpl = request -> {
+            try {
+                ThemeBucket questions = themeQuestions(request.theme);
+                if (questions == null) return false;
+                RepoQuizeeQuestions removed = questions.edit(b -> {
+                    RepoQuizeeQuestions r = null;
+                    if (b.isRetired()) return null; // theme deleted concurrently
+                    if (request.questionId > 0) {
+                        RepoQuizeeQuestions q = questionById(request.questionId);
+                        if (q != null && b.removeInstance(q)) r = q;
+                    } else if (request.questionIndex >= 0 && request.questionIndex < b.live().size()) {
+                        r = b.remove(request.questionIndex);
+                    }
+                    if (r == null) return null;
+                    unindex(r);
+                    questionsChanged(b, request.theme,
+                            QuestionJournal.Entry.deleteQuestion(request.theme, r.getTitel(), r.getId()));
+                    return r;
+                });
+                if (removed == null) return false;
+                notifyDataChange("QUESTION_DELETED", request.theme + ":" + removed.getTitel());
+                return true;
             } catch (Exception e) {
                 handleError(e);
                 return false;
@@ -211,59 +478,111 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
 
         // === PERSISTENCE OPERATIONS ===
         persistAllImpl = () -> {
-            File target = new File(DATA_FILE);
-            File tmp = new File(DATA_FILE + ".tmp");
-            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
-                Snapshot snap = new Snapshot();
-                snap.questionsByTheme = new HashMap<>(questionsByTheme);
-                snap.themeDescriptions = new HashMap<>(themeDescriptions);
-                snap.createdAt = createdAt;
-                out.writeObject(snap);
-            } catch (IOException e) {
-                handleError(e);
-                if (tmp.exists()) tmp.delete();
-                return;
+            synchronized (commitLock) {
+                writeSnapshotLocked();
+            }
+        };
+
+        persistAllAsyncImpl = () -> PersistenceExecutor.shared().submit(DATA_FILE, () -> {
+            synchronized (commitLock) {
+                if (!writeSnapshotLocked()) throw new IOException("Unable to write " + DATA_FILE);
+            }
+        });
+
+        flushImpl = () -> {
+            synchronized (commitLock) {
+                try {
+                    flushPendingLocked();
+                } catch (IOException e) {
+                    handleError(e);
+                }
             }
-            if (target.exists() && !target.delete()) tmp.delete();
-            if (!tmp.renameTo(target)) tmp.delete();
         };
 
         loadAllImpl = () -> {
             File f = new File(DATA_FILE);
-            if (!f.exists()) {
-                initializeExampleData();
-                return;
+            boolean migrate = false;
+            unloadedThemes.clear();
+            shardByTheme.clear();
+            dirtyThemes.clear();
+            synchronized (commitLock) {
+                nextShard = shards.nextFreeShard();
+                unreadableShards = new ShardedQuestionStore.Manifest();
             }
-            try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(f))) {
-                Object obj = in.readObject();
-                if (obj instanceof Snapshot) {
-                    Snapshot snap = (Snapshot) obj;
-                    questionsByTheme.clear();
-                    questionsByTheme.putAll(snap.questionsByTheme != null ? snap.questionsByTheme : new HashMap<>());
-                    themeDescriptions.clear();
-                    themeDescriptions.putAll(snap.themeDescriptions != null ? snap.themeDescriptions : new HashMap<>());
-                } else initializeExampleData();
-            } catch (IOException | ClassNotFoundException e) {
+            synchronized (questionsById) {
+                questionsById.clear();
+                nextQuestionId = 1;
+                idsAssigned = false;
+            }
+            if (!GenerationFiles.exists(f)) {
                 initializeExampleData();
+            } else if (ShardedQuestionStore.isManifest(f)) {
+                ShardedQuestionStore.Manifest manifest;
+                try {
+                    manifest = shards.readManifest();
+                } catch (IOException e) {
+                    // both generations unreadable: rebuild from the shards instead of starting empty
+                    handleError(e);
+                    manifest = shards.recoverManifest();
+                    migrate = true; // writes the rebuilt manifest
+                }
+                loadShards(manifest);
+            } else if (StoreFormat.isBinary(f)) {
+                // single-file snapshot written before sharding
+                try {
+                    QuizStoreCodec.QuestionSnapshot snap = QuizStoreCodec.readQuestions(f.toPath());
+                    replaceBuckets(snap.questionsByTheme);
+                    themeDescriptions.clear();
+                    themeDescriptions.putAll(snap.themeDescriptions);
+                    // ids assigned while indexing may already be above the stored sequence
+                    synchronized (questionsById) { nextQuestionId = Math.max(nextQuestionId, snap.nextQuestionId); }
+                    migrate = true;
+                } catch (IOException e) {
+                    handleError(e);
+                    initializeExampleData();
+                }
+            } else {
+                migrate = importLegacySnapshot(f);
+            }
+            // Recovery: replay mutations written after the last compaction
+            try {
+                journal.replay(this::applyJournalEntry);
+            } catch (IOException e) {
+                handleError(e);
             }
+            // One-shot migration: split an imported legacy or single-file snapshot into
+            // shards and rewrite questions that were assigned ids on load
+            synchronized (commitLock) { reloadPending = false; }
+            boolean rewrite;
+            synchronized (questionsById) { rewrite = idsAssigned; }
+            if (rewrite) dirtyThemes.addAll(questionsByTheme.keySet());
+            if (migrate || rewrite) persistAllImpl.run();
+            notifyDataChange("DATA_LOADED", DATA_FILE);
         };
 
         createBackupImpl = backupName -> {
+            // Compact first so the shards hold nearly every mutation, then back up
+            // all store files at one point in time
             try {
-                File original = new File(DATA_FILE);
-                if (original.exists()) {
-                    File backup = new File(backupName + "_" + System.currentTimeMillis() + ".bak");
-                    try (FileInputStream fis = new FileInputStream(original);
-                         FileOutputStream fos = new FileOutputStream(backup)) {
-                        byte[] buffer = new byte[1024];
-                        int length;
-                        while ((length = fis.read(buffer)) > 0) {
-                            fos.write(buffer, 0, length);
-                        }
-                    }
-                    return true;
+                synchronized (commitLock) {
+                    if (!writeSnapshotLocked()) return false;
                 }
+                BackupRepository.Snapshot snapshot = backups.backup(backupName);
+                backups.repository().prune(BACKUP_RETENTION);
+                notifyDataChange("BACKUP_CREATED", snapshot.id);
+                return true;
+            } catch (IOException e) {
+                handleError(e);
                 return false;
+            }
+        };
+
+        restoreBackupImpl = backupId -> {
+            // Swaps the files and reloads every registered store, including this one
+            try {
+                backups.restore(backupId);
+                notifyDataChange("BACKUP_RESTORED", backupId);
+                return true;
             } catch (IOException e) {
                 handleError(e);
                 return false;
@@ -281,13 +600,467 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
     @Override public Function<String, Boolean> deleteTheme() { return deleteThemeImpl; }
     @Override public Supplier<List<String>> getAllThemes() { return getAllThemesImpl; }
     @Override public Function<QuestionData, Boolean> saveQuestion() { return saveQuestionImpl; }
+    @Override public Function<List<QuestionData>, Integer> saveQuestions() { return saveQuestionsImpl; }
     @Override public Function<String, List<QuestionData>> loadQuestionsByTheme() { return loadQuestionsByThemeImpl; }
+    @Override public LongFunction<QuestionData> loadQuestionById() { return loadQuestionByIdImpl; }
+    @Override public BiPredicate<String, String> containsQuestion() { return containsQuestionImpl; }
     @Override public Function<QuestionDeleteRequest, Boolean> deleteQuestion() { return deleteQuestionImpl; }
     @Override public Runnable persistAll() { return persistAllImpl; }
+    @Override public Supplier<CompletableFuture<Void>> persistAllAsync() { return persistAllAsyncImpl; }
+    @Override public Runnable flush() { return flushImpl; }
     @Override public Runnable loadAll() { return loadAllImpl; }
     @Override public Function<String, Boolean> createBackup() { return createBackupImpl; }
+    @Override public Function<String, Boolean> restoreBackup() { return restoreBackupImpl; }
     @Override public Consumer<DataChangeEvent> onDataChanged() { return onDataChangedImpl; }
     @Override public Consumer<PersistenceError> onError() { return onErrorImpl; }
+    @Override public void addDataChangeListener(Consumer<DataChangeEvent> listener) { dataChangeListeners.add(listener); }
+
+    // ------------------- SNAPSHOT -------------------
+
+    /**
+     * Reads all shards of the manifest in parallel, or in mapped mode only
+     * registers the themes as not yet decoded. A shard that cannot be read
+     * loses only its theme: the failure is reported and the shard is kept as
+     * it is, see {@link #unreadableShards}.
+     */
+    private void loadShards(ShardedQuestionStore.Manifest manifest) {
+        Map<String, IOException> unreadable = new ConcurrentHashMap<>();
+        if (mapped) {
+            replaceBuckets(Collections.emptyMap());
+        } else {
+            replaceBuckets(shards.readShards(manifest, unreadable));
+        }
+        themeDescriptions.clear();
+        themeDescriptions.putAll(manifest.descriptions);
+        shardByTheme.putAll(manifest.shards);
+        ShardedQuestionStore.Manifest skipped = new ShardedQuestionStore.Manifest();
+        unreadable.forEach((theme, e) -> {
+            int shard = shardByTheme.remove(theme);
+            skipped.shards.put(theme, shard);
+            String description = themeDescriptions.remove(theme);
+            if (description != null) skipped.descriptions.put(theme, description);
+            handleError(new IOException("Shard " + shard + " of theme '" + theme
+                    + "' is unreadable; the theme is skipped and its shard kept: " + e.getMessage(), e));
+        });
+        synchronized (commitLock) {
+            unreadableShards = skipped;
+            nextShard = Math.max(nextShard, manifest.nextShard);
+        }
+        synchronized (questionsById) { nextQuestionId = Math.max(nextQuestionId, manifest.nextQuestionId); }
+        if (mapped) unloadedThemes.addAll(manifest.shards.keySet());
+    }
+
+    /**
+     * Returns the live question bucket of a theme, decoding its mapped shard
+     * on first access.
+     *
+     * @return question bucket or {@code null} for unknown themes
+     * @throws UncheckedIOException if the mapped theme cannot be decoded
+     */
+    private ThemeBucket themeQuestions(String theme) {
+        if (!unloadedThemes.isEmpty() && unloadedThemes.contains(theme)) {
+            synchronized (unloadedThemes) {
+                if (unloadedThemes.contains(theme)) {
+                    try {
+                        List<RepoQuizeeQuestions> decoded = shards.mapShard(shardByTheme.get(theme), theme);
+                        indexQuestions(decoded);
+                        questionsByTheme.put(theme, new ThemeBucket(decoded));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    unloadedThemes.remove(theme);
+                }
+            }
+        }
+        return questionsByTheme.get(theme);
+    }
+
+    /**
+     * Questions of a theme for snapshot writing; themes that were never decoded
+     * are read from their shard without keeping them on the heap.
+     */
+    private List<RepoQuizeeQuestions> snapshotQuestions(String theme) {
+        if (unloadedThemes.contains(theme)) {
+            try {
+                return shards.mapShard(shardByTheme.get(theme), theme);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        ThemeBucket questions = questionsByTheme.get(theme);
+        return questions != null ? questions.snapshot() : Collections.emptyList();
+    }
+
+    /**
+     * Imports a snapshot written with Java serialization by earlier versions.
+     *
+     * @return {@code true} if the legacy snapshot was loaded
+     */
+    private boolean importLegacySnapshot(File f) {
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(f))) {
+            Object obj = in.readObject();
+            if (obj instanceof Snapshot) {
+                Snapshot snap = (Snapshot) obj;
+                replaceBuckets(snap.questionsByTheme != null ? snap.questionsByTheme : new HashMap<>());
+                themeDescriptions.clear();
+                themeDescriptions.putAll(snap.themeDescriptions != null ? snap.themeDescriptions : new HashMap<>());
+                return true;
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            // unreadable legacy file: start empty, the file is replaced on the next snapshot
+        }
+        initializeExampleData();
+        return false;
+    }
+
+    /**
+     * Compacts the in-memory state into the snapshot and truncates the journal:
+     * rewrites the shards of dirty and new themes (.tmp → rename), then the
+     * manifest, then drops the shards of deleted themes. Buffered group commit
+     * records are dropped because the snapshot already contains them. Caller
+     * must hold {@link #commitLock}.
+     *
+     * @return {@code false} if the snapshot could not be written
+     */
+    private boolean writeSnapshotLocked() {
+        if (reloadPending) return false; // would overwrite the restored files
+        Set<String> themes = new LinkedHashSet<>(getAllThemesImpl.get());
+        themes.addAll(themeDescriptions.keySet());
+        dirtyThemes.retainAll(themes); // deleted themes need no shard
+        ShardedQuestionStore.Manifest manifest = new ShardedQuestionStore.Manifest();
+        try {
+            long nextId;
+            synchronized (questionsById) { nextId = nextQuestionId; }
+            for (String theme : themes) {
+                Integer shard = shardByTheme.get(theme);
+                if (shard == null) {
+                    shard = nextShard++;
+                    shardByTheme.put(theme, shard);
+                    dirtyThemes.add(theme);
+                }
+                // cleared before reading: a mutation racing with the write marks the theme again
+                if (dirtyThemes.remove(theme)) {
+                    try {
+                        shards.writeShard(shard, theme, themeDescriptions.get(theme), snapshotQuestions(theme), nextId);
+                    } catch (IOException | UncheckedIOException e) {
+                        dirtyThemes.add(theme);
+                        throw e;
+                    }
+                }
+                manifest.shards.put(theme, shard);
+                String description = themeDescriptions.get(theme);
+                if (description != null) manifest.descriptions.put(theme, description);
+            }
+            // Unreadable shards stay referenced unless their theme was recreated (with a new shard)
+            unreadableShards.shards.forEach((theme, shard) -> {
+                if (manifest.shards.putIfAbsent(theme, shard) == null) {
+                    String description = unreadableShards.descriptions.get(theme);
+                    if (description != null) manifest.descriptions.put(theme, description);
+                }
+            });
+            synchronized (questionsById) { manifest.nextQuestionId = Math.max(nextId, nextQuestionId); }
+            manifest.nextShard = nextShard;
+            shards.writeManifest(manifest);
+        } catch (IOException | UncheckedIOException e) {
+            handleError(e);
+            return false;
+        }
+        // Shards of themes deleted since the last snapshot are no longer referenced
+        for (Iterator<Map.Entry<String, Integer>> it = shardByTheme.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Integer> e = it.next();
+            if (!manifest.shards.containsKey(e.getKey())) {
+                shards.deleteShard(e.getValue());
+                it.remove();
+            }
+        }
+        // Snapshot now contains every journaled and every buffered mutation
+        pendingEntries.clear();
+        cancelScheduledFlush();
+        try { journal.reset(); } catch (IOException e) { handleError(e); }
+        return true;
+    }
+
+    // ------------------- MUTATION HELPERS -------------------
+
+    /**
+     * Applies a theme save under the theme's lock, journaling it if requested
+     * (replay passes {@code false}).
+     */
+    private void applySaveTheme(String title, String description, boolean journaled) {
+        themeQuestions(title);
+        while (true) {
+            ThemeBucket bucket = questionsByTheme.computeIfAbsent(title, k -> new ThemeBucket());
+            boolean applied = bucket.edit(b -> {
+                if (b.isRetired()) return false;
+                themeDescriptions.put(title, description);
+                if (journaled) commitInEdit(QuestionJournal.Entry.saveTheme(title, description));
+                return true;
+            });
+            if (applied) return;
+        }
+    }
+
+    /**
+     * Applies a theme deletion under the theme's lock, journaling it if
+     * requested. The bucket is retired so writers waiting on it retry.
+     */
+    private void applyDeleteTheme(String title, boolean journaled) {
+        ThemeBucket bucket = themeQuestions(title);
+        if (bucket == null) {
+            themeDescriptions.remove(title);
+            if (journaled) commitInEdit(QuestionJournal.Entry.deleteTheme(title));
+            return;
+        }
+        bucket.edit(b -> {
+            b.retire();
+            questionsByTheme.remove(title, b);
+            b.live().forEach(this::unindex);
+            themeDescriptions.remove(title);
+            if (journaled) commitInEdit(QuestionJournal.Entry.deleteTheme(title));
+            return null;
+        });
+    }
+
+    /**
+     * Applies a question upsert under the theme's lock, journaling it if requested.
+     * A question of the theme with the data's id is replaced in place, even if
+     * renamed; otherwise an existing question with the same title in the theme
+     * is replaced and keeps its id. Ids are only matched within the theme.
+     *
+     * @return the stored question, carrying its (possibly new) id
+     */
+    private RepoQuizeeQuestions applySaveQuestion(QuestionData questionData, boolean journaled) {
+        RepoQuizeeQuestions question = toQuestion(questionData);
+        themeQuestions(questionData.theme);
+        while (true) {
+            ThemeBucket bucket = questionsByTheme.computeIfAbsent(questionData.theme, k -> new ThemeBucket());
+            RepoQuizeeQuestions stored = bucket.edit(b -> {
+                if (b.isRetired()) return null;
+                upsertInEdit(b, questionData, question);
+                questionsChanged(b, questionData.theme,
+                        journaled ? QuestionJournal.Entry.saveQuestion(questionData, question.getId()) : null);
+                return question;
+            });
+            if (stored != null) return stored;
+        }
+    }
+
+    /**
+     * Applies a batch of question upserts of one theme in a single edit,
+     * without journaling; the theme is marked dirty for the next snapshot.
+     *
+     * @return number of saved questions
+     */
+    private int applySaveQuestions(String theme, List<QuestionData> batch) {
+        List<RepoQuizeeQuestions> questions = new ArrayList<>(batch.size());
+        for (QuestionData q : batch) questions.add(toQuestion(q));
+        themeQuestions(theme);
+        while (true) {
+            ThemeBucket bucket = questionsByTheme.computeIfAbsent(theme, k -> new ThemeBucket());
+            boolean applied = bucket.edit(b -> {
+                if (b.isRetired()) return false;
+                for (int i = 0; i < batch.size(); i++) upsertInEdit(b, batch.get(i), questions.get(i));
+                questionsChanged(b, theme, null);
+                return true;
+            });
+            if (applied) return batch.size();
+        }
+    }
+
+    /**
+     * Stores {@code question} in the bucket: a question of the theme with the
+     * data's id is replaced in place, otherwise one with the same title, and
+     * the question is appended if neither exists. Edit only.
+     */
+    private void upsertInEdit(ThemeBucket b, QuestionData questionData, RepoQuizeeQuestions question) {
+        RepoQuizeeQuestions existing = questionData.id > 0 ? questionById(questionData.id) : null;
+        int position = existing != null ? b.indexOfInstance(existing) : -1;
+        long id = position >= 0 || existing == null ? questionData.id : 0L; // id of another theme: new question
+        if (position < 0) {
+            position = b.indexOfTitle(questionData.title);
+            existing = position >= 0 ? b.get(position) : null;
+        }
+        question.setId(existing != null ? existing.getId() : id);
+        if (position >= 0) b.set(position, question); else b.add(question);
+        indexQuestion(question);
+    }
+
+    private static RepoQuizeeQuestions toQuestion(QuestionData questionData) {
+        // the id is resolved by the caller (upsert by id or title)
+        return new RepoQuizeeQuestions(QuestionValue.of(questionData.title, questionData.questionText,
+                questionData.answers, questionData.correctFlags, questionData.explanation)
+                .withTheme(questionData.theme));
+    }
+
+    /**
+     * Re-applies a journal record during recovery. Question deletes are resolved
+     * by id (or by title for records without id) so replaying a record that is
+     * already part of the snapshot is harmless.
+     */
+    private void applyJournalEntry(QuestionJournal.Entry entry) {
+        switch (entry.op) {
+            case QuestionJournal.OP_SAVE_THEME:
+                applySaveTheme(entry.theme, entry.description, false);
+                break;
+            case QuestionJournal.OP_DELETE_THEME:
+                applyDeleteTheme(entry.theme, false);
+                break;
+            case QuestionJournal.OP_SAVE_QUESTION:
+                applySaveQuestion(entry.toQuestionData(), false);
+                break;
+            case QuestionJournal.OP_DELETE_QUESTION: {
+                ThemeBucket questions = themeQuestions(entry.theme);
+                if (questions == null) break;
+                questions.edit(b -> {
+                    RepoQuizeeQuestions byId = entry.id > 0 ? questionById(entry.id) : null;
+                    if (byId != null) {
+                        if (b.removeInstance(byId)) unindex(byId);
+                    } else if (entry.id == 0) {
+                        for (int pos; (pos = b.indexOfTitle(entry.title)) >= 0; ) {
+                            unindex(b.remove(pos));
+                        }
+                    }
+                    questionsChanged(b, entry.theme, null);
+                    return null;
+                });
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Replaces all buckets, e.g. after reading a snapshot. Old buckets are
+     * retired so writers that still hold one retry on the new state.
+     */
+    private void replaceBuckets(Map<String, List<RepoQuizeeQuestions>> source) {
+        for (ThemeBucket old : new ArrayList<>(questionsByTheme.values())) {
+            old.edit(b -> { b.retire(); return null; });
+        }
+        questionsByTheme.clear();
+        source.forEach((theme, list) -> {
+            ThemeBucket bucket = new ThemeBucket(list);
+            indexQuestions(bucket.snapshot());
+            questionsByTheme.put(theme, bucket);
+        });
+    }
+
+    /**
+     * Records a question mutation of {@code theme} from inside its bucket edit:
+     * publishes the edit, marks the theme's shard dirty and journals
+     * {@code entry} (if not {@code null}). Publishing first guarantees that a
+     * compaction which clears the dirty flag or the pending record already
+     * sees the mutation.
+     */
+    private void questionsChanged(ThemeBucket bucket, String theme, QuestionJournal.Entry entry) {
+        bucket.publish();
+        dirtyThemes.add(theme);
+        if (entry != null) commitInEdit(entry);
+    }
+
+    /**
+     * {@link #commit} for use inside a bucket edit, where checked exceptions
+     * cannot pass; the callers' catch blocks report the wrapped error.
+     */
+    private void commitInEdit(QuestionJournal.Entry entry) {
+        try {
+            commit(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds a mutation to the current group commit batch. The batch is written
+     * immediately once it reaches the configured size; otherwise a delayed
+     * flush is scheduled for the end of the commit interval.
+     */
+    private void commit(QuestionJournal.Entry entry) throws IOException {
+        synchronized (commitLock) {
+            if (reloadPending) return; // the restored files replace this mutation
+            pendingEntries.add(entry);
+            if (pendingEntries.size() >= groupCommitBatch) {
+                flushPendingLocked();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = GROUP_COMMIT_SCHEDULER.schedule(flushImpl, groupCommitIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes the pending batch with one append and one force, then compacts
+     * the journal into a fresh snapshot once it exceeds the configured record
+     * or size threshold. Caller must hold {@link #commitLock}.
+     */
+    private void flushPendingLocked() throws IOException {
+        cancelScheduledFlush();
+        if (pendingEntries.isEmpty()) return;
+        journal.appendAll(pendingEntries);
+        journal.force();
+        pendingEntries.clear();
+        if (journal.recordCount() >= COMPACT_AFTER_RECORDS || journal.sizeBytes() >= COMPACT_AFTER_BYTES) {
+            writeSnapshotLocked();
+        }
+    }
+
+    // ------------------- ID INDEX -------------------
+
+    /**
+     * Registers a question in the id index, assigning the next id to questions
+     * that have none yet.
+     */
+    private void indexQuestion(RepoQuizeeQuestions q) {
+        synchronized (questionsById) {
+            if (q.getId() <= 0) {
+                q.setId(nextQuestionId++);
+                idsAssigned = true;
+            } else if (q.getId() >= nextQuestionId) {
+                nextQuestionId = q.getId() + 1;
+            }
+            questionsById.put(q.getId(), q);
+        }
+    }
+
+    private void indexQuestions(List<RepoQuizeeQuestions> questions) {
+        synchronized (questionsById) {
+            for (RepoQuizeeQuestions q : questions) indexQuestion(q);
+        }
+    }
+
+    private void unindex(RepoQuizeeQuestions q) {
+        synchronized (questionsById) {
+            if (questionsById.get(q.getId()) == q) questionsById.remove(q.getId());
+        }
+    }
+
+    /**
+     * Looks up a live question by id. In mapped mode a miss decodes the
+     * remaining themes once, since the id may belong to one of them.
+     *
+     * @throws UncheckedIOException if a mapped theme cannot be decoded
+     */
+    private RepoQuizeeQuestions questionById(long id) {
+        RepoQuizeeQuestions q;
+        synchronized (questionsById) { q = questionsById.get(id); }
+        if (q != null || unloadedThemes.isEmpty()) return q;
+        for (String theme : new ArrayList<>(unloadedThemes)) themeQuestions(theme);
+        synchronized (questionsById) { return questionsById.get(id); }
+    }
+
+    private static QuestionData toQuestionData(RepoQuizeeQuestions q) {
+        QuestionValue v = q.value();
+        // answers are shared (unmodifiable), only the flags are boxed for the DTO
+        return new QuestionData(v.id(), v.theme(), v.title(), v.text(), v.explanation(),
+                v.answers(), v.correctFlags());
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
 
     // ------------------- UTILITY METHODS -------------------
 
@@ -297,7 +1070,9 @@ class ModularPersistenceService implements Serializable, PersistenceDelegate {
     }
 
     private void notifyDataChange(String type, String target) {
-        onDataChangedImpl.accept(new DataChangeEvent(type, target));
+        DataChangeEvent event = new DataChangeEvent(type, target);
+        onDataChangedImpl.accept(event);
+        dataChangeListeners.forEach(l -> l.accept(event));
     }
 
     private void initializeExampleData() {
@@ -1,8 +1,15 @@
 package dbbl;
 
+import dbbl.storage.PersistenceExecutor;
+import guimodule.AdaptiveLeitnerCard;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
 
 /**
@@ -66,6 +73,15 @@ public interface PersistenceDelegate {
      */
     Function<QuestionData, Boolean> saveQuestion();
 
+    /**
+     * Lambda for bulk inserts (e.g. importing a question bank).
+     * The questions are applied per theme in one step each, with the same
+     * upsert rules as {@link #saveQuestion()}, but are not journaled: they
+     * become durable with the next {@link #persistAll()}, which the caller
+     * runs once after the last batch. Returns the number of saved questions.
+     */
+    Function<List<QuestionData>, Integer> saveQuestions();
+
     /**
      * Lambda to load all questions of a specific theme.
      * Accepts a theme title and returns a list of {@link QuestionData}.
@@ -73,7 +89,31 @@ public interface PersistenceDelegate {
     Function<String, List<QuestionData>> loadQuestionsByTheme();
 
     /**
-     * Lambda to delete a question by theme and index.
+     * Lambda to load a single question by its persistent id.
+     * Returns {@code null} for unknown ids. The default implementation scans all
+     * themes; implementations with an id index override it.
+     */
+    default LongFunction<QuestionData> loadQuestionById() {
+        return id -> getAllThemes().get().stream()
+                .flatMap(theme -> loadQuestionsByTheme().apply(theme).stream())
+                .filter(q -> q.id == id)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Lambda to check whether a theme contains a question with the given title.
+     * Accepts (theme, title). The default implementation scans the theme;
+     * implementations with a title index answer in constant time.
+     */
+    default BiPredicate<String, String> containsQuestion() {
+        return (theme, title) -> loadQuestionsByTheme().apply(theme).stream()
+                .anyMatch(q -> q.title != null && q.title.equals(title));
+    }
+
+    /**
+     * Lambda to delete a question by theme and index, or by id if the request
+     * was created with {@link QuestionDeleteRequest#byId(String, long)}.
      * Accepts a {@link QuestionDeleteRequest} and returns success status.
      */
     Function<QuestionDeleteRequest, Boolean> deleteQuestion();
@@ -86,6 +126,26 @@ public interface PersistenceDelegate {
      */
     Runnable persistAll();
 
+    /**
+     * Lambda to persist all data without blocking the caller.
+     * The write runs on the shared {@link PersistenceExecutor}; the future
+     * completes once the data is on disk. The default queues
+     * {@link #persistAll()} under the implementation's class name.
+     */
+    default Supplier<CompletableFuture<Void>> persistAllAsync() {
+        return () -> PersistenceExecutor.shared().submit(getClass().getName(), () -> persistAll().run());
+    }
+
+    /**
+     * Lambda acting as a durability barrier.
+     * Blocks until every mutation accepted so far is written and forced to
+     * permanent storage. Implementations without write buffering fall back to
+     * {@link #persistAll()}.
+     */
+    default Runnable flush() {
+        return persistAll();
+    }
+
     /**
      * Lambda to load all persisted data.
      * Runnable executes full load operation.
@@ -98,6 +158,25 @@ public interface PersistenceDelegate {
      */
     Function<String, Boolean> createBackup();
 
+    /**
+     * Lambda to restore a backup created by {@link #createBackup()}.
+     * Accepts the backup id and returns {@code true} if the store files were
+     * replaced and reloaded.
+     */
+    Function<String, Boolean> restoreBackup();
+
+    /**
+     * Writes the Leitner cards touched in a quiz session to a backend that
+     * stores cards itself, in one batch. The file backend keeps the cards in
+     * the Leitner system's own file and ignores the call.
+     *
+     * @param cards copies of the touched cards
+     * @return future completed once the cards are written
+     */
+    default CompletableFuture<Void> syncLeitnerCards(Collection<AdaptiveLeitnerCard> cards) {
+        return CompletableFuture.completedFuture(null);
+    }
+
     // ------------------- EVENT CALLBACKS -------------------
 
     /**
@@ -106,6 +185,16 @@ public interface PersistenceDelegate {
      */
     Consumer<DataChangeEvent> onDataChanged();
 
+    /**
+     * Registers an additional listener that receives every {@link DataChangeEvent}
+     * after {@link #onDataChanged()}. Used by caches above the persistence layer
+     * to invalidate themselves. Implementations without change events ignore it.
+     *
+     * @param listener listener to add
+     */
+    default void addDataChangeListener(Consumer<DataChangeEvent> listener) {
+    }
+
     /**
      * Event handler for errors occurring during persistence operations.
      * Accepts a {@link PersistenceError} object with details.
@@ -133,6 +222,7 @@ public interface PersistenceDelegate {
      * Data Transfer Object representing a question.
      */
     class QuestionData {
+        public final long id;                 // Persistent question id (0 = new question)
         public final String theme;            // Associated theme
         public final String title;            // Question title
         public final String questionText;     // Question text
@@ -148,6 +238,16 @@ public interface PersistenceDelegate {
 
         public QuestionData(String theme, String title, String questionText, String explanation,
                             List<String> answers, List<Boolean> correctFlags) {
+            this(0L, theme, title, questionText, explanation, answers, correctFlags);
+        }
+
+        /**
+         * Creates question data for an existing question. Saving it updates the
+         * question with this id even if its title changed.
+         */
+        public QuestionData(long id, String theme, String title, String questionText, String explanation,
+                            List<String> answers, List<Boolean> correctFlags) {
+            this.id = id;
             this.theme = theme;
             this.title = title;
             this.questionText = questionText;
@@ -163,11 +263,22 @@ public interface PersistenceDelegate {
      */
     class QuestionDeleteRequest {
         public final String theme;      // Theme name
-        public final int questionIndex; // Index of question in the theme list
+        public final int questionIndex; // Index of question in the theme list (-1 for id requests)
+        public final long questionId;   // Persistent question id (0 for index requests)
 
         public QuestionDeleteRequest(String theme, int questionIndex) {
+            this(theme, questionIndex, 0L);
+        }
+
+        private QuestionDeleteRequest(String theme, int questionIndex, long questionId) {
             this.theme = theme;
             this.questionIndex = questionIndex;
+            this.questionId = questionId;
+        }
+
+        /** Creates a request deleting the question with the given persistent id. */
+        public static QuestionDeleteRequest byId(String theme, long questionId) {
+            return new QuestionDeleteRequest(theme, -1, questionId);
         }
     }
 
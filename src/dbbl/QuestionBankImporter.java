@@ -0,0 +1,470 @@
+package dbbl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@code QuestionBankImporter} streams large question banks (CSV or JSON
+ * lines) into the persistence layer.
+ * <p>
+ * The file is parsed record by record; only the current batch is held in
+ * memory. Valid records are handed to {@link PersistenceDelegate#saveQuestions()}
+ * in batches, which applies each theme of a batch in one step, and the
+ * import is committed once at the end with {@link PersistenceDelegate#persistAll()}
+ * (one snapshot instead of one journal record per question). Invalid records
+ * are skipped and reported with their line number.
+ * <p>
+ * CSV (RFC 4180 quoting, UTF-8, optional header row starting with {@code theme}):
+ * <pre>
+ * theme,title,question,explanation,answer1,correct1,answer2,correct2,...
+ * </pre>
+ * JSON lines, one question per line:
+ * <pre>
+ * {"theme":"…","title":"…","question":"…","explanation":"…","answers":["…"],"correct":[true]}
+ * </pre>
+ * Correct flags accept {@code true/false}, {@code 1/0}, {@code x}/empty,
+ * {@code yes/no} and {@code ja/nein}.
+ * <p>
+ * Validation: theme, title and at least one non-blank answer (at most
+ * {@value QuestionValue#MAX_ANSWERS}) are required,
+ * and answers and correct flags must have the same count. The domain model
+ * would silently trim the longer list (see {@link RepoQuizeeQuestions}), so
+ * such records are rejected instead of being imported incompletely.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class QuestionBankImporter {
+
+    /** Input format of a question bank. */
+    public enum Format {
+        CSV, JSONL;
+
+        /** Format by file extension: {@code .jsonl}/{@code .ndjson}/{@code .json} or CSV. */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            return name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json") ? JSONL : CSV;
+        }
+    }
+
+    /**
+     * Result of an import.
+     */
+    public static final class Report {
+        public long records;
+        public long imported;
+        public long rejected;
+        public long bytes;
+        public long elapsedMs;
+        /** First {@value QuestionBankImporter#MAX_ERRORS} error messages, each prefixed with its line. */
+        public final List<String> errors = new ArrayList<>();
+
+        /** Records parsed per second. */
+        public double recordsPerSecond() {
+            return elapsedMs > 0 ? records * 1000.0 / elapsedMs : records;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "Import{records=%d, imported=%d, rejected=%d, %.0f records/s, %.1f MB/s}",
+                    records, imported, rejected, recordsPerSecond(),
+                    elapsedMs > 0 ? bytes / 1048.576 / elapsedMs : 0.0);
+        }
+    }
+
+    /** Default number of questions handed to the persistence layer at once. */
+    public static final int DEFAULT_BATCH_SIZE = 2_000;
+
+    /** Maximum number of error messages kept in the report. */
+    public static final int MAX_ERRORS = 100;
+
+    private static final int READ_BUFFER = 256 * 1024;
+
+    private final PersistenceDelegate persistence;
+    private final int batchSize;
+
+    public QuestionBankImporter(PersistenceDelegate persistence) {
+        this(persistence, DEFAULT_BATCH_SIZE);
+    }
+
+    public QuestionBankImporter(PersistenceDelegate persistence, int batchSize) {
+        this.persistence = persistence;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // ------------------- IMPORT -------------------
+
+    /**
+     * Imports a question bank file; the format follows the file extension.
+     *
+     * @param file CSV or JSON lines file
+     * @return import report
+     * @throws IOException if the file cannot be read
+     */
+    public Report importFile(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Report report = importFrom(in, Format.of(file));
+            report.bytes = Files.size(file);
+            return report;
+        }
+    }
+
+    /**
+     * Imports a question bank from a reader.
+     *
+     * @param in source, read exactly once
+     * @param format format of the source
+     * @return import report
+     * @throws IOException if the source cannot be read
+     */
+    public Report importFrom(Reader in, Format format) throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report();
+        List<PersistenceDelegate.QuestionData> batch = new ArrayList<>(batchSize);
+        BufferedReader reader = new BufferedReader(in, READ_BUFFER);
+        try {
+            if (format == Format.CSV) {
+                CsvReader csv = new CsvReader(reader);
+                List<String> row;
+                boolean first = true;
+                while ((row = csv.next()) != null) {
+                    boolean header = first && !row.isEmpty() && "theme".equalsIgnoreCase(row.get(0).trim());
+                    first = false;
+                    if (header || (row.size() == 1 && row.get(0).isBlank())) continue;
+                    List<String> cells = row;
+                    accept(report, batch, csv.recordLine, csv.unterminated
+                            ? () -> { throw new IllegalArgumentException("unterminated quoted field"); }
+                            : () -> fromCsv(cells));
+                }
+            } else {
+                String line;
+                long lineNo = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNo++;
+                    if (line.isBlank()) continue;
+                    String json = line;
+                    accept(report, batch, lineNo, () -> fromJson(json));
+                }
+            }
+        } finally {
+            // batches already applied are committed even if the source fails half way,
+            // so memory and disk agree with the report
+            flush(report, batch);
+            if (report.imported > 0) persistence.persistAll().run(); // the single commit of the import
+        }
+        report.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        return report;
+    }
+
+    @FunctionalInterface
+    private interface RecordParser {
+        PersistenceDelegate.QuestionData parse();
+    }
+
+    private void accept(Report report, List<PersistenceDelegate.QuestionData> batch, long line, RecordParser parser) {
+        report.records++;
+        try {
+            batch.add(parser.parse());
+        } catch (IllegalArgumentException e) {
+            report.rejected++;
+            if (report.errors.size() < MAX_ERRORS) report.errors.add("line " + line + ": " + e.getMessage());
+            return;
+        }
+        if (batch.size() >= batchSize) flush(report, batch);
+    }
+
+    private void flush(Report report, List<PersistenceDelegate.QuestionData> batch) {
+        if (batch.isEmpty()) return;
+        int saved = persistence.saveQuestions().apply(new ArrayList<>(batch));
+        report.imported += saved;
+        report.rejected += batch.size() - saved;
+        batch.clear();
+    }
+
+    // ------------------- RECORDS -------------------
+
+    private static PersistenceDelegate.QuestionData fromCsv(List<String> row) {
+        if (row.size() < 6) throw new IllegalArgumentException("expected at least 6 columns, found " + row.size());
+        if ((row.size() - 4) % 2 != 0) throw new IllegalArgumentException("answer without correct flag");
+        List<String> answers = new ArrayList<>();
+        List<Boolean> correct = new ArrayList<>();
+        for (int i = 4; i + 1 < row.size(); i += 2) {
+            if (row.get(i).isBlank() && row.get(i + 1).isBlank()) continue; // trailing empty pair
+            answers.add(row.get(i));
+            correct.add(parseFlag(row.get(i + 1)));
+        }
+        return question(row.get(0), row.get(1), row.get(2), row.get(3), answers, correct);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PersistenceDelegate.QuestionData fromJson(String line) {
+        Object parsed = new JsonLine(line).document();
+        if (!(parsed instanceof Map)) throw new IllegalArgumentException("expected a JSON object");
+        Map<String, Object> o = (Map<String, Object>) parsed;
+        List<String> answers = new ArrayList<>();
+        for (Object a : list(o.get("answers"), "answers")) {
+            if (!(a instanceof String)) throw new IllegalArgumentException("answers must be strings");
+            answers.add((String) a);
+        }
+        List<Boolean> correct = new ArrayList<>();
+        for (Object c : list(o.get("correct"), "correct")) {
+            correct.add(c instanceof Boolean ? (Boolean) c : parseFlag(String.valueOf(c)));
+        }
+        return question(string(o.get("theme")), string(o.get("title")), string(o.get("question")),
+                string(o.get("explanation")), answers, correct);
+    }
+
+    private static PersistenceDelegate.QuestionData question(String theme, String title, String text,
+                                                             String explanation, List<String> answers,
+                                                             List<Boolean> correct) {
+        if (theme == null || theme.isBlank()) throw new IllegalArgumentException("theme missing");
+        if (title == null || title.isBlank()) throw new IllegalArgumentException("title missing");
+        if (answers.isEmpty()) throw new IllegalArgumentException("no answers");
+        if (answers.size() > QuestionValue.MAX_ANSWERS) {
+            throw new IllegalArgumentException("more than " + QuestionValue.MAX_ANSWERS + " answers");
+        }
+        if (answers.size() != correct.size()) {
+            throw new IllegalArgumentException(answers.size() + " answers but " + correct.size() + " correct flags");
+        }
+        for (String a : answers) {
+            if (a.isBlank()) throw new IllegalArgumentException("blank answer");
+        }
+        return new PersistenceDelegate.QuestionData(theme.trim(), title.trim(), text != null ? text : "",
+                explanation != null ? explanation : "", answers, correct);
+    }
+
+    private static boolean parseFlag(String value) {
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true": case "1": case "x": case "yes": case "ja":
+                return true;
+            case "false": case "0": case "": case "no": case "nein":
+                return false;
+            default:
+                throw new IllegalArgumentException("invalid correct flag '" + value + "'");
+        }
+    }
+
+    private static List<?> list(Object value, String field) {
+        if (value == null) return List.of();
+        if (!(value instanceof List)) throw new IllegalArgumentException(field + " must be an array");
+        return (List<?>) value;
+    }
+
+    private static String string(Object value) {
+        if (value == null) return null;
+        if (!(value instanceof String)) throw new IllegalArgumentException("expected a string, found " + value);
+        return (String) value;
+    }
+
+    // ------------------- CSV -------------------
+
+    /**
+     * Incremental RFC 4180 reader: quoted fields may contain separators,
+     * doubled quotes and line breaks.
+     */
+    private static final class CsvReader {
+        private final Reader in;
+        private long line = 1;
+        /** Line on which the last returned record started. */
+        long recordLine;
+        /** Whether the last record ended inside a quoted field (end of input). */
+        boolean unterminated;
+
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        /** Next record, or {@code null} at the end of the input. */
+        List<String> next() throws IOException {
+            int c = in.read();
+            if (c < 0) return null;
+            recordLine = line;
+            unterminated = false;
+            List<String> row = new ArrayList<>();
+            StringBuilder cell = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c < 0) {
+                        unterminated = true;
+                        row.add(cell.toString());
+                        return row;
+                    }
+                    if (c == '"') {
+                        in.mark(1);
+                        int n = in.read();
+                        if (n == '"') {
+                            cell.append('"');
+                        } else {
+                            quoted = false;
+                            in.reset();
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        cell.append((char) c);
+                    }
+                } else if (c < 0 || c == '\n') {
+                    row.add(cell.toString());
+                    line++;
+                    return row;
+                } else if (c == '\r') {
+                    // part of CRLF, dropped
+                } else if (c == ',') {
+                    row.add(cell.toString());
+                    cell.setLength(0);
+                } else if (c == '"' && cell.length() == 0) {
+                    quoted = true;
+                } else {
+                    cell.append((char) c);
+                }
+                c = in.read();
+            }
+        }
+    }
+
+    // ------------------- JSON -------------------
+
+    /**
+     * Minimal JSON parser for one line: objects, arrays, strings, numbers,
+     * booleans and null.
+     */
+    private static final class JsonLine {
+        private final String s;
+        private int pos;
+
+        JsonLine(String s) {
+            this.s = s;
+        }
+
+        Object document() {
+            Object value = value();
+            skipWhitespace();
+            if (pos < s.length()) throw error("trailing characters");
+            return value;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            if (pos >= s.length()) throw error("unexpected end");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) return number();
+                    throw error("unexpected '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> o = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') { pos++; return o; }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') throw error("expected a field name");
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                o.put(key, value());
+                skipWhitespace();
+                if (peek() == ',') { pos++; continue; }
+                expect('}');
+                return o;
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> a = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') { pos++; return a; }
+            while (true) {
+                a.add(value());
+                skipWhitespace();
+                if (peek() == ',') { pos++; continue; }
+                expect(']');
+                return a;
+            }
+        }
+
+        private String string() {
+            StringBuilder b = new StringBuilder();
+            pos++;
+            while (true) {
+                if (pos >= s.length()) throw error("unterminated string");
+                char c = s.charAt(pos++);
+                if (c == '"') return b.toString();
+                if (c != '\\') { b.append(c); continue; }
+                if (pos >= s.length()) throw error("unterminated escape");
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case '"': case '\\': case '/': b.append(e); break;
+                    case 'b': b.append('\b'); break;
+                    case 'f': b.append('\f'); break;
+                    case 'n': b.append('\n'); break;
+                    case 'r': b.append('\r'); break;
+                    case 't': b.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) throw error("truncated \\u escape");
+                        try {
+                            b.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("invalid \\u escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: throw error("invalid escape \\" + e);
+                }
+            }
+        }
+
+        private Object number() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) pos++;
+            String n = s.substring(start, pos);
+            try {
+                return n.contains(".") || n.contains("e") || n.contains("E") ? (Object) Double.valueOf(n) : Long.valueOf(n);
+            } catch (NumberFormatException e) {
+                throw error("invalid number " + n);
+            }
+        }
+
+        private Object literal(String word, Object value) {
+            if (!s.startsWith(word, pos)) throw error("unexpected token");
+            pos += word.length();
+            return value;
+        }
+
+        private void expect(char c) {
+            if (peek() != c) throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        private char peek() {
+            return pos < s.length() ? s.charAt(pos) : '\0';
+        }
+
+        private void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("JSON " + message + " at column " + (pos + 1));
+        }
+    }
+}
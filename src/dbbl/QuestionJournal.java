@@ -0,0 +1,353 @@
+package dbbl;
+
+import dbbl.storage.DurableFiles;
+import dbbl.storage.StringInterner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * {@code QuestionJournal} is the append-only write-ahead journal of the
+ * {@link ModularPersistenceService}.
+ * <p>
+ * Every mutation (theme save/delete, question save/delete) is appended as a
+ * small length-prefixed record instead of rewriting the full snapshot. The
+ * journal is compacted into the snapshot by the persistence service and then
+ * truncated. On startup the records written after the last compaction are
+ * replayed on top of the snapshot.
+ * <p>
+ * Layout:
+ * <pre>
+ * [int magic "UNQJ"][short version]                     file header
+ * [int length][int crc32c][byte op][op specific payload ...]  per record
+ * </pre>
+ * Journals written before the header existed hold records without checksum
+ * ({@code [int length][byte op]...}); they are replayed and appended to in
+ * that format until the next compaction truncates them.
+ * Question records end with the persistent question id; records written
+ * before ids existed simply stop earlier and replay with id 0.
+ * A torn record at the end of the file (crash while appending), detected by
+ * its length or checksum, ends the replay; all complete records before it
+ * are applied and the torn tail is cut off so later appends stay readable.
+ *
+ * @author D.
+ * @version 1.0
+ */
+final class QuestionJournal {
+
+    // ------------------- RECORD TYPES -------------------
+
+    static final byte OP_SAVE_THEME = 1;
+    static final byte OP_DELETE_THEME = 2;
+    static final byte OP_SAVE_QUESTION = 3;
+    static final byte OP_DELETE_QUESTION = 4;
+
+    /** File header magic, ASCII "UNQJ". */
+    private static final int MAGIC = 0x554E514A;
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 6;
+
+    /**
+     * A single journal record. Only the fields relevant for {@link #op} are set.
+     * Question deletes carry the title (and id) so replay stays idempotent even
+     * if the snapshot already contains the deletion.
+     */
+    static final class Entry {
+        final byte op;
+        final long id;
+        final String theme;
+        final String title;
+        final String description;
+        final String questionText;
+        final String explanation;
+        final List<String> answers;
+        final List<Boolean> correctFlags;
+
+        private Entry(byte op, long id, String theme, String title, String description, String questionText,
+                      String explanation, List<String> answers, List<Boolean> correctFlags) {
+            this.op = op;
+            this.id = id;
+            this.theme = theme;
+            this.title = title;
+            this.description = description;
+            this.questionText = questionText;
+            this.explanation = explanation;
+            this.answers = answers;
+            this.correctFlags = correctFlags;
+        }
+
+        static Entry saveTheme(String theme, String description) {
+            return new Entry(OP_SAVE_THEME, 0L, theme, null, description, null, null, null, null);
+        }
+
+        static Entry deleteTheme(String theme) {
+            return new Entry(OP_DELETE_THEME, 0L, theme, null, null, null, null, null, null);
+        }
+
+        static Entry saveQuestion(PersistenceDelegate.QuestionData q, long id) {
+            return new Entry(OP_SAVE_QUESTION, id, q.theme, q.title, null, q.questionText, q.explanation,
+                    q.answers, q.correctFlags);
+        }
+
+        static Entry deleteQuestion(String theme, String title, long id) {
+            return new Entry(OP_DELETE_QUESTION, id, theme, title, null, null, null, null, null);
+        }
+
+        /** Rebuilds the {@link PersistenceDelegate.QuestionData} of a save record. */
+        PersistenceDelegate.QuestionData toQuestionData() {
+            return new PersistenceDelegate.QuestionData(id, theme, title, questionText, explanation, answers, correctFlags);
+        }
+    }
+
+    // ------------------- STATE -------------------
+
+    private final File file;
+    private final CRC32C crc = new CRC32C();
+    private FileChannel channel;
+    private boolean checksummed;
+    private int recordCount;
+    private long writes;
+
+    QuestionJournal(File file) {
+        this.file = file;
+    }
+
+    // ------------------- WRITE PATH -------------------
+
+    /**
+     * Appends one record to the end of the journal.
+     *
+     * @param entry record to append
+     * @throws IOException if the record cannot be written
+     */
+    synchronized void append(Entry entry) throws IOException {
+        appendAll(java.util.Collections.singletonList(entry));
+    }
+
+    /**
+     * Appends a batch of records with a single channel write (group commit).
+     *
+     * @param entries records to append, in order
+     * @throws IOException if the batch cannot be written
+     */
+    synchronized void appendAll(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) return;
+        FileChannel ch = channel();
+        // write at the current end: another instance may have compacted and truncated the file
+        long end = ch.size();
+        ch.position(end);
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(entries.size() * 128);
+        DataOutputStream out = new DataOutputStream(batch);
+        if (end == 0) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            checksummed = true;
+        }
+        for (Entry entry : entries) {
+            byte[] payload = encode(entry);
+            out.writeInt(payload.length);
+            if (checksummed) out.writeInt(checksum(payload, payload.length));
+            out.write(payload);
+        }
+        out.flush();
+        ByteBuffer buf = ByteBuffer.wrap(batch.toByteArray());
+        while (buf.hasRemaining()) ch.write(buf);
+        recordCount += entries.size();
+        writes++;
+    }
+
+    /**
+     * Forces all appended records to the storage device.
+     */
+    synchronized void force() throws IOException {
+        if (channel != null && channel.isOpen()) channel.force(false);
+    }
+
+    /**
+     * Truncates the journal after its records were compacted into a snapshot.
+     */
+    synchronized void reset() throws IOException {
+        channel().truncate(0);
+        recordCount = 0;
+    }
+
+    /** Number of records appended since the last compaction. */
+    synchronized int recordCount() { return recordCount; }
+
+    /** Number of batch writes ({@link #appendAll(List)} calls that wrote records) so far. */
+    synchronized long writes() { return writes; }
+
+    /** Current journal size in bytes. */
+    synchronized long sizeBytes() { return file.length(); }
+
+    /** Closes the underlying channel; it is reopened lazily on the next append. */
+    synchronized void close() {
+        if (channel == null) return;
+        try { channel.close(); } catch (IOException ignored) {}
+        channel = null;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            boolean created = !file.exists();
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size()); // append; truncate() pulls the position back
+            checksummed = hasHeader(channel);
+            // once per journal file; appends after that cost one force per group commit
+            if (created) DurableFiles.syncDirectory(file.getAbsoluteFile().getParentFile().toPath());
+        }
+        return channel;
+    }
+
+    private static boolean hasHeader(FileChannel ch) throws IOException {
+        if (ch.size() < HEADER_SIZE) return false;
+        ByteBuffer head = ByteBuffer.allocate(4);
+        while (head.hasRemaining() && ch.read(head, head.position()) >= 0) { /* fill */ }
+        return !head.hasRemaining() && head.getInt(0) == MAGIC;
+    }
+
+    private int checksum(byte[] payload, int length) {
+        crc.reset();
+        crc.update(payload, 0, length);
+        return (int) crc.getValue();
+    }
+
+    // ------------------- READ PATH -------------------
+
+    /**
+     * Replays all complete records in append order.
+     *
+     * @param sink receiver of each decoded record
+     * @return number of records replayed
+     * @throws IOException if the journal cannot be read
+     */
+    synchronized int replay(Consumer<Entry> sink) throws IOException {
+        if (!file.exists()) return 0;
+        int count = 0;
+        long validEnd;
+        long size;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            size = ch.size();
+            boolean withCrc = hasHeader(ch);
+            validEnd = withCrc ? HEADER_SIZE : 0;
+            ch.position(validEnd);
+            DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(Channels.newInputStream(ch)));
+            while (true) {
+                byte[] payload;
+                try {
+                    int len = in.readInt();
+                    if (len <= 0 || len > size - validEnd) break;
+                    int expected = withCrc ? in.readInt() : 0;
+                    payload = new byte[len];
+                    in.readFully(payload);
+                    if (withCrc && checksum(payload, len) != expected) break; // torn or corrupt tail
+                    validEnd += (withCrc ? 8 : 4) + len;
+                } catch (EOFException torn) {
+                    break; // incomplete tail record
+                }
+                sink.accept(decode(payload));
+                count++;
+            }
+        }
+        if (validEnd < size) {
+            // cut the torn tail off, otherwise records appended after it could never be replayed
+            FileChannel ch = channel();
+            ch.truncate(validEnd);
+            if (validEnd == 0) checksummed = false;
+        }
+        recordCount = count;
+        return count;
+    }
+
+    // ------------------- ENCODING -------------------
+
+    private static byte[] encode(Entry e) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(e.op);
+        writeString(out, e.theme);
+        switch (e.op) {
+            case OP_SAVE_THEME:
+                writeString(out, e.description);
+                break;
+            case OP_SAVE_QUESTION:
+                writeString(out, e.title);
+                writeString(out, e.questionText);
+                writeString(out, e.explanation);
+                int n = Math.min(e.answers.size(), e.correctFlags.size());
+                out.writeInt(n);
+                for (int i = 0; i < n; i++) {
+                    writeString(out, e.answers.get(i));
+                    out.writeBoolean(Boolean.TRUE.equals(e.correctFlags.get(i)));
+                }
+                out.writeLong(e.id);
+                break;
+            case OP_DELETE_QUESTION:
+                writeString(out, e.title);
+                out.writeLong(e.id);
+                break;
+            default:
+                break;
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String theme = StringInterner.intern(readString(in));
+        switch (op) {
+            case OP_SAVE_THEME:
+                return Entry.saveTheme(theme, readString(in));
+            case OP_DELETE_THEME:
+                return Entry.deleteTheme(theme);
+            case OP_SAVE_QUESTION: {
+                String title = StringInterner.intern(readString(in));
+                String text = readString(in);
+                String explanation = readString(in);
+                int n = in.readInt();
+                List<String> answers = new ArrayList<>(n);
+                List<Boolean> flags = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    answers.add(readString(in));
+                    flags.add(in.readBoolean());
+                }
+                long id = in.available() >= 8 ? in.readLong() : 0L;
+                return new Entry(OP_SAVE_QUESTION, id, theme, title, null, text, explanation, answers, flags);
+            }
+            case OP_DELETE_QUESTION: {
+                String title = StringInterner.intern(readString(in));
+                return Entry.deleteQuestion(theme, title, in.available() >= 8 ? in.readLong() : 0L);
+            }
+            default:
+                throw new IOException("Unknown journal op: " + op);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = (s != null ? s : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,296 @@
+package dbbl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable value of a multiple-choice question, shared between the
+ * persistence layer, the business layer and the GUI.
+ * <p>
+ * Answers are held as an unmodifiable list and handed out without copying;
+ * correctness flags are a primitive bitmask (bit {@code i} = answer {@code i}
+ * is correct), so checking an answer neither copies nor boxes. The hash code
+ * is computed once on first use, a lower-cased search text for filters on
+ * first {@link #containsText(String)}.
+ * <p>
+ * Scoring is precomputed the same way: the display text of the correct
+ * answers is built once, and grading a recorded answer text resolves it to
+ * its answer bits once per distinct text, so grading is a bit test against
+ * {@link #correctMask()} (see {@link #isCorrectAnswer(String)}).
+ * <p>
+ * Invariants:
+ * - at most {@value #MAX_ANSWERS} answers; answers and flags are aligned on
+ *   creation by trimming the longer side (as {@link RepoQuizeeQuestions} did)
+ * - strings are never {@code null}, {@code createdAt} never {@code null}
+ * <p>
+ * {@link RepoQuizeeQuestions} remains as a mutable compatibility adapter
+ * around one value; its setters replace the value.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class QuestionValue {
+
+    /** Maximum number of answers, bounded by the width of the flag mask. */
+    public static final int MAX_ANSWERS = Long.SIZE;
+
+    // ------------------- FIELDS -------------------
+
+    private final long id;
+    private final String theme;
+    private final String title;
+    private final String text;
+    private final String explanation;
+    private final List<String> answers;
+    private final long correctMask;
+    private final LocalDateTime createdAt;
+
+    /** Cached hash code; 0 = not computed yet. */
+    private int hash;
+
+    /** Cached lower-cased title, text and answers for text filters. */
+    private String searchText;
+
+    /** Cached display text of the correct answers. */
+    private String correctAnswerText;
+
+    /** Cached answer text → mask of the answers with that text. */
+    private Map<String, Long> answerMasks;
+
+    private QuestionValue(long id, String theme, String title, String text, String explanation,
+                          List<String> answers, long correctMask, LocalDateTime createdAt) {
+        this.id = id;
+        this.theme = theme != null ? theme : "";
+        this.title = title != null ? title : "";
+        this.text = text != null ? text : "";
+        this.explanation = explanation != null ? explanation : "";
+        this.answers = answers;
+        this.correctMask = correctMask;
+        this.createdAt = createdAt != null ? createdAt : LocalDateTime.now();
+    }
+
+    // ------------------- FACTORIES -------------------
+
+    /**
+     * Creates a new, unsaved question (id 0, no theme, created now).
+     *
+     * @throws IllegalArgumentException if more than {@value #MAX_ANSWERS} answers remain after alignment
+     */
+    public static QuestionValue of(String title, String text, List<String> answers, List<Boolean> correct,
+                                   String explanation) {
+        int n = Math.min(answers != null ? answers.size() : 0, correct != null ? correct.size() : 0);
+        checkCount(n);
+        long mask = 0L;
+        for (int i = 0; i < n; i++) {
+            if (Boolean.TRUE.equals(correct.get(i))) mask |= 1L << i;
+        }
+        return new QuestionValue(0L, "", title, text, explanation, copyAnswers(answers, n), mask, null);
+    }
+
+    /**
+     * Array variant of {@link #of(String, String, List, List, String)}.
+     */
+    public static QuestionValue of(String title, String text, String[] answers, boolean[] correct, String explanation) {
+        int n = Math.min(answers != null ? answers.length : 0, correct != null ? correct.length : 0);
+        checkCount(n);
+        long mask = 0L;
+        String[] copy = new String[n];
+        for (int i = 0; i < n; i++) {
+            copy[i] = answers[i] != null ? answers[i] : "";
+            if (correct[i]) mask |= 1L << i;
+        }
+        return new QuestionValue(0L, "", title, text, explanation, List.of(copy), mask, null);
+    }
+
+    /**
+     * Creates the value of a question request, keeping its id and theme.
+     */
+    public static QuestionValue of(PersistenceDelegate.QuestionData data) {
+        return of(data.title, data.questionText, data.answers, data.correctFlags, data.explanation)
+                .withTheme(data.theme).withId(data.id);
+    }
+
+    private static void checkCount(int n) {
+        if (n > MAX_ANSWERS) throw new IllegalArgumentException("At most " + MAX_ANSWERS + " answers supported: " + n);
+    }
+
+    private static List<String> copyAnswers(List<String> answers, int n) {
+        if (n == 0) return Collections.emptyList();
+        String[] copy = new String[n];
+        for (int i = 0; i < n; i++) {
+            String a = answers.get(i);
+            copy[i] = a != null ? a : "";
+        }
+        return List.of(copy);
+    }
+
+    // ------------------- ACCESSORS -------------------
+
+    /** Persistent id, 0 until the question is stored. */
+    public long id() { return id; }
+    public String theme() { return theme; }
+    public String title() { return title; }
+    public String text() { return text; }
+    public String explanation() { return explanation; }
+    public LocalDateTime createdAt() { return createdAt; }
+
+    /** Unmodifiable answers; shared, not copied. */
+    public List<String> answers() { return answers; }
+
+    public int answerCount() { return answers.size(); }
+
+    public String answer(int index) { return answers.get(index); }
+
+    /** Correct flags as a bitmask, bit {@code i} for answer {@code i}. */
+    public long correctMask() { return correctMask; }
+
+    public boolean isCorrect(int index) {
+        return index >= 0 && index < answers.size() && (correctMask & (1L << index)) != 0;
+    }
+
+    public int correctCount() { return Long.bitCount(correctMask); }
+
+    /** Whether the answer text is one of the correct answers. */
+    public boolean isCorrectAnswer(String answer) {
+        return (answerMask(answer) & correctMask) != 0;
+    }
+
+    /**
+     * Bits of the answers with the given text (several if answers repeat),
+     * 0 if no answer matches.
+     */
+    public long answerMask(String answer) {
+        Map<String, Long> masks = answerMasks;
+        if (masks == null) {
+            masks = new HashMap<>(answers.size() * 2);
+            for (int i = 0; i < answers.size(); i++) masks.merge(answers.get(i), 1L << i, (a, b) -> a | b);
+            // immutable copy: safe to publish through the racy cache field
+            answerMasks = masks = Map.copyOf(masks);
+        }
+        Long mask = masks.get(answer);
+        return mask != null ? mask : 0L;
+    }
+
+    /**
+     * Display text of the correct answers, joined with {@code ", "}; the
+     * first answer if none is flagged, empty if there are no answers.
+     */
+    public String correctAnswerText() {
+        String s = correctAnswerText;
+        if (s == null) {
+            if (correctMask != 0) s = String.join(", ", correctAnswers());
+            else s = answers.isEmpty() ? "" : answers.get(0);
+            correctAnswerText = s;
+        }
+        return s;
+    }
+
+    /** Correct answers in answer order. */
+    public List<String> correctAnswers() {
+        List<String> result = new ArrayList<>(correctCount());
+        for (long m = correctMask; m != 0; m &= m - 1) result.add(answers.get(Long.numberOfTrailingZeros(m)));
+        return result;
+    }
+
+    /** Flags as a new boxed list, for APIs that still take {@code List<Boolean>}. */
+    public List<Boolean> correctFlags() {
+        List<Boolean> flags = new ArrayList<>(answers.size());
+        for (int i = 0; i < answers.size(); i++) flags.add((correctMask & (1L << i)) != 0);
+        return flags;
+    }
+
+    /** Flags as a new array. */
+    public boolean[] correctArray() {
+        boolean[] flags = new boolean[answers.size()];
+        for (int i = 0; i < flags.length; i++) flags[i] = (correctMask & (1L << i)) != 0;
+        return flags;
+    }
+
+    /**
+     * Case-insensitive search in title, text and answers.
+     *
+     * @param lowerCaseNeedle search text, already lower-cased
+     */
+    public boolean containsText(String lowerCaseNeedle) {
+        String s = searchText;
+        if (s == null) {
+            StringBuilder b = new StringBuilder(title.length() + text.length() + 16 * answers.size());
+            b.append(title).append('\0').append(text);
+            for (String a : answers) b.append('\0').append(a);
+            searchText = s = b.toString().toLowerCase(Locale.ROOT);
+        }
+        return s.contains(lowerCaseNeedle);
+    }
+
+    // ------------------- COPIES -------------------
+
+    public QuestionValue withId(long id) {
+        return id == this.id ? this : new QuestionValue(id, theme, title, text, explanation, answers, correctMask, createdAt);
+    }
+
+    public QuestionValue withTheme(String theme) {
+        return Objects.equals(theme, this.theme) ? this
+                : new QuestionValue(id, theme, title, text, explanation, answers, correctMask, createdAt);
+    }
+
+    public QuestionValue withTitle(String title) {
+        return new QuestionValue(id, theme, title, text, explanation, answers, correctMask, createdAt);
+    }
+
+    public QuestionValue withText(String text) {
+        return new QuestionValue(id, theme, title, text, explanation, answers, correctMask, createdAt);
+    }
+
+    public QuestionValue withExplanation(String explanation) {
+        return new QuestionValue(id, theme, title, text, explanation, answers, correctMask, createdAt);
+    }
+
+    public QuestionValue withCreatedAt(LocalDateTime createdAt) {
+        return createdAt == null || createdAt.equals(this.createdAt) ? this
+                : new QuestionValue(id, theme, title, text, explanation, answers, correctMask, createdAt);
+    }
+
+    /**
+     * Replaces answers and flags together; the longer list is trimmed.
+     */
+    public QuestionValue withAnswers(List<String> answers, List<Boolean> correct) {
+        QuestionValue v = of(title, text, answers, correct, explanation);
+        return new QuestionValue(id, theme, title, text, explanation, v.answers, v.correctMask, createdAt);
+    }
+
+    // ------------------- OBJECT METHODS -------------------
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QuestionValue)) return false;
+        QuestionValue that = (QuestionValue) o;
+        return id == that.id && correctMask == that.correctMask && hashCode() == that.hashCode()
+                && theme.equals(that.theme) && title.equals(that.title) && text.equals(that.text)
+                && explanation.equals(that.explanation) && answers.equals(that.answers)
+                && createdAt.equals(that.createdAt);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(id, theme, title, text, explanation, answers, correctMask, createdAt);
+            if (h == 0) h = 1;
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "QuestionValue{id=" + id + ", theme='" + theme + "', title='" + title + "', answers=" + answers
+                + ", correct=" + Long.toBinaryString(correctMask) + '}';
+    }
+}
@@ -1,30 +1,37 @@
 package dbbl;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
 /**
- * Domain model representing a single multiple-choice quiz question.
+ * Mutable compatibility adapter around an immutable {@link QuestionValue}.
  * 
  * Responsibilities:
- * - Stores question metadata (title, text, theme, explanation)
- * - Maintains parallel lists of answers and correctness flags
- * - Provides creation timestamp for auditing and ordering
- * - Implements Serializable for persistence
+ * - Keeps the original bean API (getters/setters) for existing callers
+ * - Exposes the shared value via {@link #value()}; hot paths (grading,
+ *   filtering, mapping, storage) read answers and flags from it without copies
+ * - Implements Serializable with the original serialized form, so files
+ *   written with Java serialization can still be imported
  * 
  * Invariants:
- * - {@code antworten} and {@code korrekt} lists always have the same length
+ * - {@code antworten} and {@code korrekt} always have the same length
  *   (longer list trimmed to shorter list)
- * - Getters return defensive copies
+ * - List getters return defensive copies; setters replace the value
  * - Null values normalized to empty strings or empty lists
  * 
  * Identity:
  * - Equality and hash code are based on {@code thema} and {@code titel}
  * - Allows safe usage in collections and maps
+ * - {@code id} is the persistent numeric id assigned by the persistence layer;
+ *   it survives renames and is {@code 0} until the question is stored
  * 
  * @author D.
  * @version 1.0
@@ -33,28 +40,22 @@ public class RepoQuizeeQuestions implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
-    // ------------------- CORE FIELDS -------------------
-
-    /** Topic or category of the question */
-    private String thema;
-
-    /** Question title */
-    private String titel;
-
-    /** Full question text */
-    private String frageText;
-
-    /** List of answer strings (multiple-choice options) */
-    private List<String> antworten;
+    /** Serialized form of the original mutable class. */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("id", long.class),
+        new ObjectStreamField("thema", String.class),
+        new ObjectStreamField("titel", String.class),
+        new ObjectStreamField("frageText", String.class),
+        new ObjectStreamField("antworten", List.class),
+        new ObjectStreamField("korrekt", List.class),
+        new ObjectStreamField("erklaerung", String.class),
+        new ObjectStreamField("createdAt", LocalDateTime.class)
+    };
 
-    /** Corresponding correctness flags for each answer */
-    private List<Boolean> korrekt;
-
-    /** Optional explanation for the answer */
-    private String erklaerung;
+    // ------------------- CORE FIELDS -------------------
 
-    /** Timestamp for when the question was created */
-    private LocalDateTime createdAt;
+    /** Current immutable state; replaced by every setter */
+    private transient QuestionValue value;
 
     // ------------------- CONSTRUCTORS -------------------
 
@@ -70,71 +71,86 @@ public class RepoQuizeeQuestions implements Serializable {
 
     /** Full constructor with explanation */
     public RepoQuizeeQuestions(String titel, String frageText, String[] antworten, boolean[] korrekt, String erklaerung) {
-        this.titel = titel != null ? titel : "";
-        this.frageText = frageText != null ? frageText : "";
-        this.antworten = antworten != null ? new ArrayList<>(Arrays.asList(antworten)) : new ArrayList<>();
-        this.korrekt = new ArrayList<>();
-        if (korrekt != null) {
-            for (boolean b : korrekt) this.korrekt.add(b);
-        }
-        this.erklaerung = erklaerung != null ? erklaerung : "";
-        this.createdAt = LocalDateTime.now();
-        this.thema = "";
-        alignAnswerFlagSizes();
+        this(QuestionValue.of(titel, frageText, antworten, korrekt, erklaerung));
     }
 
-    // ------------------- INTERNAL UTILITY -------------------
-
-    /**
-     * Ensures {@code antworten} and {@code korrekt} are the same length.
-     * Trims longer list to match shorter list and initializes non-null empty lists.
-     */
-    private void alignAnswerFlagSizes() {
-        if (antworten == null) antworten = new ArrayList<>();
-        if (korrekt == null) korrekt = new ArrayList<>();
-        int min = Math.min(antworten.size(), korrekt.size());
-        if (antworten.size() != min) antworten = new ArrayList<>(antworten.subList(0, min));
-        if (korrekt.size() != min) korrekt = new ArrayList<>(korrekt.subList(0, min));
+    /** Adapter around an existing value; the value is shared, not copied */
+    public RepoQuizeeQuestions(QuestionValue value) {
+        this.value = Objects.requireNonNull(value, "value");
     }
 
+    // ------------------- VALUE -------------------
+
+    /** Current immutable value; safe to share across layers and threads */
+    public QuestionValue value() { return value; }
+
     // ------------------- GETTERS & SETTERS -------------------
 
-    public String getTitel() { return titel; }
-    public void setTitel(String titel) { this.titel = titel; }
+    public long getId() { return value.id(); }
+    public void setId(long id) { value = value.withId(id); }
 
-    public String getFrageText() { return frageText; }
-    public void setFrageText(String frageText) { this.frageText = frageText; }
+    public String getTitel() { return value.title(); }
+    public void setTitel(String titel) { value = value.withTitle(titel); }
 
-    public List<String> getAntworten() { return new ArrayList<>(antworten); }
-    public void setAntworten(List<String> antworten) {
-        this.antworten = antworten != null ? new ArrayList<>(antworten) : new ArrayList<>();
-        alignAnswerFlagSizes();
-    }
+    public String getFrageText() { return value.text(); }
+    public void setFrageText(String frageText) { value = value.withText(frageText); }
 
-    public List<Boolean> getKorrekt() { return new ArrayList<>(korrekt); }
-    public void setKorrekt(List<Boolean> korrekt) {
-        this.korrekt = korrekt != null ? new ArrayList<>(korrekt) : new ArrayList<>();
-        alignAnswerFlagSizes();
-    }
+    public List<String> getAntworten() { return new ArrayList<>(value.answers()); }
+    public void setAntworten(List<String> antworten) { value = value.withAnswers(antworten, value.correctFlags()); }
+
+    public List<Boolean> getKorrekt() { return value.correctFlags(); }
+    public void setKorrekt(List<Boolean> korrekt) { value = value.withAnswers(value.answers(), korrekt); }
+
+    public String getThema() { return value.theme(); }
+    public void setThema(String thema) { value = value.withTheme(thema); }
+
+    public String getErklaerung() { return value.explanation(); }
+    public void setErklaerung(String erklaerung) { value = value.withExplanation(erklaerung); }
 
-    public String getThema() { return thema; }
-    public void setThema(String thema) { this.thema = thema; }
+    public LocalDateTime getCreatedAt() { return value.createdAt(); }
+    public void setCreatedAt(LocalDateTime createdAt) { value = value.withCreatedAt(createdAt); }
 
-    public String getErklaerung() { return erklaerung; }
-    public void setErklaerung(String erklaerung) { this.erklaerung = erklaerung != null ? erklaerung : ""; }
+    // ------------------- SERIALIZATION -------------------
 
-    public LocalDateTime getCreatedAt() { return createdAt; }
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField f = out.putFields();
+        f.put("id", value.id());
+        f.put("thema", value.theme());
+        f.put("titel", value.title());
+        f.put("frageText", value.text());
+        f.put("antworten", new ArrayList<>(value.answers()));
+        f.put("korrekt", value.correctFlags());
+        f.put("erklaerung", value.explanation());
+        f.put("createdAt", value.createdAt());
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField f = in.readFields();
+        try {
+            value = QuestionValue.of((String) f.get("titel", ""), (String) f.get("frageText", ""),
+                    (List<String>) f.get("antworten", null), (List<Boolean>) f.get("korrekt", null),
+                    (String) f.get("erklaerung", ""))
+                    .withTheme((String) f.get("thema", ""))
+                    .withId(f.get("id", 0L))
+                    .withCreatedAt((LocalDateTime) f.get("createdAt", null));
+        } catch (IllegalArgumentException | ClassCastException e) {
+            throw new InvalidObjectException("Invalid question: " + e.getMessage());
+        }
+    }
 
     // ------------------- OBJECT METHODS -------------------
 
     @Override
     public String toString() {
         return "RepoQuizeeQuestions{" +
-                "title='" + titel + '\'' +
-                ", topic='" + thema + '\'' +
-                ", createdAt=" + createdAt +
-                ", questionText='" + frageText + '\'' +
-                ", answers=" + antworten +
+                "id=" + value.id() +
+                ", title='" + value.title() + '\'' +
+                ", topic='" + value.theme() + '\'' +
+                ", createdAt=" + value.createdAt() +
+                ", questionText='" + value.text() + '\'' +
+                ", answers=" + value.answers() +
                 '}';
     }
 
@@ -143,11 +159,11 @@ public class RepoQuizeeQuestions implements Serializable {
         if (this == o) return true;
         if (!(o instanceof RepoQuizeeQuestions)) return false;
         RepoQuizeeQuestions that = (RepoQuizeeQuestions) o;
-        return Objects.equals(thema, that.thema) && Objects.equals(titel, that.titel);
+        return Objects.equals(getThema(), that.getThema()) && Objects.equals(getTitel(), that.getTitel());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(thema, titel);
+        return Objects.hash(getThema(), getTitel());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,220 @@
+package dbbl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@code ThemeBucket} holds the questions of one theme in the
+ * {@link ModularPersistenceService}, together with a hash index from title to
+ * position.
+ * <p>
+ * Concurrency: every bucket is its own lock stripe. Writers mutate the bucket
+ * inside {@link #edit(Function)}, which serializes writers of this theme only;
+ * writers of other themes never contend. When the outermost edit ends, the
+ * bucket publishes an immutable copy of its questions ({@link #snapshot()}).
+ * Readers only ever see published copies and never block, so iterating a
+ * theme while it is modified cannot fail with a
+ * {@link java.util.ConcurrentModificationException}.
+ * <p>
+ * Title index: maps every title to the smallest position holding it, making
+ * upserts and existence checks O(1). It is kept current by all mutators;
+ * removing a question shifts the positions behind it, which costs the same as
+ * the array copy of the removal itself. {@link #containsTitle(String)} reads
+ * the index without locking.
+ * <p>
+ * A deleted theme's bucket is {@linkplain #retire() retired}; writers that
+ * raced with the delete see {@link #isRetired()} and retry on the new bucket.
+ *
+ * @author D.
+ * @version 1.0
+ */
+final class ThemeBucket implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // ------------------- STATE -------------------
+
+    /** Live questions; guarded by {@code this}. */
+    private final ArrayList<RepoQuizeeQuestions> questions;
+
+    /** Title -> smallest position; written under {@code this}, read lock-free. */
+    private final Map<String, Integer> positionsByTitle;
+
+    /** Immutable copy of {@link #questions} as of the last completed edit. */
+    private volatile List<RepoQuizeeQuestions> published;
+
+    private int editDepth;
+    private boolean dirty;
+    private boolean retired;
+
+    ThemeBucket() {
+        this(Collections.emptyList());
+    }
+
+    /** Creates a bucket holding a copy of {@code initial}. */
+    ThemeBucket(Collection<RepoQuizeeQuestions> initial) {
+        this.questions = new ArrayList<>(initial);
+        this.positionsByTitle = new ConcurrentHashMap<>(Math.max(16, questions.size() * 2));
+        for (int i = 0; i < questions.size(); i++) {
+            positionsByTitle.putIfAbsent(titleKey(questions.get(i)), i);
+        }
+        this.published = List.copyOf(questions);
+    }
+
+    // ------------------- LOCK-FREE READS -------------------
+
+    /** Immutable questions of the theme as of the last completed edit. */
+    List<RepoQuizeeQuestions> snapshot() {
+        return published;
+    }
+
+    int size() {
+        return published.size();
+    }
+
+    boolean containsTitle(String title) {
+        return title != null && positionsByTitle.containsKey(title);
+    }
+
+    // ------------------- WRITES -------------------
+
+    /**
+     * Runs {@code action} with exclusive write access to this bucket and
+     * publishes the result once the outermost edit completes. The mutators
+     * below may only be called from inside an edit.
+     *
+     * @return the action's result
+     */
+    synchronized <T> T edit(Function<ThemeBucket, T> action) {
+        editDepth++;
+        try {
+            return action.apply(this);
+        } finally {
+            if (--editDepth == 0 && dirty) {
+                published = List.copyOf(questions);
+                dirty = false;
+            }
+        }
+    }
+
+    /**
+     * Publishes the changes made so far without waiting for the outermost edit
+     * to end, e.g. before the change is journaled. Edit only.
+     */
+    void publish() {
+        if (dirty) {
+            published = List.copyOf(questions);
+            dirty = false;
+        }
+    }
+
+    /** Marks the bucket as removed from its service; later edits must retry. Edit only. */
+    void retire() {
+        retired = true;
+    }
+
+    /** Whether the theme was deleted while the caller waited for the lock. Edit only. */
+    boolean isRetired() {
+        return retired;
+    }
+
+    /** Live question at {@code index}. Edit only. */
+    RepoQuizeeQuestions get(int index) {
+        return questions.get(index);
+    }
+
+    /** Live list of questions; must not escape the edit. Edit only. */
+    List<RepoQuizeeQuestions> live() {
+        return Collections.unmodifiableList(questions);
+    }
+
+    /**
+     * Position of the first question with the given title. Edit only.
+     *
+     * @return position or -1 if no question has this title
+     */
+    int indexOfTitle(String title) {
+        if (title == null) return -1;
+        Integer pos = positionsByTitle.get(title);
+        return pos != null ? pos : -1;
+    }
+
+    /**
+     * Position of exactly this question instance, resolved through its title. Edit only.
+     *
+     * @return position or -1 if the instance is not in this bucket
+     */
+    int indexOfInstance(RepoQuizeeQuestions q) {
+        int pos = indexOfTitle(q.getTitel());
+        if (pos >= 0 && questions.get(pos) == q) return pos;
+        for (int i = 0; i < questions.size(); i++) {
+            if (questions.get(i) == q) return i; // duplicate title further back
+        }
+        return -1;
+    }
+
+    /** Removes exactly this question instance. Edit only. */
+    boolean removeInstance(RepoQuizeeQuestions q) {
+        int pos = indexOfInstance(q);
+        if (pos < 0) return false;
+        remove(pos);
+        return true;
+    }
+
+    /** Replaces the question at {@code index}. Edit only. */
+    RepoQuizeeQuestions set(int index, RepoQuizeeQuestions q) {
+        RepoQuizeeQuestions previous = questions.set(index, q);
+        dirty = true;
+        if (!Objects.equals(previous.getTitel(), q.getTitel())) {
+            unmapTitle(titleKey(previous), index);
+            Integer pos = positionsByTitle.get(titleKey(q));
+            if (pos == null || pos > index) positionsByTitle.put(titleKey(q), index);
+        }
+        return previous;
+    }
+
+    /** Appends a question. Edit only. */
+    void add(RepoQuizeeQuestions q) {
+        questions.add(q);
+        dirty = true;
+        positionsByTitle.putIfAbsent(titleKey(q), questions.size() - 1);
+    }
+
+    /** Removes the question at {@code index}. Edit only. */
+    RepoQuizeeQuestions remove(int index) {
+        RepoQuizeeQuestions removed = questions.remove(index);
+        dirty = true;
+        for (Map.Entry<String, Integer> e : positionsByTitle.entrySet()) {
+            if (e.getValue() > index) e.setValue(e.getValue() - 1);
+        }
+        unmapTitle(titleKey(removed), index);
+        return removed;
+    }
+
+    // ------------------- INTERNALS -------------------
+
+    /** Drops {@code title -> index} and maps the title to its next occurrence, if any. */
+    private void unmapTitle(String title, int index) {
+        Integer pos = positionsByTitle.get(title);
+        if (pos == null || pos != index) return;
+        for (int i = index; i < questions.size(); i++) {
+            if (titleKey(questions.get(i)).equals(title)) {
+                positionsByTitle.put(title, i);
+                return;
+            }
+        }
+        positionsByTitle.remove(title);
+    }
+
+    /** ConcurrentHashMap rejects null keys; a missing title is indexed as "". */
+    private static String titleKey(RepoQuizeeQuestions q) {
+        return q.getTitel() != null ? q.getTitel() : "";
+    }
+}
@@ -1,7 +1,10 @@
 package dbbl.migration;
 
 import dbbl.PersistenceDelegate;
+import dbbl.QuestionValue;
 import dbbl.RepoQuizeeQuestions;
+import dbbl.storage.GenerationFiles;
+import dbbl.storage.QuizStoreCodec;
 import guimodule.AdaptiveLeitnerCard;
 import guimodule.AdaptiveLeitnerSystem;
 import guimodule.ModularQuizPlay;
@@ -27,6 +30,10 @@ import java.util.function.Function;
  *   <li>Achievements (achievements.dat)</li>
  * </ul>
  *
+ * <p>Files in the binary store format are decoded with {@link QuizStoreCodec};
+ * files written with Java serialization by older versions are still read via
+ * the legacy reflection path.
+ *
  * <p>Strategies:
  * <ul>
  *   <li>Questions/Themes: deduplicated by (theme, title) using {@link PersistenceDelegate}</li>
@@ -168,22 +175,30 @@ public class DataMergeService implements Serializable {
      * Merges questions and themes from a file.
      */
     private void mergeQuestions(File file, MergeReport report) {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-            Object obj = in.readObject();
+        try {
             Map<String, List<RepoQuizeeQuestions>> questionsByTheme = null;
             Map<String, String> themeDescriptions = null;
 
-            // Reflection-based extraction of ModularPersistenceService Snapshot
-            if (obj != null && obj.getClass().getName().endsWith("ModularPersistenceService$Snapshot")) {
-                java.lang.reflect.Field qf = obj.getClass().getDeclaredField("questionsByTheme");
-                qf.setAccessible(true);
-                Object qm = qf.get(obj);
-                if (qm instanceof Map) questionsByTheme = (Map<String, List<RepoQuizeeQuestions>>) qm;
-
-                java.lang.reflect.Field tf = obj.getClass().getDeclaredField("themeDescriptions");
-                tf.setAccessible(true);
-                Object tm = tf.get(obj);
-                if (tm instanceof Map) themeDescriptions = (Map<String, String>) tm;
+            if (GenerationFiles.isBinary(file)) {
+                QuizStoreCodec.QuestionSnapshot snap = QuizStoreCodec.readQuestionStore(file.toPath());
+                questionsByTheme = snap.questionsByTheme;
+                themeDescriptions = snap.themeDescriptions;
+            } else {
+                try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+                    Object obj = in.readObject();
+                    // Reflection-based extraction of the legacy ModularPersistenceService Snapshot
+                    if (obj != null && obj.getClass().getName().endsWith("ModularPersistenceService$Snapshot")) {
+                        java.lang.reflect.Field qf = obj.getClass().getDeclaredField("questionsByTheme");
+                        qf.setAccessible(true);
+                        Object qm = qf.get(obj);
+                        if (qm instanceof Map) questionsByTheme = (Map<String, List<RepoQuizeeQuestions>>) qm;
+
+                        java.lang.reflect.Field tf = obj.getClass().getDeclaredField("themeDescriptions");
+                        tf.setAccessible(true);
+                        Object tm = tf.get(obj);
+                        if (tm instanceof Map) themeDescriptions = (Map<String, String>) tm;
+                    }
+                }
             }
 
             // Merge themes
@@ -202,13 +217,14 @@ public class DataMergeService implements Serializable {
                     List<RepoQuizeeQuestions> list = e.getValue();
                     if (list == null) continue;
                     for (RepoQuizeeQuestions q : list) {
+                        QuestionValue v = q.value();
                         PersistenceDelegate.QuestionData qd = new PersistenceDelegate.QuestionData(
                             theme,
-                            q.getTitel(),
-                            q.getFrageText(),
-                            q.getErklaerung() != null ? q.getErklaerung() : "",
-                            q.getAntworten(),
-                            q.getKorrekt()
+                            v.title(),
+                            v.text(),
+                            v.explanation(),
+                            v.answers(),
+                            v.correctFlags()
                         );
                         boolean ok = persistence.saveQuestion().apply(qd);
                         if (ok) report.questionsAdded++; else report.questionsUpdated++;
@@ -216,6 +232,9 @@ public class DataMergeService implements Serializable {
                 }
             }
 
+            // Group commit barrier: the merged batch is durable before we report
+            persistence.flush().run();
+
         } catch (Exception ignored) {}
     }
 
@@ -223,17 +242,26 @@ public class DataMergeService implements Serializable {
      * Merges statistics from a serialized file into the current statistics object.
      */
     private void mergeStatistics(File file, MergeReport report) {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-            Object obj = in.readObject();
+        try {
             Map<String, ModularQuizStatistics.QuestionStatistics> qStats = new HashMap<>();
             Map<String, ModularQuizStatistics.ThemeStatistics> tStats = new HashMap<>();
             List<ModularQuizPlay.QuizResult> results = new ArrayList<>();
 
-            if (obj instanceof Map) {
-                Map<String, ?> data = (Map<String, ?>) obj;
-                convertQuestionStatsMap((Map<String, ?>) data.get("questionStats"), qStats);
-                convertThemeStatsMap((Map<String, ?>) data.get("themeStats"), tStats);
-                convertResults((List<?>) data.get("allResults"), results);
+            if (GenerationFiles.isBinary(file)) {
+                QuizStoreCodec.StatisticsSnapshot snap = QuizStoreCodec.readStatistics(file.toPath());
+                qStats.putAll(snap.questionStats);
+                tStats.putAll(snap.themeStats);
+                results.addAll(snap.results);
+            } else {
+                try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+                    Object obj = in.readObject();
+                    if (obj instanceof Map) {
+                        Map<String, ?> data = (Map<String, ?>) obj;
+                        convertQuestionStatsMap((Map<String, ?>) data.get("questionStats"), qStats);
+                        convertThemeStatsMap((Map<String, ?>) data.get("themeStats"), tStats);
+                        convertResults((List<?>) data.get("allResults"), results);
+                    }
+                }
             }
 
             statistics.mergeData(qStats, tStats, results, true);
@@ -248,14 +276,20 @@ public class DataMergeService implements Serializable {
      * Merges Leitner cards from a file using the selected policy.
      */
     private void mergeLeitner(File file, MergeReport report, LeitnerMergePolicy p) {
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
-            Object obj = in.readObject();
+        try {
             Map<String, AdaptiveLeitnerCard> cards = null;
 
-            if (obj != null && obj.getClass().getName().endsWith("AdaptiveLeitnerSystem$Snapshot")) {
-                java.lang.reflect.Field cf = obj.getClass().getDeclaredField("cards");
-                cf.setAccessible(true);
-                cards = (Map<String, AdaptiveLeitnerCard>) cf.get(obj);
+            if (GenerationFiles.isBinary(file)) {
+                cards = QuizStoreCodec.readLeitner(file.toPath()).cards;
+            } else {
+                try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+                    Object obj = in.readObject();
+                    if (obj != null && obj.getClass().getName().endsWith("AdaptiveLeitnerSystem$Snapshot")) {
+                        java.lang.reflect.Field cf = obj.getClass().getDeclaredField("cards");
+                        cf.setAccessible(true);
+                        cards = (Map<String, AdaptiveLeitnerCard>) cf.get(obj);
+                    }
+                }
             }
 
             if (cards != null && !cards.isEmpty()) {
@@ -8,9 +8,52 @@
  *   außerhalb des Pakets nicht direkt zugegriffen.
  * - Funktionale Schnittstellen (Supplier/Function/BiFunction/Runnable) werden
  *   genutzt, um Lambdas und testbare Komposition zu ermöglichen.
- * - Persistenz: Snapshot-basierte Serialisierung mit atomarem Write (.tmp → rename)
- *   und Abwärtskompatibilität (Legacy-Fallback beim Laden).
- * - Datenmodelle: RepoQuizeeQuestions u. a. bilden die Quiz-Domain-Objekte ab.
+ * - Persistenz: Snapshots im kompakten Binärformat (siehe dbbl.storage) mit
+ *   dauerhaftem Write über DurableFiles (fsync, .tmp → ATOMIC_MOVE,
+ *   Verzeichnis-Sync); alte serialisierte Dateien werden beim
+ *   Laden einmalig importiert (Legacy-Fallback).
+ * - Journal: Jede Mutation wird als kleiner Datensatz an quiz_questions.journal
+ *   angehängt; das Journal wird periodisch in den Snapshot kompaktiert und beim
+ *   Laden auf den Snapshot nachgespielt. Datensätze tragen eine CRC32C-Prüfsumme;
+ *   ein beschädigtes Ende beendet das Nachspielen und wird abgeschnitten.
+ * - Sharding: Der Fragen-Snapshot besteht aus einem Manifest (quiz_questions.dat)
+ *   und einer Datei je Thema (quiz_questions.shards/); beim Kompaktieren werden
+ *   nur geänderte Themen neu geschrieben, beim Start alle Shards parallel gelesen.
+ *   Ist kein Manifest lesbar, wird es aus den Shards neu aufgebaut statt mit
+ *   einem leeren Bestand zu starten.
+ * - Massenimport: QuestionBankImporter liest CSV/JSON-Lines-Fragenkataloge
+ *   zeilenweise, validiert Antworten und Korrekt-Flags, übergibt gültige
+ *   Datensätze stapelweise (ein Schritt je Thema) und schreibt am Ende genau
+ *   einen Snapshot; ungültige Zeilen werden mit Zeilennummer gemeldet.
+ * - Datenmodelle: QuestionValue ist der unveränderliche Wert einer Frage
+ *   (Antworten als unveränderliche Liste, Korrekt-Flags als Bitmaske,
+ *   gecachter Hash) und wird ohne Kopie zwischen den Schichten geteilt;
+ *   RepoQuizeeQuestions bleibt als veränderlicher Kompatibilitäts-Adapter
+ *   (gleiche Serialisierungsform) erhalten.
+ * - Fragen-IDs: Jede gespeicherte Frage erhält eine persistente 64-Bit-ID
+ *   (stabil bei Umbenennung); LongIndex dient als primitiver ID-Index für
+ *   Lookups, Löschungen und Verknüpfungen (Leitner-Karten, Ergebnisse).
+ * - SQL-Zugriff: DatenBankDAOxDTO leiht Verbindungen aus einem eigenen
+ *   JdbcConnectionPool (Höchstgröße, Validierung nach Leerlauf, Rollback und
+ *   Auto-Commit-Reset bei Rückgabe, Verdrängung ungenutzter Verbindungen,
+ *   Metriken zu Wartezeit, aktiven und freien Verbindungen). URL und
+ *   Zugangsdaten sind per Konstruktor wählbar (z. B. eingebettete H2-Datenbank
+ *   im MariaDB-Modus für Tests).
+ * - ID-Cache: Themen- und Fragen-IDs (nach Titel bzw. Themen-ID und Titel)
+ *   liegen in einem begrenzten LRU-Cache (IdCache) mit Treffer-/Fehlzählern;
+ *   er wird vor dem ersten Lookup mit einer Abfrage gefüllt und beim Löschen
+ *   eines Themas samt dessen Fragen (ON DELETE CASCADE) bereinigt.
+ * - SQL-Massenladen: loadAllQuestions liest Themen, Fragen und Antworten mit
+ *   einer verbundenen, sortierten Abfrage (vorwärts, nur lesend, Fetch-Size)
+ *   und übergibt jede Frage sofort einem Consumer – konstanter Zusatzspeicher
+ *   statt N+1 Antwortabfragen.
+ * - SQL-Backend: JdbcPersistenceService implementiert PersistenceDelegate auf
+ *   dem Schema aus DatabankStruc. Lesezugriffe bedienen ein In-Memory-Modell;
+ *   Änderungen werden in eine Write-Behind-Warteschlange gestellt, in der
+ *   wiederholte Änderungen derselben Frage zusammengefasst werden, und über den
+ *   PersistenceExecutor geschrieben. Auswahl über "persistence.backend"
+ *   (file | sql) sowie "persistence.jdbc.url/user/password" im
+ *   AppConfigService (application.properties oder --key=value).
  *
  * Verantwortungen:
  * - Themenverwaltung (Anlegen/Löschen/Laden von Themen und Beschreibungen)
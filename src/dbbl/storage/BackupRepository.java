@@ -0,0 +1,502 @@
+package dbbl.storage;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * {@code BackupRepository} keeps incremental, deduplicated backups of the
+ * store files in a content-addressed chunk store.
+ * <p>
+ * Layout below the repository root:
+ * <pre>
+ * chunks/ab/ab12…ef        chunk content, named after its SHA-256
+ * snapshots/&lt;id&gt;.snap     file list of one backup (binary store, kind BACKUP_SNAPSHOT)
+ * </pre>
+ * Files are split by content-defined chunking (gear rolling hash, 2–64 KiB,
+ * about 8 KiB on average), so a change inside a file only alters the chunks
+ * around it. Chunks already in the repository are never written again; new
+ * chunks are copied straight from the source file with
+ * {@link FileChannel#transferTo}, and restores reassemble files the same way.
+ * A copied chunk is hashed again before it is kept, and a file whose size
+ * or modification time changed while it was read fails the backup, so a
+ * snapshot never mixes two versions of a file.
+ * <p>
+ * Retention: {@link #prune(int)} deletes all but the newest snapshots and
+ * then every chunk no longer referenced by a remaining snapshot.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class BackupRepository {
+
+    // ------------------- CHUNKING -------------------
+
+    private static final int MIN_CHUNK = 2 * 1024;
+    private static final int MAX_CHUNK = 64 * 1024;
+    /** A boundary is cut where the low 13 hash bits are zero: ~8 KiB average. */
+    private static final long BOUNDARY_MASK = (1L << 13) - 1;
+    private static final int READ_BUFFER = 1024 * 1024;
+    private static final long[] GEAR = gearTable();
+
+    // ------------------- RECORD TAGS -------------------
+
+    private static final byte TAG_SNAPSHOT_META = 50;
+    private static final byte TAG_SNAPSHOT_FILE = 51;
+
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    /** One chunk of a file. */
+    static final class Chunk {
+        final String hash;
+        final int length;
+
+        Chunk(String hash, int length) {
+            this.hash = hash;
+            this.length = length;
+        }
+    }
+
+    /** One backed-up file; the path is relative to the backup base directory. */
+    public static final class FileEntry {
+        public final String path;
+        public final long size;
+        final List<Chunk> chunks;
+
+        FileEntry(String path, long size, List<Chunk> chunks) {
+            this.path = path;
+            this.size = size;
+            this.chunks = chunks;
+        }
+    }
+
+    /** One backup. */
+    public static final class Snapshot {
+        public final String id;
+        public final String name;
+        public final long createdAt;
+        public final List<FileEntry> files;
+        /** Chunks written by the backup that created this snapshot; 0 when read back from disk. */
+        public final int addedChunks;
+        /** Bytes written by the backup that created this snapshot; 0 when read back from disk. */
+        public final long addedBytes;
+
+        Snapshot(String id, String name, long createdAt, List<FileEntry> files, int addedChunks, long addedBytes) {
+            this.id = id;
+            this.name = name;
+            this.createdAt = createdAt;
+            this.files = Collections.unmodifiableList(files);
+            this.addedChunks = addedChunks;
+            this.addedBytes = addedBytes;
+        }
+
+        /** Logical size of all files in the snapshot. */
+        public long totalBytes() {
+            long total = 0;
+            for (FileEntry f : files) total += f.size;
+            return total;
+        }
+    }
+
+    private final Path chunkDir;
+    private final Path snapshotDir;
+
+    /**
+     * @param root repository directory; created on the first backup
+     */
+    public BackupRepository(Path root) {
+        this.chunkDir = root.resolve("chunks");
+        this.snapshotDir = root.resolve("snapshots");
+    }
+
+    /**
+     * Lists the store files of a data directory: every {@code *.dat} file
+     * with its {@code .b} slot, the question journal and the theme shards.
+     *
+     * @param dir data directory
+     * @return store files, sorted by name
+     */
+    public static List<Path> storeFiles(Path dir) {
+        List<Path> files = new ArrayList<>();
+        File[] children = dir.toFile().listFiles();
+        if (children == null) return files;
+        Arrays.sort(children);
+        for (File f : children) {
+            String name = f.getName();
+            if (f.isDirectory() && name.endsWith(".shards")) {
+                File[] shards = f.listFiles((d, n) -> n.endsWith(".dat"));
+                if (shards == null) continue;
+                Arrays.sort(shards);
+                for (File shard : shards) files.add(shard.toPath());
+            } else if (f.isFile() && (name.endsWith(".dat") || name.endsWith(".dat" + GenerationFiles.SLOT_B_SUFFIX)
+                    || name.endsWith(".journal"))) {
+                files.add(f.toPath());
+            }
+        }
+        return files;
+    }
+
+    // ------------------- BACKUP -------------------
+
+    /**
+     * Backs up the given files, storing only chunks the repository does not
+     * hold yet. Missing files are skipped.
+     *
+     * @param name label of the backup
+     * @param baseDir directory the stored paths are relative to
+     * @param files files below {@code baseDir}
+     * @return the new snapshot, including how much was actually written
+     * @throws IOException if a file cannot be read or the repository written
+     */
+    public synchronized Snapshot backup(String name, Path baseDir, Collection<Path> files) throws IOException {
+        Files.createDirectories(chunkDir);
+        Files.createDirectories(snapshotDir);
+        long createdAt = System.currentTimeMillis();
+        List<FileEntry> entries = new ArrayList<>(files.size());
+        int addedChunks = 0;
+        long addedBytes = 0;
+        Path base = baseDir.toAbsolutePath().normalize();
+        Set<Path> touched = new HashSet<>();
+        for (Path file : files) {
+            if (!Files.isRegularFile(file)) continue;
+            FileTime modified = Files.getLastModifiedTime(file);
+            try (FileChannel src = FileChannel.open(file, StandardOpenOption.READ)) {
+                List<Chunk> chunks = chunk(src);
+                long offset = 0;
+                for (Chunk c : chunks) {
+                    if (storeChunk(src, offset, c)) {
+                        addedChunks++;
+                        addedBytes += c.length;
+                        touched.add(chunkPath(c.hash).getParent());
+                    }
+                    offset += c.length;
+                }
+                if (src.size() != offset || !modified.equals(Files.getLastModifiedTime(file))) {
+                    throw new IOException("File changed while it was backed up: " + file);
+                }
+                String path = base.relativize(file.toAbsolutePath().normalize()).toString().replace(File.separatorChar, '/');
+                entries.add(new FileEntry(path, offset, chunks));
+            }
+        }
+        // new chunks must be durable before a snapshot references them
+        for (Path dir : touched) DurableFiles.syncDirectory(dir);
+        Snapshot snapshot = new Snapshot(newId(createdAt, name), name, createdAt, entries, addedChunks, addedBytes);
+        writeSnapshot(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Splits a file into content-defined chunks and hashes them.
+     */
+    static List<Chunk> chunk(FileChannel src) throws IOException {
+        MessageDigest sha = sha256();
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer buf = ByteBuffer.allocate(READ_BUFFER);
+        buf.limit(0);
+        int start = 0;
+        int pos = 0;
+        long hash = 0;
+        while (true) {
+            if (pos == buf.limit()) {
+                // keep the open chunk, refill behind it
+                buf.position(start);
+                buf.compact();
+                pos -= start;
+                start = 0;
+                src.read(buf);
+                buf.flip();
+                if (pos == buf.limit()) break; // end of file
+            }
+            hash = (hash << 1) + GEAR[buf.get(pos++) & 0xFF];
+            int len = pos - start;
+            if ((len >= MIN_CHUNK && (hash & BOUNDARY_MASK) == 0) || len >= MAX_CHUNK) {
+                chunks.add(digest(sha, buf, start, len));
+                start = pos;
+                hash = 0;
+            }
+        }
+        if (pos > start) chunks.add(digest(sha, buf, start, pos - start));
+        return chunks;
+    }
+
+    private static Chunk digest(MessageDigest sha, ByteBuffer buf, int start, int len) {
+        ByteBuffer slice = buf.duplicate();
+        slice.limit(start + len).position(start);
+        sha.update(slice);
+        return new Chunk(hex(sha.digest()), len);
+    }
+
+    /**
+     * Copies a chunk into the repository unless it is already there.
+     *
+     * @return {@code true} if the chunk was new
+     */
+    private boolean storeChunk(FileChannel src, long offset, Chunk c) throws IOException {
+        Path target = chunkPath(c.hash);
+        if (Files.exists(target)) return false;
+        Files.createDirectories(target.getParent());
+        Path tmp = DurableFiles.tmpSibling(target);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            transferFully(src, offset, c.length, out);
+            out.force(false);
+            if (!c.hash.equals(hashOf(tmp))) {
+                throw new IOException("File changed while it was backed up: chunk at " + offset + " no longer matches");
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        DurableFiles.moveAtomically(tmp, target);
+        return true;
+    }
+
+    // ------------------- RESTORE -------------------
+
+    /**
+     * Reassembles all files of a snapshot below a target directory. Each file
+     * is written next to its destination first and then moved over it.
+     *
+     * @param id snapshot id
+     * @param targetDir directory corresponding to the backup base directory
+     * @throws IOException if the snapshot or a chunk is missing or damaged
+     */
+    public synchronized void restore(String id, Path targetDir) throws IOException {
+        Snapshot snapshot = readSnapshot(snapshotDir.resolve(id + SNAPSHOT_SUFFIX));
+        Path base = targetDir.toAbsolutePath().normalize();
+        Set<Path> touched = new HashSet<>();
+        for (FileEntry e : snapshot.files) {
+            Path target = base.resolve(e.path).normalize();
+            if (!target.startsWith(base)) throw new IOException("Invalid path in snapshot " + id + ": " + e.path);
+            Files.createDirectories(target.getParent());
+            Path tmp = target.resolveSibling(target.getFileName() + ".restore");
+            try {
+                assemble(e, tmp);
+                DurableFiles.moveAtomically(tmp, target);
+            } catch (IOException ex) {
+                Files.deleteIfExists(tmp);
+                throw ex;
+            }
+            touched.add(target.getParent());
+        }
+        for (Path dir : touched) DurableFiles.syncDirectory(dir);
+    }
+
+    private void assemble(FileEntry e, Path out) throws IOException {
+        try (FileChannel dst = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Chunk c : e.chunks) {
+                try (FileChannel in = FileChannel.open(chunkPath(c.hash), StandardOpenOption.READ)) {
+                    if (in.size() != c.length) throw new IOException("Damaged chunk " + c.hash);
+                    transferFully(in, 0, c.length, dst);
+                }
+            }
+            dst.force(false);
+        }
+    }
+
+    // ------------------- SNAPSHOTS & RETENTION -------------------
+
+    /**
+     * Reads the file list of one snapshot.
+     *
+     * @param id snapshot id
+     * @throws IOException if the snapshot does not exist or is damaged
+     */
+    public synchronized Snapshot snapshot(String id) throws IOException {
+        return readSnapshot(snapshotDir.resolve(id + SNAPSHOT_SUFFIX));
+    }
+
+    /**
+     * Lists all readable snapshots, oldest first.
+     */
+    public synchronized List<Snapshot> snapshots() {
+        List<Snapshot> result = new ArrayList<>();
+        readSnapshots(result);
+        return result;
+    }
+
+    /**
+     * Keeps the newest {@code keep} snapshots, deletes the others and then
+     * every chunk no longer referenced. Chunks are only collected when all
+     * remaining snapshots could be read.
+     *
+     * @param keep number of snapshots to keep, at least 1
+     * @return number of deleted chunks
+     */
+    public synchronized int prune(int keep) throws IOException {
+        if (keep < 1) throw new IllegalArgumentException("keep must be at least 1");
+        List<Snapshot> all = new ArrayList<>();
+        boolean complete = readSnapshots(all);
+        for (int i = 0; i < all.size() - keep; i++) {
+            Files.deleteIfExists(snapshotDir.resolve(all.get(i).id + SNAPSHOT_SUFFIX));
+        }
+        if (!complete) return 0;
+        Set<String> live = new HashSet<>();
+        for (Snapshot s : all.subList(Math.max(0, all.size() - keep), all.size())) {
+            for (FileEntry f : s.files) for (Chunk c : f.chunks) live.add(c.hash);
+        }
+        int deleted = 0;
+        File[] buckets = chunkDir.toFile().listFiles(File::isDirectory);
+        if (buckets == null) return 0;
+        for (File bucket : buckets) {
+            File[] chunks = bucket.listFiles();
+            if (chunks == null) continue;
+            for (File c : chunks) {
+                if (!live.contains(c.getName()) && c.delete()) deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Reads all snapshot files, oldest first.
+     *
+     * @return {@code false} if a snapshot file could not be read
+     */
+    private boolean readSnapshots(List<Snapshot> into) {
+        File[] files = snapshotDir.toFile().listFiles((d, n) -> n.endsWith(SNAPSHOT_SUFFIX));
+        if (files == null) return true;
+        boolean complete = true;
+        for (File f : files) {
+            try {
+                into.add(readSnapshot(f.toPath()));
+            } catch (IOException e) {
+                complete = false;
+            }
+        }
+        into.sort(Comparator.comparingLong((Snapshot s) -> s.createdAt).thenComparing(s -> s.id));
+        return complete;
+    }
+
+    private void writeSnapshot(Snapshot s) throws IOException {
+        Path target = snapshotDir.resolve(s.id + SNAPSHOT_SUFFIX);
+        Path tmp = DurableFiles.tmpSibling(target);
+        try (BinaryStoreWriter out = BinaryStoreWriter.create(tmp, StoreFormat.Kind.BACKUP_SNAPSHOT)) {
+            out.beginRecord(TAG_SNAPSHOT_META);
+            out.writeString(s.name);
+            out.writeVarLong(s.createdAt);
+            out.endRecord();
+            for (FileEntry f : s.files) {
+                out.beginRecord(TAG_SNAPSHOT_FILE);
+                out.writeString(f.path);
+                out.writeVarLong(f.size);
+                out.writeVarInt(f.chunks.size());
+                for (Chunk c : f.chunks) {
+                    out.writeString(c.hash);
+                    out.writeVarInt(c.length);
+                }
+                out.endRecord();
+            }
+            out.finish();
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        DurableFiles.replace(tmp, target);
+    }
+
+    private static Snapshot readSnapshot(Path file) throws IOException {
+        String name = null;
+        long createdAt = 0;
+        List<FileEntry> files = new ArrayList<>();
+        try (BinaryStoreReader in = BinaryStoreReader.open(file, StoreFormat.Kind.BACKUP_SNAPSHOT)) {
+            int tag;
+            while ((tag = in.nextRecord()) >= 0) {
+                if (tag == TAG_SNAPSHOT_META) {
+                    name = in.readString();
+                    createdAt = in.readVarLong();
+                } else if (tag == TAG_SNAPSHOT_FILE) {
+                    String path = in.readString();
+                    long size = in.readVarLong();
+                    int n = in.readVarInt();
+                    List<Chunk> chunks = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) chunks.add(new Chunk(in.readString(), in.readVarInt()));
+                    files.add(new FileEntry(path, size, chunks));
+                }
+            }
+        }
+        String fileName = file.getFileName().toString();
+        String id = fileName.substring(0, fileName.length() - SNAPSHOT_SUFFIX.length());
+        return new Snapshot(id, name, createdAt, files, 0, 0L);
+    }
+
+    // ------------------- INTERNALS -------------------
+
+    private Path chunkPath(String hash) {
+        return chunkDir.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private String newId(long createdAt, String name) {
+        // lower case: ids are typed back in on the console, which lower-cases its input
+        String label = name != null ? name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "_") : "backup";
+        String id = createdAt + "-" + label;
+        for (int i = 2; Files.exists(snapshotDir.resolve(id + SNAPSHOT_SUFFIX)); i++) {
+            id = createdAt + "-" + label + "-" + i;
+        }
+        return id;
+    }
+
+    private static void transferFully(FileChannel src, long offset, long length, FileChannel dst) throws IOException {
+        long done = 0;
+        while (done < length) {
+            long n = src.transferTo(offset + done, length - done, dst);
+            if (n <= 0) throw new EOFException("Source ended after " + done + " of " + length + " bytes");
+            done += n;
+        }
+    }
+
+    private static String hashOf(Path file) throws IOException {
+        MessageDigest sha = sha256();
+        ByteBuffer buf = ByteBuffer.allocate(READ_BUFFER);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (in.read(buf) > 0) {
+                buf.flip();
+                sha.update(buf);
+                buf.clear();
+            }
+        }
+        return hex(sha.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+
+    /** Fixed pseudo-random gear table; must never change, or chunk boundaries shift. */
+    private static long[] gearTable() {
+        SplittableRandom random = new SplittableRandom(0x51554958L);
+        long[] table = new long[256];
+        for (int i = 0; i < table.length; i++) table[i] = random.nextLong();
+        return table;
+    }
+}
@@ -0,0 +1,289 @@
+package dbbl.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * {@code BackupService} takes and restores point-in-time backups of all
+ * store files on top of the {@link BackupRepository}.
+ * <p>
+ * Consistency: backup and restore run as a {@link PersistenceExecutor#barrier
+ * barrier} on the persistence thread, so no queued store write is in flight.
+ * Stores that write outside the executor (the question journal) register a
+ * {@link StoreGuard}; all guards are held for the duration of the copy or
+ * swap, which makes the set of files one consistent cut across the stores.
+ * Stores that keep their state in memory and write it through the executor
+ * register an {@link ExecutorStoreGuard}, so a restore reloads them and their
+ * saves copied before the reload are dropped instead of overwriting it.
+ * <p>
+ * Restore: the snapshot is first reassembled into a staging directory next
+ * to the data ({@code .restore-<id>}, same file system) without touching the
+ * live files. Inside the barrier the current state is backed up
+ * ({@code pre-restore}), every staged file is moved over its target with
+ * {@link StandardCopyOption#ATOMIC_MOVE}, and store files that are not part
+ * of the snapshot (e.g. a newer {@code .b} slot, which would otherwise win
+ * over the restored slot) are removed. File contents are copied with
+ * {@link java.nio.channels.FileChannel#transferTo} in both directions.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class BackupService {
+
+    /** Default repository directory, relative to the working directory. */
+    public static final String DEFAULT_REPOSITORY = "quiz_backups";
+
+    /** Label of the backup taken automatically before a restore. */
+    public static final String PRE_RESTORE = "pre-restore";
+
+    private static final String STAGE_PREFIX = ".restore-";
+
+    /** A piece of file work run while the stores are held. */
+    @FunctionalInterface
+    public interface Section {
+        void run() throws IOException;
+    }
+
+    /**
+     * Quiesces a store that writes outside the {@link PersistenceExecutor}.
+     */
+    public interface StoreGuard {
+        /**
+         * Runs a section while the store does not write; buffered state is
+         * written first and open files are closed.
+         */
+        void hold(Section section) throws IOException;
+
+        /**
+         * Called while still held, right after the files were restored: from
+         * now on the store must not write its in-memory state until
+         * {@link #reload()}. Must not block on the store's own locks.
+         */
+        default void restored() {}
+
+        /**
+         * Reloads the store after its files were restored; called once every
+         * guard was released, so the store may take its locks in their usual
+         * order, but before the restore returns.
+         */
+        default void reload() {}
+    }
+
+    /**
+     * Guard of a store that writes only through the {@link PersistenceExecutor},
+     * whose barrier already keeps its writes out of a backup. A save copies
+     * the in-memory state on the caller's thread, so it takes a
+     * {@link #stamp()} first and writes only if {@link #isCurrent} still holds:
+     * a copy taken before a restore was reloaded is dropped.
+     */
+    public static final class ExecutorStoreGuard implements StoreGuard {
+        /** Odd between a restore and the end of the reload. */
+        private final AtomicLong generation = new AtomicLong();
+        private final Runnable reload;
+
+        /**
+         * @param reload re-reads the store's files into its in-memory state;
+         *               runs on the persistence thread
+         */
+        public ExecutorStoreGuard(Runnable reload) {
+            this.reload = reload;
+        }
+
+        /** Stamp to take before the in-memory state is copied for a save. */
+        public long stamp() {
+            return generation.get();
+        }
+
+        /** Whether a save stamped with {@code stamp} may still be written. */
+        public boolean isCurrent(long stamp) {
+            return (stamp & 1) == 0 && generation.get() == stamp;
+        }
+
+        @Override
+        public void hold(Section section) throws IOException {
+            section.run();
+        }
+
+        @Override
+        public void restored() {
+            generation.incrementAndGet();
+        }
+
+        @Override
+        public void reload() {
+            try {
+                reload.run();
+            } finally {
+                generation.incrementAndGet();
+            }
+        }
+    }
+
+    /** Registered guards; weak, so a discarded store does not stay reachable. */
+    private static final Set<StoreGuard> GUARDS =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private final Path baseDir;
+    private final List<Path> storeDirs;
+    private final BackupRepository repository;
+    private final PersistenceExecutor executor;
+
+    /**
+     * @param baseDir directory the stored paths are relative to
+     * @param storeDirs directories below {@code baseDir} holding store files
+     * @param repositoryDir backup repository
+     */
+    public BackupService(Path baseDir, List<Path> storeDirs, Path repositoryDir) {
+        this.baseDir = baseDir.toAbsolutePath().normalize();
+        this.storeDirs = new ArrayList<>(storeDirs);
+        this.repository = new BackupRepository(repositoryDir);
+        this.executor = PersistenceExecutor.shared();
+    }
+
+    /**
+     * Service for the store files of the working directory and the default repository.
+     */
+    public static BackupService forWorkingDirectory() {
+        Path cwd = new File("").getAbsoluteFile().toPath();
+        return new BackupService(cwd, Collections.singletonList(cwd), Paths.get(DEFAULT_REPOSITORY));
+    }
+
+    /** Registers a store that must be held during backups and restores. */
+    public static void register(StoreGuard guard) {
+        GUARDS.add(guard);
+    }
+
+    public BackupRepository repository() { return repository; }
+
+    // ------------------- BACKUP -------------------
+
+    /**
+     * Backs up all store files as one point-in-time snapshot.
+     *
+     * @param name label of the backup
+     * @return the new snapshot
+     * @throws IOException if a file cannot be read or the repository written
+     */
+    public BackupRepository.Snapshot backup(String name) throws IOException {
+        return await(executor.barrier(() -> {
+            BackupRepository.Snapshot[] result = new BackupRepository.Snapshot[1];
+            holdAll(guards(), 0, () -> result[0] = repository.backup(name, baseDir, storeFiles()));
+            return result[0];
+        }));
+    }
+
+    // ------------------- RESTORE -------------------
+
+    /**
+     * Replaces all store files by the files of a snapshot and reloads the
+     * registered stores.
+     *
+     * @param id snapshot id
+     * @return the backup of the state before the restore
+     * @throws IOException if the snapshot cannot be reassembled or a file not
+     *                     be moved; the live files are untouched if staging fails
+     */
+    public BackupRepository.Snapshot restore(String id) throws IOException {
+        BackupRepository.Snapshot snapshot = repository.snapshot(id);
+        Path stage = baseDir.resolve(STAGE_PREFIX + id);
+        deleteTree(stage);
+        try {
+            repository.restore(id, stage);
+            return await(executor.barrier(() -> {
+                BackupRepository.Snapshot[] before = new BackupRepository.Snapshot[1];
+                List<StoreGuard> guards = guards();
+                holdAll(guards, 0, () -> {
+                    before[0] = repository.backup(PRE_RESTORE, baseDir, storeFiles());
+                    swap(snapshot, stage);
+                    for (StoreGuard g : guards) g.restored();
+                });
+                for (StoreGuard g : guards) g.reload();
+                return before[0];
+            }));
+        } finally {
+            deleteTree(stage);
+        }
+    }
+
+    /**
+     * Moves the staged files over the live ones and removes live store files
+     * the snapshot does not contain.
+     */
+    private void swap(BackupRepository.Snapshot snapshot, Path stage) throws IOException {
+        Set<Path> restored = new HashSet<>();
+        Set<Path> touched = new HashSet<>();
+        for (BackupRepository.FileEntry e : snapshot.files) {
+            Path target = baseDir.resolve(e.path).normalize();
+            Files.createDirectories(target.getParent());
+            DurableFiles.moveAtomically(stage.resolve(e.path), target);
+            restored.add(target);
+            touched.add(target.getParent());
+        }
+        for (Path live : storeFiles()) {
+            Path file = live.toAbsolutePath().normalize();
+            if (!restored.contains(file) && Files.deleteIfExists(file)) touched.add(file.getParent());
+        }
+        for (Path dir : touched) DurableFiles.syncDirectory(dir);
+    }
+
+    // ------------------- INTERNALS -------------------
+
+    private List<Path> storeFiles() {
+        List<Path> files = new ArrayList<>();
+        for (Path dir : storeDirs) files.addAll(BackupRepository.storeFiles(dir));
+        return files;
+    }
+
+    private static List<StoreGuard> guards() {
+        synchronized (GUARDS) { return new ArrayList<>(GUARDS); }
+    }
+
+    /** Nests the sections of all guards around the given section. */
+    private static void holdAll(List<StoreGuard> guards, int i, Section section) throws IOException {
+        if (i == guards.size()) {
+            section.run();
+        } else {
+            guards.get(i).hold(() -> holdAll(guards, i + 1, section));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
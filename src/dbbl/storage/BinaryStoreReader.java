@@ -0,0 +1,359 @@
+package dbbl.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * {@code BinaryStoreReader} streams a binary store file written by
+ * {@link BinaryStoreWriter} through a buffered {@link FileChannel}.
+ * <p>
+ * Usage:
+ * <pre>
+ *   try (BinaryStoreReader in = BinaryStoreReader.open(path, StoreFormat.Kind.QUESTIONS)) {
+ *       int tag;
+ *       while ((tag = in.nextRecord()) >= 0) {
+ *           // decode the values of the record; unread trailing values are skipped
+ *       }
+ *   }
+ * </pre>
+ * Each record is loaded completely into the buffer before it is decoded, so
+ * reading values never touches the channel. Reads beyond the end of the current
+ * record fail with an {@link EOFException}.
+ * <p>
+ * Files of schema version 2 and later are only accepted with a valid footer,
+ * and every record is checked against its CRC32C when it is entered; a
+ * mismatch fails with an {@link IOException}. Reading stops at the body end
+ * recorded in the footer.
+ * <p>
+ * {@link #at(ByteBuffer, int, int)} decodes single records straight from a
+ * (memory-mapped) buffer without a channel; symbols written as back
+ * references cannot be resolved there and must be skipped with
+ * {@link #skipSymbol()}.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class BinaryStoreReader implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+    private final List<String> symbols = new ArrayList<>();
+    private int schemaVersion;
+    private StoreFormat.Kind kind;
+    private long generation;
+    private long bodyEnd = Long.MAX_VALUE;
+    private long channelPos;
+    private int recordEnd = -1;
+    private boolean eof;
+
+    private BinaryStoreReader(FileChannel channel) {
+        this.channel = channel;
+        buf.limit(0);
+    }
+
+    private BinaryStoreReader(ByteBuffer source) {
+        this.channel = null;
+        this.buf = source;
+        this.eof = true;
+    }
+
+    /**
+     * Creates a reader positioned at a record boundary inside an in-memory or
+     * memory-mapped buffer. The buffer itself is not modified.
+     *
+     * @param source buffer containing a store file
+     * @param offset absolute offset of a record (its length prefix)
+     * @param schemaVersion schema version from the file header
+     * @return reader; call {@link #nextRecord()} to enter the record
+     */
+    static BinaryStoreReader at(ByteBuffer source, int offset, int schemaVersion) {
+        ByteBuffer view = source.duplicate();
+        view.position(offset);
+        BinaryStoreReader r = new BinaryStoreReader(view);
+        r.schemaVersion = schemaVersion;
+        return r;
+    }
+
+    /**
+     * Opens a store file and validates its header.
+     *
+     * @param path file to read
+     * @param expected kind the caller is able to decode
+     * @return reader positioned before the first record
+     * @throws IOException if the file is not a binary store of the expected kind
+     *                     or was written by a newer schema version
+     */
+    public static BinaryStoreReader open(Path path, StoreFormat.Kind expected) throws IOException {
+        BinaryStoreReader r = openAny(path);
+        if (r.kind != expected) {
+            r.close();
+            throw new IOException("Expected " + expected + " store but found " + r.kind);
+        }
+        return r;
+    }
+
+    /**
+     * Opens a store file of any kind (verification); see {@link #open(Path, StoreFormat.Kind)}.
+     */
+    static BinaryStoreReader openAny(Path path) throws IOException {
+        BinaryStoreReader r = new BinaryStoreReader(FileChannel.open(path, StandardOpenOption.READ));
+        try {
+            // the footer bounds the body, so it must be known before the first buffered read
+            long[] footer = StoreFormat.readFooter(r.channel);
+            if (footer != null) {
+                r.generation = footer[0];
+                r.bodyEnd = footer[1];
+            }
+            if (!r.fill(StoreFormat.HEADER_SIZE)) throw new EOFException("Missing store header");
+            if (r.buf.getInt() != StoreFormat.MAGIC) throw new IOException("Not a binary store file: " + path);
+            r.schemaVersion = r.buf.getShort();
+            if (r.schemaVersion > StoreFormat.SCHEMA_VERSION) {
+                throw new IOException("Unsupported schema version " + r.schemaVersion + ": " + path);
+            }
+            r.kind = StoreFormat.Kind.of(r.buf.get());
+            if (r.kind == null) throw new IOException("Unknown store kind: " + path);
+            if (r.checksummed() && footer == null) {
+                throw new IOException("Incomplete store file (no valid footer): " + path);
+            }
+            return r;
+        } catch (IOException e) {
+            r.close();
+            throw e;
+        }
+    }
+
+    /** Schema version found in the file header. */
+    public int schemaVersion() { return schemaVersion; }
+
+    /** Kind found in the file header. */
+    public StoreFormat.Kind kind() { return kind; }
+
+    /** Generation from the footer; 0 for single-slot and version 1 files. */
+    public long generation() { return generation; }
+
+    private boolean checksummed() {
+        return schemaVersion >= StoreFormat.CHECKSUM_VERSION;
+    }
+
+    // ------------------- RECORDS -------------------
+
+    /**
+     * Advances to the next record, skipping whatever was not read of the current one.
+     *
+     * @return tag of the next record (0..255) or -1 at the end of the file
+     * @throws EOFException if the file ends inside a record
+     * @throws IOException if the record does not match its checksum
+     */
+    public int nextRecord() throws IOException {
+        if (recordEnd >= 0) {
+            buf.position(recordEnd);
+            recordEnd = -1;
+        }
+        int header = checksummed() ? 8 : 4;
+        if (!fill(header)) {
+            if (buf.hasRemaining()) throw new EOFException("Truncated record header");
+            return -1;
+        }
+        int len = buf.getInt();
+        int expectedCrc = checksummed() ? buf.getInt() : 0;
+        if (len < 1) throw new IOException("Corrupt record length: " + len);
+        if (!fill(len)) throw new EOFException("Truncated record");
+        if (checksummed()) {
+            ByteBuffer body = buf.duplicate();
+            body.limit(body.position() + len);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != expectedCrc) throw new IOException("Record checksum mismatch");
+        }
+        recordEnd = buf.position() + len;
+        return buf.get() & 0xFF;
+    }
+
+    // ------------------- VALUES -------------------
+
+    public int readByte() throws IOException {
+        need(1);
+        return buf.get();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    public int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    public long readVarLong() throws IOException {
+        long z = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            z |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (z >>> 1) ^ -(z & 1);
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public double readDouble() throws IOException {
+        need(8);
+        return buf.getDouble();
+    }
+
+    public String readString() throws IOException {
+        int len = readVarInt() - 1;
+        if (len < 0) return null;
+        need(len);
+        if (!buf.hasArray()) {
+            byte[] b = new byte[len];
+            buf.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+        buf.position(buf.position() + len);
+        return s;
+    }
+
+    /**
+     * Reads a string and returns its {@link StringInterner canonical} instance.
+     * Used for values that repeat across records and files (titles, keys).
+     */
+    public String readInterned() throws IOException {
+        return StringInterner.intern(readString());
+    }
+
+    /**
+     * Reads a dictionary-coded symbol. The first occurrence in a file is
+     * interned, so the same theme name decoded from several files (shards,
+     * Leitner and statistics stores) is one instance.
+     */
+    public String readSymbol() throws IOException {
+        int ref = readVarInt();
+        if (ref == 0) return null;
+        if (ref == 1) {
+            String s = readInterned();
+            symbols.add(s);
+            return s;
+        }
+        int id = ref - 2;
+        if (id >= symbols.size()) throw new IOException("Unknown symbol reference: " + id);
+        return symbols.get(id);
+    }
+
+    /**
+     * Whether the current record has unread bytes, i.e. trailing fields added
+     * by a newer schema version. Older records end before them.
+     */
+    public boolean hasRemaining() {
+        return remaining() > 0;
+    }
+
+    /** Number of unread bytes of the current record. */
+    int remaining() {
+        return recordEnd >= 0 ? recordEnd - buf.position() : 0;
+    }
+
+    /** Skips a symbol without resolving it (used for random access records). */
+    void skipSymbol() throws IOException {
+        if (readVarInt() == 1) readString();
+    }
+
+    /** Current absolute offset inside the buffer (random access readers). */
+    int position() {
+        return buf.position();
+    }
+
+    /** Skips {@code n} bytes of the current record. */
+    void skip(int n) throws IOException {
+        need(n);
+        buf.position(buf.position() + n);
+    }
+
+    /** Reads a fixed-width 8 byte long. */
+    public long readLong() throws IOException {
+        need(8);
+        return buf.getLong();
+    }
+
+    public List<String> readStrings() throws IOException {
+        int n = readVarInt();
+        if (n < 0) return null;
+        List<String> values = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) values.add(readString());
+        return values;
+    }
+
+    public List<Boolean> readFlags() throws IOException {
+        int n = readVarInt();
+        List<Boolean> flags = new ArrayList<>(n);
+        int bits = 0;
+        for (int i = 0; i < n; i++) {
+            if ((i & 7) == 0) bits = readByte();
+            flags.add((bits & (1 << (i & 7))) != 0);
+        }
+        return flags;
+    }
+
+    public LocalDateTime readDateTime() throws IOException {
+        if (!readBoolean()) return null;
+        long seconds = readVarLong();
+        return LocalDateTime.ofEpochSecond(seconds, readVarInt(), ZoneOffset.UTC);
+    }
+
+    public LocalDate readDate() throws IOException {
+        return readBoolean() ? LocalDate.ofEpochDay(readVarLong()) : null;
+    }
+
+    // ------------------- BUFFER -------------------
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    private void need(int n) throws EOFException {
+        if (recordEnd < 0 || buf.position() + n > recordEnd) throw new EOFException("Read beyond record end");
+    }
+
+    /**
+     * Makes sure at least {@code n} bytes are buffered, reading from the channel as needed.
+     *
+     * @return {@code false} if the file ends before {@code n} bytes are available
+     */
+    private boolean fill(int n) throws IOException {
+        if (buf.remaining() >= n) return true;
+        if (channel == null) return false;
+        if (n > buf.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, n));
+            bigger.put(buf);
+            buf = bigger;
+        } else {
+            buf.compact();
+        }
+        while (buf.position() < n && !eof) {
+            long left = bodyEnd - channelPos;
+            if (left <= 0) { eof = true; break; }
+            int limit = buf.limit();
+            if (left < buf.remaining()) buf.limit(buf.position() + (int) left);
+            int read = channel.read(buf);
+            buf.limit(limit);
+            if (read < 0) eof = true;
+            else channelPos += read;
+        }
+        buf.flip();
+        return buf.remaining() >= n;
+    }
+}
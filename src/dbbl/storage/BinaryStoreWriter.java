@@ -0,0 +1,303 @@
+package dbbl.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * {@code BinaryStoreWriter} writes a binary store file through a buffered
+ * {@link FileChannel}.
+ * <p>
+ * Values are written inside records opened with {@link #beginRecord(byte)} and
+ * closed with {@link #endRecord()}; the record length and CRC32C are patched
+ * in on close. {@link #finish()} appends the footer and forces the file to
+ * the storage device; a writer closed without it (e.g. because encoding
+ * failed half way) leaves a footerless file that readers reject as incomplete.
+ * Integers use zig-zag varints, strings are UTF-8 with a varint length, and
+ * {@link #writeSymbol(String)} dictionary-encodes repeating strings such as
+ * theme names: the first occurrence is written inline, every later occurrence
+ * as a back reference into the file-wide symbol table.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class BinaryStoreWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Record prefix: length and CRC32C. */
+    private static final int RECORD_HEADER = 8;
+
+    private final FileChannel channel;
+    private final long generation;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Map<String, Integer> symbols = new HashMap<>();
+    private int recordStart = -1;
+    private long drained;
+    private boolean finished;
+    /** Directory forced on {@link #finish()} because the file was created, or {@code null}. */
+    private Path syncDirectory;
+
+    private BinaryStoreWriter(FileChannel channel, long generation) {
+        this.channel = channel;
+        this.generation = generation;
+    }
+
+    /**
+     * Creates (or truncates) a single-slot store file and writes its header.
+     *
+     * @param path target file
+     * @param kind kind of data stored in the file
+     * @return writer positioned after the header
+     * @throws IOException if the file cannot be opened
+     */
+    public static BinaryStoreWriter create(Path path, StoreFormat.Kind kind) throws IOException {
+        return create(path, kind, 0L);
+    }
+
+    /**
+     * Starts the next generation of a double-buffered store: the slot not
+     * holding the newest valid generation is overwritten, so the previous
+     * generation stays intact until this one is closed.
+     *
+     * @param logical logical store path (slot A), see {@link GenerationFiles}
+     * @param kind kind of data stored in the file
+     * @return writer positioned after the header
+     * @throws IOException if the slot cannot be opened
+     */
+    public static BinaryStoreWriter createGeneration(Path logical, StoreFormat.Kind kind) throws IOException {
+        GenerationFiles.Slot next = GenerationFiles.nextSlot(logical);
+        boolean created = !Files.exists(next.path);
+        BinaryStoreWriter w = create(next.path, kind, next.generation);
+        // a slot rewritten in place needs no directory sync; a new one needs its entry forced once
+        if (created) w.syncDirectory = next.path.toAbsolutePath().getParent();
+        return w;
+    }
+
+    private static BinaryStoreWriter create(Path path, StoreFormat.Kind kind, long generation) throws IOException {
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        BinaryStoreWriter w = new BinaryStoreWriter(ch, generation);
+        w.buf.putInt(StoreFormat.MAGIC).putShort(StoreFormat.SCHEMA_VERSION).put(kind.code);
+        return w;
+    }
+
+    // ------------------- RECORDS -------------------
+
+    /**
+     * Opens a record; all following values belong to it until {@link #endRecord()}.
+     *
+     * @param tag record type, interpreted by the codec
+     */
+    public void beginRecord(byte tag) throws IOException {
+        if (recordStart >= 0) throw new IllegalStateException("Record already open");
+        ensure(RECORD_HEADER + 1);
+        recordStart = buf.position();
+        buf.putInt(0).putInt(0);
+        buf.put(tag);
+    }
+
+    /**
+     * Closes the current record and patches its length prefix and checksum.
+     */
+    public void endRecord() throws IOException {
+        if (recordStart < 0) throw new IllegalStateException("No open record");
+        int bodyStart = recordStart + RECORD_HEADER;
+        ByteBuffer body = buf.duplicate();
+        body.position(bodyStart).limit(buf.position());
+        crc.reset();
+        crc.update(body);
+        buf.putInt(recordStart, buf.position() - bodyStart);
+        buf.putInt(recordStart + 4, (int) crc.getValue());
+        recordStart = -1;
+        if (buf.position() >= BUFFER_SIZE) drain();
+    }
+
+    /**
+     * Absolute file offset of the next byte to be written; taken before
+     * {@link #beginRecord(byte)} it is the offset of that record.
+     */
+    public long position() {
+        return drained + buf.position();
+    }
+
+    // ------------------- VALUES -------------------
+
+    public void writeByte(int v) throws IOException {
+        ensure(1);
+        buf.put((byte) v);
+    }
+
+    public void writeBoolean(boolean v) throws IOException {
+        writeByte(v ? 1 : 0);
+    }
+
+    /** Writes a signed int as zig-zag varint (1 byte for small values). */
+    public void writeVarInt(int v) throws IOException {
+        writeVarLong(v);
+    }
+
+    /** Writes a signed long as zig-zag varint. */
+    public void writeVarLong(long v) throws IOException {
+        ensure(10);
+        long z = (v << 1) ^ (v >> 63);
+        while ((z & ~0x7FL) != 0) {
+            buf.put((byte) ((z & 0x7F) | 0x80));
+            z >>>= 7;
+        }
+        buf.put((byte) z);
+    }
+
+    /** Writes a fixed-width 8 byte long (for values patched or read at fixed positions). */
+    public void writeLong(long v) throws IOException {
+        ensure(8);
+        buf.putLong(v);
+    }
+
+    public void writeDouble(double v) throws IOException {
+        ensure(8);
+        buf.putDouble(v);
+    }
+
+    /** Writes a nullable UTF-8 string: varint (length + 1), 0 encodes {@code null}. */
+    public void writeString(String s) throws IOException {
+        if (s == null) { writeVarInt(0); return; }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(b.length + 1);
+        ensure(b.length);
+        buf.put(b);
+    }
+
+    /**
+     * Writes a dictionary-encoded string: 0 = {@code null}, 1 = new symbol
+     * followed inline, {@code n >= 2} = reference to symbol {@code n - 2}.
+     */
+    public void writeSymbol(String s) throws IOException {
+        if (s == null) { writeVarInt(0); return; }
+        Integer id = symbols.get(s);
+        if (id != null) {
+            writeVarInt(id + 2);
+        } else {
+            symbols.put(s, symbols.size());
+            writeVarInt(1);
+            writeString(s);
+        }
+    }
+
+    /** Writes a nullable list of strings. */
+    public void writeStrings(List<String> values) throws IOException {
+        if (values == null) { writeVarInt(-1); return; }
+        writeVarInt(values.size());
+        for (String v : values) writeString(v);
+    }
+
+    /** Writes a list of flags packed eight per byte. */
+    public void writeFlags(List<Boolean> flags) throws IOException {
+        int n = flags != null ? flags.size() : 0;
+        writeVarInt(n);
+        int bits = 0;
+        for (int i = 0; i < n; i++) {
+            if (Boolean.TRUE.equals(flags.get(i))) bits |= 1 << (i & 7);
+            if ((i & 7) == 7 || i == n - 1) {
+                writeByte(bits);
+                bits = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes {@code n} flags given as a bitmask (bit {@code i} = flag {@code i});
+     * same encoding as {@link #writeFlags(List)}.
+     */
+    public void writeFlags(long mask, int n) throws IOException {
+        writeVarInt(n);
+        for (int i = 0; i < n; i += 8) writeByte((int) (mask >>> i) & 0xFF);
+    }
+
+    /** Writes a nullable timestamp as UTC epoch seconds plus nanos. */
+    public void writeDateTime(LocalDateTime t) throws IOException {
+        writeBoolean(t != null);
+        if (t == null) return;
+        writeVarLong(t.toEpochSecond(ZoneOffset.UTC));
+        writeVarInt(t.getNano());
+    }
+
+    /** Writes a nullable date as epoch day. */
+    public void writeDate(LocalDate d) throws IOException {
+        writeBoolean(d != null);
+        if (d != null) writeVarLong(d.toEpochDay());
+    }
+
+    // ------------------- BUFFER -------------------
+
+    /**
+     * Completes the file: writes the footer and forces everything to the
+     * storage device with a single fsync (see {@link DurableFiles}). Must be
+     * the last call before {@link #close()}.
+     */
+    public void finish() throws IOException {
+        if (recordStart >= 0) throw new IllegalStateException("Record not closed");
+        if (finished) return;
+        long bodyEnd = position();
+        ensure(StoreFormat.FOOTER_SIZE);
+        StoreFormat.putFooter(buf, generation, bodyEnd);
+        drain();
+        channel.force(false);
+        if (syncDirectory != null) DurableFiles.syncDirectory(syncDirectory);
+        finished = true;
+    }
+
+    /**
+     * Flushes buffered bytes to the channel and closes it. Without a preceding
+     * {@link #finish()} the file stays incomplete.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int n) throws IOException {
+        if (buf.remaining() >= n) return;
+        if (recordStart < 0) {
+            drain();
+        } else if (recordStart > 0) {
+            // write everything before the open record; the record itself must
+            // stay in the buffer until its length is patched
+            ByteBuffer head = buf.duplicate();
+            head.flip().position(0).limit(recordStart);
+            while (head.hasRemaining()) channel.write(head);
+            drained += recordStart;
+            buf.flip().position(recordStart);
+            buf.compact();
+            recordStart = 0;
+        }
+        if (buf.remaining() >= n) return;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+        buf.flip();
+        bigger.put(buf);
+        buf = bigger;
+    }
+
+    private void drain() throws IOException {
+        drained += buf.position();
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        buf.clear();
+    }
+}
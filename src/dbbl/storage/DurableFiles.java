@@ -0,0 +1,119 @@
+package dbbl.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@code DurableFiles} is the shared durable-write path of all stores.
+ * <p>
+ * A file is durable once its content and its directory entry have reached
+ * the storage device. The rules used throughout the package:
+ * <ul>
+ *   <li>Content: store files are written through the buffered channel of
+ *       {@link BinaryStoreWriter}, whose {@link BinaryStoreWriter#finish()}
+ *       forces them once; other files use {@link #write(Path, byte[])} or
+ *       {@link #force(Path)}.</li>
+ *   <li>Replace: a complete temporary sibling is moved over the target with
+ *       {@link StandardCopyOption#ATOMIC_MOVE}, so readers see either the
+ *       old or the new file and never a missing one.</li>
+ *   <li>Directory entry: after creating or renaming files the directory is
+ *       forced with {@link #syncDirectory(Path)}. Writers that rename many
+ *       files in one commit (shards, backup chunks) force each directory once
+ *       at the end of the commit instead of once per file.</li>
+ * </ul>
+ * A double-buffered store rewrites an existing slot in place, so a steady
+ * state commit costs exactly one fsync.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class DurableFiles {
+
+    /** Suffix of the temporary sibling a file is written to before it replaces the target. */
+    public static final String TMP_SUFFIX = ".tmp";
+
+    private DurableFiles() {}
+
+    /** Temporary sibling of a target file. */
+    public static Path tmpSibling(Path target) {
+        return target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+    }
+
+    /**
+     * Durably writes a small file: temporary sibling, force, atomic replace,
+     * directory sync.
+     *
+     * @param target file to write
+     * @param bytes complete new content
+     * @throws IOException if the file cannot be written; the target is unchanged
+     */
+    public static void write(Path target, byte[] bytes) throws IOException {
+        Path tmp = tmpSibling(target);
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        replace(tmp, target);
+    }
+
+    /**
+     * Replaces a target by a completely written and forced temporary file
+     * and forces the directory entry.
+     *
+     * @throws IOException if the move fails; the temporary file is removed
+     */
+    public static void replace(Path tmp, Path target) throws IOException {
+        try {
+            moveAtomically(tmp, target);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Moves a file over a target with {@link StandardCopyOption#ATOMIC_MOVE};
+     * file systems without atomic rename fall back to a plain replacing move.
+     * The directory entry is not forced.
+     */
+    public static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Forces the content of a file written without {@link BinaryStoreWriter}. */
+    public static void force(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.force(false);
+        }
+    }
+
+    /**
+     * Forces a directory, making created, renamed and deleted entries
+     * durable. Platforms that cannot open directories (Windows) already
+     * persist entries with the file metadata, so failures are ignored.
+     */
+    public static void syncDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException ignored) {
+            // not supported on this platform
+        }
+    }
+}
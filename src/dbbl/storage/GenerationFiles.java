@@ -0,0 +1,181 @@
+package dbbl.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code GenerationFiles} double-buffers a store over two slot files:
+ * <pre>
+ * leitner_system.dat     slot A (the logical path, also read by older versions)
+ * leitner_system.dat.b   slot B
+ * </pre>
+ * Every write goes to the slot that does not hold the newest valid
+ * generation and carries the next generation number in its footer, so the
+ * previous generation survives a crash or torn write of the current one.
+ * <p>
+ * Recovery inspects only the header and footer of both slots (O(1) per
+ * store, independent of the file size) and reads the newest valid
+ * generation; if it turns out to be corrupt inside (record checksum), the
+ * older generation is read instead. Nothing is deleted on failure – the
+ * caller may {@link #quarantine(Path)} both slots for later inspection.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class GenerationFiles {
+
+    /** Suffix of slot B. */
+    static final String SLOT_B_SUFFIX = ".b";
+
+    /** Generation assigned to version 1 files, which have no footer. */
+    private static final long UNVERSIONED = -1L;
+
+    /** A slot file together with the generation found in (or planned for) it. */
+    static final class Slot {
+        final Path path;
+        final long generation;
+
+        Slot(Path path, long generation) {
+            this.path = path;
+            this.generation = generation;
+        }
+    }
+
+    /** Decodes one slot file. */
+    @FunctionalInterface
+    public interface Decoder<T> {
+        T decode(Path slot) throws IOException;
+    }
+
+    private GenerationFiles() {}
+
+    // ------------------- SLOTS -------------------
+
+    /** Path of slot B for a logical store path. */
+    public static Path slotB(Path logical) {
+        return logical.resolveSibling(logical.getFileName() + SLOT_B_SUFFIX);
+    }
+
+    /** Whether any slot of the store exists. */
+    public static boolean exists(File logical) {
+        return logical.exists() || slotB(logical.toPath()).toFile().exists();
+    }
+
+    /** Whether any slot of the store is a binary store file. */
+    public static boolean isBinary(File logical) {
+        return StoreFormat.isBinary(logical) || StoreFormat.isBinary(slotB(logical.toPath()).toFile());
+    }
+
+    /** Kind of the newest valid slot, or of any binary slot if none is valid. */
+    public static StoreFormat.Kind kindOf(File logical) {
+        List<Slot> valid = newestFirst(logical.toPath());
+        if (!valid.isEmpty()) return StoreFormat.kindOf(valid.get(0).path.toFile());
+        StoreFormat.Kind kind = StoreFormat.kindOf(logical);
+        return kind != null ? kind : StoreFormat.kindOf(slotB(logical.toPath()).toFile());
+    }
+
+    /**
+     * Lists the slots holding a complete binary store (valid header and, for
+     * version 2, valid footer), newest generation first.
+     */
+    static List<Slot> newestFirst(Path logical) {
+        List<Slot> slots = new ArrayList<>(2);
+        Slot a = inspect(logical);
+        Slot b = inspect(slotB(logical));
+        if (a != null) slots.add(a);
+        if (b != null) slots.add(b);
+        if (slots.size() == 2 && b.generation > a.generation) {
+            slots.set(0, b);
+            slots.set(1, a);
+        }
+        return slots;
+    }
+
+    /**
+     * Chooses the slot for the next write: the one not holding the newest
+     * valid generation.
+     */
+    static Slot nextSlot(Path logical) {
+        List<Slot> valid = newestFirst(logical);
+        if (valid.isEmpty()) return new Slot(logical, 1L);
+        Slot newest = valid.get(0);
+        Path target = newest.path.equals(logical) ? slotB(logical) : logical;
+        return new Slot(target, Math.max(newest.generation, 0L) + 1);
+    }
+
+    private static Slot inspect(Path slot) {
+        File f = slot.toFile();
+        if (!f.isFile() || f.length() < StoreFormat.HEADER_SIZE) return null;
+        try (FileChannel ch = FileChannel.open(slot, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(StoreFormat.HEADER_SIZE);
+            while (head.hasRemaining() && ch.read(head) >= 0) { /* fill */ }
+            if (head.hasRemaining() || head.getInt(0) != StoreFormat.MAGIC) return null;
+            short version = head.getShort(4);
+            if (version > StoreFormat.SCHEMA_VERSION) return null;
+            if (version < StoreFormat.CHECKSUM_VERSION) return new Slot(slot, UNVERSIONED);
+            long[] footer = StoreFormat.readFooter(ch);
+            return footer != null ? new Slot(slot, footer[0]) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ------------------- READ -------------------
+
+    /**
+     * Decodes the newest generation that can be read completely.
+     *
+     * @param logical logical store path
+     * @param decoder decoder of a single slot file
+     * @return decoded store
+     * @throws IOException if no slot holds a readable generation; the first
+     *                     failure is thrown with the others suppressed
+     */
+    public static <T> T read(Path logical, Decoder<T> decoder) throws IOException {
+        List<Slot> valid = newestFirst(logical);
+        if (valid.isEmpty()) throw new IOException("No complete generation of " + logical);
+        IOException failure = null;
+        for (Slot slot : valid) {
+            try {
+                return decoder.decode(slot.path);
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+                else failure.addSuppressed(e);
+            }
+        }
+        throw failure;
+    }
+
+    // ------------------- FAILURE HANDLING -------------------
+
+    /**
+     * Moves both slots aside as {@code <name>.corrupt-<timestamp>} instead of
+     * deleting them, so a store that could not be read is kept for inspection.
+     *
+     * @return moved files
+     */
+    public static List<File> quarantine(Path logical) {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        List<File> moved = new ArrayList<>(2);
+        for (Path slot : new Path[] { logical, slotB(logical) }) {
+            File f = slot.toFile();
+            File target = new File(f.getPath() + ".corrupt-" + stamp);
+            if (f.exists() && f.renameTo(target)) moved.add(target);
+        }
+        return moved;
+    }
+
+    /** Deletes both slots (explicit reset by the user). */
+    public static void delete(Path logical) {
+        logical.toFile().delete();
+        slotB(logical).toFile().delete();
+    }
+}
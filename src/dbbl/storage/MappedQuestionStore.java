@@ -0,0 +1,174 @@
+package dbbl.storage;
+
+import dbbl.RepoQuizeeQuestions;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code MappedQuestionStore} is a read-only, memory-mapped view of a question
+ * snapshot written by {@link QuizStoreCodec#writeQuestions}.
+ * <p>
+ * Opening the store only decodes the trailing index record: theme names,
+ * descriptions and the position of each theme's offset table. Question
+ * records are decoded on access, straight from the mapped file, so opening a
+ * bank costs O(themes) heap regardless of the number of questions. The
+ * operating system pages the file in and out as needed.
+ * <p>
+ * Note: while mapped, some platforms (Windows) refuse to delete or replace
+ * the file; a failed replace is reported by the caller and retried on the
+ * next snapshot.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class MappedQuestionStore {
+
+    /** Directory entry of one theme; offsets are stored as fixed 8 byte longs in the mapped index. */
+    private static final class ThemeEntry {
+        final String description;
+        final int questionCount;
+        final int offsetTable;
+
+        ThemeEntry(String description, int questionCount, int offsetTable) {
+            this.description = description;
+            this.questionCount = questionCount;
+            this.offsetTable = offsetTable;
+        }
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int schemaVersion;
+    private final Map<String, ThemeEntry> themes;
+    private final long nextQuestionId;
+
+    private MappedQuestionStore(Path path, MappedByteBuffer buffer, int schemaVersion, Map<String, ThemeEntry> themes,
+                                long nextQuestionId) {
+        this.path = path;
+        this.buffer = buffer;
+        this.schemaVersion = schemaVersion;
+        this.themes = themes;
+        this.nextQuestionId = nextQuestionId;
+    }
+
+    /**
+     * Maps a question snapshot and reads its theme directory.
+     *
+     * @param path snapshot file
+     * @return mapped store
+     * @throws IOException if the file is not a question snapshot with an index
+     *                     (e.g. written before the index existed) or exceeds 2 GiB
+     */
+    public static MappedQuestionStore open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large to map: " + path);
+            if (size < StoreFormat.HEADER_SIZE + 8) throw new IOException("No question index: " + path);
+            buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        if (buffer.getInt(0) != StoreFormat.MAGIC || buffer.get(6) != StoreFormat.Kind.QUESTIONS.code) {
+            throw new IOException("Not a question snapshot: " + path);
+        }
+        int schemaVersion = buffer.getShort(4);
+        long bodyEnd = buffer.limit();
+        if (schemaVersion >= StoreFormat.CHECKSUM_VERSION) {
+            long[] footer = StoreFormat.readFooter(buffer);
+            if (footer == null) throw new IOException("Incomplete question snapshot: " + path);
+            bodyEnd = footer[1];
+        }
+        long indexOffset = buffer.getLong((int) bodyEnd - 8);
+        if (indexOffset < StoreFormat.HEADER_SIZE || indexOffset >= bodyEnd - 8) {
+            throw new IOException("No question index: " + path);
+        }
+        BinaryStoreReader in = BinaryStoreReader.at(buffer, (int) indexOffset, schemaVersion);
+        if (in.nextRecord() != QuizStoreCodec.TAG_QUESTION_INDEX) throw new IOException("No question index: " + path);
+
+        int count = in.readVarInt();
+        Map<String, ThemeEntry> themes = new LinkedHashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            String theme = in.readInterned();
+            String description = in.readString();
+            int questionCount = in.readVarInt();
+            themes.put(theme, new ThemeEntry(description, questionCount, in.position()));
+            in.skip(questionCount * 8);
+        }
+        long nextQuestionId = in.remaining() > 8 ? in.readVarLong() : 0L;
+        return new MappedQuestionStore(path, buffer, schemaVersion, themes, nextQuestionId);
+    }
+
+    // ------------------- DIRECTORY -------------------
+
+    /** Mapped file. */
+    public Path path() { return path; }
+
+    /** All themes of the snapshot, in file order. */
+    public Set<String> themes() {
+        return Collections.unmodifiableSet(themes.keySet());
+    }
+
+    public boolean containsTheme(String theme) {
+        return themes.containsKey(theme);
+    }
+
+    /** Theme description or {@code null} if unknown. */
+    public String description(String theme) {
+        ThemeEntry e = themes.get(theme);
+        return e != null ? e.description : null;
+    }
+
+    /** Next unused question id; 0 if the snapshot predates persistent ids. */
+    public long nextQuestionId() { return nextQuestionId; }
+
+    /** Number of questions of a theme; 0 if unknown. */
+    public int questionCount(String theme) {
+        ThemeEntry e = themes.get(theme);
+        return e != null ? e.questionCount : 0;
+    }
+
+    // ------------------- LAZY DECODING -------------------
+
+    /**
+     * Decodes a single question.
+     *
+     * @param theme theme of the question
+     * @param index position within the theme
+     * @return decoded question
+     * @throws IOException if the record is corrupt
+     * @throws IndexOutOfBoundsException if the theme or index is unknown
+     */
+    public RepoQuizeeQuestions question(String theme, int index) throws IOException {
+        ThemeEntry e = themes.get(theme);
+        if (e == null || index < 0 || index >= e.questionCount) {
+            throw new IndexOutOfBoundsException(theme + "[" + index + "]");
+        }
+        long offset = buffer.getLong(e.offsetTable + index * 8);
+        BinaryStoreReader in = BinaryStoreReader.at(buffer, (int) offset, schemaVersion);
+        if (in.nextRecord() != QuizStoreCodec.TAG_QUESTION) throw new IOException("Corrupt question offset " + offset + " in " + path);
+        in.skipSymbol();
+        return QuizStoreCodec.readQuestionBody(in, theme);
+    }
+
+    /**
+     * Decodes all questions of a theme.
+     *
+     * @param theme theme to decode
+     * @return new mutable list (empty for unknown themes)
+     */
+    public List<RepoQuizeeQuestions> questions(String theme) throws IOException {
+        int n = questionCount(theme);
+        List<RepoQuizeeQuestions> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) list.add(question(theme, i));
+        return list;
+    }
+}
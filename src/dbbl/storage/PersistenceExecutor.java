@@ -0,0 +1,238 @@
+package dbbl.storage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code PersistenceExecutor} writes the stores (questions, Leitner system,
+ * statistics, achievements) on one shared background thread.
+ * <p>
+ * Callers capture an immutable snapshot of their state on their own thread and
+ * submit a {@link StoreWrite} that only encodes and writes that snapshot. The
+ * caller gets a {@link CompletableFuture} and never waits for the disk.
+ * <p>
+ * Queueing policy:
+ * <ul>
+ *   <li>Writes are keyed by store. A write submitted while an earlier write of
+ *       the same store is still queued replaces it (latest snapshot wins) and
+ *       shares its future, so bursts of saves cost one write.</li>
+ *   <li>At most {@code capacity} distinct stores are queued. Further submits
+ *       block until a slot frees up (back-pressure).</li>
+ *   <li>Writes run one at a time in submit order, so writes of the same file
+ *       never overlap.</li>
+ * </ul>
+ * The worker is a daemon thread; a shutdown hook drains the queue on JVM exit.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class PersistenceExecutor {
+
+    /**
+     * Write of one store snapshot. Runs on the persistence thread and must not
+     * touch live (mutable) state of the store.
+     */
+    @FunctionalInterface
+    public interface StoreWrite {
+        void write() throws IOException;
+    }
+
+    /** Task run by {@link #barrier(BarrierTask)}. */
+    @FunctionalInterface
+    public interface BarrierTask<T> {
+        T run() throws IOException;
+    }
+
+    // ------------------- SHARED INSTANCE -------------------
+
+    /** Default number of distinct stores that may be queued at once. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** Maximum time the shutdown hook waits for queued writes. */
+    private static final long SHUTDOWN_DRAIN_MS = 5000;
+
+    private static final PersistenceExecutor SHARED = new PersistenceExecutor(DEFAULT_CAPACITY, "quiz-persistence");
+
+    private static final AtomicLong BARRIER_IDS = new AtomicLong();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(
+                () -> SHARED.awaitIdle(SHUTDOWN_DRAIN_MS, TimeUnit.MILLISECONDS), "quiz-persistence-shutdown"));
+    }
+
+    /**
+     * Returns the executor shared by all stores of the application.
+     */
+    public static PersistenceExecutor shared() {
+        return SHARED;
+    }
+
+    // ------------------- STATE -------------------
+
+    /** A queued write; {@link #write} is replaced by later submits of the same store. */
+    private static final class Pending {
+        final String store;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        StoreWrite write;
+
+        Pending(String store, StoreWrite write) {
+            this.store = store;
+            this.write = write;
+        }
+    }
+
+    /** Guards {@link #queue}, {@link #queuedByStore} and {@link #running}. */
+    private final Object lock = new Object();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<String, Pending> queuedByStore = new HashMap<>();
+    private final int capacity;
+    private final Thread worker;
+    private boolean running;
+
+    PersistenceExecutor(int capacity, String threadName) {
+        this.capacity = Math.max(1, capacity);
+        this.worker = new Thread(this::runWorker, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // ------------------- SUBMIT -------------------
+
+    /**
+     * Queues a write of {@code store}. If a write of the same store is still
+     * queued, it is replaced and its future is returned.
+     * <p>
+     * Blocks only while {@code capacity} other stores are queued. Called from
+     * the persistence thread itself (a write triggering another save), the
+     * write runs inline.
+     *
+     * @param store key of the written store, usually its file name
+     * @param write write of a snapshot captured by the caller
+     * @return future completed when the write (or the write replacing it) finished
+     */
+    public CompletableFuture<Void> submit(String store, StoreWrite write) {
+        if (Thread.currentThread() == worker) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            execute(write, future);
+            return future;
+        }
+        synchronized (lock) {
+            while (true) {
+                Pending queued = queuedByStore.get(store);
+                if (queued != null) {
+                    queued.write = write; // coalesce: the latest snapshot wins
+                    return queued.future;
+                }
+                if (queue.size() < capacity) break;
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            Pending pending = new Pending(store, write);
+            queue.addLast(pending);
+            queuedByStore.put(store, pending);
+            lock.notifyAll();
+            return pending.future;
+        }
+    }
+
+    /**
+     * Runs a task on the persistence thread as a point-in-time barrier across
+     * all stores: every write queued before it has finished when it starts,
+     * and writes submitted while it runs wait behind it.
+     *
+     * @param task task seeing a quiescent set of store files
+     * @return future of the task result
+     */
+    public <T> CompletableFuture<T> barrier(BarrierTask<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit("barrier-" + BARRIER_IDS.incrementAndGet(), () -> {
+            try {
+                result.complete(task.run());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }).whenComplete((ignored, e) -> {
+            if (e != null) result.completeExceptionally(e); // interrupted while queueing
+        });
+        return result;
+    }
+
+    /**
+     * Waits until every write submitted so far has finished.
+     *
+     * @return {@code true} if the queue drained within the timeout
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) {
+        if (Thread.currentThread() == worker) return false;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (!queue.isEmpty() || running) {
+                long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (left <= 0) return false;
+                try {
+                    lock.wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Number of stores currently waiting for their write. */
+    public int queued() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    // ------------------- WORKER -------------------
+
+    private void runWorker() {
+        while (true) {
+            Pending next;
+            StoreWrite write;
+            synchronized (lock) {
+                while (queue.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                next = queue.removeFirst();
+                queuedByStore.remove(next.store);
+                write = next.write;
+                running = true;
+                lock.notifyAll(); // a queue slot is free again
+            }
+            try {
+                execute(write, next.future);
+            } finally {
+                synchronized (lock) {
+                    running = false;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private static void execute(StoreWrite write, CompletableFuture<Void> future) {
+        try {
+            write.write();
+            future.complete(null);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package dbbl.storage;
+
+import dbbl.QuestionValue;
+import dbbl.RepoQuizeeQuestions;
+import guimodule.AdaptiveLeitnerCard;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * {@code QuizDataExporter} streams the question bank, the Leitner cards and
+ * the raw result history out of the store files into CSV, JSON lines or the
+ * binary store format.
+ * <p>
+ * Records are decoded one at a time (questions: one theme at a time) and
+ * written through a buffered writer on a {@link FileChannel}, so memory use
+ * does not grow with the size of the export and nothing has to be collected
+ * first. The export is written to a temporary sibling and moved into place
+ * once complete (see {@link DurableFiles}); an interrupted export never
+ * leaves a truncated file behind.
+ * <p>
+ * Store files are read through {@link GenerationFiles}: the newest complete
+ * generation is exported, and if it turns out to be corrupt the export is
+ * restarted from the previous one. Callers that also write the stores should
+ * run the export as a {@link PersistenceExecutor#barrier} so that queued
+ * writes are on disk first.
+ * <p>
+ * Question CSV and JSON lines use the layout of {@link dbbl.QuestionBankImporter},
+ * so an exported bank can be imported again. Binary exports are single-slot
+ * store files of the matching kind and can be read with {@link QuizStoreCodec}.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class QuizDataExporter {
+
+    /** Output format of an export. */
+    public enum Format {
+        CSV, JSONL, BINARY;
+
+        /** Format by file extension: {@code .csv}, {@code .jsonl}/{@code .ndjson}, anything else binary. */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) return CSV;
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) return JSONL;
+            return BINARY;
+        }
+    }
+
+    private static final int WRITE_BUFFER = 256 * 1024;
+
+    private QuizDataExporter() {}
+
+    // ------------------- QUESTIONS -------------------
+
+    /**
+     * Exports the question store (sharded manifest or single-file store).
+     *
+     * @param questionStore logical path of the question store
+     * @param target export file
+     * @param format output format
+     * @return number of exported questions
+     */
+    public static long exportQuestions(Path questionStore, Path target, Format format) throws IOException {
+        if (ShardedQuestionStore.isManifest(questionStore.toFile())) {
+            ShardedQuestionStore store = new ShardedQuestionStore(questionStore);
+            ShardedQuestionStore.Manifest m = store.readManifest();
+            Set<String> themes = new LinkedHashSet<>(m.shards.keySet());
+            themes.addAll(m.descriptions.keySet());
+            return exportQuestions(themes, m.descriptions::get, theme -> {
+                Integer shard = m.shards.get(theme);
+                if (shard == null) return Collections.emptyList();
+                try {
+                    return store.mapShard(shard, theme);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, target, format);
+        }
+        MappedQuestionStore store = MappedQuestionStore.open(questionStore);
+        return exportQuestions(store.themes(), store::description, theme -> {
+            try {
+                return store.questions(theme);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, target, format);
+    }
+
+    /**
+     * Exports questions pulled one theme at a time, e.g. from the in-memory
+     * buckets of the persistence service.
+     *
+     * @param themes themes to export, in order
+     * @param descriptions description lookup per theme (binary format only)
+     * @param questions question lookup per theme; called once per theme and
+     *                  may throw {@link UncheckedIOException}
+     * @return number of exported questions
+     */
+    public static long exportQuestions(Collection<String> themes, Function<String, String> descriptions,
+                                       Function<String, List<RepoQuizeeQuestions>> questions,
+                                       Path target, Format format) throws IOException {
+        long[] count = new long[1];
+        Function<String, List<RepoQuizeeQuestions>> counting = theme -> {
+            List<RepoQuizeeQuestions> list = questions.apply(theme);
+            count[0] += list.size();
+            return list;
+        };
+        Path tmp = DurableFiles.tmpSibling(target);
+        try {
+            if (format == Format.BINARY) {
+                QuizStoreCodec.writeQuestions(tmp, themes, descriptions, counting, 0L);
+            } else {
+                try (TextOut out = TextOut.open(tmp, format)) {
+                    out.header("theme", "title", "question", "explanation", "answer1", "correct1");
+                    for (String theme : themes) {
+                        for (RepoQuizeeQuestions q : counting.apply(theme)) {
+                            out.begin();
+                            out.field("theme", theme);
+                            out.field("title", q.getTitel());
+                            out.field("question", q.getFrageText());
+                            out.field("explanation", q.getErklaerung());
+                            out.answers(q.value());
+                            out.end();
+                        }
+                    }
+                    out.finish();
+                }
+            }
+            DurableFiles.replace(tmp, target);
+            return count[0];
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(tmp);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    // ------------------- LEITNER -------------------
+
+    /**
+     * Exports the cards of the newest readable generation of a Leitner store.
+     *
+     * @param leitnerStore logical path of the Leitner store
+     * @return number of exported cards
+     */
+    public static long exportLeitnerCards(Path leitnerStore, Path target, Format format) throws IOException {
+        return exportGeneration(leitnerStore, target, (slot, tmp) -> {
+            if (format == Format.BINARY) {
+                try (BinaryStoreWriter out = BinaryStoreWriter.create(tmp, StoreFormat.Kind.LEITNER)) {
+                    long n = QuizStoreCodec.streamCards(slot, c -> QuizStoreCodec.writeCard(out, c.getQuestionId(), c));
+                    out.finish();
+                    return n;
+                }
+            }
+            try (TextOut out = TextOut.open(tmp, format)) {
+                out.header("questionId", "questionKey", "theme", "title", "box", "difficulty",
+                        "consecutiveCorrect", "consecutiveWrong", "totalAttempts", "totalCorrect",
+                        "averageResponseTimeMs", "lastReviewed", "nextReviewDate");
+                long n = QuizStoreCodec.streamCards(slot, c -> {
+                    out.begin();
+                    out.field("questionId", c.getQuestionId());
+                    out.field("questionKey", c.getQuestionKey());
+                    out.field("theme", c.getTheme());
+                    out.field("title", c.getQuestionTitle());
+                    out.field("box", c.getBox());
+                    out.field("difficulty", c.getDifficulty().name());
+                    out.field("consecutiveCorrect", c.getConsecutiveCorrect());
+                    out.field("consecutiveWrong", c.getConsecutiveWrong());
+                    out.field("totalAttempts", c.getTotalAttempts());
+                    out.field("totalCorrect", c.getTotalCorrect());
+                    out.field("averageResponseTimeMs", c.getAverageResponseTime());
+                    out.field("lastReviewed", c.getLastReviewed() != null ? c.getLastReviewed().toString() : null);
+                    out.field("nextReviewDate", c.getNextReviewDate() != null ? c.getNextReviewDate().toString() : null);
+                    out.end();
+                });
+                out.finish();
+                return n;
+            }
+        });
+    }
+
+    // ------------------- RESULTS -------------------
+
+    /**
+     * Exports the raw result history (one row per answered question) of the
+     * newest readable generation of a statistics store; aggregates are not
+     * exported, they can be recomputed from the history.
+     *
+     * @param statisticsStore logical path of the statistics store
+     * @return number of exported results
+     */
+    public static long exportResults(Path statisticsStore, Path target, Format format) throws IOException {
+        return exportGeneration(statisticsStore, target, (slot, tmp) -> {
+            if (format == Format.BINARY) {
+                try (BinaryStoreWriter out = BinaryStoreWriter.create(tmp, StoreFormat.Kind.STATISTICS)) {
+                    long n = QuizStoreCodec.streamResults(slot, r -> QuizStoreCodec.writeResult(out, r));
+                    out.finish();
+                    return n;
+                }
+            }
+            try (TextOut out = TextOut.open(tmp, format)) {
+                out.header("timestamp", "questionId", "theme", "title", "userAnswer", "correctAnswer",
+                        "correct", "answerTimeMs");
+                long n = QuizStoreCodec.streamResults(slot, r -> {
+                    out.begin();
+                    out.field("timestamp", r.timestamp);
+                    out.field("questionId", r.questionId);
+                    out.field("theme", r.theme);
+                    out.field("title", r.questionTitle);
+                    out.field("userAnswer", r.userAnswer);
+                    out.field("correctAnswer", r.correctAnswer);
+                    out.field("correct", r.isCorrect);
+                    out.field("answerTimeMs", r.answerTimeMs);
+                    out.end();
+                });
+                out.finish();
+                return n;
+            }
+        });
+    }
+
+    // ------------------- INTERNALS -------------------
+
+    /** Writes the export of one slot file into the temporary file. */
+    @FunctionalInterface
+    private interface SlotExport {
+        long export(Path slot, Path tmp) throws IOException;
+    }
+
+    private static long exportGeneration(Path store, Path target, SlotExport export) throws IOException {
+        Path tmp = DurableFiles.tmpSibling(target);
+        try {
+            // each attempt truncates the temporary file, so a fallback starts clean
+            long n = GenerationFiles.read(store, slot -> export.export(slot, tmp));
+            DurableFiles.replace(tmp, target);
+            return n;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    /**
+     * Buffered CSV (RFC 4180) or JSON lines writer over a file channel.
+     */
+    private static final class TextOut implements Closeable {
+        private final FileChannel channel;
+        private final Writer out;
+        private final boolean csv;
+        private boolean firstField;
+
+        private TextOut(FileChannel channel, boolean csv) {
+            this.channel = channel;
+            this.out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1),
+                    WRITE_BUFFER);
+            this.csv = csv;
+        }
+
+        static TextOut open(Path path, Format format) throws IOException {
+            FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            return new TextOut(ch, format == Format.CSV);
+        }
+
+        /** Header row; CSV only. */
+        void header(String... columns) throws IOException {
+            if (!csv) return;
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) out.write(',');
+                out.write(columns[i]);
+            }
+            out.write("\r\n");
+        }
+
+        void begin() throws IOException {
+            if (!csv) out.write('{');
+            firstField = true;
+        }
+
+        void end() throws IOException {
+            out.write(csv ? "\r\n" : "}\n");
+        }
+
+        void field(String name, String value) throws IOException {
+            name(name);
+            if (csv) csvValue(value);
+            else jsonValue(value);
+        }
+
+        void field(String name, long value) throws IOException {
+            name(name);
+            out.write(Long.toString(value));
+        }
+
+        void field(String name, double value) throws IOException {
+            name(name);
+            out.write(Double.isFinite(value) ? Double.toString(value) : (csv ? "" : "null"));
+        }
+
+        void field(String name, boolean value) throws IOException {
+            name(name);
+            out.write(value ? "true" : "false");
+        }
+
+        /** Answers with their flags: interleaved columns in CSV, two arrays in JSON. */
+        void answers(QuestionValue q) throws IOException {
+            if (csv) {
+                for (int i = 0; i < q.answerCount(); i++) {
+                    out.write(',');
+                    csvValue(q.answer(i));
+                    out.write(',');
+                    out.write(q.isCorrect(i) ? "true" : "false");
+                }
+                return;
+            }
+            name("answers");
+            out.write('[');
+            for (int i = 0; i < q.answerCount(); i++) {
+                if (i > 0) out.write(',');
+                jsonValue(q.answer(i));
+            }
+            out.write(']');
+            name("correct");
+            out.write('[');
+            for (int i = 0; i < q.answerCount(); i++) {
+                if (i > 0) out.write(',');
+                out.write(q.isCorrect(i) ? "true" : "false");
+            }
+            out.write(']');
+        }
+
+        /** Flushes the writer and forces the file; must precede {@link #close()}. */
+        void finish() throws IOException {
+            out.flush();
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void name(String name) throws IOException {
+            if (!firstField) out.write(',');
+            firstField = false;
+            if (csv) return;
+            out.write('"');
+            out.write(name);
+            out.write("\":");
+        }
+
+        private void csvValue(String value) throws IOException {
+            if (value == null || value.isEmpty()) return;
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') out.write('"');
+                out.write(c);
+            }
+            out.write('"');
+        }
+
+        private void jsonValue(String value) throws IOException {
+            if (value == null) {
+                out.write("null");
+                return;
+            }
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': out.write("\\\""); break;
+                    case '\\': out.write("\\\\"); break;
+                    case '\n': out.write("\\n"); break;
+                    case '\r': out.write("\\r"); break;
+                    case '\t': out.write("\\t"); break;
+                    default:
+                        if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+                        else out.write(c);
+                }
+            }
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,497 @@
+package dbbl.storage;
+
+import dbbl.QuestionValue;
+import dbbl.RepoQuizeeQuestions;
+import guimodule.AdaptiveLeitnerCard;
+import guimodule.ModularQuizPlay;
+import guimodule.ModularQuizStatistics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * {@code QuizStoreCodec} encodes the persisted quiz data types into the binary
+ * store format (see {@link StoreFormat}).
+ * <p>
+ * One file per store:
+ * <ul>
+ *   <li>quiz_questions.dat – manifest of the per-theme shards (see
+ *       {@link ShardedQuestionStore}); each shard, like the single-file store
+ *       written before sharding, holds theme records, question records grouped
+ *       by theme and a trailing index record (see {@link MappedQuestionStore})</li>
+ *   <li>leitner_system.dat – one meta record followed by card records</li>
+ *   <li>quiz_statistics.dat – question/theme aggregates and the result ledger</li>
+ *   <li>achievements.dat – one record per unlocked achievement</li>
+ * </ul>
+ * Theme names, difficulties and achievement names are written as symbols, so
+ * every repetition costs one or two bytes instead of the full string.
+ * <p>
+ * Leitner, statistics and achievements are double-buffered through
+ * {@link GenerationFiles}: writers take the logical path and fill the older
+ * slot, readers return the newest generation that decodes completely.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class QuizStoreCodec {
+
+    // ------------------- RECORD TAGS -------------------
+
+    private static final byte TAG_THEME = 1;
+    static final byte TAG_QUESTION = 2;
+    static final byte TAG_QUESTION_INDEX = 3;
+    private static final byte TAG_LEITNER_META = 10;
+    private static final byte TAG_LEITNER_CARD = 11;
+    private static final byte TAG_QUESTION_STATS = 20;
+    private static final byte TAG_THEME_STATS = 21;
+    private static final byte TAG_RESULT = 22;
+    private static final byte TAG_ACHIEVEMENT = 30;
+
+    private QuizStoreCodec() {}
+
+    /** Receives decoded records one at a time while a store file is streamed. */
+    @FunctionalInterface
+    public interface RecordSink<T> {
+        void accept(T record) throws IOException;
+    }
+
+    // ------------------- DECODED SNAPSHOTS -------------------
+
+    /** Decoded content of a question store. */
+    public static final class QuestionSnapshot {
+        public final Map<String, List<RepoQuizeeQuestions>> questionsByTheme = new HashMap<>();
+        public final Map<String, String> themeDescriptions = new HashMap<>();
+        /** Next unused question id; 0 if the file predates persistent ids. */
+        public long nextQuestionId;
+    }
+
+    /** Decoded content of a Leitner store. */
+    public static final class LeitnerSnapshot {
+        public final Map<String, AdaptiveLeitnerCard> cards = new HashMap<>();
+        public int totalReviews;
+        public LocalDate lastSystemUpdate;
+    }
+
+    /** Decoded content of a statistics store. */
+    public static final class StatisticsSnapshot {
+        public final Map<String, ModularQuizStatistics.QuestionStatistics> questionStats = new HashMap<>();
+        public final Map<String, ModularQuizStatistics.ThemeStatistics> themeStats = new HashMap<>();
+        public final List<ModularQuizPlay.QuizResult> results = new ArrayList<>();
+    }
+
+    // ------------------- QUESTIONS -------------------
+
+    /**
+     * Writes all themes (with descriptions) and their questions.
+     */
+    public static void writeQuestions(Path path, Map<String, List<RepoQuizeeQuestions>> questionsByTheme,
+                                      Map<String, String> themeDescriptions) throws IOException {
+        Set<String> themes = new LinkedHashSet<>(questionsByTheme.keySet());
+        themes.addAll(themeDescriptions.keySet());
+        writeQuestions(path, themes, themeDescriptions::get,
+                theme -> questionsByTheme.getOrDefault(theme, Collections.emptyList()), 0L);
+    }
+
+    /**
+     * Writes the given themes, pulling the questions of one theme at a time,
+     * so callers can stream themes that are not held on the heap.
+     * <p>
+     * The file ends with an index record holding, per theme, the description
+     * and the fixed-width offsets of its question records; its own offset is
+     * stored in the last 8 bytes of the file. The index also carries the id
+     * sequence, so ids of deleted questions are never handed out again.
+     *
+     * @param themes themes to write, in order
+     * @param descriptions description lookup per theme
+     * @param questions question lookup per theme; called once per theme
+     * @param nextQuestionId next unused question id; raised to above the largest written id if lower
+     */
+    public static void writeQuestions(Path path, Collection<String> themes, Function<String, String> descriptions,
+                                      Function<String, List<RepoQuizeeQuestions>> questions,
+                                      long nextQuestionId) throws IOException {
+        long nextId = Math.max(1L, nextQuestionId);
+        try (BinaryStoreWriter out = BinaryStoreWriter.create(path, StoreFormat.Kind.QUESTIONS)) {
+            for (String theme : themes) {
+                out.beginRecord(TAG_THEME);
+                out.writeSymbol(theme);
+                out.writeString(descriptions.apply(theme));
+                out.endRecord();
+            }
+            Map<String, long[]> offsets = new LinkedHashMap<>();
+            for (String theme : themes) {
+                List<RepoQuizeeQuestions> list = questions.apply(theme);
+                long[] themeOffsets = new long[list.size()];
+                for (int i = 0; i < themeOffsets.length; i++) {
+                    QuestionValue q = list.get(i).value();
+                    themeOffsets[i] = out.position();
+                    out.beginRecord(TAG_QUESTION);
+                    out.writeSymbol(theme);
+                    out.writeString(q.title());
+                    out.writeString(q.text());
+                    out.writeString(q.explanation());
+                    out.writeStrings(q.answers());
+                    out.writeFlags(q.correctMask(), q.answerCount());
+                    out.writeDateTime(q.createdAt());
+                    out.writeVarLong(q.id());
+                    out.endRecord();
+                    nextId = Math.max(nextId, q.id() + 1);
+                }
+                offsets.put(theme, themeOffsets);
+            }
+            long indexOffset = out.position();
+            out.beginRecord(TAG_QUESTION_INDEX);
+            out.writeVarInt(offsets.size());
+            for (String theme : themes) {
+                long[] themeOffsets = offsets.get(theme);
+                out.writeString(theme);
+                out.writeString(descriptions.apply(theme));
+                out.writeVarInt(themeOffsets.length);
+                for (long off : themeOffsets) out.writeLong(off);
+            }
+            out.writeVarLong(nextId);
+            out.writeLong(indexOffset);
+            out.endRecord();
+            out.finish();
+        }
+    }
+
+    /**
+     * Reads a question store written by {@link #writeQuestions}.
+     */
+    public static QuestionSnapshot readQuestions(Path path) throws IOException {
+        QuestionSnapshot snap = new QuestionSnapshot();
+        try (BinaryStoreReader in = BinaryStoreReader.open(path, StoreFormat.Kind.QUESTIONS)) {
+            int tag;
+            while ((tag = in.nextRecord()) >= 0) {
+                if (tag == TAG_THEME) {
+                    String theme = in.readSymbol();
+                    String description = in.readString();
+                    snap.questionsByTheme.computeIfAbsent(theme, k -> new ArrayList<>());
+                    if (description != null) snap.themeDescriptions.put(theme, description);
+                } else if (tag == TAG_QUESTION) {
+                    String theme = in.readSymbol();
+                    snap.questionsByTheme.computeIfAbsent(theme, k -> new ArrayList<>()).add(readQuestionBody(in, theme));
+                } else if (tag == TAG_QUESTION_INDEX) {
+                    snap.nextQuestionId = readIndexSequence(in);
+                }
+            }
+        }
+        return snap;
+    }
+
+    /**
+     * Reads a complete question store, either a sharded store through its
+     * manifest or a single-file store.
+     */
+    public static QuestionSnapshot readQuestionStore(Path path) throws IOException {
+        if (ShardedQuestionStore.isManifest(path.toFile())) return ShardedQuestionStore.readAll(path);
+        return readQuestions(path);
+    }
+
+    /**
+     * Decodes the fields following the theme symbol of a question record.
+     */
+    static RepoQuizeeQuestions readQuestionBody(BinaryStoreReader in, String theme) throws IOException {
+        String title = in.readInterned();
+        String text = in.readString();
+        String explanation = in.readString();
+        List<String> answers = in.readStrings();
+        List<Boolean> flags = in.readFlags();
+        QuestionValue value = QuestionValue.of(title, text, answers, flags, explanation)
+                .withTheme(theme)
+                .withCreatedAt(in.readDateTime());
+        if (in.hasRemaining()) value = value.withId(in.readVarLong());
+        return new RepoQuizeeQuestions(value);
+    }
+
+    /**
+     * Skips the theme directory of an index record and returns the id sequence
+     * stored behind it, or 0 if the index predates persistent ids.
+     */
+    static long readIndexSequence(BinaryStoreReader in) throws IOException {
+        int count = in.readVarInt();
+        for (int i = 0; i < count; i++) {
+            in.readString();
+            in.readString();
+            in.skip(in.readVarInt() * 8);
+        }
+        // the trailing 8 bytes are the index offset itself
+        return in.remaining() > 8 ? in.readVarLong() : 0L;
+    }
+
+    // ------------------- LEITNER -------------------
+
+    /**
+     * Writes the next generation of the Leitner system state: totals first,
+     * then one record per card.
+     */
+    public static void writeLeitner(Path path, Map<String, AdaptiveLeitnerCard> cards,
+                                    int totalReviews, LocalDate lastSystemUpdate) throws IOException {
+        try (BinaryStoreWriter out = BinaryStoreWriter.createGeneration(path, StoreFormat.Kind.LEITNER)) {
+            out.beginRecord(TAG_LEITNER_META);
+            out.writeVarInt(totalReviews);
+            out.writeDate(lastSystemUpdate);
+            out.endRecord();
+            for (Map.Entry<String, AdaptiveLeitnerCard> e : cards.entrySet()) {
+                writeCard(out, e.getKey(), e.getValue());
+            }
+            out.finish();
+        }
+    }
+
+    /** Writes one card record. */
+    static void writeCard(BinaryStoreWriter out, String key, AdaptiveLeitnerCard c) throws IOException {
+        out.beginRecord(TAG_LEITNER_CARD);
+        out.writeString(key);
+        out.writeString(c.getQuestionId());
+        out.writeSymbol(c.getTheme());
+        out.writeString(c.getQuestionTitle());
+        out.writeVarInt(c.getBox());
+        out.writeSymbol(c.getDifficulty().name());
+        out.writeVarInt(c.getConsecutiveCorrect());
+        out.writeVarInt(c.getConsecutiveWrong());
+        out.writeVarInt(c.getTotalAttempts());
+        out.writeVarInt(c.getTotalCorrect());
+        out.writeDouble(c.getAverageResponseTime());
+        out.writeDateTime(c.getLastReviewed());
+        out.writeDate(c.getNextReviewDate());
+        out.writeVarLong(c.getQuestionKey());
+        out.endRecord();
+    }
+
+    /**
+     * Reads the newest readable generation of a Leitner store written by {@link #writeLeitner}.
+     */
+    public static LeitnerSnapshot readLeitner(Path path) throws IOException {
+        return GenerationFiles.read(path, QuizStoreCodec::readLeitnerSlot);
+    }
+
+    private static LeitnerSnapshot readLeitnerSlot(Path path) throws IOException {
+        LeitnerSnapshot snap = new LeitnerSnapshot();
+        try (BinaryStoreReader in = BinaryStoreReader.open(path, StoreFormat.Kind.LEITNER)) {
+            int tag;
+            while ((tag = in.nextRecord()) >= 0) {
+                if (tag == TAG_LEITNER_META) {
+                    snap.totalReviews = in.readVarInt();
+                    snap.lastSystemUpdate = in.readDate();
+                } else if (tag == TAG_LEITNER_CARD) {
+                    String key = in.readInterned();
+                    snap.cards.put(key, readCardBody(in));
+                }
+            }
+        }
+        return snap;
+    }
+
+    /**
+     * Streams the cards of one Leitner slot file without building the card map.
+     *
+     * @return number of cards
+     */
+    public static long streamCards(Path slot, RecordSink<AdaptiveLeitnerCard> sink) throws IOException {
+        long count = 0;
+        try (BinaryStoreReader in = BinaryStoreReader.open(slot, StoreFormat.Kind.LEITNER)) {
+            int tag;
+            while ((tag = in.nextRecord()) >= 0) {
+                if (tag != TAG_LEITNER_CARD) continue;
+                in.readString(); // map key
+                sink.accept(readCardBody(in));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static AdaptiveLeitnerCard readCardBody(BinaryStoreReader in) throws IOException {
+        String questionId = in.readInterned();
+        String theme = in.readSymbol();
+        String title = in.readInterned();
+        int box = in.readVarInt();
+        AdaptiveLeitnerCard.Difficulty difficulty = difficultyOf(in.readSymbol());
+        int consecutiveCorrect = in.readVarInt();
+        int consecutiveWrong = in.readVarInt();
+        int totalAttempts = in.readVarInt();
+        int totalCorrect = in.readVarInt();
+        double avgTime = in.readDouble();
+        LocalDateTime lastReviewed = in.readDateTime();
+        LocalDate nextReview = in.readDate();
+        AdaptiveLeitnerCard card = new AdaptiveLeitnerCard(questionId, theme, title, box, difficulty,
+                consecutiveCorrect, consecutiveWrong, totalAttempts, totalCorrect,
+                avgTime, lastReviewed, nextReview);
+        if (in.hasRemaining()) card.setQuestionKey(in.readVarLong());
+        return card;
+    }
+
+    private static AdaptiveLeitnerCard.Difficulty difficultyOf(String name) {
+        try {
+            return name != null ? AdaptiveLeitnerCard.Difficulty.valueOf(name) : null;
+        } catch (IllegalArgumentException unknown) {
+            return null; // card constructor falls back to MEDIUM
+        }
+    }
+
+    // ------------------- STATISTICS -------------------
+
+    /**
+     * Writes the next generation of question aggregates, theme aggregates and
+     * the result ledger.
+     */
+    public static void writeStatistics(Path path,
+                                       Map<String, ModularQuizStatistics.QuestionStatistics> questionStats,
+                                       Map<String, ModularQuizStatistics.ThemeStatistics> themeStats,
+                                       List<ModularQuizPlay.QuizResult> results) throws IOException {
+        try (BinaryStoreWriter out = BinaryStoreWriter.createGeneration(path, StoreFormat.Kind.STATISTICS)) {
+            for (Map.Entry<String, ModularQuizStatistics.QuestionStatistics> e : questionStats.entrySet()) {
+                ModularQuizStatistics.QuestionStatistics q = e.getValue();
+                out.beginRecord(TAG_QUESTION_STATS);
+                out.writeString(e.getKey());
+                out.writeString(q.questionTitle);
+                out.writeVarInt(q.totalAttempts);
+                out.writeVarInt(q.correctAttempts);
+                out.writeVarInt(q.consecutiveCorrect);
+                out.writeVarInt(q.consecutiveWrong);
+                out.writeVarLong(q.lastAttempt);
+                out.writeVarInt(q.karteikartenLevel);
+                out.endRecord();
+            }
+            for (ModularQuizStatistics.ThemeStatistics t : themeStats.values()) {
+                out.beginRecord(TAG_THEME_STATS);
+                out.writeSymbol(t.name);
+                out.writeVarInt(t.totalQuestions);
+                out.writeVarInt(t.totalAttempts);
+                out.writeVarInt(t.correctAttempts);
+                out.writeVarLong(t.lastPlayed);
+                out.endRecord();
+            }
+            for (ModularQuizPlay.QuizResult r : results) writeResult(out, r);
+            out.finish();
+        }
+    }
+
+    /** Writes one result ledger record. */
+    static void writeResult(BinaryStoreWriter out, ModularQuizPlay.QuizResult r) throws IOException {
+        out.beginRecord(TAG_RESULT);
+        out.writeSymbol(r.theme);
+        out.writeString(r.questionTitle);
+        out.writeString(r.userAnswer);
+        out.writeString(r.correctAnswer);
+        out.writeBoolean(r.isCorrect);
+        out.writeVarLong(r.timestamp);
+        out.writeVarLong(r.answerTimeMs);
+        out.writeVarLong(r.questionId);
+        out.endRecord();
+    }
+
+    /**
+     * Reads the newest readable generation of a statistics store written by {@link #writeStatistics}.
+     */
+    public static StatisticsSnapshot readStatistics(Path path) throws IOException {
+        return GenerationFiles.read(path, QuizStoreCodec::readStatisticsSlot);
+    }
+
+    private static StatisticsSnapshot readStatisticsSlot(Path path) throws IOException {
+        StatisticsSnapshot snap = new StatisticsSnapshot();
+        try (BinaryStoreReader in = BinaryStoreReader.open(path, StoreFormat.Kind.STATISTICS)) {
+            int tag;
+            while ((tag = in.nextRecord()) >= 0) {
+                if (tag == TAG_QUESTION_STATS) {
+                    String key = in.readInterned();
+                    ModularQuizStatistics.QuestionStatistics q =
+                            new ModularQuizStatistics.QuestionStatistics(in.readInterned());
+                    q.totalAttempts = in.readVarInt();
+                    q.correctAttempts = in.readVarInt();
+                    q.consecutiveCorrect = in.readVarInt();
+                    q.consecutiveWrong = in.readVarInt();
+                    q.lastAttempt = in.readVarLong();
+                    q.karteikartenLevel = in.readVarInt();
+                    snap.questionStats.put(key, q);
+                } else if (tag == TAG_THEME_STATS) {
+                    ModularQuizStatistics.ThemeStatistics t =
+                            new ModularQuizStatistics.ThemeStatistics(in.readSymbol());
+                    t.totalQuestions = in.readVarInt();
+                    t.totalAttempts = in.readVarInt();
+                    t.correctAttempts = in.readVarInt();
+                    t.lastPlayed = in.readVarLong();
+                    snap.themeStats.put(t.name, t);
+                } else if (tag == TAG_RESULT) {
+                    snap.results.add(readResultBody(in));
+                }
+            }
+        }
+        return snap;
+    }
+
+    /**
+     * Streams the result ledger of one statistics slot file without holding
+     * it in memory; aggregates are skipped.
+     *
+     * @return number of results
+     */
+    public static long streamResults(Path slot, RecordSink<ModularQuizPlay.QuizResult> sink) throws IOException {
+        long count = 0;
+        try (BinaryStoreReader in = BinaryStoreReader.open(slot, StoreFormat.Kind.STATISTICS)) {
+            int tag;
+            while ((tag = in.nextRecord()) >= 0) {
+                if (tag != TAG_RESULT) continue;
+                sink.accept(readResultBody(in));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static ModularQuizPlay.QuizResult readResultBody(BinaryStoreReader in) throws IOException {
+        String theme = in.readSymbol();
+        String title = in.readInterned();
+        String userAnswer = in.readInterned();
+        String correctAnswer = in.readInterned();
+        boolean correct = in.readBoolean();
+        long timestamp = in.readVarLong();
+        long answerTimeMs = in.readVarLong();
+        long questionId = in.hasRemaining() ? in.readVarLong() : 0L;
+        return new ModularQuizPlay.QuizResult(theme, title, userAnswer, correctAnswer,
+                correct, answerTimeMs, timestamp, questionId);
+    }
+
+    // ------------------- ACHIEVEMENTS -------------------
+
+    /**
+     * Writes the next generation of unlocked achievements keyed by their enum name.
+     */
+    public static void writeAchievements(Path path, Map<String, LocalDateTime> unlocked) throws IOException {
+        try (BinaryStoreWriter out = BinaryStoreWriter.createGeneration(path, StoreFormat.Kind.ACHIEVEMENTS)) {
+            for (Map.Entry<String, LocalDateTime> e : unlocked.entrySet()) {
+                out.beginRecord(TAG_ACHIEVEMENT);
+                out.writeSymbol(e.getKey());
+                out.writeDateTime(e.getValue());
+                out.endRecord();
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Reads the newest readable generation of an achievements store written by {@link #writeAchievements}.
+     */
+    public static Map<String, LocalDateTime> readAchievements(Path path) throws IOException {
+        return GenerationFiles.read(path, QuizStoreCodec::readAchievementsSlot);
+    }
+
+    private static Map<String, LocalDateTime> readAchievementsSlot(Path path) throws IOException {
+        Map<String, LocalDateTime> unlocked = new LinkedHashMap<>();
+        try (BinaryStoreReader in = BinaryStoreReader.open(path, StoreFormat.Kind.ACHIEVEMENTS)) {
+            int tag;
+            while ((tag = in.nextRecord()) >= 0) {
+                if (tag == TAG_ACHIEVEMENT) {
+                    String name = in.readSymbol();
+                    unlocked.put(name, in.readDateTime());
+                }
+            }
+        }
+        return unlocked;
+    }
+}
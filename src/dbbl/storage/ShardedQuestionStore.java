@@ -0,0 +1,290 @@
+package dbbl.storage;
+
+import dbbl.RepoQuizeeQuestions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code ShardedQuestionStore} lays the question store out as one file per
+ * theme (shard) plus a small manifest, so changing one theme rewrites only
+ * that theme's shard.
+ * <p>
+ * Layout for the manifest {@code quiz_questions.dat}:
+ * <pre>
+ * quiz_questions.dat                  manifest: id sequence, theme -> description + shard number
+ * quiz_questions.shards/shard-N.dat   questions of one theme
+ * </pre>
+ * A shard is a complete single-theme question store in the
+ * {@link QuizStoreCodec#writeQuestions} format, so it can be read by
+ * {@link QuizStoreCodec#readQuestions} or mapped by {@link MappedQuestionStore}.
+ * <p>
+ * Shards are replaced one by one (.tmp → atomic rename) and the manifest is
+ * written last, after one sync of the shard directory; a crash in between
+ * leaves the previous manifest pointing at complete shards. The shard of a deleted theme is only removed once a manifest without
+ * it has been written. Shard numbers are never reused.
+ * <p>
+ * The manifest itself is double-buffered ({@link GenerationFiles}); if both
+ * of its generations are unreadable, {@link #recoverManifest()} rebuilds it
+ * from the shard files.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class ShardedQuestionStore {
+
+    // ------------------- RECORD TAGS -------------------
+
+    private static final byte TAG_MANIFEST_META = 40;
+    private static final byte TAG_MANIFEST_THEME = 41;
+
+    private static final String SHARD_PREFIX = "shard-";
+    private static final String SHARD_SUFFIX = ".dat";
+
+    /** Decoded manifest. Themes keep the order they were written in. */
+    public static final class Manifest {
+        public final Map<String, String> descriptions = new LinkedHashMap<>();
+        public final Map<String, Integer> shards = new LinkedHashMap<>();
+        /** Next unused question id. */
+        public long nextQuestionId = 1;
+        /** Next unused shard number. */
+        public int nextShard = 1;
+    }
+
+    private final Path manifest;
+    private final Path shardDir;
+    /** Whether shards were renamed since the shard directory was last forced. */
+    private volatile boolean shardDirDirty;
+
+    /**
+     * @param manifest manifest file; the shard directory is its sibling named
+     *                 after it with {@code .shards} instead of {@code .dat}
+     */
+    public ShardedQuestionStore(Path manifest) {
+        this.manifest = manifest;
+        String name = manifest.getFileName().toString();
+        if (name.endsWith(".dat")) name = name.substring(0, name.length() - 4);
+        Path parent = manifest.toAbsolutePath().getParent();
+        this.shardDir = parent.resolve(name + ".shards");
+    }
+
+    /**
+     * Checks whether a file is a question manifest (as opposed to a single-file
+     * question store written before sharding, or a legacy file).
+     */
+    public static boolean isManifest(File file) {
+        return GenerationFiles.kindOf(file) == StoreFormat.Kind.QUESTION_MANIFEST;
+    }
+
+    public Path manifestPath() { return manifest; }
+
+    /** File of shard {@code shard}. */
+    public Path shardPath(int shard) {
+        return shardDir.resolve(SHARD_PREFIX + shard + SHARD_SUFFIX);
+    }
+
+    // ------------------- MANIFEST -------------------
+
+    /**
+     * Reads the newest readable generation of the manifest.
+     */
+    public Manifest readManifest() throws IOException {
+        return GenerationFiles.read(manifest, ShardedQuestionStore::readManifestSlot);
+    }
+
+    private static Manifest readManifestSlot(Path slot) throws IOException {
+        Manifest m = new Manifest();
+        try (BinaryStoreReader in = BinaryStoreReader.open(slot, StoreFormat.Kind.QUESTION_MANIFEST)) {
+            int tag;
+            while ((tag = in.nextRecord()) >= 0) {
+                if (tag == TAG_MANIFEST_META) {
+                    m.nextQuestionId = in.readVarLong();
+                    m.nextShard = in.readVarInt();
+                } else if (tag == TAG_MANIFEST_THEME) {
+                    String theme = in.readInterned();
+                    String description = in.readString();
+                    int shard = in.readVarInt();
+                    if (description != null) m.descriptions.put(theme, description);
+                    m.shards.put(theme, shard);
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Writes the next generation of the manifest. Every referenced shard must
+     * already be written; the shard directory is forced first.
+     */
+    public void writeManifest(Manifest m) throws IOException {
+        if (shardDirDirty) {
+            // the renamed shards must be durable before a manifest references them
+            shardDirDirty = false;
+            DurableFiles.syncDirectory(shardDir);
+        }
+        try (BinaryStoreWriter out = BinaryStoreWriter.createGeneration(manifest, StoreFormat.Kind.QUESTION_MANIFEST)) {
+            out.beginRecord(TAG_MANIFEST_META);
+            out.writeVarLong(m.nextQuestionId);
+            out.writeVarInt(m.nextShard);
+            out.endRecord();
+            for (Map.Entry<String, Integer> e : m.shards.entrySet()) {
+                out.beginRecord(TAG_MANIFEST_THEME);
+                out.writeString(e.getKey());
+                out.writeString(m.descriptions.get(e.getKey()));
+                out.writeVarInt(e.getValue());
+                out.endRecord();
+            }
+            out.finish();
+        }
+    }
+
+    /**
+     * Rebuilds a manifest from the shard files when no manifest generation is
+     * readable. A theme found in several shards (crash between writing a new
+     * shard and deleting the old one) is taken from the highest shard number;
+     * unreadable shards are skipped.
+     *
+     * @return rebuilt manifest, not yet written
+     */
+    public Manifest recoverManifest() {
+        Manifest m = new Manifest();
+        m.nextShard = nextFreeShard();
+        for (int shard : shardNumbers()) {
+            try {
+                QuizStoreCodec.QuestionSnapshot snap = QuizStoreCodec.readQuestions(shardPath(shard));
+                for (String theme : snap.questionsByTheme.keySet()) {
+                    m.shards.put(theme, shard);
+                    String description = snap.themeDescriptions.get(theme);
+                    if (description != null) m.descriptions.put(theme, description);
+                    else m.descriptions.remove(theme);
+                }
+                m.nextQuestionId = Math.max(m.nextQuestionId, snap.nextQuestionId);
+            } catch (IOException unreadable) {
+                // skipped, the verify tool reports it
+            }
+        }
+        return m;
+    }
+
+    // ------------------- SHARDS -------------------
+
+    /**
+     * Writes (or replaces) the shard of one theme.
+     */
+    public void writeShard(int shard, String theme, String description, List<RepoQuizeeQuestions> questions,
+                           long nextQuestionId) throws IOException {
+        File dir = shardDir.toFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Unable to create " + dir);
+        Path target = shardPath(shard);
+        Path tmp = DurableFiles.tmpSibling(target);
+        try {
+            QuizStoreCodec.writeQuestions(tmp, Collections.singletonList(theme),
+                    t -> description, t -> questions, nextQuestionId);
+            DurableFiles.moveAtomically(tmp, target);
+        } catch (IOException e) {
+            tmp.toFile().delete();
+            throw e;
+        }
+        shardDirDirty = true; // forced once for all shards of the commit, see writeManifest
+    }
+
+    /**
+     * Deletes a shard the manifest no longer references.
+     */
+    public void deleteShard(int shard) {
+        shardPath(shard).toFile().delete();
+    }
+
+    /**
+     * Smallest shard number above every shard file on disk, so a store that
+     * lost its manifest never overwrites a surviving shard.
+     */
+    public int nextFreeShard() {
+        int next = 1;
+        for (int shard : shardNumbers()) next = Math.max(next, shard + 1);
+        return next;
+    }
+
+    /** Numbers of all shard files on disk, ascending. */
+    public List<Integer> shardNumbers() {
+        List<Integer> shards = new ArrayList<>();
+        File[] files = shardDir.toFile().listFiles();
+        if (files == null) return shards;
+        for (File f : files) {
+            String name = f.getName();
+            if (!name.startsWith(SHARD_PREFIX) || !name.endsWith(SHARD_SUFFIX)) continue;
+            try {
+                shards.add(Integer.parseInt(
+                        name.substring(SHARD_PREFIX.length(), name.length() - SHARD_SUFFIX.length())));
+            } catch (NumberFormatException ignored) {
+                // not a shard file
+            }
+        }
+        Collections.sort(shards);
+        return shards;
+    }
+
+    /**
+     * Decodes the questions of one theme by mapping its shard.
+     */
+    public List<RepoQuizeeQuestions> mapShard(int shard, String theme) throws IOException {
+        return MappedQuestionStore.open(shardPath(shard)).questions(theme);
+    }
+
+    /**
+     * Reads the shards of all themes in the manifest, in parallel across the
+     * common fork/join pool.
+     *
+     * @return questions per theme
+     * @throws IOException if any shard is missing or unreadable
+     */
+    public Map<String, List<RepoQuizeeQuestions>> readShards(Manifest m) throws IOException {
+        Map<String, IOException> unreadable = new ConcurrentHashMap<>();
+        Map<String, List<RepoQuizeeQuestions>> result = readShards(m, unreadable);
+        if (!unreadable.isEmpty()) throw unreadable.values().iterator().next();
+        return result;
+    }
+
+    /**
+     * Reads the shards of all themes in the manifest, each on its own: a
+     * missing or unreadable shard only loses its theme, which is added to
+     * {@code unreadable} with the failure instead.
+     *
+     * @param unreadable receives the themes whose shard could not be read
+     * @return questions per readable theme
+     */
+    public Map<String, List<RepoQuizeeQuestions>> readShards(Manifest m, Map<String, IOException> unreadable) {
+        Map<String, List<RepoQuizeeQuestions>> result = new ConcurrentHashMap<>(Math.max(16, m.shards.size() * 2));
+        m.shards.entrySet().parallelStream().forEach(e -> {
+            try {
+                QuizStoreCodec.QuestionSnapshot snap = QuizStoreCodec.readQuestions(shardPath(e.getValue()));
+                result.put(e.getKey(), snap.questionsByTheme.getOrDefault(e.getKey(), Collections.emptyList()));
+            } catch (IOException ex) {
+                unreadable.put(e.getKey(), ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Reads a sharded store completely.
+     *
+     * @param manifest manifest file
+     */
+    public static QuizStoreCodec.QuestionSnapshot readAll(Path manifest) throws IOException {
+        ShardedQuestionStore store = new ShardedQuestionStore(manifest);
+        Manifest m = store.readManifest();
+        QuizStoreCodec.QuestionSnapshot snap = new QuizStoreCodec.QuestionSnapshot();
+        snap.questionsByTheme.putAll(store.readShards(m));
+        snap.themeDescriptions.putAll(m.descriptions);
+        snap.nextQuestionId = m.nextQuestionId;
+        return snap;
+    }
+}
@@ -0,0 +1,172 @@
+package dbbl.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * {@code StoreFormat} defines the header of the binary store files written by
+ * {@link BinaryStoreWriter} and read by {@link BinaryStoreReader}.
+ * <p>
+ * Header layout (7 bytes, big endian):
+ * <pre>
+ * [int magic "UNQZ"][short schema version][byte store kind]
+ * </pre>
+ * The header is followed by length-prefixed records. Since schema version 2
+ * every record carries a CRC32C of its tag and payload:
+ * <pre>
+ * v1: [int length][byte tag][tag specific payload ...]
+ * v2: [int length][int crc32c][byte tag][tag specific payload ...]
+ * </pre>
+ * Readers skip records with unknown tags and ignore trailing fields of known
+ * records, so newer schema versions can add data without breaking older readers.
+ * <p>
+ * Version 2 files end with a fixed-size footer, written last:
+ * <pre>
+ * [long generation][long body end][int crc32c of the two longs][int footer magic "UNQF"]
+ * </pre>
+ * A file without a valid footer is incomplete (torn write). The generation
+ * orders the two slots of a double-buffered store (see {@link GenerationFiles});
+ * single-slot files carry generation 0.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class StoreFormat {
+
+    /** File magic, ASCII "UNQZ". Legacy Java serialization files start with 0xACED instead. */
+    public static final int MAGIC = 0x554E515A;
+
+    /** Current schema version written by {@link BinaryStoreWriter}. */
+    public static final short SCHEMA_VERSION = 2;
+
+    /** First schema version with record checksums and footer. */
+    static final short CHECKSUM_VERSION = 2;
+
+    /** Size of the file header in bytes. */
+    static final int HEADER_SIZE = 7;
+
+    /** Footer magic, ASCII "UNQF". */
+    static final int FOOTER_MAGIC = 0x554E5146;
+
+    /** Size of the version 2 footer in bytes. */
+    static final int FOOTER_SIZE = 24;
+
+    /**
+     * Kind of data stored in a file; guards against loading e.g. a Leitner
+     * file as question snapshot.
+     */
+    public enum Kind {
+        QUESTIONS(1),
+        LEITNER(2),
+        STATISTICS(3),
+        ACHIEVEMENTS(4),
+        QUESTION_MANIFEST(5),
+        BACKUP_SNAPSHOT(6);
+
+        final byte code;
+
+        Kind(int code) { this.code = (byte) code; }
+
+        static Kind of(byte code) {
+            for (Kind k : values()) if (k.code == code) return k;
+            return null;
+        }
+    }
+
+    private StoreFormat() {}
+
+    // ------------------- FOOTER -------------------
+
+    /**
+     * Fills a footer buffer.
+     *
+     * @param footer buffer with at least {@link #FOOTER_SIZE} bytes remaining
+     */
+    static void putFooter(ByteBuffer footer, long generation, long bodyEnd) {
+        footer.putLong(generation).putLong(bodyEnd).putInt(footerCrc(generation, bodyEnd)).putInt(FOOTER_MAGIC);
+    }
+
+    /**
+     * Reads and validates the footer of a version 2 file in O(1).
+     *
+     * @return {@code {generation, bodyEnd}}, or {@code null} if the file has no
+     *         valid footer (written by version 1 or torn)
+     */
+    static long[] readFooter(FileChannel ch) throws IOException {
+        long size = ch.size();
+        if (size < HEADER_SIZE + FOOTER_SIZE) return null;
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+        long pos = size - FOOTER_SIZE;
+        while (footer.hasRemaining()) {
+            int n = ch.read(footer, pos + footer.position());
+            if (n < 0) return null;
+        }
+        return parseFooter(footer, 0, pos);
+    }
+
+    /**
+     * Validates the footer at the end of a completely buffered (e.g. mapped) file.
+     *
+     * @return {@code {generation, bodyEnd}} or {@code null}, see {@link #readFooter(FileChannel)}
+     */
+    static long[] readFooter(ByteBuffer file) {
+        if (file.limit() < HEADER_SIZE + FOOTER_SIZE) return null;
+        int pos = file.limit() - FOOTER_SIZE;
+        return parseFooter(file, pos, pos);
+    }
+
+    private static long[] parseFooter(ByteBuffer b, int at, long expectedBodyEnd) {
+        long generation = b.getLong(at);
+        long bodyEnd = b.getLong(at + 8);
+        if (b.getInt(at + 20) != FOOTER_MAGIC || bodyEnd != expectedBodyEnd
+                || b.getInt(at + 16) != footerCrc(generation, bodyEnd)) {
+            return null;
+        }
+        return new long[] { generation, bodyEnd };
+    }
+
+    private static int footerCrc(long generation, long bodyEnd) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(16).putLong(generation).putLong(bodyEnd).flip());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reads the kind of a binary store file from its header.
+     *
+     * @param file file to inspect
+     * @return kind, or {@code null} for legacy, unreadable or unknown files
+     */
+    public static Kind kindOf(File file) {
+        if (file == null || !file.isFile() || file.length() < HEADER_SIZE) return null;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE);
+            while (head.hasRemaining() && ch.read(head) >= 0) { /* fill */ }
+            if (head.hasRemaining() || head.getInt(0) != MAGIC) return null;
+            return Kind.of(head.get(HEADER_SIZE - 1));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the binary store magic.
+     *
+     * @param file file to inspect
+     * @return {@code true} for binary store files, {@code false} for legacy or unreadable files
+     */
+    public static boolean isBinary(File file) {
+        if (file == null || !file.isFile() || file.length() < HEADER_SIZE) return false;
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && ch.read(head) >= 0) { /* fill */ }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package dbbl.storage;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Heap footprint report for the strings held by loaded data (theme names,
+ * titles, keys). Counts references, distinct instances and distinct values
+ * and estimates the retained bytes, so the effect of {@link StringInterner}
+ * can be checked on large question banks.
+ * <p>
+ * Sizes are estimated for a 64-bit JVM with compressed oops and compact
+ * strings: 24 bytes per {@code String} plus a 16 byte array header and one
+ * byte per char (two if any char is outside Latin-1), aligned to 8 bytes.
+ * Not thread-safe; collect on one thread.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class StringFootprint {
+
+    private static final int STRING_HEADER = 24;
+    private static final int ARRAY_HEADER = 16;
+
+    private final Map<String, Boolean> instances = new IdentityHashMap<>();
+    private final Set<String> values = new HashSet<>();
+    private long references;
+    private long retainedBytes;
+    private long distinctBytes;
+
+    /** Records one reference to {@code s}; {@code null} is ignored. */
+    public StringFootprint add(String s) {
+        if (s == null) return this;
+        references++;
+        if (instances.put(s, Boolean.TRUE) == null) {
+            long size = sizeOf(s);
+            retainedBytes += size;
+            if (values.add(s)) distinctBytes += size;
+        }
+        return this;
+    }
+
+    /** Number of recorded references. */
+    public long references() { return references; }
+
+    /** Number of distinct {@code String} instances behind the references. */
+    public int instances() { return instances.size(); }
+
+    /** Number of distinct values. */
+    public int distinctValues() { return values.size(); }
+
+    /** Estimated bytes retained by all distinct instances. */
+    public long retainedBytes() { return retainedBytes; }
+
+    /** Estimated bytes if every value were held by exactly one instance. */
+    public long dedupedBytes() { return distinctBytes; }
+
+    /** Estimated bytes still held by duplicate instances. */
+    public long savableBytes() { return retainedBytes - distinctBytes; }
+
+    /**
+     * Estimated shallow plus backing-array size of one string.
+     *
+     * @param s string
+     * @return bytes
+     */
+    public static long sizeOf(String s) {
+        int perChar = 1;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) { perChar = 2; break; }
+        }
+        return STRING_HEADER + align(ARRAY_HEADER + (long) s.length() * perChar);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.ROOT,
+                "%d references, %d instances, %d distinct values, ~%d KiB retained, ~%d KiB in duplicates",
+                references, instances(), distinctValues(), retainedBytes / 1024, savableBytes() / 1024);
+    }
+}
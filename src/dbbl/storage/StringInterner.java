@@ -0,0 +1,56 @@
+package dbbl.storage;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Process-wide symbol table for strings that repeat across records and
+ * files: theme names, question titles and {@code theme:title} keys.
+ * <p>
+ * Every store file has its own symbol dictionary (see
+ * {@link BinaryStoreReader#readSymbol()}), so without interning each file –
+ * each shard, the Leitner store, the statistics store – would decode its own
+ * copy of every theme name, and every card and result its own copy of its
+ * key and title. Loaders pass such strings through {@link #intern(String)}
+ * so equal values share one instance.
+ * <p>
+ * Entries are weak: a string no longer referenced by any loaded object (e.g.
+ * of a deleted theme) is released. Unlike {@link String#intern()} the table
+ * lives on the regular heap and is bounded by what is actually in use.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class StringInterner {
+
+    private static final Map<String, WeakReference<String>> POOL = new WeakHashMap<>(1024);
+
+    private StringInterner() {}
+
+    /**
+     * Canonical instance equal to {@code s}.
+     *
+     * @param s string, may be {@code null}
+     * @return the shared instance, or {@code null} for {@code null}
+     */
+    public static String intern(String s) {
+        if (s == null) return null;
+        synchronized (POOL) {
+            WeakReference<String> ref = POOL.get(s);
+            String canonical = ref != null ? ref.get() : null;
+            if (canonical == null) {
+                POOL.put(s, new WeakReference<>(s));
+                canonical = s;
+            }
+            return canonical;
+        }
+    }
+
+    /** Number of live entries (approximate: cleared entries are purged lazily). */
+    public static int size() {
+        synchronized (POOL) {
+            return POOL.size();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Binäres Speicherformat (dbbl.storage).
+ *
+ * Leitlinien und Architektur:
+ * - Ersetzt die Java-Serialisierung (ObjectOutputStream) der Dateien
+ *   quiz_questions.dat, leitner_system.dat, quiz_statistics.dat und achievements.dat.
+ * - Versionierter Header (Magic "UNQZ", Schema-Version, Datenart) gefolgt von
+ *   längenpräfixierten Datensätzen; unbekannte Datensätze werden übersprungen.
+ * - Ab Schema-Version 2 trägt jeder Datensatz eine CRC32C-Prüfsumme; ein
+ *   Footer (Generation, Körperende, Prüfsumme) wird zuletzt geschrieben und
+ *   kennzeichnet vollständige Dateien.
+ * - Wiederkehrende Zeichenketten (z. B. Themennamen) werden über ein
+ *   Wörterbuch kodiert: erstes Vorkommen inline, danach nur eine Referenz.
+ * - Lesen und Schreiben erfolgt gepuffert über einen NIO FileChannel.
+ *
+ * Bestandteile:
+ * - StoreFormat: Header-Konstanten und Formaterkennung (Binär vs. Legacy)
+ * - BinaryStoreWriter / BinaryStoreReader: primitive Kodierung und Puffer
+ * - QuizStoreCodec: Kodierung der Quiz-Datentypen je Datei
+ * - MappedQuestionStore: speicherabgebildete (MappedByteBuffer) Sicht auf den
+ *   Fragen-Snapshot; nur das Themenverzeichnis wird beim Öffnen gelesen,
+ *   Fragen werden erst beim Zugriff dekodiert
+ * - ShardedQuestionStore: Fragen-Snapshot als Manifest plus eine Shard-Datei
+ *   je Thema; geänderte Themen werden einzeln ersetzt, das Manifest zuletzt
+ * - GenerationFiles: Doppelpuffer (Slot A = Dateiname, Slot B = ".b") für
+ *   Leitner, Statistik, Achievements und das Fragen-Manifest; geschrieben
+ *   wird immer der ältere Slot. Die Wiederherstellung liest nur Header und
+ *   Footer beider Slots (O(1)) und fällt bei Prüfsummenfehlern auf die
+ *   vorige Generation zurück; unlesbare Dateien werden umbenannt
+ *   (".corrupt-<Zeitstempel>"), nie gelöscht
+ * - DurableFiles: gemeinsamer dauerhafter Schreibpfad – Inhalt per force(),
+ *   Ersetzen per Files.move(ATOMIC_MOVE), Verzeichnis-Sync nach neuen oder
+ *   umbenannten Dateien (einmal je Commit und Verzeichnis). Ein Commit eines
+ *   doppelt gepufferten Speichers kostet im Normalfall genau ein fsync
+ * - StoreVerifier: prüft Header, Footer und alle Datensatz-Prüfsummen in
+ *   einem sequentiellen Durchlauf (Kommandozeile und Konsolenbefehl "verify")
+ * - BackupRepository: inkrementelle, deduplizierte Backups aller Speicherdateien;
+ *   Dateien werden inhaltsdefiniert in Blöcke (Chunks) zerlegt und per SHA-256
+ *   adressiert, nur neue Chunks werden per FileChannel.transferTo kopiert.
+ *   Aufbewahrung: die neuesten N Backups bleiben, unreferenzierte Chunks werden
+ *   entfernt
+ * - BackupService: zeitpunktgenaue Sicherung und Wiederherstellung über eine
+ *   Barriere im PersistenceExecutor; Dienste mit eigenem Schreibpfad (Journal)
+ *   registrieren einen StoreGuard und werden währenddessen angehalten;
+ *   Dienste mit Zustand im Speicher (Leitner, Statistik, Achievements)
+ *   registrieren einen ExecutorStoreGuard, laden nach einer Wiederherstellung
+ *   neu und verwerfen vorher kopierte Speicherstände.
+ *   Die Wiederherstellung baut die Dateien zuerst in einem Staging-Verzeichnis
+ *   auf, sichert den aktuellen Stand ("pre-restore") und tauscht die Dateien
+ *   dann per Files.move(ATOMIC_MOVE); nicht enthaltene Speicherdateien
+ *   (z. B. neuere ".b"-Slots) werden entfernt
+ * - PersistenceExecutor: gemeinsamer Hintergrund-Thread für alle Speicher-
+ *   vorgänge; Aufrufer übergeben einen unveränderlichen Snapshot und erhalten
+ *   ein CompletableFuture. Aufträge je Datei werden zusammengefasst (neuester
+ *   Stand gewinnt), die Warteschlange ist begrenzt (Gegendruck); barrier()
+ *   führt einen Auftrag nach allen zuvor eingereihten aus
+ * - QuizDataExporter: streamt Fragen (themenweise), Leitner-Karten und den
+ *   Antwortverlauf als CSV, JSON Lines oder Binärdatei; Datensätze werden
+ *   einzeln dekodiert und gepuffert über einen FileChannel geschrieben
+ *   (konstanter Speicherbedarf), das Ziel wird erst nach Abschluss ersetzt
+ * - StringInterner: prozessweite Symboltabelle (schwache Referenzen) für
+ *   Themennamen, Titel und "Thema:Titel"-Schlüssel; die Loader geben
+ *   Wörterbuch-Symbole und Schlüssel darüber aus, sodass gleiche Werte aus
+ *   Shards, Leitner- und Statistikdatei eine Instanz teilen
+ * - StringFootprint: geschätzter Heap-Bedarf dieser Zeichenketten
+ *   (Instanzen, verschiedene Werte, Bytes in Duplikaten; Konsolenbefehl
+ *   "footprint")
+ *
+ * Abwärtskompatibilität:
+ * - Alte, serialisierte Dateien werden beim ersten Laden von den jeweiligen
+ *   Diensten einmalig importiert und anschließend im Binärformat gespeichert.
+ */
+package dbbl.storage;
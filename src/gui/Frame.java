@@ -144,6 +144,7 @@ public class Frame extends JFrame {
 
         // === Load configuration from CLI or properties ===
         AppConfigService config = new AppConfigService(args);
+        AppConfigService.install(config);
         boolean mergeOnStartup = config.getBoolean("merge.onStartup", false);
         String mergeDir = config.getString("merge.dir", null);
 
@@ -54,6 +54,7 @@ public class AdaptiveLeitnerCard implements Serializable {
     private final String questionId;          // Unique ID for the question
     private final String theme;               // Theme/topic of the question
     private final String questionTitle;       // Title of the question
+    private long questionKey;                 // Persistent numeric question id (0 = not linked yet)
 
     // --- Leitner system state ---
     private int box;                          // Current Leitner box (1-6)
@@ -220,11 +221,25 @@ public class AdaptiveLeitnerCard implements Serializable {
         return basePriority;
     }
 
+    /**
+     * Returns an independent copy of this card, used as persistence snapshot
+     * while the original keeps changing.
+     */
+    public AdaptiveLeitnerCard copy() {
+        AdaptiveLeitnerCard copy = new AdaptiveLeitnerCard(questionId, theme, questionTitle, box, difficulty,
+                consecutiveCorrect, consecutiveWrong, totalAttempts, totalCorrect,
+                averageResponseTime, lastReviewed, nextReviewDate);
+        copy.questionKey = questionKey;
+        return copy;
+    }
+
     // ================== GETTERS ==================
 
     public String getQuestionId() { return questionId; }
     public String getTheme() { return theme; }
     public String getQuestionTitle() { return questionTitle; }
+    public long getQuestionKey() { return questionKey; }
+    public void setQuestionKey(long questionKey) { this.questionKey = questionKey; }
     public int getBox() { return box; }
     public int getLevel() { return box; }
     public Difficulty getDifficulty() { return difficulty; }
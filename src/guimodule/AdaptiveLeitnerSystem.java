@@ -1,10 +1,16 @@
 package guimodule;
 
 import dbbl.BusinesslogicaDelegation;
+import dbbl.LongIndex;
 import dbbl.RepoQuizeeQuestions;
+import dbbl.storage.BackupService;
+import dbbl.storage.GenerationFiles;
+import dbbl.storage.PersistenceExecutor;
+import dbbl.storage.QuizStoreCodec;
 import java.io.*;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -22,6 +28,12 @@ import java.util.stream.Collectors;
  * - Provides due questions per topic or globally
  * - Statistics per level and topic
  *
+ * Question joins:
+ * - Cards stay keyed by "theme:title" in the store, but also remember the
+ *   persistent question id ({@link AdaptiveLeitnerCard#getQuestionKey()})
+ * - Lookups for questions and results with an id go through a primitive
+ *   {@link LongIndex}; the string key is only built once to link a card
+ *
  * Serialization:
  * - The delegate (BusinesslogicaDelegation) is not serialized (transient)
  * - When saving, the timestamp lastSystemUpdate is updated
@@ -39,15 +51,24 @@ public class AdaptiveLeitnerSystem implements Serializable {
     // Card management
     private final Map<String, AdaptiveLeitnerCard> cards = new ConcurrentHashMap<>();
     private final transient BusinesslogicaDelegation delegate;
+
+    /** Cards by persistent question id; guarded by its own monitor. */
+    private final transient LongIndex<AdaptiveLeitnerCard> cardsByQuestion = new LongIndex<>();
+
+    /** Ids of the cards changed since the last {@link #endSession()}. */
+    private final transient Set<String> touchedCards = ConcurrentHashMap.newKeySet();
+
+    /** Reloads the system after a backup restore and drops saves copied before it. */
+    private final transient BackupService.ExecutorStoreGuard backupGuard =
+            new BackupService.ExecutorStoreGuard(this::reloadSystem);
     
     // System statistics
     private int totalReviews = 0;
     private LocalDate lastSystemUpdate = LocalDate.now();
     
     /**
-     * Serializable snapshot that contains only the minimal state required for
-     * persistence. Prevents accidental serialization of runtime-only dependencies
-     * and stabilizes the file format across versions.
+     * Legacy serializable snapshot. Only read to import files written before the
+     * binary store format ({@link QuizStoreCodec}); never written anymore.
      */
     private static class Snapshot implements Serializable {
         private static final long serialVersionUID = 1L;
@@ -59,6 +80,7 @@ public class AdaptiveLeitnerSystem implements Serializable {
     public AdaptiveLeitnerSystem(BusinesslogicaDelegation delegate) {
         this.delegate = delegate;
         loadSystem();
+        BackupService.register(backupGuard);
         // Note: No automatic initialization of new cards.
         // Cards are only created via real quiz results (processQuizResult).
     }
@@ -121,6 +143,7 @@ public class AdaptiveLeitnerSystem implements Serializable {
             }
             this.cards.put(id, chosen);
         }
+        rebuildCardIndex();
         saveSystem();
     }
 
@@ -140,27 +163,8 @@ public class AdaptiveLeitnerSystem implements Serializable {
         if (delegate == null) return;
 
         try {
-            List<String> themes = delegate.getAllTopics();
-
-            for (String theme : themes) {
-                List<String> questionTitles = delegate.getQuestionTitles(theme);
-
-                for (int i = 0; i < questionTitles.size(); i++) {
-                    RepoQuizeeQuestions question = delegate.getQuestion(theme, i);
-                    if (question != null) {
-                        String questionId = generateQuestionId(question);
-
-                        if (!cards.containsKey(questionId)) {
-                            AdaptiveLeitnerCard card = new AdaptiveLeitnerCard(
-                                questionId,
-                                question.getThema(),
-                                question.getTitel()
-                            );
-                            cards.put(questionId, card);
-                        }
-                    }
-                }
-            }
+            delegate.streamAllQuestions().forEach(question ->
+                cardFor(question.getId(), question.getThema(), question.getTitel(), true));
 
             saveSystem();
         } catch (Exception e) {
@@ -175,26 +179,37 @@ public class AdaptiveLeitnerSystem implements Serializable {
      * Thread safety: This method is not synchronized. External synchronization
      * is recommended if called from multiple threads.
      *
-     * Persistence: Saves the system state after processing the result.
+     * Persistence: Queues a background save of the system state after processing the result.
      *
      * @param result QuizResult object (theme, question title, correctness, answer time)
      */
     public void processQuizResult(ModularQuizPlay.QuizResult result) {
-        String questionId = generateQuestionId(result.theme, result.questionTitle);
-        
-        AdaptiveLeitnerCard card = cards.get(questionId);
-        if (card == null) {
-            // Create new card if missing
-            card = new AdaptiveLeitnerCard(questionId, result.theme, result.questionTitle);
-            cards.put(questionId, card);
-        }
+        // Creates a new card if missing
+        AdaptiveLeitnerCard card = cardFor(result.questionId, result.theme, result.questionTitle, true);
         
         // Process result
         card.processResult(result.isCorrect, result.getAnswerTimeSeconds());
+        touchedCards.add(card.getQuestionId());
         totalReviews++;
         
         saveSystem();
     }
+
+    /**
+     * Ends a quiz session: hands copies of the cards changed since the last
+     * call to the business layer in one batch, so a database backend stores
+     * them with a single write. The Leitner file is saved per result anyway.
+     */
+    public void endSession() {
+        if (delegate == null || touchedCards.isEmpty()) return;
+        List<AdaptiveLeitnerCard> touched = new ArrayList<>(touchedCards.size());
+        for (Iterator<String> it = touchedCards.iterator(); it.hasNext(); ) {
+            AdaptiveLeitnerCard card = cards.get(it.next());
+            it.remove();
+            if (card != null) touched.add(card.copy());
+        }
+        delegate.syncLeitnerCards(touched);
+    }
     
     /**
      * Returns due questions for a specific topic.
@@ -209,31 +224,17 @@ public class AdaptiveLeitnerSystem implements Serializable {
         if (delegate == null) return new ArrayList<>();
 
         try {
-            List<String> questionTitles = delegate.getQuestionTitles(theme);
             List<RepoQuizeeQuestions> dueQuestions = new ArrayList<>();
 
-            for (int i = 0; i < questionTitles.size(); i++) {
-                RepoQuizeeQuestions question = delegate.getQuestion(theme, i);
-                if (question != null) {
-                    String questionId = generateQuestionId(question);
-                    AdaptiveLeitnerCard card = cards.get(questionId);
-
-                    if (card != null && card.isDue()) {
-                        dueQuestions.add(question);
-                    }
+            for (RepoQuizeeQuestions question : delegate.getQuestions(theme)) {
+                AdaptiveLeitnerCard card = cardFor(question);
+                if (card != null && card.isDue()) {
+                    dueQuestions.add(question);
                 }
             }
 
             // Sort by priority (most important first)
-            dueQuestions.sort((q1, q2) -> {
-                String id1 = generateQuestionId(q1);
-                String id2 = generateQuestionId(q2);
-                AdaptiveLeitnerCard card1 = cards.get(id1);
-                AdaptiveLeitnerCard card2 = cards.get(id2);
-
-                if (card1 == null || card2 == null) return 0;
-                return Double.compare(card2.getPriority(), card1.getPriority());
-            });
+            dueQuestions.sort(byPriority());
 
             return dueQuestions;
 
@@ -264,15 +265,7 @@ public class AdaptiveLeitnerSystem implements Serializable {
             }
 
             // Sort by priority (most important first)
-            allDueQuestions.sort((q1, q2) -> {
-                String id1 = generateQuestionId(q1);
-                String id2 = generateQuestionId(q2);
-                AdaptiveLeitnerCard card1 = cards.get(id1);
-                AdaptiveLeitnerCard card2 = cards.get(id2);
-
-                if (card1 == null || card2 == null) return 0;
-                return Double.compare(card2.getPriority(), card1.getPriority());
-            });
+            allDueQuestions.sort(byPriority());
 
             return allDueQuestions;
 
@@ -366,13 +359,76 @@ public class AdaptiveLeitnerSystem implements Serializable {
     }
     
     /**
-     * Generates a unique ID for a question.
+     * Returns the card of a question, resolved by its persistent id where possible.
      *
      * @param question Question object
-     * @return ID in the form "<theme>:<title>"
+     * @return Card or null if none exists
      */
-    private String generateQuestionId(RepoQuizeeQuestions question) {
-        return generateQuestionId(question.getThema(), question.getTitel());
+    private AdaptiveLeitnerCard cardFor(RepoQuizeeQuestions question) {
+        return cardFor(question.getId(), question.getThema(), question.getTitel(), false);
+    }
+
+    /**
+     * Resolves a card by persistent question id; on a miss (unlinked card,
+     * results without id) falls back to the "theme:title" key and links the
+     * card to the id for later lookups. An id hit only counts if the card's
+     * theme and title match: the file and SQL backends number questions
+     * independently, so a stored id may belong to another question after a
+     * backend switch. Such a card is relinked to the question that matches.
+     *
+     * @param questionKey persistent question id or 0 if unknown
+     * @param theme Topic
+     * @param title Question title
+     * @param create whether to create a missing card
+     * @return Card or null if none exists and {@code create} is false
+     */
+    private AdaptiveLeitnerCard cardFor(long questionKey, String theme, String title, boolean create) {
+        if (questionKey > 0) {
+            AdaptiveLeitnerCard card;
+            synchronized (cardsByQuestion) { card = cardsByQuestion.get(questionKey); }
+            if (card != null && matches(card, theme, title)) return card;
+        }
+        String questionId = generateQuestionId(theme, title);
+        AdaptiveLeitnerCard card = cards.get(questionId);
+        if (card == null && create) {
+            card = cards.computeIfAbsent(questionId, id -> new AdaptiveLeitnerCard(id, theme, title));
+        }
+        if (card != null && questionKey > 0) {
+            synchronized (cardsByQuestion) {
+                if (card.getQuestionKey() > 0) cardsByQuestion.remove(card.getQuestionKey());
+                card.setQuestionKey(questionKey);
+                AdaptiveLeitnerCard previous = cardsByQuestion.put(questionKey, card);
+                if (previous != null && previous != card) previous.setQuestionKey(0);
+            }
+        }
+        return card;
+    }
+
+    /** Whether {@code card} belongs to the question {@code theme:title}; unknown names match. */
+    private static boolean matches(AdaptiveLeitnerCard card, String theme, String title) {
+        return theme == null || title == null
+            || (theme.equals(card.getTheme()) && title.equals(card.getQuestionTitle()));
+    }
+
+    /** Comparator placing the question with the highest card priority first. */
+    private Comparator<RepoQuizeeQuestions> byPriority() {
+        return (q1, q2) -> {
+            AdaptiveLeitnerCard card1 = cardFor(q1);
+            AdaptiveLeitnerCard card2 = cardFor(q2);
+
+            if (card1 == null || card2 == null) return 0;
+            return Double.compare(card2.getPriority(), card1.getPriority());
+        };
+    }
+
+    /** Rebuilds the id index from the cards' stored question ids. */
+    private void rebuildCardIndex() {
+        synchronized (cardsByQuestion) {
+            cardsByQuestion.clear();
+            for (AdaptiveLeitnerCard card : cards.values()) {
+                if (card.getQuestionKey() > 0) cardsByQuestion.put(card.getQuestionKey(), card);
+            }
+        }
     }
     
     /**
@@ -389,44 +445,82 @@ public class AdaptiveLeitnerSystem implements Serializable {
     /**
      * Saves the Leitner system.
      *
-     * Stores the current state in a file. Updates lastSystemUpdate before saving.
+     * Updates lastSystemUpdate, copies the cards on the calling thread and
+     * writes the copy on the shared {@link PersistenceExecutor}. Saves queued
+     * while a write is pending collapse into one write of the newest state.
+     *
+     * @return future completed once the state is on disk
      */
-    private void saveSystem() {
+    private CompletableFuture<Void> saveSystem() {
         this.lastSystemUpdate = LocalDate.now();
-        File target = new File(LEITNER_DATA_FILE);
-        File tmp = new File(LEITNER_DATA_FILE + ".tmp");
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(tmp))) {
-            Snapshot snapshot = new Snapshot();
-            snapshot.cards = new HashMap<>(this.cards);
-            snapshot.totalReviews = this.totalReviews;
-            snapshot.lastSystemUpdate = this.lastSystemUpdate;
-            oos.writeObject(snapshot);
-            oos.flush();
-        } catch (IOException e) {
-            System.err.println("Error saving Leitner system: " + e.getMessage());
-            if (tmp.exists()) tmp.delete();
-            return;
-        }
-        // Atomic replace
-        if (target.exists() && !target.delete()) {
-            System.err.println("Error saving Leitner system: unable to replace existing file");
-            tmp.delete();
-            return;
-        }
-        if (!tmp.renameTo(target)) {
-            System.err.println("Error saving Leitner system: unable to finalize save");
-            tmp.delete();
-        }
+        long stamp = backupGuard.stamp();
+        Map<String, AdaptiveLeitnerCard> snapshot = new HashMap<>(cards.size() * 2);
+        cards.forEach((id, card) -> snapshot.put(id, card.copy()));
+        int reviews = this.totalReviews;
+        LocalDate updated = this.lastSystemUpdate;
+        CompletableFuture<Void> saved = PersistenceExecutor.shared().submit(LEITNER_DATA_FILE,
+                () -> { if (backupGuard.isCurrent(stamp)) writeSystem(snapshot, reviews, updated); });
+        saved.whenComplete((ignored, e) -> {
+            if (e != null) System.err.println("Error saving Leitner system: " + e.getMessage());
+        });
+        return saved;
+    }
+
+    /**
+     * Writes a Leitner snapshot as the next generation of the data file; the
+     * previous generation stays intact until the new one is complete.
+     * Runs on the persistence thread.
+     */
+    private static void writeSystem(Map<String, AdaptiveLeitnerCard> snapshot, int reviews, LocalDate updated)
+            throws IOException {
+        QuizStoreCodec.writeLeitner(new File(LEITNER_DATA_FILE).toPath(), snapshot, reviews, updated);
     }
     
     /**
      * Loads the Leitner system.
      *
-     * Loads the state from file if present. If an error occurs, starts with a fresh system.
+     * Loads the newest readable generation if present. Files in the legacy
+     * serialized format are imported once and immediately rewritten in the
+     * binary format. If no generation can be read, the files are moved aside
+     * ({@code .corrupt-<timestamp>}) and the system starts fresh.
      */
     private void loadSystem() {
         File file = new File(LEITNER_DATA_FILE);
-        if (!file.exists()) return; // New system
+        if (!GenerationFiles.exists(file)) return; // New system
+        if (GenerationFiles.isBinary(file)) {
+            try {
+                QuizStoreCodec.LeitnerSnapshot snap = QuizStoreCodec.readLeitner(file.toPath());
+                this.cards.clear();
+                this.cards.putAll(snap.cards);
+                this.totalReviews = snap.totalReviews;
+                this.lastSystemUpdate = snap.lastSystemUpdate != null ? snap.lastSystemUpdate : LocalDate.now();
+                rebuildCardIndex();
+            } catch (IOException e) {
+                System.err.println("Error loading Leitner system: " + e.getMessage());
+                System.err.println("Corrupt Leitner data moved to " + GenerationFiles.quarantine(file.toPath()));
+            }
+            return;
+        }
+        importLegacySystem(file);
+    }
+
+    /**
+     * Replaces the whole state by the file restored from a backup; runs on
+     * the persistence thread.
+     */
+    private void reloadSystem() {
+        cards.clear();
+        touchedCards.clear();
+        totalReviews = 0;
+        lastSystemUpdate = LocalDate.now();
+        loadSystem();
+        rebuildCardIndex();
+    }
+
+    /**
+     * One-shot import of a Leitner file written with Java serialization.
+     */
+    private void importLegacySystem(File file) {
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
             Object obj = ois.readObject();
             if (obj instanceof Snapshot) {
@@ -448,10 +542,10 @@ public class AdaptiveLeitnerSystem implements Serializable {
             }
         } catch (Exception e) {
             System.err.println("Error loading Leitner system: " + e.getMessage());
-            if (file.exists() && !file.delete()) {
-                System.err.println("Unable to remove corrupt Leitner data file");
-            }
+            System.err.println("Corrupt Leitner data moved to " + GenerationFiles.quarantine(file.toPath()));
+            return;
         }
+        saveSystem(); // rewrite in the binary format
     }
     
     /**
@@ -462,10 +556,15 @@ public class AdaptiveLeitnerSystem implements Serializable {
      */
     public void resetSystem() {
         cards.clear();
+        touchedCards.clear();
+        rebuildCardIndex();
         totalReviews = 0;
         lastSystemUpdate = LocalDate.now();
-        File file = new File(LEITNER_DATA_FILE);
-        if (file.exists()) file.delete();
+        // Queued behind (or replacing) pending saves so no older write recreates the file
+        long stamp = backupGuard.stamp();
+        PersistenceExecutor.shared().submit(LEITNER_DATA_FILE, () -> {
+            if (backupGuard.isCurrent(stamp)) GenerationFiles.delete(new File(LEITNER_DATA_FILE).toPath());
+        });
     }
     
     // ================ GETTERS ================
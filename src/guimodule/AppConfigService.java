@@ -20,6 +20,8 @@ import java.util.Properties;
  */
 public final class AppConfigService {
 
+    private static volatile AppConfigService current;
+
     private final Properties props = new Properties();
     private final Map<String, String> argsMap = new HashMap<>();
 
@@ -28,6 +30,26 @@ public final class AppConfigService {
         loadProperties();
     }
 
+    /**
+     * Makes {@code config} the process-wide configuration returned by {@link #current()}.
+     */
+    public static void install(AppConfigService config) {
+        current = config;
+    }
+
+    /**
+     * Process-wide configuration: the installed one, or application.properties
+     * without CLI args if none was installed.
+     */
+    public static AppConfigService current() {
+        AppConfigService c = current;
+        if (c == null) {
+            c = new AppConfigService(null);
+            current = c;
+        }
+        return c;
+    }
+
     private void loadArgs(String[] args) {
         if (args == null) return;
         for (String a : args) {
@@ -67,4 +89,14 @@ public final class AppConfigService {
         if (v == null) return def;
         return v.equalsIgnoreCase("true") || v.equalsIgnoreCase("1") || v.equalsIgnoreCase("yes");
     }
+
+    public long getLong(String key, long def) {
+        String v = getString(key, null);
+        if (v == null) return def;
+        try {
+            return Long.parseLong(v.trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
 }
@@ -1,6 +1,21 @@
 package guimodule;
 
+import dbbl.QuestionValue;
+import dbbl.RepoQuizeeQuestions;
+import dbbl.storage.BackupRepository;
+import dbbl.storage.BackupService;
+import dbbl.storage.PersistenceExecutor;
+import dbbl.storage.QuizDataExporter;
+import dbbl.storage.QuizStoreCodec;
+import dbbl.storage.StoreVerifier;
+import dbbl.storage.StringFootprint;
+import dbbl.storage.StringInterner;
+
+import java.io.IOException;
+
 import java.awt.Window;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.Scanner;
 import java.util.Set;
@@ -28,6 +43,10 @@ import java.util.List;
  *     <li>Help system listing available commands and usage examples</li>
  *     <li>System status reporting (Java version, OS, available LAFs)</li>
  *     <li>Simulated console clearing</li>
+ *     <li>Data file verification, backups and atomic restores</li>
+ *     <li>Streaming export of questions, Leitner cards and the answer history</li>
+ *     <li>Headless re-grading of the answer history</li>
+ *     <li>Heap footprint report of the loaded theme, title and key strings</li>
  * </ul>
  *
  * <p><strong>Dependencies:</strong> 
@@ -49,7 +68,8 @@ public class ConsoleCommandService {
      * Prevents execution of arbitrary, potentially unsafe commands.
      */
     private static final Set<String> ALLOWED_COMMANDS = Set.of(
-        "help", "laf", "themes", "current", "reset", "status", "clear"
+        "help", "laf", "themes", "current", "reset", "status", "clear", "verify", "backup", "backups", "restore",
+        "export", "grade", "footprint"
     );
 
     /**
@@ -68,6 +88,12 @@ public class ConsoleCommandService {
     /**
      * Scanner instance used to read console input from the user.
      */
+    private static final Map<String, String> EXPORT_STORES = Map.of(
+        "questions", "quiz_questions.dat",
+        "cards", "leitner_system.dat",
+        "results", "quiz_statistics.dat"
+    );
+
     private static final Scanner scanner = new Scanner(System.in);
 
     /**
@@ -159,6 +185,26 @@ public class ConsoleCommandService {
             case "reset": resetToDefault(); break;
             case "status": showStatus(); break;
             case "clear": clearConsole(); break;
+            case "verify": verifyStores(); break;
+            case "backup": createBackup(); break;
+            case "backups": listBackups(); break;
+            case "restore":
+                if (parts.length < 2) {
+                    System.out.println("❌ Usage: restore <backup-id>");
+                    System.out.println("   Type 'backups' to list available backups.");
+                } else {
+                    restoreBackup(parts[1]);
+                }
+                break;
+            case "export":
+                if (parts.length < 2 || !EXPORT_STORES.containsKey(parts[1])) {
+                    System.out.println("❌ Usage: export <questions|cards|results> [csv|jsonl|binary]");
+                } else {
+                    exportData(parts[1], parts.length > 2 ? parts[2] : "csv");
+                }
+                break;
+            case "grade": gradeHistory(); break;
+            case "footprint": showFootprint(); break;
             default:
                 System.out.println("❌ Command not implemented: " + command);
         }
@@ -179,6 +225,14 @@ public class ConsoleCommandService {
         System.out.println("reset         - Reset to default theme");
         System.out.println("status        - Show system status");
         System.out.println("clear         - Clear the console");
+        System.out.println("verify        - Check data files for corruption");
+        System.out.println("backup        - Back up all data files");
+        System.out.println("backups       - List available backups");
+        System.out.println("restore <id>  - Restore the data files of a backup");
+        System.out.println("export <what> [csv|jsonl|binary]");
+        System.out.println("              - Export questions, cards or results");
+        System.out.println("grade         - Re-grade the answer history against current questions");
+        System.out.println("footprint     - Report heap used by theme, title and key strings");
         System.out.println("exit/quit     - Terminate console");
         System.out.println("─".repeat(40));
         System.out.println("\n💡 EXAMPLES:");
@@ -296,6 +350,148 @@ public class ConsoleCommandService {
         System.out.println();
     }
 
+    /**
+     * Verifies the checksums of all binary data files in the working directory.
+     */
+    private static void verifyStores() {
+        System.out.println("\n🔍 DATA FILE VERIFICATION:");
+        System.out.println("─".repeat(40));
+        List<StoreVerifier.Report> reports = StoreVerifier.verifyAll(List.of(Paths.get(".")));
+        reports.forEach(System.out::println);
+        long failed = reports.stream().filter(r -> !r.ok).count();
+        System.out.println("─".repeat(40));
+        System.out.println(failed == 0 ? "✅ " + reports.size() + " files verified"
+                                       : "❌ " + failed + " of " + reports.size() + " files failed");
+        System.out.println();
+    }
+
+    // ================== BACKUP & RESTORE ==================
+
+    /**
+     * Backs up all data files of the working directory at one point in time.
+     */
+    private static void createBackup() {
+        try {
+            BackupRepository.Snapshot s = BackupService.forWorkingDirectory().backup("console");
+            System.out.println("✅ Backup created: " + s.id + " (" + s.addedBytes + " of " + s.totalBytes()
+                    + " bytes stored)");
+        } catch (IOException e) {
+            System.out.println("❌ Backup failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lists all backups of the working directory, oldest first.
+     */
+    private static void listBackups() {
+        System.out.println("\n💾 BACKUPS:");
+        System.out.println("─".repeat(40));
+        List<BackupRepository.Snapshot> snapshots = BackupService.forWorkingDirectory().repository().snapshots();
+        snapshots.forEach(s -> System.out.printf("%-40s %3d files %10d bytes%n", s.id, s.files.size(), s.totalBytes()));
+        System.out.println("─".repeat(40));
+        System.out.println(snapshots.size() + " backups");
+        System.out.println();
+    }
+
+    /**
+     * Atomically replaces the data files by those of a backup. The current
+     * files are backed up first ("pre-restore").
+     *
+     * @param id backup id as listed by {@code backups}
+     */
+    private static void restoreBackup(String id) {
+        try {
+            BackupRepository.Snapshot before = BackupService.forWorkingDirectory().restore(id);
+            System.out.println("✅ Backup restored: " + id + " (previous state saved as " + before.id + ")");
+            System.out.println("   Restart QUIZEE to reload learning progress and statistics.");
+        } catch (IOException e) {
+            System.out.println("❌ Restore failed: " + e.getMessage());
+        }
+    }
+
+    // ================== EXPORT ==================
+
+    /**
+     * Streams one data file of the working directory into
+     * {@code export_<what>_<timestamp>.<format>}. Runs as a barrier on the
+     * persistence executor, so queued store writes are exported as well
+     * (questions as of the last snapshot, without journaled edits).
+     *
+     * @param what {@code questions}, {@code cards} or {@code results}
+     * @param format {@code csv}, {@code jsonl} or {@code binary}
+     */
+    private static void exportData(String what, String format) {
+        QuizDataExporter.Format f;
+        try {
+            f = QuizDataExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Unknown export format: '" + format + "'");
+            return;
+        }
+        Path store = Paths.get(EXPORT_STORES.get(what));
+        String stamp = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        Path target = Paths.get("export_" + what + "_" + stamp + "." + (f == QuizDataExporter.Format.BINARY ? "dat" : format));
+        try {
+            long rows = PersistenceExecutor.shared().barrier(() -> {
+                switch (what) {
+                    case "questions": return QuizDataExporter.exportQuestions(store, target, f);
+                    case "cards": return QuizDataExporter.exportLeitnerCards(store, target, f);
+                    default: return QuizDataExporter.exportResults(store, target, f);
+                }
+            }).join();
+            System.out.println("✅ Exported " + rows + " " + what + " to " + target.toAbsolutePath());
+        } catch (java.util.concurrent.CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.out.println("❌ Export failed: " + cause.getMessage());
+        }
+    }
+
+    /**
+     * Re-grades the recorded answer history of the working directory against
+     * the current questions, streaming the results from the statistics store.
+     */
+    private static void gradeHistory() {
+        List<QuestionValue> questions = GuiModuleDelegate.createDefault().business().streamAllQuestions()
+                .map(RepoQuizeeQuestions::value)
+                .collect(java.util.stream.Collectors.toList());
+        try {
+            SessionGrader.Report r = new SessionGrader(questions).gradeStore(Paths.get(EXPORT_STORES.get("results")));
+            System.out.println("✅ " + r);
+        } catch (IOException e) {
+            System.out.println("❌ Grading failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads questions, Leitner cards and statistics the way the application
+     * does and reports how many string instances their themes, titles and keys
+     * occupy, and how much of that is held by duplicates.
+     */
+    private static void showFootprint() {
+        StringFootprint footprint = new StringFootprint();
+        GuiModuleDelegate.createDefault().business().streamAllQuestions()
+                .map(RepoQuizeeQuestions::value)
+                .forEach(q -> footprint.add(q.theme()).add(q.title()));
+        try {
+            QuizStoreCodec.LeitnerSnapshot leitner = QuizStoreCodec.readLeitner(Paths.get(EXPORT_STORES.get("cards")));
+            leitner.cards.forEach((key, card) -> footprint.add(key)
+                    .add(card.getQuestionId()).add(card.getTheme()).add(card.getQuestionTitle()));
+        } catch (IOException e) {
+            System.out.println("⚠️ Leitner store not read: " + e.getMessage());
+        }
+        try {
+            QuizStoreCodec.StatisticsSnapshot stats = QuizStoreCodec.readStatistics(Paths.get(EXPORT_STORES.get("results")));
+            stats.questionStats.forEach((key, q) -> footprint.add(key).add(q.questionTitle));
+            stats.themeStats.keySet().forEach(footprint::add);
+            stats.results.forEach(r -> footprint.add(r.theme).add(r.questionTitle)
+                    .add(r.userAnswer).add(r.correctAnswer));
+        } catch (IOException e) {
+            System.out.println("⚠️ Statistics store not read: " + e.getMessage());
+        }
+        System.out.println("📊 Strings: " + footprint);
+        System.out.println("   Interned symbols: " + StringInterner.size());
+    }
+
     /**
      * Simulates clearing the console by printing multiple newlines.
      */
@@ -5,10 +5,11 @@ import dbbl.RepoQuizeeQuestions;
 import java.awt.*;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.List;
-import java.util.function.BiConsumer;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.time.format.DateTimeFormatter;
 import javax.swing.*;
 
@@ -287,25 +288,14 @@ public class CreateQuizQuestionListPanel extends JPanel implements Serializable
     private void applySortingToList() {
         String selectedTopic = getSelectedTopic();
         if (selectedTopic != null && !selectedTopic.isEmpty()) {
-            // Get original titles for mapping to indices
-            List<String> originalTitles = delegate.getQuestionTitles(selectedTopic);
-
-            // Build unsorted question objects alongside their original indices via id mapping
-            Map<String, Integer> idToIndex = new HashMap<>();
-            for (int i = 0; i < originalTitles.size(); i++) {
-                idToIndex.put(selectedTopic + ":" + originalTitles.get(i), i);
-            }
-
-            List<RepoQuizeeQuestions> questions = new ArrayList<>();
-            for (int i = 0; i < originalTitles.size(); i++) {
-                try {
-                    RepoQuizeeQuestions q = delegate.getQuestion(selectedTopic, i);
-                    if (q != null) {
-                        questions.add(q);
-                    }
-                } catch (Exception ex) {
-                    // ignore broken entries
-                }
+            // Load all questions once; remember original indices by instance, and by
+            // title for rows the sorting service hands back as copies
+            List<RepoQuizeeQuestions> questions = new ArrayList<>(delegate.getQuestions(selectedTopic));
+            Map<RepoQuizeeQuestions, Integer> instanceToIndex = new IdentityHashMap<>(questions.size() * 2);
+            Map<String, Integer> titleToIndex = new HashMap<>(questions.size() * 2);
+            for (int i = 0; i < questions.size(); i++) {
+                instanceToIndex.put(questions.get(i), i);
+                titleToIndex.putIfAbsent(questions.get(i).getTitel(), i);
             }
 
             // Apply sorting and filtering
@@ -315,9 +305,10 @@ public class CreateQuizQuestionListPanel extends JPanel implements Serializable
             listModel.clear();
             originalIndexMapping.clear();
             for (RepoQuizeeQuestions q : sortedQuestions) {
-                String id = (q.getThema() != null ? q.getThema() : selectedTopic) + ":" + q.getTitel();
-                Integer origIdx = idToIndex.getOrDefault(id, -1);
-                originalIndexMapping.add(origIdx >= 0 ? origIdx : 0);
+                Integer origIdx = instanceToIndex.get(q);
+                if (origIdx == null) origIdx = titleToIndex.get(q.getTitel());
+                if (origIdx == null) continue; // not part of the loaded theme; never map it to another row
+                originalIndexMapping.add(origIdx);
                 String dateStr = q.getCreatedAt() != null ? q.getCreatedAt().format(dateFormatter) : "";
                 listModel.addElement(q.getTitel() + "  (" + dateStr + ")");
             }
@@ -1,6 +1,7 @@
 package guimodule;
 
 import dbbl.BusinesslogicaDelegation;
+import dbbl.RepoQuizeeQuestions;
 import java.awt.*;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -285,7 +286,12 @@ public class CreateQuizQuestionsPanel extends JPanel implements Serializable {
             showMessage("Please select a question to delete!", Color.RED);
             return;
         }
-        delegate.deleteQuestion(topic, idx);
+        RepoQuizeeQuestions selected = delegate.getQuestion(topic, idx);
+        if (selected != null && selected.getId() > 0) {
+            delegate.deleteQuestionById(topic, selected.getId());
+        } else {
+            delegate.deleteQuestion(topic, idx);
+        }
         showMessage("Question deleted successfully!", Color.GREEN);
         onDeleted.run();
     }
@@ -1,6 +1,7 @@
 package guimodule;
 
 import dbbl.BusinesslogicaDelegation;
+import dbbl.QuestionValue;
 import dbbl.RepoQuizeeQuestions;
 
 import java.awt.*;
@@ -8,6 +9,7 @@ import java.io.Serializable;
 import java.util.*;
 import java.util.List;
 import java.util.function.*;
+import java.util.stream.Collectors;
 
 import javax.swing.*;
 
@@ -56,7 +58,7 @@ public class ModularQuizPlay extends JPanel implements Serializable {
     private int correctAnswers = 0;
     private int totalQuestions = 0;
     private int answeredQuestions = 0;
-    private String selectedAnswer = null;
+    private int selectedIndex = -1;
     private boolean answerShown = false;
     private boolean questionAnswered = false;
     private String currentTheme = null;
@@ -92,6 +94,8 @@ public class ModularQuizPlay extends JPanel implements Serializable {
         public final boolean isCorrect;
         public final long timestamp;
         public final long answerTimeMs;
+        /** Persistente Fragen-ID (0 = unbekannt, z.B. bei älteren Ergebnissen). */
+        public final long questionId;
 
         /**
          * Konstruktor für ein QuizResult.
@@ -105,13 +109,35 @@ public class ModularQuizPlay extends JPanel implements Serializable {
          */
         public QuizResult(String theme, String questionTitle, String userAnswer,
                           String correctAnswer, boolean isCorrect, long answerTimeMs) {
+            this(theme, questionTitle, userAnswer, correctAnswer, isCorrect, answerTimeMs, System.currentTimeMillis());
+        }
+
+        /**
+         * Konstruktor mit vorgegebenem Zeitstempel (Laden persistierter Ergebnisse).
+         *
+         * @param timestamp Zeitpunkt der Antwort in Millisekunden seit Epoch
+         */
+        public QuizResult(String theme, String questionTitle, String userAnswer,
+                          String correctAnswer, boolean isCorrect, long answerTimeMs, long timestamp) {
+            this(theme, questionTitle, userAnswer, correctAnswer, isCorrect, answerTimeMs, timestamp, 0L);
+        }
+
+        /**
+         * Konstruktor mit persistenter Fragen-ID für ID-basierte Verknüpfungen
+         * (Leitner-Karten, Statistik).
+         *
+         * @param questionId persistente ID der Frage, 0 falls unbekannt
+         */
+        public QuizResult(String theme, String questionTitle, String userAnswer, String correctAnswer,
+                          boolean isCorrect, long answerTimeMs, long timestamp, long questionId) {
             this.theme = theme;
             this.questionTitle = questionTitle;
             this.userAnswer = userAnswer;
             this.correctAnswer = correctAnswer;
             this.isCorrect = isCorrect;
-            this.timestamp = System.currentTimeMillis();
+            this.timestamp = timestamp;
             this.answerTimeMs = answerTimeMs;
+            this.questionId = questionId;
         }
 
         /**
@@ -166,24 +192,11 @@ public class ModularQuizPlay extends JPanel implements Serializable {
             if (theme == null || theme.equals("Alle Themen")) {
                 return getAllQuestions.get();
             }
-            List<String> questionTitles = delegate.getQuestionTitles(theme);
-            List<RepoQuizeeQuestions> questions = new ArrayList<>();
-            for (int i = 0; i < questionTitles.size(); i++) {
-                RepoQuizeeQuestions q = delegate.getQuestion(theme, i);
-                if (q != null) questions.add(q);
-            }
-            return questions;
+            return new ArrayList<>(delegate.getQuestions(theme));
         };
 
         // Get all questions from all themes
-        getAllQuestions = () -> {
-            List<RepoQuizeeQuestions> allQuestions = new ArrayList<>();
-            List<String> themes = delegate.getAllTopics();
-            for (String theme : themes) {
-                allQuestions.addAll(getQuestionsForTheme.apply(theme));
-            }
-            return allQuestions;
-        };
+        getAllQuestions = () -> delegate.streamAllQuestions().collect(Collectors.toCollection(ArrayList::new));
 
         // Record quiz result
         recordQuizResult = result -> {
@@ -199,6 +212,9 @@ public class ModularQuizPlay extends JPanel implements Serializable {
         onQuizCompleted = () -> {
             showQuizSummary();
             statisticsService.saveStatistics();
+            if (externalStatsPanel != null) {
+                externalStatsPanel.endSession();
+            }
         };
     }
 
@@ -469,7 +485,8 @@ public class ModularQuizPlay extends JPanel implements Serializable {
         }
 
         RepoQuizeeQuestions question = currentQuestions.get(currentIndex);
-        selectedAnswer = null;
+        QuestionValue value = question.value();
+        selectedIndex = -1;
         answerShown = false;
         questionAnswered = false;
         questionStartTime = System.currentTimeMillis();
@@ -479,16 +496,14 @@ public class ModularQuizPlay extends JPanel implements Serializable {
         answersPanel.removeAll();
         ButtonGroup group = new ButtonGroup();
 
-        List<String> answers = question.getAntworten();
-        Collections.shuffle(answers);
-
-        for (String answer : answers) {
-            JRadioButton btn = new JRadioButton(answer);
+        // each button keeps the index of its answer, so grading is a bit test
+        for (int answerIndex : shuffledOrder(value.answerCount())) {
+            JRadioButton btn = new JRadioButton(value.answer(answerIndex));
             group.add(btn);
             answersPanel.add(btn);
 
             btn.addActionListener(e -> {
-                selectedAnswer = answer;
+                selectedIndex = answerIndex;
                 checkAnswer(question);
 
                 javax.swing.Timer timer = new javax.swing.Timer(2000, evt -> {
@@ -518,12 +533,13 @@ public class ModularQuizPlay extends JPanel implements Serializable {
      * Checks the selected answer for correctness and updates feedback.
      */
     private void checkAnswer(RepoQuizeeQuestions question) {
-        if (selectedAnswer == null || questionAnswered) return;
+        if (selectedIndex < 0 || questionAnswered) return;
         questionAnswered = true;
         answeredQuestions++;
+        QuestionValue value = question.value();
         String allCorrectAnswers = getCorrectAnswer(question);
-        boolean isCorrect = isAnswerCorrect(question, selectedAnswer);
-        String explanation = question.getErklaerung();
+        boolean isCorrect = value.isCorrect(selectedIndex);
+        String explanation = value.explanation();
 
         StringBuilder feedback = new StringBuilder();
         if (isCorrect) {
@@ -544,11 +560,13 @@ public class ModularQuizPlay extends JPanel implements Serializable {
 
         recordQuizResult.accept(new QuizResult(
             currentTheme,
-            question.getTitel(),
-            selectedAnswer,
+            value.title(),
+            value.answer(selectedIndex),
             allCorrectAnswers,
             isCorrect,
-            answerTime
+            answerTime,
+            System.currentTimeMillis(),
+            value.id()
         ));
 
         updateScore();
@@ -573,35 +591,32 @@ public class ModularQuizPlay extends JPanel implements Serializable {
 
     
     /**
-     * Returns the correct answer(s) for a given question.
+     * Returns the correct answer(s) for a given question; the text is
+     * computed once per question value and cached there.
      * @param question The question to evaluate
      * @return String representation of correct answer(s)
      */
     private String getCorrectAnswer(RepoQuizeeQuestions question) {
-        List<String> answers = question.getAntworten();
-        List<Boolean> correct = question.getKorrekt();
-        List<String> correctAnswers = new ArrayList<>();
-        for (int i = 0; i < answers.size() && i < correct.size(); i++) {
-            if (Boolean.TRUE.equals(correct.get(i))) correctAnswers.add(answers.get(i));
-        }
-        if (correctAnswers.isEmpty()) return !answers.isEmpty() ? answers.get(0) : "Keine Antwort";
-        else if (correctAnswers.size() == 1) return correctAnswers.get(0);
-        else return String.join(", ", correctAnswers);
+        String text = question.value().correctAnswerText();
+        return text.isEmpty() ? "Keine Antwort" : text;
     }
 
     /**
-     * Determines if the selected answer is correct.
-     * @param question The question being answered
-     * @param selectedAnswer The answer selected by the user
-     * @return true if correct, false otherwise
+     * Random display order of the answers (Fisher–Yates over answer indexes).
+     * @param count number of answers
+     * @return answer index per button position
      */
-    private boolean isAnswerCorrect(RepoQuizeeQuestions question, String selectedAnswer) {
-        List<String> answers = question.getAntworten();
-        List<Boolean> correct = question.getKorrekt();
-        for (int i = 0; i < answers.size() && i < correct.size(); i++) {
-            if (answers.get(i).equals(selectedAnswer) && Boolean.TRUE.equals(correct.get(i))) return true;
+    private static int[] shuffledOrder(int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Random random = java.util.concurrent.ThreadLocalRandom.current();
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
         }
-        return false;
+        return order;
     }
 
     /**
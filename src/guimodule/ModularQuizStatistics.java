@@ -1,7 +1,13 @@
 package guimodule;
 
+import dbbl.storage.BackupService;
+import dbbl.storage.GenerationFiles;
+import dbbl.storage.PersistenceExecutor;
+import dbbl.storage.QuizStoreCodec;
+
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.*;
 import java.util.stream.Collectors;
@@ -32,6 +38,10 @@ public class ModularQuizStatistics implements Serializable {
     private final Map<String, QuestionStatistics> questionStats = new ConcurrentHashMap<>();
     private final Map<String, ThemeStatistics> themeStats = new ConcurrentHashMap<>();
     private final List<ModularQuizPlay.QuizResult> allResults = new ArrayList<>();
+
+    /** Reloads the statistics after a backup restore and drops saves copied before it. */
+    private final transient BackupService.ExecutorStoreGuard backupGuard =
+            new BackupService.ExecutorStoreGuard(this::reloadStatistics);
     
     // Lambda-based operations
     private Function<String, QuestionStatistics> getQuestionStats;
@@ -59,6 +69,18 @@ public class ModularQuizStatistics implements Serializable {
         public QuestionStatistics(String questionTitle) {
             this.questionTitle = questionTitle;
         }
+
+        /** Independent copy used as persistence snapshot. */
+        public QuestionStatistics copy() {
+            QuestionStatistics copy = new QuestionStatistics(questionTitle);
+            copy.totalAttempts = totalAttempts;
+            copy.correctAttempts = correctAttempts;
+            copy.consecutiveCorrect = consecutiveCorrect;
+            copy.consecutiveWrong = consecutiveWrong;
+            copy.lastAttempt = lastAttempt;
+            copy.karteikartenLevel = karteikartenLevel;
+            return copy;
+        }
         
         public double getSuccessRate() {
             return totalAttempts > 0 ? (correctAttempts * 100.0 / totalAttempts) : 0;
@@ -105,6 +127,16 @@ public class ModularQuizStatistics implements Serializable {
         public ThemeStatistics(String name) {
             this.name = name;
         }
+
+        /** Independent copy used as persistence snapshot. */
+        public ThemeStatistics copy() {
+            ThemeStatistics copy = new ThemeStatistics(name);
+            copy.totalQuestions = totalQuestions;
+            copy.totalAttempts = totalAttempts;
+            copy.correctAttempts = correctAttempts;
+            copy.lastPlayed = lastPlayed;
+            return copy;
+        }
         
         public double getSuccessRate() {
             return totalAttempts > 0 ? (correctAttempts * 100.0 / totalAttempts) : 0;
@@ -115,6 +147,7 @@ public class ModularQuizStatistics implements Serializable {
         this.appManager = new QuizApplicationManager();
         initializeLambdas();
         loadStatistics();
+        BackupService.register(backupGuard);
     }
     
     /**
@@ -271,34 +304,86 @@ public class ModularQuizStatistics implements Serializable {
     
     /**
      * Save statistics to file.
+     * The statistics are copied on the calling thread and written on the
+     * shared {@link PersistenceExecutor}; the caller does not wait for the disk.
+     *
+     * @return future completed once the statistics are on disk
      */
-    public void saveStatistics() {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(STATISTICS_FILE))) {
-            Map<String, Object> data = new HashMap<>();
-            data.put("questionStats", questionStats);
-            data.put("themeStats", themeStats);
-            data.put("allResults", allResults);
-            out.writeObject(data);
-            System.out.println("Statistics saved successfully");
-        } catch (IOException e) {
-            System.err.println("Failed to save statistics: " + e.getMessage());
-        }
+    public CompletableFuture<Void> saveStatistics() {
+        long stamp = backupGuard.stamp();
+        Map<String, QuestionStatistics> qs = new HashMap<>(questionStats.size() * 2);
+        questionStats.forEach((k, v) -> qs.put(k, v.copy()));
+        Map<String, ThemeStatistics> ts = new HashMap<>(themeStats.size() * 2);
+        themeStats.forEach((k, v) -> ts.put(k, v.copy()));
+        List<ModularQuizPlay.QuizResult> results = new ArrayList<>(allResults); // results are immutable
+        CompletableFuture<Void> saved = PersistenceExecutor.shared().submit(STATISTICS_FILE,
+                () -> { if (backupGuard.isCurrent(stamp)) writeStatistics(qs, ts, results); });
+        saved.whenComplete((ignored, e) -> {
+            if (e != null) System.err.println("Failed to save statistics: " + e.getMessage());
+            else System.out.println("Statistics saved successfully");
+        });
+        return saved;
+    }
+
+    /**
+     * Writes a statistics snapshot as the next generation of the statistics
+     * file. Runs on the persistence thread.
+     */
+    static void writeStatistics(Map<String, QuestionStatistics> qs, Map<String, ThemeStatistics> ts,
+                                List<ModularQuizPlay.QuizResult> results) throws IOException {
+        QuizStoreCodec.writeStatistics(new File(STATISTICS_FILE).toPath(), qs, ts, results);
     }
     
     /**
      * Load statistics from file.
      * Supports multiple formats for backward compatibility:
-     * - Map-based snapshot (current default)
-     * - ModularStatisticsPanel$StatisticsData (panel snapshot)
+     * - Binary store (current default, see {@link QuizStoreCodec})
+     * - Map-based snapshot (legacy serialization)
+     * - ModularStatisticsPanel$StatisticsData (legacy panel snapshot)
      * - ModularStatisticsPanel (legacy serialized panel)
+     * Legacy files are imported once and rewritten in the binary format.
+     * Unreadable binary stores are moved aside instead of being overwritten.
      */
-    @SuppressWarnings("unchecked")
     private void loadStatistics() {
         File f = new File(STATISTICS_FILE);
-        if (!f.exists()) {
+        if (!GenerationFiles.exists(f)) {
             System.out.println("No existing statistics found, starting fresh");
             return;
         }
+        if (GenerationFiles.isBinary(f)) {
+            try {
+                QuizStoreCodec.StatisticsSnapshot snap = QuizStoreCodec.readStatistics(f.toPath());
+                questionStats.putAll(snap.questionStats);
+                themeStats.putAll(snap.themeStats);
+                allResults.addAll(snap.results);
+                System.out.println("Statistics loaded successfully");
+            } catch (IOException e) {
+                System.err.println("Failed to load statistics: " + e.getMessage());
+                System.err.println("Corrupt statistics moved to " + GenerationFiles.quarantine(f.toPath()));
+            }
+            return;
+        }
+        if (importLegacyStatistics()) saveStatistics();
+    }
+
+    /**
+     * Replaces all statistics by the file restored from a backup; runs on the
+     * persistence thread.
+     */
+    private void reloadStatistics() {
+        questionStats.clear();
+        themeStats.clear();
+        allResults.clear();
+        loadStatistics();
+    }
+
+    /**
+     * One-shot import of a statistics file written with Java serialization.
+     *
+     * @return {@code true} if legacy data was imported
+     */
+    @SuppressWarnings("unchecked")
+    private boolean importLegacyStatistics() {
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(STATISTICS_FILE))) {
             Object obj = in.readObject();
             if (obj instanceof Map) {
@@ -320,10 +405,13 @@ public class ModularQuizStatistics implements Serializable {
                 loadFromLegacyPanel(obj);
             } else {
                 System.out.println("Unknown statistics data format, starting fresh");
+                return false;
             }
             System.out.println("Statistics loaded successfully");
+            return true;
         } catch (Exception e) {
             System.out.println("No existing statistics found, starting fresh");
+            return false;
         }
     }
 
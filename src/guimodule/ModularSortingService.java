@@ -184,10 +184,7 @@ public class ModularSortingService implements SortingDelegate, Serializable {
             if (filterText == null || filterText.trim().isEmpty()) {
                 return true;
             }
-            String filter = filterText.toLowerCase();
-            return question.getTitel().toLowerCase().contains(filter) ||
-                   question.getFrageText().toLowerCase().contains(filter) ||
-                   question.getAntworten().stream().anyMatch(a -> a.toLowerCase().contains(filter));
+            return question.value().containsText(filterText.toLowerCase(Locale.ROOT));
         };
 
         // === Date range filter ===
@@ -1,6 +1,11 @@
 package guimodule;
 
 import dbbl.BusinesslogicaDelegation;
+import dbbl.storage.BackupService;
+import dbbl.storage.GenerationFiles;
+import dbbl.storage.PersistenceExecutor;
+import dbbl.storage.QuizDataExporter;
+import dbbl.storage.QuizStoreCodec;
 import java.awt.*;
 import java.io.*;
 import java.util.*;
@@ -146,6 +151,10 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
      */
     private final List<ModularQuizPlay.QuizResult> allResults = new ArrayList<>();
 
+    /** Reloads the statistics after a backup restore and drops saves copied before it. */
+    private final transient BackupService.ExecutorStoreGuard backupGuard =
+            new BackupService.ExecutorStoreGuard(this::reloadStatistics);
+
     // =============================
     // INTEGRATIONS
     // =============================
@@ -302,6 +311,7 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
         initUI();
         // Lazy load statistics in background after UI is ready.
         SwingUtilities.invokeLater(this::loadStatisticsAsync);
+        BackupService.register(backupGuard);
     }
 
     /**
@@ -320,6 +330,7 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
         initUI();
         updateThemeSelector(); // Populate UI with live themes if available.
         SwingUtilities.invokeLater(this::loadStatisticsAsync);
+        BackupService.register(backupGuard);
     }
 
     /**
@@ -336,6 +347,7 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
         initUI();
         updateThemeSelector();
         SwingUtilities.invokeLater(this::loadStatisticsAsync);
+        BackupService.register(backupGuard);
     }
 
     // =============================
@@ -431,6 +443,16 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
         SwingUtilities.invokeLater(this::refreshStatistics);
     }
 
+    /**
+     * Ends the current quiz session. The Leitner system, when present, hands
+     * the cards changed in it to the persistence layer in one batch.
+     */
+    public void endSession() {
+        if (leitnerSystem != null) {
+            leitnerSystem.endSession();
+        }
+    }
+
     /**
      * Computes global aggregates across all themes/questions. The returned map
      * is intended for lightweight UI cards or external readout (no heavy charts).
@@ -488,32 +510,50 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
     // =============================
 
     /**
-     * Saves statistics to disk on a background thread. Uses a lightweight DTO
-     * ({@link StatisticsData}) to decouple storage from UI internals and
-     * maintain forward compatibility.
+     * Saves statistics to disk in the shared binary store format
+     * ({@link QuizStoreCodec}), so the file stays readable by
+     * {@link ModularQuizStatistics} and vice versa.
+     * <p>
+     * The snapshot is converted on the calling thread; the write runs on the
+     * shared {@link PersistenceExecutor} under the same store key as
+     * {@link ModularQuizStatistics}, so both never write the file concurrently.
      */
     private void saveStatistics() {
-        // Save in background thread to avoid UI blocking.
-        new Thread(() -> {
-            try {
-                // Build DTO snapshot for serialization.
-                StatisticsData data = new StatisticsData();
-                data.questionStats.putAll(this.questionStats);
-                data.themeStats.putAll(this.themeStats);
-                data.allResults.addAll(this.allResults);
-
-                try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(STATISTICS_FILE))) {
-                    out.writeObject(data);
-                }
-            } catch (IOException e) {
-                System.err.println("Failed to save statistics: " + e.getMessage());
-            }
-        }).start();
+        long stamp = backupGuard.stamp();
+        Map<String, ModularQuizStatistics.QuestionStatistics> qs = new HashMap<>();
+        for (Map.Entry<String, QuestionStatistics> e : this.questionStats.entrySet()) {
+            QuestionStatistics src = e.getValue();
+            ModularQuizStatistics.QuestionStatistics dst = new ModularQuizStatistics.QuestionStatistics(src.questionTitle);
+            dst.totalAttempts = src.totalAttempts;
+            dst.correctAttempts = src.correctAttempts;
+            dst.consecutiveCorrect = src.consecutiveCorrect;
+            dst.consecutiveWrong = src.consecutiveWrong;
+            dst.lastAttempt = src.lastAttempt;
+            dst.karteikartenLevel = src.karteikartenLevel;
+            qs.put(e.getKey(), dst);
+        }
+        Map<String, ModularQuizStatistics.ThemeStatistics> ts = new HashMap<>();
+        for (ThemeStatistics src : this.themeStats.values()) {
+            ModularQuizStatistics.ThemeStatistics dst = new ModularQuizStatistics.ThemeStatistics(src.themeName);
+            dst.totalQuestions = src.totalQuestions;
+            dst.totalAttempts = src.totalAttempts;
+            dst.correctAttempts = src.correctAttempts;
+            dst.lastPlayed = src.lastPlayed;
+            ts.put(dst.name, dst);
+        }
+        List<ModularQuizPlay.QuizResult> results = new ArrayList<>(this.allResults);
+        PersistenceExecutor.shared()
+                .submit(STATISTICS_FILE, () -> {
+                    if (backupGuard.isCurrent(stamp)) ModularQuizStatistics.writeStatistics(qs, ts, results);
+                })
+                .whenComplete((ignored, e) -> {
+                    if (e != null) System.err.println("Failed to save statistics: " + e.getMessage());
+                });
     }
 
     /**
-     * Lightweight, serialization-friendly container for persisted state.
-     * Kept private to preserve storage invariants.
+     * Legacy serialization container; only read to import files written
+     * before the binary store format.
      */
     private static class StatisticsData implements Serializable {
         private static final long serialVersionUID = 1L;
@@ -566,12 +606,60 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
         }).start();
     }
 
+    /**
+     * Replaces all statistics by the file restored from a backup (on the
+     * persistence thread), then refreshes the UI on the EDT.
+     */
+    private void reloadStatistics() {
+        questionStats.clear();
+        themeStats.clear();
+        allResults.clear();
+        loadStatistics();
+        SwingUtilities.invokeLater(() -> {
+            loadThemes();
+            refreshStatistics();
+        });
+    }
+
     /**
      * Synchronously loads statistics from {@value #STATISTICS_FILE}.
-     * Supports both the current DTO format and the legacy serialized panel format
-     * for backward compatibility.
+     * Reads the binary store format and, for backward compatibility, the legacy
+     * serialized DTO and panel formats.
      */
     private void loadStatistics() {
+        File file = new File(STATISTICS_FILE);
+        if (GenerationFiles.isBinary(file)) {
+            try {
+                QuizStoreCodec.StatisticsSnapshot snap = QuizStoreCodec.readStatistics(file.toPath());
+                this.questionStats.clear();
+                for (Map.Entry<String, ModularQuizStatistics.QuestionStatistics> e : snap.questionStats.entrySet()) {
+                    ModularQuizStatistics.QuestionStatistics src = e.getValue();
+                    QuestionStatistics dst = new QuestionStatistics(src.questionTitle);
+                    dst.totalAttempts = src.totalAttempts;
+                    dst.correctAttempts = src.correctAttempts;
+                    dst.consecutiveCorrect = src.consecutiveCorrect;
+                    dst.consecutiveWrong = src.consecutiveWrong;
+                    dst.lastAttempt = src.lastAttempt;
+                    dst.karteikartenLevel = src.karteikartenLevel;
+                    this.questionStats.put(e.getKey(), dst);
+                }
+                this.themeStats.clear();
+                for (ModularQuizStatistics.ThemeStatistics src : snap.themeStats.values()) {
+                    ThemeStatistics dst = new ThemeStatistics(src.name);
+                    dst.totalQuestions = src.totalQuestions;
+                    dst.totalAttempts = src.totalAttempts;
+                    dst.correctAttempts = src.correctAttempts;
+                    dst.lastPlayed = src.lastPlayed;
+                    this.themeStats.put(dst.themeName, dst);
+                }
+                this.allResults.clear();
+                this.allResults.addAll(snap.results);
+            } catch (IOException e) {
+                System.err.println("Failed to load statistics: " + e.getMessage());
+                System.err.println("Corrupt statistics moved to " + GenerationFiles.quarantine(file.toPath()));
+            }
+            return;
+        }
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(STATISTICS_FILE))) {
             Object obj = in.readObject();
 
@@ -1831,6 +1919,8 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
             "Text Dateien (*.txt)", "txt"));
         fileChooser.addChoosableFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
             "HTML Dateien (*.html)", "html"));
+        fileChooser.addChoosableFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+            "Antwortverlauf JSON Lines (*.jsonl)", "jsonl"));
 
         // Set default filename
         fileChooser.setSelectedFile(new java.io.File("quiz_statistiken_" +
@@ -1840,6 +1930,10 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
         if (result == JFileChooser.APPROVE_OPTION) {
             java.io.File file = fileChooser.getSelectedFile();
             String fileName = file.getName().toLowerCase();
+            if (fileName.endsWith(".jsonl")) {
+                exportHistory(file);
+                return;
+            }
 
             try {
                 if (fileName.endsWith(".csv")) {
@@ -1866,6 +1960,35 @@ public class ModularStatisticsPanel extends JPanel implements Serializable {
         }
     }
 
+    /**
+     * Exports the raw answer history off the EDT: the current state is queued
+     * for saving and the export runs as a barrier on the
+     * {@link PersistenceExecutor}, streaming the result ledger from the store
+     * file instead of copying {@code allResults}.
+     */
+    private void exportHistory(java.io.File file) {
+        saveStatistics();
+        PersistenceExecutor.shared()
+                .barrier(() -> QuizDataExporter.exportResults(new java.io.File(STATISTICS_FILE).toPath(),
+                        file.toPath(), QuizDataExporter.Format.JSONL))
+                .whenComplete((rows, e) -> SwingUtilities.invokeLater(() -> {
+                    if (e == null) {
+                        JOptionPane.showMessageDialog(this,
+                            "<html><h3>✅ Export erfolgreich</h3>" +
+                            "<p>" + rows + " Antworten wurden exportiert nach:</p>" +
+                            "<p><b>" + file.getAbsolutePath() + "</b></p></html>",
+                            "Export erfolgreich", JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        JOptionPane.showMessageDialog(this,
+                            "<html><h3>❌ Export fehlgeschlagen</h3>" +
+                            "<p>Fehler beim Exportieren:</p>" +
+                            "<p><i>" + cause.getMessage() + "</i></p></html>",
+                            "Export Fehler", JOptionPane.ERROR_MESSAGE);
+                    }
+                }));
+    }
+
     /**
      * Export to CSV format.
      */
@@ -1,8 +1,13 @@
 package guimodule;
 
+import dbbl.storage.BackupRepository;
+import dbbl.storage.BackupService;
+import dbbl.storage.DurableFiles;
+
 import java.awt.Desktop;
 import java.io.*;
 import java.nio.file.*;
+import java.util.List;
 import java.util.function.*;
 
 /**
@@ -36,6 +41,9 @@ public class QuizApplicationManager implements Serializable {
     private static final String DATA_FOLDER_NAME = "data";
     private static final String STATS_FOLDER_NAME = "statistics";
     private static final String BACKUP_FOLDER_NAME = "backups";
+
+    /** Number of backups kept; older ones are pruned. */
+    private static final int BACKUP_RETENTION = 10;
     
     // === File Names ===
     private static final String APP_DATA_FILE = "quiz_data.dat";
@@ -129,7 +137,7 @@ public class QuizApplicationManager implements Serializable {
         saveApplicationData = data -> {
             try {
                 Path dataFile = dataFolderPath.resolve(APP_DATA_FILE);
-                Files.write(dataFile, data.getBytes());
+                DurableFiles.write(dataFile, data.getBytes());
                 logMessage.accept("Application data saved");
                 return true;
             } catch (IOException e) {
@@ -152,28 +160,16 @@ public class QuizApplicationManager implements Serializable {
             }
         };
         
-        // Create backup of data and statistics
+        // Incremental point-in-time backup of data and statistics: only changed chunks are stored
         createBackup = () -> {
             try {
-                String timestamp = String.valueOf(System.currentTimeMillis());
-                Path backupDir = backupFolderPath.resolve("backup_" + timestamp);
-                Files.createDirectories(backupDir);
-                
-                // Copy main data files
-                if (Files.exists(dataFolderPath.resolve(APP_DATA_FILE))) {
-                    Files.copy(
-                        dataFolderPath.resolve(APP_DATA_FILE),
-                        backupDir.resolve(APP_DATA_FILE)
-                    );
-                }
-                if (Files.exists(statsFolderPath.resolve(STATS_DATA_FILE))) {
-                    Files.copy(
-                        statsFolderPath.resolve(STATS_DATA_FILE),
-                        backupDir.resolve(STATS_DATA_FILE)
-                    );
-                }
-                
-                logMessage.accept("Backup created: " + backupDir.getFileName());
+                BackupService backups = new BackupService(appFolderPath, List.of(dataFolderPath, statsFolderPath),
+                        backupFolderPath);
+                BackupRepository.Snapshot snapshot = backups.backup("backup");
+                int pruned = backups.repository().prune(BACKUP_RETENTION);
+                logMessage.accept("Backup created: " + snapshot.id + " (" + snapshot.addedChunks + " new chunks, "
+                        + snapshot.addedBytes + " of " + snapshot.totalBytes() + " bytes stored, "
+                        + pruned + " chunks pruned)");
                 return true;
             } catch (IOException e) {
                 logMessage.accept("Failed to create backup: " + e.getMessage());
@@ -1,5 +1,6 @@
 package guimodule;
 
+import dbbl.QuestionValue;
 import dbbl.RepoQuizeeQuestions;
 import java.util.ArrayList;
 import java.util.List;
@@ -44,23 +45,15 @@ public class QuizDataMapper {
     public static QuizQuestion toQuizQuestion(RepoQuizeeQuestions repo) {
         if (repo == null) return null;
         
-        List<String> antworten = repo.getAntworten();
-        List<Boolean> korrekt = repo.getKorrekt();
-        
-        String[] antwortenArray = antworten.toArray(new String[0]);
-        boolean[] korrektArray = new boolean[korrekt.size()];
-        for (int i = 0; i < korrekt.size(); i++) {
-            korrektArray[i] = Boolean.TRUE.equals(korrekt.get(i));
-        }
-        
+        QuestionValue value = repo.value();
         QuizQuestion question = new QuizQuestion(
-            repo.getTitel(),
-            repo.getFrageText(),
-            antwortenArray,
-            korrektArray
+            value.title(),
+            value.text(),
+            value.answers().toArray(new String[0]),
+            value.correctArray()
         );
-        question.setThema(repo.getThema());
-        question.setCreatedAt(repo.getCreatedAt());
+        question.setThema(value.theme());
+        question.setCreatedAt(value.createdAt());
         
         return question;
     }
@@ -123,20 +116,12 @@ public class QuizDataMapper {
     public static QuizFormData toFormData(RepoQuizeeQuestions repo) {
         if (repo == null) return null;
         
-        List<String> antworten = repo.getAntworten();
-        List<Boolean> korrekt = repo.getKorrekt();
-        
-        String[] antwortenArray = antworten.toArray(new String[0]);
-        boolean[] korrektArray = new boolean[korrekt.size()];
-        for (int i = 0; i < korrekt.size(); i++) {
-            korrektArray[i] = Boolean.TRUE.equals(korrekt.get(i));
-        }
-        
+        QuestionValue value = repo.value();
         return new QuizFormData(
-            repo.getTitel(),
-            repo.getFrageText(),
-            antwortenArray,
-            korrektArray
+            value.title(),
+            value.text(),
+            value.answers().toArray(new String[0]),
+            value.correctArray()
         );
     }
     
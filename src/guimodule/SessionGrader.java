@@ -0,0 +1,125 @@
+package guimodule;
+
+import dbbl.LongIndex;
+import dbbl.QuestionValue;
+import dbbl.storage.GenerationFiles;
+import dbbl.storage.QuizStoreCodec;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * {@code SessionGrader} re-grades recorded answers ({@link ModularQuizPlay.QuizResult})
+ * against the current questions, headless and in batches.
+ * <p>
+ * Questions are resolved by persistent id, or by theme and title for results
+ * recorded before ids existed. Each answer text is resolved to its answer
+ * bits once per question ({@link QuestionValue#answerMask(String)}), so
+ * grading a result is a bit test against the correct mask rather than a
+ * scan over the answer strings. Results are graded one at a time;
+ * {@link #gradeStore(Path)} streams them from the statistics store without
+ * loading the history.
+ *
+ * @author D.
+ * @version 1.0
+ */
+public final class SessionGrader {
+
+    /**
+     * Outcome of a batch.
+     */
+    public static final class Report {
+        /** Results whose question was found. */
+        public long graded;
+        /** Graded results that are correct today. */
+        public long correct;
+        /** Results whose question no longer exists. */
+        public long unknown;
+        /** Graded results whose recorded outcome differs, e.g. after a question was edited. */
+        public long changed;
+
+        /** Share of correct results among the graded ones, 0..1. */
+        public double accuracy() {
+            return graded > 0 ? (double) correct / graded : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "Grading{graded=%d, correct=%d, unknown=%d, changed=%d, accuracy=%.1f%%}",
+                    graded, correct, unknown, changed, accuracy() * 100);
+        }
+    }
+
+    private final LongIndex<QuestionValue> byId;
+    private final Map<String, QuestionValue> byTitle;
+
+    /**
+     * @param questions current questions, e.g. of all themes
+     */
+    public SessionGrader(Iterable<QuestionValue> questions) {
+        this.byId = new LongIndex<>();
+        this.byTitle = new HashMap<>();
+        for (QuestionValue q : questions) {
+            if (q.id() != 0) byId.put(q.id(), q);
+            byTitle.put(titleKey(q.theme(), q.title()), q);
+        }
+    }
+
+    // ------------------- GRADING -------------------
+
+    /**
+     * Question a result refers to, or {@code null} if it no longer exists.
+     */
+    public QuestionValue questionOf(ModularQuizPlay.QuizResult result) {
+        QuestionValue q = result.questionId != 0 ? byId.get(result.questionId) : null;
+        return q != null ? q : byTitle.get(titleKey(result.theme, result.questionTitle));
+    }
+
+    /**
+     * Grades one result and adds it to the report.
+     *
+     * @return whether the recorded answer is correct today; {@code false} if the question is unknown
+     */
+    public boolean grade(ModularQuizPlay.QuizResult result, Report report) {
+        QuestionValue q = questionOf(result);
+        if (q == null) {
+            report.unknown++;
+            return false;
+        }
+        boolean correct = q.isCorrectAnswer(result.userAnswer);
+        report.graded++;
+        if (correct) report.correct++;
+        if (correct != result.isCorrect) report.changed++;
+        return correct;
+    }
+
+    /**
+     * Grades a batch of recorded results.
+     */
+    public Report grade(Iterable<ModularQuizPlay.QuizResult> results) {
+        Report report = new Report();
+        for (ModularQuizPlay.QuizResult r : results) grade(r, report);
+        return report;
+    }
+
+    /**
+     * Grades the result history of a statistics store, streamed from its
+     * newest readable generation.
+     *
+     * @param statisticsStore logical path of the statistics store
+     */
+    public Report gradeStore(Path statisticsStore) throws IOException {
+        return GenerationFiles.read(statisticsStore, slot -> {
+            Report report = new Report();
+            QuizStoreCodec.streamResults(slot, r -> grade(r, report));
+            return report;
+        });
+    }
+
+    private static String titleKey(String theme, String title) {
+        return theme + '\u0000' + title;
+    }
+}
@@ -1,8 +1,14 @@
 package guimodule.achievements;
 
+import dbbl.storage.BackupService;
+import dbbl.storage.GenerationFiles;
+import dbbl.storage.PersistenceExecutor;
+import dbbl.storage.QuizStoreCodec;
+
 import java.io.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service responsible for managing user achievements.
@@ -86,6 +92,18 @@ public class AchievementsService implements Serializable {
      */
     private final Map<Achievement, LocalDateTime> unlocked = new HashMap<>();
 
+    /** Reloads the achievements after a backup restore and drops saves copied before it. */
+    private final transient BackupService.ExecutorStoreGuard backupGuard =
+            new BackupService.ExecutorStoreGuard(this::reload);
+
+    /**
+     * Registers the service for backup restores; {@link #load()} is called
+     * again whenever the achievements file is restored.
+     */
+    public AchievementsService() {
+        BackupService.register(backupGuard);
+    }
+
     // === METHODS ===
 
     /**
@@ -124,40 +142,50 @@ public class AchievementsService implements Serializable {
     /**
      * Persists the current unlocked achievements to disk.
      * <p>
-     * Saves to a temporary file first and then renames to ensure data integrity.
+     * The achievements are copied on the calling thread and written on the
+     * shared {@link PersistenceExecutor} as the next generation of the file;
+     * the previous generation stays intact until the new one is complete.
+     *
+     * @return future completed once the achievements are on disk
      */
-    public void save() {
-        Snapshot snap = new Snapshot();
-        snap.unlocked.putAll(unlocked);
-        File target = new File(FILE);
-        File tmp = new File(FILE + ".tmp");
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
-            out.writeObject(snap);
-            out.flush();
-        } catch (IOException e) {
-            if (tmp.exists()) tmp.delete();
-            return;
-        }
-        if (target.exists() && !target.delete()) { tmp.delete(); return; }
-        if (!tmp.renameTo(target)) { tmp.delete(); }
+    public CompletableFuture<Void> save() {
+        long stamp = backupGuard.stamp();
+        Map<String, LocalDateTime> byName = new LinkedHashMap<>();
+        unlocked.forEach((a, t) -> byName.put(a.name(), t));
+        return PersistenceExecutor.shared().submit(FILE, () -> {
+            if (backupGuard.isCurrent(stamp)) QuizStoreCodec.writeAchievements(new File(FILE).toPath(), byName);
+        });
     }
 
     /**
      * Loads unlocked achievements from persistent storage.
      * <p>
-     * If the file does not exist or an error occurs, the method silently returns.
+     * A file in the legacy serialized format is imported once and rewritten in
+     * the binary format. If the file does not exist the method silently
+     * returns; an unreadable binary store is moved aside so the next save
+     * does not overwrite it.
      */
     public void load() {
         File f = new File(FILE);
-        if (!f.exists()) return;
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(f))) {
-            Object obj = in.readObject();
-            if (obj instanceof Snapshot) {
-                Snapshot s = (Snapshot) obj;
-                unlocked.clear();
-                if (s.unlocked != null) unlocked.putAll(s.unlocked);
-            }
-        } catch (Exception ignored) {}
+        if (!GenerationFiles.exists(f)) return;
+        boolean legacy = !GenerationFiles.isBinary(f);
+        Snapshot s = loadSnapshot(f);
+        if (s == null) {
+            if (!legacy) System.err.println("Corrupt achievements moved to " + GenerationFiles.quarantine(f.toPath()));
+            return;
+        }
+        unlocked.clear();
+        if (s.unlocked != null) unlocked.putAll(s.unlocked);
+        if (legacy) save();
+    }
+
+    /**
+     * Replaces the achievements by the file restored from a backup; runs on
+     * the persistence thread.
+     */
+    private void reload() {
+        unlocked.clear();
+        load();
     }
 
     /**
@@ -176,11 +204,27 @@ public class AchievementsService implements Serializable {
 
     /**
      * Loads a snapshot from a given file without affecting the current state.
+     * Accepts the binary store format as well as legacy serialized snapshots.
      * 
-     * @param f File containing serialized snapshot
+     * @param f File containing the achievements
      * @return Snapshot object if successfully loaded, null otherwise
      */
     public static Snapshot loadSnapshot(File f) {
+        if (GenerationFiles.isBinary(f)) {
+            try {
+                Snapshot s = new Snapshot();
+                for (Map.Entry<String, LocalDateTime> e : QuizStoreCodec.readAchievements(f.toPath()).entrySet()) {
+                    try {
+                        s.unlocked.put(Achievement.valueOf(e.getKey()), e.getValue());
+                    } catch (IllegalArgumentException unknown) {
+                        // achievement removed in this version
+                    }
+                }
+                return s;
+            } catch (IOException e) {
+                return null;
+            }
+        }
         try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(f))) {
             Object obj = in.readObject();
             if (obj instanceof Snapshot) return (Snapshot) obj;
@@ -8,7 +8,9 @@
  * - Keine direkten new-Aufrufe für Business/Persistenz in UI-Klassen.
  *
  * Verantwortungen:
- * - Quiz-Gameplay (ModularQuizPlay)
+ * - Quiz-Gameplay (ModularQuizPlay); Bewertung per Bit-Test über die
+ *   Antwort-Indizes der gemischten Buttons
+ * - Nachbewertung aufgezeichneter Antworten im Stapel (SessionGrader)
  * - Statistiken (ModularStatisticsPanel, ModularQuizStatistics)
  * - Leitner-Lernsystem (AdaptiveLeitnerSystem)
  * - Sortierung/Filter (ModularSortingService)
@@ -1,13 +1,49 @@
 package guimodule.tests;
 
+import dbbl.BusinesslogicaDelegation;
+import dbbl.DatenBankDAOxDTO;
 import dbbl.DbblDelegate;
+import dbbl.IdCache;
+import dbbl.JdbcConnectionPool;
 import dbbl.PersistenceDelegate;
+import dbbl.QuestionBankImporter;
+import dbbl.QuestionValue;
+import dbbl.RepoQuizeeQuestions;
+import dbbl.storage.BackupRepository;
+import dbbl.storage.BackupService;
+import dbbl.storage.DurableFiles;
+import dbbl.storage.GenerationFiles;
+import dbbl.storage.PersistenceExecutor;
+import dbbl.storage.QuizDataExporter;
+import dbbl.storage.QuizStoreCodec;
+import dbbl.storage.ShardedQuestionStore;
+import dbbl.storage.StoreVerifier;
+import dbbl.storage.StringFootprint;
+import dbbl.storage.StringInterner;
+import guimodule.AdaptiveLeitnerSystem;
+import guimodule.AppConfigService;
 import guimodule.GuiModuleDelegate;
+import guimodule.ModularQuizPlay;
 import guimodule.PnlForming;
+import guimodule.SessionGrader;
 
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * TestSuite provides a minimal, standalone testing framework without
@@ -69,7 +105,8 @@ public final class TestSuite {
         long dur = System.currentTimeMillis() - startedAt;
         System.out.println();
         System.out.println("=== Test Summary ===");
-        System.out.println("Passed: " + t.passed + ", Failed: " + t.failed + ", Duration: " + dur + " ms");
+        System.out.println("Passed: " + t.passed + ", Failed: " + t.failed + ", Skipped: " + t.skipped
+            + ", Duration: " + dur + " ms");
         if (t.failed > 0) System.exit(1);
     }
 
@@ -86,6 +123,9 @@ public final class TestSuite {
         /** Count of failed tests */
         int failed = 0;
 
+        /** Count of skipped test sections */
+        int skipped = 0;
+
         /** Asserts a boolean condition, increments counters and prints results. */
         void assertTrue(String msg, boolean cond) {
             if (cond) {
@@ -108,6 +148,382 @@ public final class TestSuite {
 
         /** Immediately fails the test with a message. */
         void fail(String msg) { assertTrue(msg, false); }
+
+        /** Reports a test section that cannot run in this environment. */
+        void skip(String msg) {
+            skipped++;
+            System.out.println("[SKIPPED] " + msg);
+        }
+    }
+
+    /** Whether a JDBC driver class is on the classpath (optional embedded-database tests). */
+    static boolean driverPresent(String driverClass) {
+        try {
+            Class.forName(driverClass);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Table definitions of the schema file {@code DatabankStruc} in the working
+     * directory, without comments and without the {@code CREATE DATABASE} and
+     * {@code USE} statements, so they run on an embedded database.
+     */
+    static List<String> schemaStatements() throws java.io.IOException {
+        StringBuilder sql = new StringBuilder();
+        for (String line : Files.readAllLines(Paths.get("DatabankStruc"), StandardCharsets.UTF_8)) {
+            if (!line.trim().startsWith("--")) sql.append(line).append('\n');
+        }
+        List<String> statements = new ArrayList<>();
+        for (String part : sql.toString().split(";")) {
+            String statement = part.trim();
+            String upper = statement.toUpperCase(java.util.Locale.ROOT);
+            if (statement.isEmpty() || upper.startsWith("CREATE DATABASE") || upper.startsWith("USE ")) continue;
+            statements.add(statement);
+        }
+        return statements;
+    }
+
+    /**
+     * In-memory stand-in for the quiz schema ({@code DatabankStruc}) that runs
+     * exactly the statements of {@link DatenBankDAOxDTO}, so the DAO and the
+     * SQL backend are tested without a database driver. {@link FakeQuizDriver}
+     * opens it for {@code jdbc:fakequiz:<name>} URLs.
+     * <p>
+     * IDs come from one sequence that, as in MariaDB, is not reset by a
+     * rollback. A transaction holds the database exclusively until it ends,
+     * and a rollback restores the tables as of its start. While
+     * {@link #failCommit} is set the next commit fails; while {@link #down} is
+     * set every statement fails.
+     */
+    static final class FakeQuizDb {
+        static final String URL_PREFIX = "jdbc:fakequiz:";
+        private static final Map<String, FakeQuizDb> BY_NAME = new java.util.concurrent.ConcurrentHashMap<>();
+
+        static {
+            try {
+                java.sql.DriverManager.registerDriver(new FakeQuizDriver());
+            } catch (SQLException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        /** Themes by id: title, description. */
+        final Map<Integer, Object[]> themes = new java.util.TreeMap<>();
+        /** Questions by id: theme id, title, text, explanation. */
+        final Map<Integer, Object[]> questions = new java.util.TreeMap<>();
+        /** Answers by id: question id, text, correct. */
+        final Map<Integer, Object[]> answers = new java.util.TreeMap<>();
+        /** Leitner cards by question id: the values bound to columns 2 to 10 of the upsert. */
+        final Map<Integer, Object[]> cards = new java.util.TreeMap<>();
+        final java.util.Set<Object> sessions = new java.util.HashSet<>();
+        final AtomicInteger sequence = new AtomicInteger();
+        final AtomicBoolean failCommit = new AtomicBoolean();
+        final AtomicBoolean down = new AtomicBoolean();
+        private final java.util.concurrent.locks.ReentrantLock lock = new java.util.concurrent.locks.ReentrantLock();
+
+        /** Database {@code name}, created empty on first use. */
+        static FakeQuizDb named(String name) {
+            return BY_NAME.computeIfAbsent(name, k -> new FakeQuizDb());
+        }
+
+        /** JDBC URL of database {@code name}; registers the driver. */
+        static String url(String name) {
+            named(name);
+            return URL_PREFIX + name;
+        }
+
+        Connection connect() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new Session());
+        }
+
+        Integer themeId(Object title) {
+            lock.lock();
+            try {
+                for (Map.Entry<Integer, Object[]> e : themes.entrySet()) {
+                    if (e.getValue()[0].equals(title)) return e.getKey();
+                }
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Integer questionId(Object themeId, Object title) {
+            lock.lock();
+            try {
+                for (Map.Entry<Integer, Object[]> e : questions.entrySet()) {
+                    if (e.getValue()[0].equals(themeId) && e.getValue()[1].equals(title)) return e.getKey();
+                }
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isEmpty() {
+            lock.lock();
+            try {
+                return themes.isEmpty() && questions.isEmpty() && answers.isEmpty() && cards.isEmpty();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Map<Integer, Object[]>> tables() {
+            return List.of(themes, questions, answers, cards);
+        }
+
+        /** One connection; its transaction starts with the first statement after setAutoCommit(false). */
+        private final class Session implements java.lang.reflect.InvocationHandler {
+            boolean autoCommit = true;
+            boolean closed;
+            boolean inTx;
+            final List<Map<Integer, Object[]>> before = new ArrayList<>();
+
+            @Override
+            public Object invoke(Object proxy, java.lang.reflect.Method m, Object[] a) throws Throwable {
+                switch (m.getName()) {
+                    case "getAutoCommit": return autoCommit;
+                    case "setAutoCommit":
+                        if ((Boolean) a[0]) end(true);
+                        autoCommit = (Boolean) a[0];
+                        return null;
+                    case "commit":
+                        if (failCommit.getAndSet(false)) throw new SQLException("commit failed");
+                        end(true);
+                        return null;
+                    case "rollback": end(false); return null;
+                    case "isValid": return !down.get();
+                    case "isClosed": return closed;
+                    case "close": end(false); closed = true; return null;
+                    case "createStatement": return statement(null);
+                    case "prepareStatement": return statement((String) a[0]);
+                    default: return null;
+                }
+            }
+
+            private java.sql.PreparedStatement statement(String prepared) {
+                Map<Integer, Object> params = new java.util.HashMap<>();
+                List<Map<Integer, Object>> batch = new ArrayList<>();
+                return (java.sql.PreparedStatement) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { java.sql.PreparedStatement.class }, (ps, m, a) -> {
+                        String name = m.getName();
+                        if (name.startsWith("set") && a != null && a.length == 2 && a[0] instanceof Integer) {
+                            params.put((Integer) a[0], name.equals("setNull") ? null : a[1]);
+                            return null;
+                        }
+                        switch (name) {
+                            case "addBatch": batch.add(new java.util.HashMap<>(params)); return null;
+                            case "executeBatch":
+                                int[] counts = new int[batch.size()];
+                                for (int i = 0; i < counts.length; i++) counts[i] = (Integer) run(prepared, batch.get(i));
+                                batch.clear();
+                                return counts;
+                            case "executeUpdate": return run(a != null ? (String) a[0] : prepared, params);
+                            case "executeQuery": return resultSet(run(a != null ? (String) a[0] : prepared, params));
+                            case "getGeneratedKeys": return resultSet(new ArrayList<Map<String, Object>>());
+                            case "isClosed": return false;
+                            default: return null;
+                        }
+                    });
+            }
+
+            private Object run(String sql, Map<Integer, Object> p) throws SQLException {
+                if (down.get()) throw new SQLException("database unreachable");
+                if (!autoCommit && !inTx) {
+                    lock.lock();
+                    inTx = true;
+                    before.clear();
+                    for (Map<Integer, Object[]> table : tables()) before.add(new java.util.TreeMap<>(table));
+                }
+                lock.lock();
+                try {
+                    return execute(sql, p);
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            private void end(boolean commit) {
+                if (!inTx) return;
+                if (!commit) {
+                    List<Map<Integer, Object[]>> tables = tables();
+                    for (int i = 0; i < tables.size(); i++) {
+                        tables.get(i).clear();
+                        tables.get(i).putAll(before.get(i));
+                    }
+                }
+                inTx = false;
+                lock.unlock();
+            }
+        }
+
+        /** Runs one statement; the caller holds the lock. */
+        private Object execute(String sql, Map<Integer, Object> p) throws SQLException {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            if (sql.startsWith("SELECT id FROM themes WHERE title=?")) {
+                Integer id = themeId(p.get(1));
+                if (id != null) rows.add(row("id", id));
+            } else if (sql.startsWith("SELECT id FROM questions WHERE theme_id=?")) {
+                Integer id = questionId(p.get(1), p.get(2));
+                if (id != null) rows.add(row("id", id));
+            } else if (sql.startsWith("SELECT title, description FROM themes") || sql.startsWith("SELECT title FROM themes")) {
+                themes.values().forEach(th -> rows.add(row("title", th[0], "description", th[1])));
+            } else if (sql.startsWith("SELECT t.id AS theme_id")) {
+                themes.forEach((themeId, th) -> {
+                    int before = rows.size();
+                    questions.forEach((id, q) -> {
+                        if (q[0].equals(themeId)) {
+                            rows.add(row("theme_id", themeId, "theme_title", th[0], "question_id", id, "question_title", q[1]));
+                        }
+                    });
+                    if (rows.size() == before) {
+                        rows.add(row("theme_id", themeId, "theme_title", th[0], "question_id", null, "question_title", null));
+                    }
+                });
+            } else if (sql.startsWith("SELECT t.title AS theme_title")) {
+                List<Map.Entry<Integer, Object[]>> ordered = new ArrayList<>(questions.entrySet());
+                ordered.sort(java.util.Comparator.comparing((Map.Entry<Integer, Object[]> e) -> (Integer) e.getValue()[0])
+                    .thenComparing(Map.Entry::getKey));
+                for (Map.Entry<Integer, Object[]> e : ordered) {
+                    Object[] q = e.getValue();
+                    Object theme = themes.get(q[0])[0];
+                    int before = rows.size();
+                    answers.values().forEach(an -> {
+                        if (an[0].equals(e.getKey())) {
+                            rows.add(row("theme_title", theme, "question_id", e.getKey(), "title", q[1], "text", q[2],
+                                "explanation", q[3], "answer_text", an[1], "is_correct", an[2]));
+                        }
+                    });
+                    if (rows.size() == before) {
+                        rows.add(row("theme_title", theme, "question_id", e.getKey(), "title", q[1], "text", q[2],
+                            "explanation", q[3], "answer_text", null, "is_correct", null));
+                    }
+                }
+            } else if (sql.startsWith("SELECT lc.*")) {
+                cards.forEach((questionId, c) -> {
+                    Object[] q = questions.get(questionId);
+                    rows.add(row("question_id", questionId, "box", c[0], "consecutive_correct", c[1],
+                        "consecutive_wrong", c[2], "total_attempts", c[3], "total_correct", c[4],
+                        "average_response_time", c[5], "next_review", c[6], "difficulty", c[7], "last_reviewed", c[8],
+                        "question_title", q[1], "theme_id", q[0], "theme_title", themes.get(q[0])[0]));
+                });
+            } else if (sql.startsWith("SELECT COUNT(*) FROM active_sessions")) {
+                rows.add(row("count", sessions.size()));
+            } else if (sql.startsWith("INSERT INTO active_sessions")) {
+                if (!sessions.add(p.get(1))) throw new SQLException("Duplicate session " + p.get(1));
+                return 1;
+            } else if (sql.startsWith("DELETE FROM active_sessions")) {
+                return sessions.remove(p.get(1)) ? 1 : 0;
+            } else if (sql.startsWith("INSERT INTO themes")) {
+                Integer id = themeId(p.get(1));
+                Object description = sql.contains("VALUES(?, '')") ? "" : p.get(2);
+                if (id == null) {
+                    themes.put(sequence.incrementAndGet(), new Object[] { p.get(1), description });
+                    return 1;
+                }
+                if (!sql.contains("ON DUPLICATE KEY")) throw new SQLException("Duplicate theme " + p.get(1));
+                themes.put(id, new Object[] { p.get(1), description });
+                return 2;
+            } else if (sql.startsWith("INSERT INTO questions")) {
+                if (!themes.containsKey(p.get(1))) throw new SQLException("No theme " + p.get(1));
+                Integer id = questionId(p.get(1), p.get(2));
+                questions.put(id != null ? id : sequence.incrementAndGet(), new Object[] { p.get(1), p.get(2), p.get(3), p.get(4) });
+                return id != null ? 2 : 1;
+            } else if (sql.startsWith("UPDATE questions SET theme_id=?")) {
+                if (!questions.containsKey(p.get(5))) return 0;
+                Integer other = questionId(p.get(1), p.get(2));
+                if (other != null && !other.equals(p.get(5))) throw new SQLException("Duplicate question " + p.get(2));
+                questions.put((Integer) p.get(5), new Object[] { p.get(1), p.get(2), p.get(3), p.get(4) });
+                return 1;
+            } else if (sql.startsWith("DELETE FROM answers WHERE question_id=?")) {
+                int size = answers.size();
+                answers.values().removeIf(an -> an[0].equals(p.get(1)));
+                return size - answers.size();
+            } else if (sql.startsWith("INSERT INTO answers")) {
+                if (!questions.containsKey(p.get(1))) throw new SQLException("No question " + p.get(1));
+                answers.put(sequence.incrementAndGet(), new Object[] { p.get(1), p.get(2), p.get(3) });
+                return 1;
+            } else if (sql.startsWith("DELETE FROM themes WHERE title=?")) {
+                Integer id = themeId(p.get(1));
+                return id != null ? deleteTheme(id) : 0;
+            } else if (sql.startsWith("DELETE FROM questions WHERE id=?")) {
+                return deleteQuestion((Integer) p.get(1));
+            } else if (sql.startsWith("INSERT INTO leitner_cards")) {
+                if (!questions.containsKey(p.get(1))) throw new SQLException("No question " + p.get(1));
+                Object[] values = new Object[9];
+                for (int i = 0; i < values.length; i++) values[i] = p.get(i + 2);
+                return cards.put((Integer) p.get(1), values) != null ? 2 : 1;
+            } else {
+                throw new SQLException("Statement not supported by the fake database: " + sql);
+            }
+            return rows;
+        }
+
+        /** Deletes a theme with its questions (cascade). */
+        private int deleteTheme(int id) {
+            new ArrayList<>(questions.entrySet()).forEach(e -> {
+                if (e.getValue()[0].equals(id)) deleteQuestion(e.getKey());
+            });
+            return themes.remove(id) != null ? 1 : 0;
+        }
+
+        /** Deletes a question with its answers and card (cascade). */
+        private int deleteQuestion(int id) {
+            answers.values().removeIf(an -> an[0].equals(id));
+            cards.remove(id);
+            return questions.remove(id) != null ? 1 : 0;
+        }
+
+        private static Map<String, Object> row(Object... columns) {
+            Map<String, Object> row = new java.util.LinkedHashMap<>();
+            for (int i = 0; i < columns.length; i += 2) row.put((String) columns[i], columns[i + 1]);
+            return row;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static java.sql.ResultSet resultSet(Object result) {
+            List<Map<String, Object>> rows = (List<Map<String, Object>>) result;
+            int[] at = { -1 };
+            boolean[] wasNull = { false };
+            return (java.sql.ResultSet) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { java.sql.ResultSet.class }, (rs, m, a) -> {
+                    String name = m.getName();
+                    if (name.equals("next")) return ++at[0] < rows.size();
+                    if (name.equals("wasNull")) return wasNull[0];
+                    if (!name.startsWith("get") || a == null || a.length != 1) return null;
+                    Map<String, Object> row = rows.get(at[0]);
+                    Object v = a[0] instanceof Integer ? new ArrayList<>(row.values()).get((Integer) a[0] - 1) : row.get(a[0]);
+                    wasNull[0] = v == null;
+                    switch (name) {
+                        case "getInt": return v != null ? ((Number) v).intValue() : 0;
+                        case "getLong": return v != null ? ((Number) v).longValue() : 0L;
+                        case "getDouble": return v != null ? ((Number) v).doubleValue() : 0.0;
+                        case "getBoolean": return v != null && (Boolean) v;
+                        case "getString": return v != null ? v.toString() : null;
+                        default: return v;
+                    }
+                });
+        }
+    }
+
+    /** JDBC driver for {@link FakeQuizDb} URLs. */
+    static final class FakeQuizDriver implements java.sql.Driver {
+        @Override
+        public Connection connect(String url, java.util.Properties info) {
+            return acceptsURL(url) ? FakeQuizDb.named(url.substring(FakeQuizDb.URL_PREFIX.length())).connect() : null;
+        }
+
+        @Override public boolean acceptsURL(String url) { return url != null && url.startsWith(FakeQuizDb.URL_PREFIX); }
+        @Override public java.sql.DriverPropertyInfo[] getPropertyInfo(String url, java.util.Properties info) { return new java.sql.DriverPropertyInfo[0]; }
+        @Override public int getMajorVersion() { return 1; }
+        @Override public int getMinorVersion() { return 0; }
+        @Override public boolean jdbcCompliant() { return false; }
+        @Override public java.util.logging.Logger getParentLogger() { return java.util.logging.Logger.getGlobal(); }
     }
 
     // ============================================================
@@ -137,6 +553,64 @@ public final class TestSuite {
             // Test delete theme
             boolean deleted = db.themeDelete().apply(theme);
             t.assertTrue("delete theme", deleted);
+
+            // Immutable question value: flags as bitmask, adapter keeps its serialized form
+            QuestionValue value = QuestionValue.of("T", "Q?", new String[] { "a", "b", "c" },
+                new boolean[] { false, true, true }, "");
+            t.assertEquals("correct mask", 6L, value.correctMask());
+            t.assertTrue("correct answer by text", value.isCorrectAnswer("c") && !value.isCorrectAnswer("a"));
+            t.assertEquals("cached correct answer text", "b, c", value.correctAnswerText());
+            t.assertTrue("correct answer text computed once", value.correctAnswerText() == value.correctAnswerText());
+
+            // Batch grading of recorded answers: by id, by title for old results, unknown questions counted
+            QuestionValue stored = value.withTheme("G").withId(42L);
+            SessionGrader.Report graded = new SessionGrader(List.of(stored)).grade(List.of(
+                new ModularQuizPlay.QuizResult("G", "T", "b", "b, c", true, 100, 1L, 42L),
+                new ModularQuizPlay.QuizResult("G", "T", "a", "b, c", true, 100, 2L, 0L),
+                new ModularQuizPlay.QuizResult("G", "gone", "a", "a", true, 100, 3L, 7L)));
+            t.assertTrue("batch grading", graded.graded == 2 && graded.correct == 1 && graded.unknown == 1);
+            t.assertEquals("changed outcome detected", 1L, graded.changed);
+
+            // Interning: equal strings share one instance; the footprint counts the duplicates
+            String symbol = new String("Interned theme");
+            t.assertTrue("interned instance reused",
+                StringInterner.intern(symbol) == StringInterner.intern(new String("Interned theme")));
+            StringFootprint footprint = new StringFootprint()
+                .add(symbol).add(symbol).add(new String("Interned theme")).add(null);
+            t.assertTrue("footprint counts", footprint.references() == 3 && footprint.instances() == 2
+                && footprint.distinctValues() == 1);
+            t.assertEquals("duplicate bytes", StringFootprint.sizeOf(symbol), footprint.savableBytes());
+
+            // DAO ID cache: LRU-bounded, hit/miss counters, theme delete drops its questions
+            IdCache ids = new IdCache(2, 2);
+            ids.putTheme("A", 1);
+            ids.putQuestion(1, "q1", 10);
+            ids.putQuestion(2, "q2", 20);
+            ids.questionId(1, "q1");
+            ids.putQuestion(1, "q3", 30);
+            t.assertTrue("least recently used id evicted",
+                ids.questionId(2, "q2") == null && ids.questionId(1, "q1") == 10 && ids.evictions() == 1);
+            ids.removeTheme("A", 1);
+            t.assertTrue("theme delete drops its questions", ids.themeId("A") == null && ids.questionCount() == 0);
+            t.assertTrue("cache counters", ids.hits() == 2 && ids.misses() == 2);
+            t.assertEquals("equal values share hash", value.hashCode(),
+                QuestionValue.of("T", "Q?", List.of("a", "b", "c"), List.of(false, true, true), "")
+                    .withCreatedAt(value.createdAt()).hashCode());
+            RepoQuizeeQuestions adapter = new RepoQuizeeQuestions(value);
+            adapter.setKorrekt(List.of(true, false));
+            t.assertEquals("adapter aligns answers and flags", List.of("a", "b"), adapter.getAntworten());
+            try {
+                java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+                try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(bytes)) {
+                    out.writeObject(adapter);
+                }
+                try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(
+                        new java.io.ByteArrayInputStream(bytes.toByteArray()))) {
+                    t.assertEquals("serialized adapter", adapter.value(), ((RepoQuizeeQuestions) in.readObject()).value());
+                }
+            } catch (Exception e) {
+                t.fail("adapter serialization: " + e.getMessage());
+            }
         }
     }
 
@@ -169,6 +643,96 @@ public final class TestSuite {
             // Verify question title is available
             List<String> titles = db.uiQuestionTitles().apply(theme);
             t.assertTrue("question is listed", titles.contains(title));
+
+            // Cached theme view is invalidated by writes that bypass the business layer
+            t.assertEquals("indexed question text", "2+2?", db.uiGetQuestion().apply(theme, 0).getFrageText());
+            db.rawPersistence().saveQuestion().apply(new PersistenceDelegate.QuestionData(
+                theme, title, "two plus two?", "Simple arithmetic", answers, flags
+            ));
+            t.assertEquals("view refreshed after change event", "two plus two?", db.uiGetQuestion().apply(theme, 0).getFrageText());
+
+            // Bulk access returns the whole theme in one call
+            t.assertEquals("bulk questions", 1, db.uiQuestions().apply(theme).size());
+            t.assertEquals("empty page past end", 0, db.uiQuestionsPage().apply(theme, 5, 10).size());
+            t.assertTrue("streamed across themes", db.uiAllQuestions().get().anyMatch(q -> title.equals(q.getTitel())));
+
+            // Persistent id survives the rewrite above and resolves without a title scan
+            long questionId = db.uiQuestions().apply(theme).get(0).getId();
+            t.assertTrue("persistent id assigned", questionId > 0);
+            t.assertEquals("lookup by id", title, db.uiQuestionById().apply(questionId).getTitel());
+            t.assertTrue("title index hit", db.questionExists().test(theme, title));
+            t.assertTrue("title index miss", !db.questionExists().test(theme, "no such title"));
+
+            // Concurrent writers on one theme while a reader iterates it
+            String busy = theme + "_busy";
+            Thread[] writers = new Thread[2];
+            for (int w = 0; w < writers.length; w++) {
+                final int id = w;
+                writers[w] = new Thread(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        db.questionSave().apply(new PersistenceDelegate.QuestionData(
+                            busy, "w" + id + "_" + i, "?", "", answers, flags));
+                    }
+                });
+                writers[w].start();
+            }
+            boolean readFailed = false;
+            try {
+                for (int i = 0; i < 200; i++) {
+                    db.questionsByTheme().apply(busy).forEach(q -> q.title.length());
+                }
+                for (Thread w : writers) w.join();
+            } catch (RuntimeException | InterruptedException ex) {
+                readFailed = true;
+            }
+            t.assertTrue("reads during concurrent writes", !readFailed);
+            t.assertEquals("no lost concurrent writes", 200, db.questionsByTheme().apply(busy).size());
+            db.themeDelete().apply(busy);
+
+            // Streaming bulk import: invalid records are skipped and reported with their line
+            String bank = theme + "_bank";
+            try {
+                String csv = "theme,title,question,explanation,a1,c1,a2,c2\n"
+                    + bank + ",Q1,\"a, b?\",,yes,1,no,0\n"
+                    + bank + ",Q2,\"multi\nline\",,x,1,y\n"
+                    + bank + ",Q3,q,,only,true\n";
+                QuestionBankImporter.Report r = db.questionImporter()
+                    .importFrom(new java.io.StringReader(csv), QuestionBankImporter.Format.CSV);
+                t.assertEquals("csv records imported", 2L, r.imported);
+                t.assertTrue("csv error reported with line", r.rejected == 1 && r.errors.get(0).startsWith("line 3:"));
+                t.assertEquals("quoted csv field", "a, b?", db.questionsByTheme().apply(bank).get(0).questionText);
+                String jsonl = "{\"theme\":\"" + bank + "\",\"title\":\"J1\",\"answers\":[\"a\",\"b\"],\"correct\":[false,true]}\n"
+                    + "{broken\n";
+                r = db.questionImporter().importFrom(new java.io.StringReader(jsonl), QuestionBankImporter.Format.JSONL);
+                t.assertTrue("jsonl imported and rejected", r.imported == 1 && r.rejected == 1);
+                t.assertEquals("imported theme size", 3, db.questionsByTheme().apply(bank).size());
+            } catch (java.io.IOException e) {
+                t.fail("bulk import: " + e.getMessage());
+            } finally {
+                db.themeDelete().apply(bank);
+            }
+
+            // Leitner cards: an id numbered by the other backend does not resolve to a foreign card
+            List<List<?>> syncs = new ArrayList<>();
+            BusinesslogicaDelegation business = (BusinesslogicaDelegation) Proxy.newProxyInstance(
+                BusinesslogicaDelegation.class.getClassLoader(), new Class<?>[] { BusinesslogicaDelegation.class },
+                (proxy, m, a) -> {
+                    if (m.getName().equals("syncLeitnerCards")) syncs.add(new ArrayList<>((java.util.Collection<?>) a[0]));
+                    return null;
+                });
+            AdaptiveLeitnerSystem leitner = new AdaptiveLeitnerSystem(business);
+            String deck = theme + "_deck";
+            leitner.processQuizResult(new ModularQuizPlay.QuizResult(deck, "file", "a", "a", true, 100, 1L, 9_000_001L));
+            leitner.processQuizResult(new ModularQuizPlay.QuizResult(deck, "sql", "a", "a", false, 100, 2L, 9_000_001L));
+            t.assertTrue("colliding id resolves by title", leitner.getCard(deck, "file").getTotalAttempts() == 1
+                && leitner.getCard(deck, "sql") != null && leitner.getCard(deck, "sql").getTotalAttempts() == 1);
+            t.assertTrue("id relinked to matching card", leitner.getCard(deck, "sql").getQuestionKey() == 9_000_001L
+                && leitner.getCard(deck, "file").getQuestionKey() == 0);
+
+            // Session end hands the cards touched in the session over in one call
+            leitner.endSession();
+            leitner.endSession();
+            t.assertTrue("touched cards synced once", syncs.size() == 1 && syncs.get(0).size() == 2);
         }
     }
 
@@ -204,6 +768,563 @@ public final class TestSuite {
 
                 List<String> titles2 = db2.uiQuestionTitles().apply(theme);
                 t.assertTrue("question persisted", !titles2.isEmpty());
+
+                // Journaled mutation without explicit persistAll
+                db2.questionSave().apply(new PersistenceDelegate.QuestionData(
+                    theme, "Grass color?", "Grass color?", "", List.of("Green", "Red"), List.of(Boolean.TRUE, Boolean.FALSE)
+                ));
+                db2.flush().run();
+            }
+
+            // Third instance: journal tail is replayed on load
+            {
+                DbblDelegate db3 = DbblDelegate.createDefault();
+                List<String> titles3 = db3.uiQuestionTitles().apply(theme);
+                t.assertTrue("journaled question recovered", titles3.contains("Grass color?"));
+                db3.persistAll().run(); // compact into the binary snapshot
+            }
+
+            // Fourth instance: answers and flags survive the binary snapshot
+            {
+                DbblDelegate db4 = DbblDelegate.createDefault();
+                PersistenceDelegate.QuestionData grass = db4.questionsByTheme().apply(theme).stream()
+                    .filter(q -> "Grass color?".equals(q.title)).findFirst().orElse(null);
+                t.assertNotNull("question decoded from binary snapshot", grass);
+                if (grass != null) {
+                    t.assertEquals("answers decoded", List.of("Green", "Red"), grass.answers);
+                    t.assertEquals("flags decoded", List.of(Boolean.TRUE, Boolean.FALSE), grass.correctFlags);
+                }
+            }
+
+            // Group commit policy from the application configuration: buffered saves, one journal write on flush()
+            {
+                AppConfigService previous = AppConfigService.current();
+                AppConfigService.install(new AppConfigService(new String[] {
+                    "--" + DbblDelegate.GROUP_COMMIT_BATCH_KEY + "=1000",
+                    "--" + DbblDelegate.GROUP_COMMIT_INTERVAL_KEY + "=60000" }));
+                String batched = theme + "_gc";
+                try {
+                    DbblDelegate gc = DbblDelegate.createDefault();
+                    gc.themeSave().apply(new PersistenceDelegate.ThemeData(batched, ""));
+                    long before = gc.journalWrites();
+                    for (int i = 0; i < 300; i++) { // more than the default batch size
+                        gc.questionSave().apply(new PersistenceDelegate.QuestionData(
+                            batched, "GC" + i, "?", "", List.of("a", "b"), List.of(Boolean.TRUE, Boolean.FALSE)));
+                    }
+                    t.assertEquals("saves buffered until flush", before, gc.journalWrites());
+                    gc.flush().run();
+                    t.assertEquals("buffered saves written at once", before + 1, gc.journalWrites());
+                    gc.themeDelete().apply(batched);
+                    gc.flush().run();
+                } finally {
+                    AppConfigService.install(previous);
+                }
+            }
+
+            // Mapped instance: theme directory from the index, questions decoded on access
+            {
+                DbblDelegate dm = DbblDelegate.createMapped();
+                t.assertTrue("mapped theme listed", dm.uiAllTopics().get().contains(theme));
+                t.assertTrue("mapped question decoded", dm.uiQuestionTitles().apply(theme).contains("Grass color?"));
+            }
+
+            // Background persistence: the caller gets a future, the write happens off-thread
+            {
+                DbblDelegate db5 = DbblDelegate.createDefault();
+                db5.questionSave().apply(new PersistenceDelegate.QuestionData(
+                    theme, "Snow color?", "Snow color?", "", List.of("White", "Black"), List.of(Boolean.TRUE, Boolean.FALSE)
+                ));
+                try {
+                    db5.persistAllAsync().get().get(10, TimeUnit.SECONDS);
+                    t.assertTrue("async persist completed", true);
+                } catch (Exception e) {
+                    t.fail("async persist failed: " + e.getMessage());
+                }
+                DbblDelegate db6 = DbblDelegate.createDefault();
+                t.assertTrue("async persist durable", db6.uiQuestionTitles().apply(theme).contains("Snow color?"));
+            }
+
+            // Sharded snapshot: a compaction rewrites only the shards of changed themes
+            {
+                DbblDelegate db7 = DbblDelegate.createDefault();
+                String other = theme + "_B";
+                db7.themeSave().apply(new PersistenceDelegate.ThemeData(other, "Second theme"));
+                db7.questionSave().apply(new PersistenceDelegate.QuestionData(
+                    other, "Fire color?", "Fire color?", "", List.of("Red", "Blue"), List.of(Boolean.TRUE, Boolean.FALSE)
+                ));
+                db7.persistAll().run();
+                try {
+                    Path manifestFile = Paths.get("quiz_questions.dat");
+                    t.assertTrue("snapshot is a shard manifest", ShardedQuestionStore.isManifest(manifestFile.toFile()));
+                    ShardedQuestionStore store = new ShardedQuestionStore(manifestFile);
+                    ShardedQuestionStore.Manifest manifest = store.readManifest();
+                    Path itShard = store.shardPath(manifest.shards.get(theme));
+                    Path otherShard = store.shardPath(manifest.shards.get(other));
+                    byte[] itBefore = Files.readAllBytes(itShard);
+                    byte[] otherBefore = Files.readAllBytes(otherShard);
+                    db7.questionSave().apply(new PersistenceDelegate.QuestionData(
+                        other, "Ash color?", "Ash color?", "", List.of("Grey", "Pink"), List.of(Boolean.TRUE, Boolean.FALSE)
+                    ));
+                    db7.persistAll().run();
+                    t.assertTrue("clean theme shard untouched", java.util.Arrays.equals(itBefore, Files.readAllBytes(itShard)));
+                    t.assertTrue("dirty theme shard rewritten", !java.util.Arrays.equals(otherBefore, Files.readAllBytes(otherShard)));
+                    db7.themeDelete().apply(other);
+                    db7.persistAll().run();
+                    t.assertTrue("deleted theme shard removed", !Files.exists(otherShard));
+                } catch (Exception e) {
+                    t.fail("sharded snapshot: " + e.getMessage());
+                }
+            }
+
+            // An unreadable shard loses only its theme and stays in the manifest
+            {
+                String broken = theme + "_C";
+                DbblDelegate db8 = DbblDelegate.createDefault();
+                db8.themeSave().apply(new PersistenceDelegate.ThemeData(broken, "Broken theme"));
+                db8.questionSave().apply(new PersistenceDelegate.QuestionData(
+                    broken, "Grass color?", "Grass color?", "", List.of("Green", "Red"), List.of(Boolean.TRUE, Boolean.FALSE)
+                ));
+                db8.persistAll().run();
+                try {
+                    ShardedQuestionStore store = new ShardedQuestionStore(Paths.get("quiz_questions.dat"));
+                    Path brokenShard = store.shardPath(store.readManifest().shards.get(broken));
+                    byte[] intact = Files.readAllBytes(brokenShard);
+                    Files.write(brokenShard, java.util.Arrays.copyOf(intact, 8));
+                    DbblDelegate db9 = DbblDelegate.createDefault();
+                    t.assertTrue("readable themes survive", db9.uiQuestionTitles().apply(theme).contains("Snow color?"));
+                    t.assertTrue("unreadable theme skipped", !db9.themesAll().get().contains(broken));
+                    db9.questionSave().apply(new PersistenceDelegate.QuestionData(
+                        theme, "Coal color?", "Coal color?", "", List.of("Black", "White"), List.of(Boolean.TRUE, Boolean.FALSE)
+                    ));
+                    db9.persistAll().run();
+                    t.assertTrue("unreadable shard kept in manifest", store.readManifest().shards.containsKey(broken));
+                    t.assertTrue("unreadable shard kept on disk", Files.exists(brokenShard));
+                    Files.write(brokenShard, intact);
+                    DbblDelegate db10 = DbblDelegate.createDefault();
+                    t.assertTrue("repaired shard loads again", db10.uiQuestionTitles().apply(broken).contains("Grass color?"));
+                    db10.themeDelete().apply(broken);
+                    db10.persistAll().run();
+                } catch (Exception e) {
+                    t.fail("unreadable shard: " + e.getMessage());
+                }
+            }
+
+            // Double-buffered stores: a corrupt newest generation falls back to the previous one
+            {
+                Path store = Paths.get("it_generations.dat");
+                Path slotB = GenerationFiles.slotB(store);
+                try {
+                    QuizStoreCodec.writeAchievements(store, Map.of("FIRST_QUIZ", LocalDateTime.of(2024, 1, 1, 0, 0)));
+                    QuizStoreCodec.writeAchievements(store, Map.of("FIRST_QUIZ", LocalDateTime.of(2024, 2, 1, 0, 0)));
+                    t.assertEquals("newest generation read", 2,
+                        QuizStoreCodec.readAchievements(store).get("FIRST_QUIZ").getMonthValue());
+                    byte[] bytes = Files.readAllBytes(slotB);
+                    bytes[bytes.length / 2] ^= 0x5A;
+                    Files.write(slotB, bytes);
+                    t.assertEquals("corrupt generation falls back", 1,
+                        QuizStoreCodec.readAchievements(store).get("FIRST_QUIZ").getMonthValue());
+                    t.assertTrue("verifier detects corruption", !StoreVerifier.verify(slotB).ok);
+                    t.assertTrue("verifier accepts intact slot", StoreVerifier.verify(store).ok);
+                    List<java.io.File> moved = GenerationFiles.quarantine(store);
+                    t.assertEquals("quarantine keeps both slots", 2, moved.size());
+                    moved.forEach(java.io.File::delete);
+                } catch (Exception e) {
+                    t.fail("double-buffered store: " + e.getMessage());
+                } finally {
+                    GenerationFiles.delete(store);
+                }
+            }
+
+            // Durable writes replace the target atomically and leave no temporary file
+            {
+                Path file = Paths.get("it_durable.txt");
+                try {
+                    DurableFiles.write(file, "old".getBytes(StandardCharsets.UTF_8));
+                    DurableFiles.write(file, "new".getBytes(StandardCharsets.UTF_8));
+                    t.assertEquals("durable write replaces", "new", Files.readString(file));
+                    t.assertTrue("durable write leaves no tmp", !Files.exists(DurableFiles.tmpSibling(file)));
+                } catch (Exception e) {
+                    t.fail("durable write: " + e.getMessage());
+                } finally {
+                    file.toFile().delete();
+                }
+            }
+
+            // Streaming export: rows are decoded from the newest generation and written through a channel
+            {
+                Path stats = Paths.get("it_export_stats.dat");
+                Path csv = Paths.get("it_export_results.csv");
+                Path binary = Paths.get("it_export_results.dat");
+                Path questions = Paths.get("it_export_questions.jsonl");
+                try {
+                    QuizStoreCodec.writeStatistics(stats, Map.of(), Map.of(), List.of(
+                        new ModularQuizPlay.QuizResult(theme, "Q, 1", "a", "a", true, 1200, 1000L, 7L),
+                        new ModularQuizPlay.QuizResult(theme, "Q2", "b", "c", false, 800, 2000L, 8L)));
+                    t.assertEquals("results exported", 2L,
+                        QuizDataExporter.exportResults(stats, csv, QuizDataExporter.Format.CSV));
+                    List<String> lines = Files.readAllLines(csv);
+                    t.assertEquals("csv header and rows", 3, lines.size());
+                    t.assertTrue("csv field quoted", lines.get(1).contains("\"Q, 1\""));
+                    QuizDataExporter.exportResults(stats, binary, QuizDataExporter.Format.BINARY);
+                    t.assertEquals("binary export readable", 8L,
+                        QuizStoreCodec.readStatistics(binary).results.get(1).questionId);
+                    ModularQuizPlay.QuizResult fromStore = QuizStoreCodec.readStatistics(stats).results.get(1);
+                    ModularQuizPlay.QuizResult fromExport = QuizStoreCodec.readStatistics(binary).results.get(1);
+                    t.assertTrue("theme and title shared across files",
+                        fromStore.theme == fromExport.theme && fromStore.questionTitle == fromExport.questionTitle);
+                    long exported = QuizDataExporter.exportQuestions(Paths.get("quiz_questions.dat"), questions,
+                        QuizDataExporter.Format.JSONL);
+                    t.assertEquals("one json line per question", exported, (long) Files.readAllLines(questions).size());
+                    t.assertTrue("question exported", Files.readString(questions).contains("\"title\":\"Snow color?\""));
+                } catch (Exception e) {
+                    t.fail("streaming export: " + e.getMessage());
+                } finally {
+                    GenerationFiles.delete(stats);
+                    for (Path p : List.of(csv, binary, questions)) p.toFile().delete();
+                }
+            }
+
+            // Incremental backups: unchanged chunks are stored once, restores are byte-identical
+            {
+                Path repoDir = Paths.get("it_backups");
+                Path source = Paths.get("it_backup_src");
+                Path restored = Paths.get("it_backup_restored");
+                try {
+                    Files.createDirectories(source);
+                    byte[] original = new byte[300_000];
+                    new java.util.Random(7).nextBytes(original);
+                    Files.write(source.resolve("store.dat"), original);
+                    BackupRepository repo = new BackupRepository(repoDir);
+                    BackupRepository.Snapshot first = repo.backup("first", source, BackupRepository.storeFiles(source));
+                    byte[] changed = original.clone();
+                    changed[150_000] ^= 1;
+                    Files.write(source.resolve("store.dat"), changed);
+                    BackupRepository.Snapshot second = repo.backup("second", source, BackupRepository.storeFiles(source));
+                    t.assertTrue("incremental backup stores only changed chunks", second.addedBytes < original.length / 4);
+                    repo.restore(first.id, restored);
+                    t.assertTrue("restored file byte-identical",
+                        java.util.Arrays.equals(original, Files.readAllBytes(restored.resolve("store.dat"))));
+                    repo.prune(1);
+                    t.assertEquals("retention keeps newest backup", List.of(second.id),
+                        repo.snapshots().stream().map(s -> s.id).collect(java.util.stream.Collectors.toList()));
+                    t.assertTrue("persistence backup created",
+                        DbblDelegate.createDefault().rawPersistence().createBackup().apply("it"));
+
+                    // restore swaps the files and drops store files the backup does not know
+                    BackupService service = new BackupService(source, List.of(source), repoDir);
+                    BackupRepository.Snapshot good = service.backup("good");
+                    Files.write(source.resolve("store.dat"), new byte[] { 1, 2, 3 });
+                    Files.write(source.resolve("store.dat.b"), new byte[] { 4 });
+                    BackupRepository.Snapshot before = service.restore(good.id);
+                    t.assertTrue("restore swaps files",
+                        java.util.Arrays.equals(changed, Files.readAllBytes(source.resolve("store.dat"))));
+                    t.assertTrue("restore removes stale slot", !Files.exists(source.resolve("store.dat.b")));
+                    t.assertEquals("pre-restore backup", BackupService.PRE_RESTORE, before.name);
+                    t.assertTrue("staging removed", !Files.exists(source.resolve(".restore-" + good.id)));
+
+                    // stores are told about the restore while held, but reload after every hold ended
+                    java.util.concurrent.atomic.AtomicBoolean held = new java.util.concurrent.atomic.AtomicBoolean();
+                    List<String> calls = new java.util.concurrent.CopyOnWriteArrayList<>();
+                    BackupService.StoreGuard guard = new BackupService.StoreGuard() {
+                        @Override public void hold(BackupService.Section section) throws java.io.IOException {
+                            held.set(true);
+                            try { section.run(); } finally { held.set(false); }
+                        }
+                        @Override public void restored() { calls.add("restored:" + held.get()); }
+                        @Override public void reload() { calls.add("reload:" + held.get()); }
+                    };
+                    BackupService.register(guard);
+                    service.restore(good.id);
+                    t.assertEquals("guard reloads after release", List.of("restored:true", "reload:false"), calls);
+
+                    // in-memory stores reload, and saves copied before the reload are dropped
+                    BackupService.ExecutorStoreGuard executorGuard = new BackupService.ExecutorStoreGuard(() -> calls.add("reloaded"));
+                    BackupService.register(executorGuard);
+                    long stale = executorGuard.stamp();
+                    service.restore(good.id);
+                    t.assertTrue("executor store reloaded", calls.contains("reloaded"));
+                    t.assertTrue("save copied before restore dropped", !executorGuard.isCurrent(stale));
+                    t.assertTrue("save copied after reload written", executorGuard.isCurrent(executorGuard.stamp()));
+                } catch (Exception e) {
+                    t.fail("incremental backup: " + e.getMessage());
+                } finally {
+                    for (Path dir : List.of(repoDir, source, restored, Paths.get("quiz_backups"))) {
+                        try (java.util.stream.Stream<Path> walk = Files.walk(dir)) {
+                            walk.sorted(java.util.Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+                        } catch (java.io.IOException ignored) {}
+                    }
+                }
+            }
+
+            // Saves of one store queued behind a running write collapse into the newest one
+            {
+                PersistenceExecutor executor = PersistenceExecutor.shared();
+                CountDownLatch gate = new CountDownLatch(1);
+                AtomicInteger writes = new AtomicInteger();
+                AtomicReference<String> written = new AtomicReference<>();
+                executor.submit("it-gate", () -> {
+                    try { gate.await(10, TimeUnit.SECONDS); } catch (InterruptedException ignored) {}
+                });
+                CompletableFuture<Void> first = executor.submit("it-store", () -> { writes.incrementAndGet(); written.set("first"); });
+                CompletableFuture<Void> second = executor.submit("it-store", () -> { writes.incrementAndGet(); written.set("second"); });
+                CompletableFuture<Void> failing = executor.submit("it-failing", () -> { throw new java.io.IOException("disk full"); });
+                CompletableFuture<String> barrier = executor.barrier(written::get);
+                gate.countDown();
+                t.assertTrue("executor drained", executor.awaitIdle(10, TimeUnit.SECONDS));
+                t.assertTrue("coalesced saves share a future", first == second);
+                t.assertEquals("coalesced saves write once", 1, writes.get());
+                t.assertEquals("newest snapshot written", "second", written.get());
+                t.assertTrue("write failure reported via future", failing.isCompletedExceptionally());
+                t.assertEquals("barrier runs after queued writes", "second", barrier.join());
+            }
+
+            // Connection pool: reuse, reset on return, validation, max size and idle eviction
+            {
+                AtomicInteger opened = new AtomicInteger();
+                AtomicInteger rollbacks = new AtomicInteger();
+                AtomicBoolean valid = new AtomicBoolean(true);
+                JdbcConnectionPool.ConnectionFactory fake = () -> {
+                    opened.incrementAndGet();
+                    boolean[] autoCommitAndClosed = { true, false };
+                    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[] { Connection.class }, (proxy, m, a) -> {
+                            switch (m.getName()) {
+                                case "getAutoCommit": return autoCommitAndClosed[0];
+                                case "setAutoCommit": autoCommitAndClosed[0] = (Boolean) a[0]; return null;
+                                case "rollback": rollbacks.incrementAndGet(); return null;
+                                case "isValid": return valid.get();
+                                case "isClosed": return autoCommitAndClosed[1];
+                                case "close": autoCommitAndClosed[1] = true; return null;
+                                default: return null;
+                            }
+                        });
+                };
+                try (JdbcConnectionPool pool = new JdbcConnectionPool(fake, 2, 50, 0, 60_000);
+                     JdbcConnectionPool evicting = new JdbcConnectionPool(fake, 1, 50, 0, 0)) {
+                    Connection first = pool.borrow();
+                    first.setAutoCommit(false);
+                    first.close();
+                    Connection second = pool.borrow();
+                    t.assertEquals("pooled connection reused", 1, opened.get());
+                    t.assertTrue("open transaction rolled back on return", rollbacks.get() == 1 && second.getAutoCommit());
+                    try {
+                        first.getAutoCommit();
+                        t.fail("returned connection rejects calls");
+                    } catch (SQLException expected) {
+                        t.assertTrue("returned connection rejects calls", first.isClosed());
+                    }
+                    Connection third = pool.borrow();
+                    t.assertEquals("active connections", 2, pool.metrics().active);
+                    try {
+                        pool.borrow().close();
+                        t.fail("exhausted pool times out");
+                    } catch (SQLException expected) {
+                        t.assertEquals("exhausted pool times out", 1L, pool.metrics().timeouts);
+                    }
+                    second.close();
+                    third.close();
+                    t.assertEquals("idle connections", 2, pool.metrics().idle);
+                    valid.set(false);
+                    Connection fresh = pool.borrow();
+                    t.assertTrue("invalid connections replaced",
+                        opened.get() == 3 && pool.metrics().validationFailures == 2);
+                    fresh.close();
+                    evicting.borrow().close();
+                    JdbcConnectionPool.Metrics m = evicting.metrics();
+                    t.assertTrue("idle connection evicted", m.idle == 0 && m.evicted == 1 && m.active == 0);
+                } catch (SQLException e) {
+                    t.fail("connection pool: " + e.getMessage());
+                }
+            }
+
+            // ID cache: a failed commit leaves no IDs of rolled-back rows behind
+            {
+                FakeQuizDb db = FakeQuizDb.named("it_tx");
+                db.failCommit.set(true);
+                List<String> errors = new ArrayList<>();
+                try (DatenBankDAOxDTO dao = new DatenBankDAOxDTO(new JdbcConnectionPool(db::connect, 1, 50, 0, 60_000))) {
+                    dao.setErrorHandler(errors::add);
+                    t.assertEquals("failed commit reported", -1L,
+                        dao.saveQuestion("IT_TX", 0, "Q", "?", null, List.of("a"), List.of(true)));
+                    t.assertTrue("rolled-back ids not cached", errors.size() == 1 && db.isEmpty()
+                        && dao.idCache().themeCount() == 0 && dao.idCache().questionCount() == 0);
+                    long id = dao.saveQuestion("IT_TX", 0, "Q", "?", null, List.of("a"), List.of(true));
+                    t.assertEquals("retry returns the committed row", db.questionId(db.themeId("IT_TX"), "Q"), (int) id);
+                    t.assertTrue("committed ids cached", dao.idCache().themeId("IT_TX").equals(db.themeId("IT_TX"))
+                        && dao.idCache().questionCount() == 1);
+                    // another client re-creates the theme: the cached IDs are stale
+                    db.answers.clear();
+                    db.questions.clear();
+                    db.themes.clear();
+                    long recreated = dao.saveQuestion("IT_TX", 0, "Q", "?", null, List.of("a"), List.of(true));
+                    t.assertTrue("stale cached ids dropped and save retried", recreated > 0 && errors.size() == 1
+                        && recreated == db.questionId(db.themeId("IT_TX"), "Q")
+                        && dao.idCache().themeId("IT_TX").equals(db.themeId("IT_TX")));
+                    db.answers.clear();
+                    db.questions.put(db.sequence.incrementAndGet(), db.questions.remove((int) recreated));
+                    t.assertTrue("delete by title retried on a stale id", dao.deleteQuestion("IT_TX", "Q", 0)
+                        && db.questionId(db.themeId("IT_TX"), "Q") == null && errors.size() == 1);
+                }
+            }
+
+            // SQL backend: one service per URL and user; another password for the same account is rejected;
+            // a service whose first load failed is not kept
+            {
+                String down = "jdbc:none:it_shared"; // unreachable: loading fails and is only reported
+                t.assertTrue("failed sql load not shared", DbblDelegate.createSql(down, "a", "pw").rawPersistence()
+                    != DbblDelegate.createSql(down, "a", "pw").rawPersistence());
+                FakeQuizDb.named("it_shared");
+                String url = FakeQuizDb.url("it_shared");
+                PersistenceDelegate shared = DbblDelegate.createSql(url, "a", "pw").rawPersistence();
+                t.assertTrue("sql service shared per url and user",
+                    shared == DbblDelegate.createSql(url, "a", "pw").rawPersistence()
+                        && shared != DbblDelegate.createSql(url, "b", "pw").rawPersistence());
+                try {
+                    DbblDelegate.createSql(url, "a", "other");
+                    t.fail("password mismatch rejected");
+                } catch (IllegalArgumentException expected) {
+                    t.assertTrue("password mismatch rejected", true);
+                }
+            }
+
+            // Schema file: table definitions only, runnable on an embedded database
+            List<String> schema = new ArrayList<>();
+            try {
+                schema = schemaStatements();
+            } catch (java.io.IOException e) {
+                t.fail("schema file: " + e.getMessage());
+            }
+            t.assertTrue("schema file yields table definitions", schema.size() == 5
+                && schema.stream().allMatch(s -> s.startsWith("CREATE TABLE")));
+
+            // DAO and SQL backend on the in-memory fake of the schema, and on an
+            // embedded MariaDB-mode database when an H2 driver is on the classpath
+            databaseScenario(t, "fake db", FakeQuizDb.url("it_dao"));
+
+            // SQL restore is one transaction: a failed commit changes nothing, cards of kept questions survive
+            {
+                FakeQuizDb db = FakeQuizDb.named("it_restore");
+                PersistenceDelegate backend = DbblDelegate.createSql(FakeQuizDb.url("it_restore"), "sa", "").rawPersistence();
+                backend.saveQuestion().apply(new PersistenceDelegate.QuestionData("IT_R", "Q", "?", List.of("a"), List.of(true)));
+                backend.flush().run();
+                guimodule.AdaptiveLeitnerCard card = new guimodule.AdaptiveLeitnerCard("IT_R:Q", "IT_R", "Q");
+                card.processResult(true, 1.0);
+                backend.syncLeitnerCards(List.of(card)).join();
+                t.assertTrue("sql backup created", backend.createBackup().apply("it-restore"));
+                backend.saveQuestion().apply(new PersistenceDelegate.QuestionData("IT_R", "Q2", "?", List.of("b"), List.of(true)));
+                backend.flush().run();
+                db.failCommit.set(true);
+                t.assertTrue("failed sql restore reported", !backend.restoreBackup().apply("it-restore"));
+                t.assertTrue("failed sql restore changes nothing", db.questionId(db.themeId("IT_R"), "Q2") != null
+                    && backend.containsQuestion().test("IT_R", "Q2"));
+                t.assertTrue("sql restore replaces questions", backend.restoreBackup().apply("it-restore")
+                    && db.questionId(db.themeId("IT_R"), "Q2") == null && !backend.containsQuestion().test("IT_R", "Q2"));
+                t.assertTrue("sql restore keeps cards of kept questions",
+                    db.cards.containsKey(db.questionId(db.themeId("IT_R"), "Q")));
+                try {
+                    Files.deleteIfExists(Paths.get("quiz_backups_sql", "it-restore.dat"));
+                } catch (java.io.IOException ignored) {}
+            }
+
+            // failed write-behind writes are retried without a new mutation; dropped ones are reloaded away
+            {
+                FakeQuizDb db = FakeQuizDb.named("it_drain");
+                PersistenceDelegate backend = DbblDelegate.createSql(FakeQuizDb.url("it_drain"), "sa", "").rawPersistence();
+                backend.saveTheme().apply(new PersistenceDelegate.ThemeData("IT_D", "d"));
+                backend.flush().run();
+                db.down.set(true);
+                backend.saveQuestion().apply(new PersistenceDelegate.QuestionData("IT_D", "Q", "?", List.of("a"), List.of(true)));
+                backend.flush().run();
+                db.down.set(false);
+                long deadline = System.currentTimeMillis() + 5_000;
+                while (db.questionId(db.themeId("IT_D"), "Q") == null && System.currentTimeMillis() < deadline) {
+                    try { Thread.sleep(50); } catch (InterruptedException e) { Thread.currentThread().interrupt(); break; }
+                }
+                t.assertTrue("failed write retried by itself", db.questionId(db.themeId("IT_D"), "Q") != null);
+                db.down.set(true);
+                backend.saveQuestion().apply(new PersistenceDelegate.QuestionData("IT_D", "Q2", "?", List.of("b"), List.of(true)));
+                for (int i = 0; i < 3; i++) backend.flush().run();
+                t.assertTrue("model keeps dropped write while database is down", backend.containsQuestion().test("IT_D", "Q2"));
+                db.down.set(false);
+                backend.flush().run();
+                t.assertTrue("dropped write reconciled from database",
+                    !backend.containsQuestion().test("IT_D", "Q2") && backend.containsQuestion().test("IT_D", "Q"));
+            }
+            if (!driverPresent("org.h2.Driver")) {
+                t.skip("embedded database tests: org.h2.Driver not on the classpath");
+            } else {
+                String url = "jdbc:h2:mem:it_dao;MODE=MariaDB;DB_CLOSE_DELAY=-1";
+                try (Connection c = java.sql.DriverManager.getConnection(url, "sa", "");
+                     java.sql.Statement s = c.createStatement()) {
+                    for (String ddl : schema) s.execute(ddl);
+                    databaseScenario(t, "h2", url);
+                } catch (SQLException e) {
+                    t.fail("embedded database: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * DAO and SQL backend round trip on the empty quiz schema at {@code url}
+         * (user "sa", no password).
+         */
+        private static void databaseScenario(TestSupport t, String label, String url) {
+            String p = label + ": ";
+            try (DatenBankDAOxDTO dao = new DatenBankDAOxDTO(url, "sa", "")) {
+                t.assertTrue(p + "dao saves theme", dao.saveTheme("IT_DB", "a") && dao.saveTheme("IT_DB", "b"));
+                t.assertTrue(p + "dao loads theme", dao.loadAllThemes().contains("IT_DB"));
+                t.assertTrue(p + "dao registers session", dao.registerSession("it-session"));
+                dao.unregisterSession("it-session");
+                t.assertTrue(p + "dao saves question", dao.saveQuestion("IT_DB", 0, "Q1", "?", null, List.of(), List.of()) > 0);
+                guimodule.AdaptiveLeitnerCard card = new guimodule.AdaptiveLeitnerCard("IT_DB:Q1", "IT_DB", "Q1");
+                DatenBankDAOxDTO.CardSyncReport sync = dao.saveLeitnerCards(List.of(card,
+                    new guimodule.AdaptiveLeitnerCard("IT_DB:gone", "IT_DB", "gone")));
+                t.assertTrue(p + "cards upserted in one batch", sync.committed && sync.saved == 1
+                    && sync.batchNanos.size() == 1 && sync.missing.equals(List.of("IT_DB:gone")));
+                card.processResult(true, 2.0);
+                t.assertTrue(p + "card updated in place", dao.saveLeitnerCard(card));
+                t.assertEquals(p + "one row per card", 1, dao.loadAllLeitnerCards().size());
+                t.assertTrue(p + "ids served from cache", dao.idCache().hits() >= 2);
+                dao.saveQuestion("IT_DB", 0, "Q1", "?", null, List.of("x", "y"), List.of(false, true));
+                dao.saveQuestion("IT_DB", 0, "Q2", "?", null, List.of(), List.of());
+                t.assertTrue(p + "question update keeps its card", dao.loadAllLeitnerCards().stream()
+                    .anyMatch(c -> c.getQuestionTitle().equals("Q1") && c.getTotalAttempts() == 1));
+                List<RepoQuizeeQuestions> streamed = new ArrayList<>();
+                t.assertEquals(p + "questions streamed", 2L, dao.loadAllQuestions(streamed::add));
+                t.assertTrue(p + "answers joined in order", streamed.get(0).getAntworten().equals(List.of("x", "y"))
+                    && streamed.get(0).value().correctMask() == 2L && streamed.get(1).getAntworten().isEmpty());
+                dao.deleteTheme("IT_DB");
+                t.assertEquals(p + "deleted theme leaves cache", 0, dao.idCache().themeCount());
+                t.assertEquals(p + "deleted theme cascades to cards", 0, dao.loadAllLeitnerCards().size());
+                t.assertEquals(p + "dao reuses one pooled connection", 1L, dao.poolMetrics().created);
+
+                // SQL backend: reads from the in-memory model, repeated edits coalesce into one write
+                DbblDelegate sql = DbblDelegate.createSql(url, "sa", "");
+                PersistenceDelegate backend = sql.rawPersistence();
+                backend.saveTheme().apply(new PersistenceDelegate.ThemeData("IT_SQL", "d"));
+                for (int i = 0; i < 3; i++) {
+                    backend.saveQuestion().apply(new PersistenceDelegate.QuestionData("IT_SQL", "Q", "v" + i,
+                        List.of("a", "b"), List.of(true, false)));
+                }
+                t.assertEquals(p + "write-behind read model", "v2", backend.loadQuestionsByTheme().apply("IT_SQL").get(0).questionText);
+                List<String> savedEvents = new java.util.concurrent.CopyOnWriteArrayList<>();
+                backend.addDataChangeListener(e -> { if ("QUESTION_SAVED".equals(e.type)) savedEvents.add(e.target); });
+                backend.flush().run();
+                List<RepoQuizeeQuestions> rows = new ArrayList<>();
+                dao.loadAllQuestions(q -> { if (q.getThema().equals("IT_SQL")) rows.add(q); });
+                t.assertTrue(p + "coalesced question written once",
+                    rows.size() == 1 && rows.get(0).getFrageText().equals("v2") && rows.get(0).getAntworten().size() == 2);
+                t.assertTrue(p + "stored question gets database id",
+                    backend.loadQuestionsByTheme().apply("IT_SQL").get(0).id == rows.get(0).getId());
+                guimodule.AdaptiveLeitnerCard played = new guimodule.AdaptiveLeitnerCard("IT_SQL:Q", "IT_SQL", "Q");
+                played.processResult(true, 1.0);
+                backend.syncLeitnerCards(List.of(played)).join();
+                t.assertTrue(p + "session cards synced", dao.loadAllLeitnerCards().stream()
+                    .anyMatch(c -> c.getQuestionTitle().equals("Q") && c.getTotalAttempts() == 1));
+                t.assertEquals(p + "id assignment announced", List.of("IT_SQL:Q"), savedEvents);
+                backend.deleteTheme().apply("IT_SQL");
+                backend.flush().run();
+                t.assertTrue(p + "theme delete written", !dao.loadAllThemes().contains("IT_SQL"));
             }
         }
     }
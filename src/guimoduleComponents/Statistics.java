@@ -250,20 +250,11 @@ public class Statistics extends JPanel implements Serializable {
      */
     private Set<String> getAllExistingQuestions() {
         Set<String> existingQuestions = new HashSet<>();
-        List<String> existingThemes = delegate.getAllTopics();
-
-        for (String theme : existingThemes) {
-            try {
-                List<String> questionTitles = delegate.getQuestionTitles(theme);
-                if (questionTitles != null) {
-                    existingQuestions.addAll(questionTitles);
-                }
-            } catch (Exception e) {
-                // Skip themes that cause errors
-                System.err.println("Error getting questions for theme '" + theme + "': " + e.getMessage());
-            }
+        try {
+            delegate.streamAllQuestions().forEach(q -> existingQuestions.add(q.getTitel()));
+        } catch (Exception e) {
+            System.err.println("Error getting existing questions: " + e.getMessage());
         }
-
         return existingQuestions;
     }
 